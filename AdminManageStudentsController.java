@@ -1,8 +1,18 @@
 package attendance.controller;
 
+import attendance.model.AttendanceSnapshot;
+import attendance.model.AttendanceStatistics;
+import attendance.model.AttendanceStatus;
 import attendance.model.Student;
+import attendance.model.SubmittedReport;
 import attendance.model.User;
+import attendance.service.AttendanceColumnStore;
+import attendance.service.BatchReportService;
+import attendance.service.ClassService;
+import attendance.service.ReportCache;
+import attendance.service.Services;
 import attendance.service.StudentService;
+import attendance.service.SubmittedReportService;
 import attendance.service.UserService;
 import attendance.service.DatabaseService;
 import javafx.fxml.FXML;
@@ -31,10 +41,11 @@ import javafx.scene.input.KeyCombination;
 import javafx.beans.binding.Bindings;
 
 import java.net.URL;
-import java.sql.Connection;
-import java.sql.Statement;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.ResourceBundle;
 import java.util.ArrayList;
 import java.io.File;
@@ -69,6 +80,8 @@ public class AdminManageStudentsController implements Initializable {
     @FXML private MenuItem resetPasswordMenuItem;
     @FXML private MenuItem resetUsernamePasswordMenuItem;
     @FXML private MenuItem generateReportMenuItem;
+    @FXML private MenuItem generateAllReportsMenuItem;
+    @FXML private MenuItem submittedReportsMenuItem;
     @FXML private MenuItem fixUserAccountsMenuItem;
     @FXML private MenuItem deleteSelectedMenuItem;
     
@@ -91,8 +104,8 @@ public class AdminManageStudentsController implements Initializable {
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        studentService = new StudentService();
-        userService = new UserService();
+        studentService = Services.studentService();
+        userService = Services.userService();
         databaseService = new DatabaseService();
         
         setupTableColumns();
@@ -1433,34 +1446,7 @@ public class AdminManageStudentsController implements Initializable {
     }
     
     private boolean forceDeleteStudent(Student student) {
-        try {
-            DatabaseService dbService = new DatabaseService();
-            try (Connection conn = dbService.getConnection(); 
-                 Statement stmt = conn.createStatement()) {
-                
-                stmt.execute("PRAGMA foreign_keys = OFF");
-                
-                String deleteSql = "DELETE FROM students WHERE id = " + student.getId();
-                stmt.executeUpdate(deleteSql);
-                
-                if (student.getUserId() > 0) {
-                    String deleteUserSql = "DELETE FROM users WHERE id = " + student.getUserId();
-                    stmt.executeUpdate(deleteUserSql);
-                }
-                
-                String deleteAttendanceSql = "DELETE FROM attendance WHERE student_id = " + student.getId();
-                stmt.executeUpdate(deleteAttendanceSql);
-                
-                stmt.execute("PRAGMA foreign_keys = ON");
-                
-                return true;
-                
-            }
-        } catch (Exception e) {
-            System.err.println("❌ Force delete failed for student ID " + student.getId() + ": " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+        return studentService.forceDeleteStudent(student.getId());
     }
     
     @FXML
@@ -1695,32 +1681,22 @@ public class AdminManageStudentsController implements Initializable {
                       .append(" (").append(student.getDepartment()).append(")\n");
             }
             
-            // Calculate attendance statistics
+            // Calculate attendance statistics from the in-memory column snapshot
             try {
-                int totalAttendanceRecords = 0;
-                int presentCount = 0;
-                int absentCount = 0;
-                
-                // Get attendance data for these students
-                String sql = "SELECT COUNT(*) as total, " +
-                            "SUM(CASE WHEN status = 'PRESENT' THEN 1 ELSE 0 END) as present, " +
-                            "SUM(CASE WHEN status = 'ABSENT' THEN 1 ELSE 0 END) as absent " +
-                            "FROM attendance a " +
-                            "JOIN students s ON a.student_id = s.id " +
-                            "WHERE s.class_name = ?";
+                Map<String, Object> classData = new ClassService().getClassByName(selectedClass);
+                Set<Integer> classFilter = Set.of(classData != null ? (Integer) classData.get("id") : -1);
+                AttendanceColumnStore columnStore = AttendanceColumnStore.getInstance();
+                ReportCache reportCache = ReportCache.getInstance();
                 
-                try (java.sql.Connection conn = databaseService.getConnection();
-                     java.sql.PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                    
-                    pstmt.setString(1, selectedClass);
-                    java.sql.ResultSet rs = pstmt.executeQuery();
-                    
-                    if (rs.next()) {
-                        totalAttendanceRecords = rs.getInt("total");
-                        presentCount = rs.getInt("present");
-                        absentCount = rs.getInt("absent");
-                    }
+                AttendanceColumnStore.GroupedCounts overall = reportCache.get("class-overall", selectedClass,
+                    LocalDate.MIN, LocalDate.MAX, null, () -> columnStore.groupBy(LocalDate.MIN, LocalDate.MAX,
+                        classFilter, AttendanceColumnStore.Dimension.ALL, AttendanceColumnStore.Dimension.ALL));
+                if (overall == null) {
+                    throw new IllegalStateException("attendance snapshot unavailable");
                 }
+                int totalAttendanceRecords = overall.total(0, 0);
+                int presentCount = overall.count(0, 0, AttendanceStatus.PRESENT);
+                int absentCount = overall.count(0, 0, AttendanceStatus.ABSENT);
                 
                 report.append("\n📈 Attendance Statistics:\n");
                 report.append("-------------------------\n");
@@ -1747,6 +1723,21 @@ public class AdminManageStudentsController implements Initializable {
                     }
                 }
                 
+                LocalDate today = LocalDate.now();
+                AttendanceColumnStore.GroupedCounts weekly = reportCache.get("class-weekly", selectedClass,
+                    today.withDayOfYear(1), today, null, () -> columnStore.groupBy(today.withDayOfYear(1), today,
+                        classFilter, AttendanceColumnStore.Dimension.WEEK, AttendanceColumnStore.Dimension.ALL));
+                if (weekly != null && weekly.getRowCount() > 0) {
+                    report.append("\n📅 Weekly Attendance Rate (").append(today.getYear()).append("):\n");
+                    report.append("-------------------------\n");
+                    for (int week = 0; week < weekly.getRowCount(); week++) {
+                        if (weekly.total(week, 0) > 0) {
+                            report.append(weekly.getRowLabel(week)).append(": ")
+                                  .append(String.format("%.1f", weekly.attendanceRate(week, 0))).append("%\n");
+                        }
+                    }
+                }
+                
             } catch (Exception e) {
                 System.err.println("Error calculating attendance statistics: " + e.getMessage());
                 report.append("\n📈 Attendance Statistics: Data unavailable\n");
@@ -1778,6 +1769,149 @@ public class AdminManageStudentsController implements Initializable {
         });
     }
     
+    @FXML
+    private void handleGenerateAllReports() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save All Class Reports As");
+        fileChooser.setInitialFileName("Attendance_Reports_" + LocalDate.now() + ".zip");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Zip Archives", "*.zip"));
+        
+        File file = fileChooser.showSaveDialog((Stage) studentsTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        
+        // Reports cover the current term so far
+        LocalDate today = LocalDate.now();
+        LocalDate termStart = LocalDate.of(today.getYear(), today.getMonthValue() > 6 ? 7 : 1, 1);
+        String generatedBy = "Admin";
+        if (currentUser != null) {
+            generatedBy = currentUser.getFirstName();
+            if (currentUser.getLastName() != null && !currentUser.getLastName().isEmpty()) {
+                generatedBy += " " + currentUser.getLastName();
+            }
+        }
+        
+        BatchReportService batchService = new BatchReportService(databaseService);
+        ProgressBar progressBar = new ProgressBar(0);
+        progressBar.setPrefWidth(300);
+        Label progressLabel = new Label("Preparing attendance data...");
+        VBox content = new VBox(10, progressLabel, progressBar);
+        content.setPadding(new Insets(10));
+        
+        Dialog<Void> progress = new Dialog<>();
+        progress.setTitle("Generate All Class Reports");
+        progress.setHeaderText("Writing one report per class to " + file.getName());
+        progress.getDialogPane().setContent(content);
+        progress.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        progress.setResultConverter(buttonType -> {
+            batchService.cancel();
+            return null;
+        });
+        progress.show();
+        
+        String author = generatedBy;
+        new Thread(() -> {
+            BatchReportService.BatchResult result = batchService.generateAll(file, termStart, today, author,
+                (done, total) -> Platform.runLater(() -> {
+                    progressBar.setProgress((double) done / total);
+                    progressLabel.setText("Written " + done + " of " + total + " class reports");
+                }));
+            
+            Platform.runLater(() -> {
+                progress.close();
+                if (result == null) {
+                    showAlert("Error", "Failed to generate class reports. See the log for details.",
+                             Alert.AlertType.ERROR);
+                } else if (!result.isCancelled()) {
+                    showAlert("Success",
+                            "✅ Generated " + result.getReports() + " class reports in " +
+                            result.getElapsedMillis() + " ms\n\nSaved to:\n" + file.getAbsolutePath(),
+                            Alert.AlertType.INFORMATION);
+                }
+            });
+        }, "batch-report-writer").start();
+    }
+    
+    @FXML
+    private void handleOpenKiosk() {
+        KioskCheckInWindow.show(studentsTable.getScene().getWindow());
+    }
+    
+    @FXML
+    private void handleOpenSubmittedReport() {
+        SubmittedReportService reportService = new SubmittedReportService(databaseService);
+        List<SubmittedReport> reports = reportService.getReports();
+        if (reports.isEmpty()) {
+            showAlert("No Reports", "No attendance reports have been submitted yet.", Alert.AlertType.INFORMATION);
+            return;
+        }
+        
+        List<String> choices = reports.stream().map(SubmittedReport::describe).toList();
+        ChoiceDialog<String> reportDialog = new ChoiceDialog<>(choices.get(0), choices);
+        reportDialog.setTitle("Submitted Reports");
+        reportDialog.setHeaderText("Select a submitted report to open:");
+        reportDialog.setContentText("Report:");
+        
+        reportDialog.showAndWait().ifPresent(choice -> {
+            SubmittedReport selected = reports.get(choices.indexOf(choice));
+            AttendanceSnapshot snapshot = reportService.openSnapshot(selected.id());
+            if (snapshot == null) {
+                showAlert("Report Unavailable",
+                        "Report #" + selected.id() + " was submitted before full report data was stored, " +
+                        "so it cannot be reopened.", Alert.AlertType.WARNING);
+                return;
+            }
+            
+            // Re-aggregated from the submitted rows, not the live tables
+            StringBuilder report = new StringBuilder();
+            report.append("📥 Submitted Report ").append(selected.describe()).append("\n");
+            report.append("============================================\n");
+            report.append("Submitted on: ").append(selected.submittedDate())
+                  .append(" (generated ").append(snapshot.getGeneratedAt()).append(")\n");
+            report.append("Status: ").append(selected.status()).append("\n");
+            
+            AttendanceStatistics overall = snapshot.statistics();
+            report.append("\n📈 Attendance Statistics:\n");
+            report.append("-------------------------\n");
+            report.append("Total Attendance Records: ").append(overall.totalRecords()).append("\n");
+            report.append(String.format("Present: %d (%.1f%%)%n", overall.presentCount(), overall.presentRate()));
+            report.append(String.format("Absent: %d (%.1f%%)%n", overall.absentCount(), overall.absentRate()));
+            report.append(String.format("Late: %d (%.1f%%)%n", overall.lateCount(), overall.lateRate()));
+            
+            report.append("\n👥 By Student:\n");
+            report.append("-------------\n");
+            for (int student = 0; student < snapshot.getStudentCount(); student++) {
+                AttendanceStatistics stats = snapshot.statisticsForStudent(student);
+                report.append(String.format("• %s - %s: %d present, %d absent, %d late of %d%n",
+                    snapshot.getStudentId(student), snapshot.getStudentName(student), stats.presentCount(),
+                    stats.absentCount(), stats.lateCount(), stats.totalRecords()));
+            }
+            
+            report.append("\n📅 By Day:\n");
+            report.append("---------\n");
+            for (int row = 0; row < snapshot.size(); row++) {
+                if (row == 0 || snapshot.getDay(row) != snapshot.getDay(row - 1)) {
+                    AttendanceStatistics day = snapshot.statisticsForDay(snapshot.getDate(row));
+                    report.append(String.format("%s: %d present, %d absent, %d late%n",
+                        snapshot.getDate(row), day.presentCount(), day.absentCount(), day.lateCount()));
+                }
+            }
+            
+            TextArea textArea = new TextArea(report.toString());
+            textArea.setEditable(false);
+            textArea.setWrapText(true);
+            textArea.setPrefSize(600, 500);
+            
+            Dialog<Void> viewDialog = new Dialog<>();
+            viewDialog.setTitle("Submitted Report");
+            viewDialog.setHeaderText("Report #" + selected.id() + " for " + selected.className());
+            viewDialog.getDialogPane().setContent(textArea);
+            viewDialog.getDialogPane().getButtonTypes().add(ButtonType.OK);
+            viewDialog.showAndWait();
+        });
+    }
+    
     @FXML
     private void handleBackToDashboard() {
         // Similar to above - navigate back to dashboard within main.fxml
@@ -1847,21 +1981,7 @@ public class AdminManageStudentsController implements Initializable {
     
     // NEW: Helper method to get existing classes from database
     private List<String> getExistingClasses() {
-        List<String> classes = new ArrayList<>();
-        try {
-            String sql = "SELECT DISTINCT class_name FROM students WHERE class_name IS NOT NULL AND class_name != '' ORDER BY class_name";
-            try (java.sql.Connection conn = databaseService.getConnection();
-                 java.sql.PreparedStatement pstmt = conn.prepareStatement(sql);
-                 java.sql.ResultSet rs = pstmt.executeQuery()) {
-                
-                while (rs.next()) {
-                    classes.add(rs.getString("class_name"));
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error getting existing classes: " + e.getMessage());
-        }
-        return classes;
+        return studentService.getClassNamesInUse();
     }
     
     // NEW: Method to add tooltips for better UX
@@ -0,0 +1,253 @@
+package attendance.server;
+
+import attendance.model.User;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP side of client mode: talks to an ApiServer for the Remote* services.
+ * One HttpClient keeps its connections alive between calls. Identical GETs
+ * that overlap share one request, and answers are kept in a small read-through
+ * cache for CACHE_TTL_MILLIS; any write through this client clears the cache,
+ * so a user always sees their own changes. Bodies are gzipped both ways.
+ */
+public class ApiClient {
+
+    public static final long CACHE_TTL_MILLIS = 30_000;
+
+    private static final int CACHE_MAX_ENTRIES = 500;
+    private static final int GZIP_MIN_BYTES = 1024;
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    private static final class CachedResponse {
+        final Object json;
+        final long expiresMillis;
+
+        CachedResponse(Object json, long expiresMillis) {
+            this.json = json;
+            this.expiresMillis = expiresMillis;
+        }
+    }
+
+    private final String baseUrl;
+    private final HttpClient http;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResponse> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > CACHE_MAX_ENTRIES;
+        }
+    };
+    // Bumped by every write so a GET that raced with it is not cached
+    private long generation;
+
+    private volatile String token;
+    private volatile User currentUser;
+    private volatile Integer teacherId;
+    private volatile Integer studentId;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong jsonBytes = new AtomicLong();
+
+    public ApiClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    }
+
+    /** Logs in and keeps the session token for later calls; null on bad credentials. */
+    public User login(String username, String password) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("username", username);
+        body.put("password", password);
+
+        HttpResponse<byte[]> response = exchange("POST", "/api/login", body);
+        if (response.statusCode() == 401) {
+            return null;
+        }
+        Map<String, Object> result = Json.bind(readJson(response), Map.class);
+        token = (String) result.get("token");
+        currentUser = Json.bind(result.get("user"), User.class);
+        teacherId = Json.bind(result.get("teacherId"), Integer.class);
+        studentId = Json.bind(result.get("studentId"), Integer.class);
+        invalidateCache();
+        return currentUser;
+    }
+
+    public User getCurrentUser() { return currentUser; }
+    public Integer getTeacherId() { return teacherId; }
+    public Integer getStudentId() { return studentId; }
+
+    /** Cached GET; concurrent callers for the same path share one request. */
+    public <T> T get(String path, Type type) throws IOException {
+        synchronized (cache) {
+            CachedResponse cached = cache.get(path);
+            if (cached != null && cached.expiresMillis > System.currentTimeMillis()) {
+                cacheHits.incrementAndGet();
+                return Json.bind(cached.json, type);
+            }
+        }
+        return Json.bind(fetch(path, true), type);
+    }
+
+    /** GET that skips the cache but still coalesces. */
+    public <T> T getFresh(String path, Type type) throws IOException {
+        return Json.bind(fetch(path, false), type);
+    }
+
+    /** POST, PUT or DELETE; clears the cache once the server has answered. */
+    public <T> T send(String method, String path, Object body, Type type) throws IOException {
+        try {
+            return Json.bind(readJson(exchange(method, path, body)), type);
+        } finally {
+            invalidateCache();
+        }
+    }
+
+    public void invalidateCache() {
+        synchronized (cache) {
+            generation++;
+            cache.clear();
+        }
+    }
+
+    public static String encode(String segment) {
+        return URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    public String getStatsSummary() {
+        long wire = wireBytes.get();
+        long json = jsonBytes.get();
+        return String.format("%d requests, %d coalesced, %d cache hits, %d KB received as %d KB on the wire",
+            requests.get(), coalesced.get(), cacheHits.get(), json / 1024, wire / 1024);
+    }
+
+    private Object fetch(String path, boolean store) throws IOException {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(path, mine);
+        if (leader != null) {
+            coalesced.incrementAndGet();
+            return await(leader);
+        }
+
+        long startGeneration;
+        synchronized (cache) {
+            startGeneration = generation;
+        }
+        try {
+            Object json = readJson(exchange("GET", path, null));
+            if (store) {
+                synchronized (cache) {
+                    if (generation == startGeneration) {
+                        cache.put(path, new CachedResponse(json, System.currentTimeMillis() + CACHE_TTL_MILLIS));
+                    }
+                }
+            }
+            mine.complete(json);
+            return json;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(path, mine);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for " + e.getMessage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private HttpResponse<byte[]> exchange(String method, String path, Object body) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(TIMEOUT)
+            .header("Accept", "application/json")
+            .header("Accept-Encoding", "gzip");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+
+        if (body == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length >= GZIP_MIN_BYTES) {
+                bytes = gzip(bytes);
+                request.header("Content-Encoding", "gzip");
+            }
+            request.header("Content-Type", "application/json; charset=utf-8");
+            request.method(method, HttpRequest.BodyPublishers.ofByteArray(bytes));
+        }
+
+        requests.incrementAndGet();
+        try {
+            return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted calling " + path);
+        }
+    }
+
+    private Object readJson(HttpResponse<byte[]> response) throws IOException {
+        byte[] bytes = response.body();
+        wireBytes.addAndGet(bytes.length);
+        if (response.headers().firstValue("Content-Encoding").map("gzip"::equalsIgnoreCase).orElse(false)) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                bytes = in.readAllBytes();
+            }
+        }
+        jsonBytes.addAndGet(bytes.length);
+
+        Object json;
+        try {
+            json = Json.parse(new String(bytes, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad response from server (HTTP " + response.statusCode() + ")");
+        }
+        if (response.statusCode() >= 400) {
+            Object error = json instanceof Map ? ((Map<?, ?>) json).get("error") : null;
+            throw new IOException("HTTP " + response.statusCode() + (error != null ? ": " + error : ""));
+        }
+        return json;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+}
\ No newline at end of file
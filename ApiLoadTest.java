@@ -0,0 +1,138 @@
+package attendance.test;
+
+import attendance.server.Json;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test for the API server: N client threads each send a
+ * request, wait for the answer and send the next, round-robin over the given
+ * paths, for a fixed time. Prints requests per second and client-side latency
+ * percentiles, then the server's own /api/metrics.
+ *
+ * Usage: ApiLoadTest [baseUrl] [username] [password] [threads] [seconds] [path...]
+ */
+public class ApiLoadTest {
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String username = args.length > 1 ? args[1] : "admin";
+        String password = args.length > 2 ? args[2] : "admin123";
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+        List<String> paths = args.length > 5
+            ? Arrays.asList(Arrays.copyOfRange(args, 5, args.length))
+            : List.of("/api/classes", "/api/students", "/api/notifications/unread-count", "/api/health");
+
+        System.out.println("=== API Load Test ===\n");
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        // 1. Log in once; every thread shares the token
+        HttpResponse<String> login = client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/api/login"))
+                .POST(HttpRequest.BodyPublishers.ofString(Json.write(Map.of("username", username, "password", password))))
+                .header("Content-Type", "application/json")
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (login.statusCode() != 200) {
+            System.out.println("1. Login: ✗ (" + login.statusCode() + " " + login.body() + ")");
+            return;
+        }
+        String token = (String) Json.parseObject(login.body()).get("token");
+        System.out.println("1. Login: ✓");
+
+        // 2. Warm up the JIT, the connection pool and the caches
+        runLoad(client, baseUrl, token, paths, threads, 3_000, new long[0]);
+        System.out.println("2. Warm-up: ✓");
+
+        // 3. Measure
+        long[] latencies = new long[threads * 200_000];
+        AtomicLong[] totals = runLoad(client, baseUrl, token, paths, threads, seconds * 1000L, latencies);
+        long requests = totals[0].get();
+        long errors = totals[1].get();
+        double elapsed = totals[2].get() / 1_000_000_000.0;
+
+        int recorded = (int) Math.min(requests, latencies.length);
+        long[] sorted = Arrays.copyOf(latencies, recorded);
+        Arrays.sort(sorted);
+        System.out.println("\n3. Results (" + threads + " threads, " + paths.size() + " paths, " + seconds + "s):");
+        System.out.printf("   Requests:       %d (%d errors)%n", requests, errors);
+        System.out.printf("   Throughput:     %.0f requests/second%n", requests / elapsed);
+        System.out.printf("   Latency p50:    %.2f ms%n", percentile(sorted, 0.50));
+        System.out.printf("   Latency p95:    %.2f ms%n", percentile(sorted, 0.95));
+        System.out.printf("   Latency p99:    %.2f ms%n", percentile(sorted, 0.99));
+        System.out.printf("   Latency max:    %.2f ms%n", recorded > 0 ? sorted[recorded - 1] / 1_000_000.0 : 0.0);
+
+        HttpResponse<String> metrics = client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/api/metrics"))
+                .header("Authorization", "Bearer " + token)
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+        System.out.println("\n4. Server metrics:\n   " + metrics.body());
+    }
+
+    // Returns {requests, errors, elapsed nanos}
+    private static AtomicLong[] runLoad(HttpClient client, String baseUrl, String token, List<String> paths,
+                                        int threads, long millis, long[] latencies) throws InterruptedException {
+        AtomicLong requests = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        List<HttpRequest> prepared = new ArrayList<>();
+        for (String path : paths) {
+            prepared.add(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .build());
+        }
+
+        long started = System.nanoTime();
+        long deadline = started + millis * 1_000_000;
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = offset; System.nanoTime() < deadline; i++) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(prepared.get(i % prepared.size()),
+                                                                      HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        long n = requests.getAndIncrement();
+                        if (n < latencies.length) {
+                            latencies[(int) n] = System.nanoTime() - sent;
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + t);
+            thread.start();
+        }
+        done.await();
+        return new AtomicLong[] { requests, errors, new AtomicLong(System.nanoTime() - started) };
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(sorted.length * fraction) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
\ No newline at end of file
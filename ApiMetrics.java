@@ -0,0 +1,116 @@
+package attendance.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-route request counters and latency histograms for the API server.
+ * Routes are keyed by their template ("GET /api/students/{id}"), not the raw
+ * path, so the map stays small. Latencies go into power-of-two microsecond
+ * buckets, which is enough for p50/p95/p99 within a factor of two and costs
+ * one atomic add per request.
+ */
+public class ApiMetrics {
+
+    private static final int BUCKETS = 32;
+
+    private static final class RouteStats {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalMicros = new LongAdder();
+        final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        volatile long maxMicros;
+    }
+
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final long startedMillis = System.currentTimeMillis();
+
+    public void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void requestFinished(String route, int status, long elapsedNanos) {
+        inFlight.decrementAndGet();
+        long micros = Math.max(1, elapsedNanos / 1000);
+
+        RouteStats stats = routes.computeIfAbsent(route, r -> new RouteStats());
+        stats.requests.increment();
+        if (status >= 500) {
+            stats.errors.increment();
+        }
+        stats.totalMicros.add(micros);
+        stats.histogram.incrementAndGet(Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros)));
+        if (micros > stats.maxMicros) {
+            stats.maxMicros = micros;
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getTotalRequests() {
+        long total = 0;
+        for (RouteStats stats : routes.values()) {
+            total += stats.requests.sum();
+        }
+        return total;
+    }
+
+    /** Snapshot for GET /api/metrics; latencies in milliseconds. */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        double uptimeSeconds = (System.currentTimeMillis() - startedMillis) / 1000.0;
+        long total = getTotalRequests();
+        result.put("uptimeSeconds", Math.round(uptimeSeconds));
+        result.put("requests", total);
+        result.put("requestsPerSecond", uptimeSeconds > 0 ? round(total / uptimeSeconds) : 0.0);
+        result.put("inFlight", inFlight.get());
+
+        Map<String, Object> byRoute = new TreeMap<>();
+        routes.forEach((route, stats) -> {
+            long requests = stats.requests.sum();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("requests", requests);
+            entry.put("errors", stats.errors.sum());
+            entry.put("avgMs", requests == 0 ? 0.0 : round(stats.totalMicros.sum() / 1000.0 / requests));
+            entry.put("p50Ms", percentile(stats, 0.50));
+            entry.put("p95Ms", percentile(stats, 0.95));
+            entry.put("p99Ms", percentile(stats, 0.99));
+            entry.put("maxMs", round(stats.maxMicros / 1000.0));
+            byRoute.put(route, entry);
+        });
+        result.put("routes", byRoute);
+        return result;
+    }
+
+    // Upper bound of the bucket holding the requested rank
+    private static double percentile(RouteStats stats, double fraction) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += stats.histogram.get(i);
+        }
+        if (count == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += stats.histogram.get(i);
+            if (seen >= rank) {
+                return round(Math.min((1L << (i + 1)) / 1000.0, stats.maxMicros / 1000.0));
+            }
+        }
+        return round(stats.maxMicros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
\ No newline at end of file
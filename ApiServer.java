@@ -0,0 +1,856 @@
+package attendance.server;
+
+import attendance.model.AttendanceEdit;
+import attendance.model.AttendanceReportRow;
+import attendance.model.AttendanceStatus;
+import attendance.model.ClassSummary;
+import attendance.model.Student;
+import attendance.model.StudentSummary;
+import attendance.model.User;
+import attendance.service.ClassScheduleService;
+import attendance.service.ClassService;
+import attendance.service.ConnectionPool;
+import attendance.service.DatabaseMaintenanceService;
+import attendance.service.DatabaseService;
+import attendance.service.DatabaseUpdateService;
+import attendance.service.IncrementalBackupStore;
+import attendance.service.KioskCheckInService;
+import attendance.service.NotificationService;
+import attendance.service.RetryPolicy;
+import attendance.service.StudentService;
+import attendance.service.TeacherService;
+import attendance.service.UserService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Headless server mode: the service layer behind a JSON HTTP API on the JDK's
+ * built-in HttpServer, so many teachers can share one attendance.db through a
+ * single process instead of each client opening the file.
+ *
+ * Requests run on a fixed worker pool with a bounded queue; when it is full
+ * the accepting thread runs the request itself, which stops it accepting and
+ * pushes back on clients through the TCP backlog. All services draw from one
+ * ConnectionPool sized to the workers. Clients log in with POST /api/login and
+ * send the returned token as "Authorization: Bearer <token>". Bodies may be
+ * gzipped either way; responses are only compressed past GZIP_MIN_BYTES.
+ * Kiosks do not log in; they send the token given with --kiosk-token as
+ * "X-Kiosk-Token", and badge scans are refused when none was configured.
+ */
+public class ApiServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int GZIP_MIN_BYTES = 1024;
+    private static final long SESSION_IDLE_MILLIS = TimeUnit.HOURS.toMillis(12);
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 5000;
+    private static final Set<String> STAFF = Set.of("ADMIN", "TEACHER");
+    private static final Set<String> ADMIN = Set.of("ADMIN");
+
+    /** Thrown by handlers to answer with an error status. */
+    public static class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        public ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Request request) throws Exception;
+    }
+
+    private static final class Session {
+        final User user;
+        final Integer teacherId;
+        final Integer studentId;
+        volatile long lastSeenMillis = System.currentTimeMillis();
+
+        Session(User user, Integer teacherId, Integer studentId) {
+            this.user = user;
+            this.teacherId = teacherId;
+            this.studentId = studentId;
+        }
+    }
+
+    private static final class Request {
+        final HttpExchange exchange;
+        final Map<String, String> params;
+        final Map<String, String> query;
+        Session session;
+
+        Request(HttpExchange exchange, Map<String, String> params, Map<String, String> query) {
+            this.exchange = exchange;
+            this.params = params;
+            this.query = query;
+        }
+
+        int intParam(String name) {
+            try {
+                return Integer.parseInt(params.get(name));
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Invalid " + name + ": " + params.get(name));
+            }
+        }
+
+        LocalDate date(String name, LocalDate fallback) {
+            String value = query.get(name);
+            if (value == null || value.isBlank()) {
+                return fallback;
+            }
+            try {
+                return LocalDate.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new ApiException(400, "Invalid date for " + name + ": " + value);
+            }
+        }
+
+        Map<String, Object> body() throws IOException {
+            boolean gzipped = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            try (InputStream in = gzipped ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+                byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+                if (bytes.length > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "Request body too large");
+                }
+                return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Malformed JSON: " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Route {
+        final String method;
+        final String template;
+        final Pattern pattern;
+        final List<String> names = new ArrayList<>();
+        final Set<String> roles;
+        final Handler handler;
+
+        Route(String method, String template, Set<String> roles, Handler handler) {
+            this.method = method;
+            this.template = template;
+            this.roles = roles;
+            this.handler = handler;
+
+            Matcher m = Pattern.compile("\\{(\\w+)}").matcher(template);
+            StringBuilder regex = new StringBuilder();
+            int last = 0;
+            while (m.find()) {
+                regex.append(Pattern.quote(template.substring(last, m.start()))).append("([^/]+)");
+                names.add(m.group(1));
+                last = m.end();
+            }
+            regex.append(Pattern.quote(template.substring(last)));
+            this.pattern = Pattern.compile(regex.toString());
+        }
+
+        String key() {
+            return method + " " + template;
+        }
+    }
+
+    private final int port;
+    private final int workers;
+    private final String kioskToken;
+    private final List<Route> routes = new ArrayList<>();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ApiMetrics metrics = new ApiMetrics();
+    private final SecureRandom random = new SecureRandom();
+
+    private final UserService userService = new UserService();
+    private final StudentService studentService = new StudentService();
+    private final TeacherService teacherService = new TeacherService();
+    private final ClassService classService = new ClassService();
+    private final NotificationService notificationService = new NotificationService();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    // Only with virtual threads: caps handlers running at once to the worker count
+    private Semaphore slots;
+    private ConnectionPool pool;
+
+    public ApiServer(int port, int workers) {
+        this(port, workers, null);
+    }
+
+    public ApiServer(int port, int workers, String kioskToken) {
+        this.port = port;
+        this.workers = Math.max(1, workers);
+        this.kioskToken = kioskToken != null && !kioskToken.isBlank() ? kioskToken : null;
+        registerRoutes();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int workers = Runtime.getRuntime().availableProcessors() * 2;
+        String kioskToken = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--workers")) {
+                workers = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--kiosk-token")) {
+                kioskToken = args[i + 1];
+            }
+        }
+
+        System.out.println("🎯 Attendance Management System - API Server");
+        DatabaseService dbService = new DatabaseService();
+        dbService.initializeDatabase();
+        new DatabaseUpdateService().checkAndUpdateSchema();
+        DatabaseMaintenanceService.getInstance().setWalArchive(new IncrementalBackupStore(IncrementalBackupStore.DEFAULT_STORE_DIR));
+        DatabaseMaintenanceService.getInstance().start();
+
+        ApiServer apiServer = new ApiServer(port, workers, kioskToken);
+        apiServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            apiServer.stop();
+            DatabaseMaintenanceService.getInstance().stop();
+        }, "api-server-shutdown"));
+    }
+
+    public synchronized void start() throws IOException {
+        // A few spare connections for nested service calls and the maintenance thread
+        pool = DatabaseService.createPool(workers + 4, ACQUIRE_TIMEOUT_MILLIS);
+        DatabaseService.usePool(pool);
+
+        // A virtual thread per request where the JDK has them (21+): requests waiting on a
+        // connection or a slow client park instead of holding a platform thread. On older
+        // JDKs a fixed pool with a bounded queue; when it is full the accepting thread runs
+        // the request itself, which pushes back on clients.
+        executor = newVirtualThreadExecutor();
+        if (executor != null) {
+            slots = new Semaphore(workers);
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workers * 16),
+                r -> {
+                    Thread t = new Thread(r, "api-worker-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+
+        // Headers and body go out in separate writes; without this Nagle holds the body for the peer's delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 256);
+        server.createContext("/api/", slots != null ? this::dispatchInSlot : this::dispatch);
+        server.setExecutor(executor);
+        server.start();
+        System.out.println("✅ API server listening on port " + port + " with " + workers + " workers" +
+                           (slots != null ? " on virtual threads" : ""));
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        DatabaseService.usePool(null);
+        pool.close();
+        server = null;
+        System.out.println("✅ API server stopped (" + metrics.getTotalRequests() + " requests served)");
+    }
+
+    // Looked up reflectively so the tree still builds and runs on JDK 17
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public ApiMetrics getMetrics() {
+        return metrics;
+    }
+
+    // MARK: ROUTES
+
+    private void get(String template, Set<String> roles, Handler handler) {
+        routes.add(new Route("GET", template, roles, handler));
+    }
+
+    private void post(String template, Set<String> roles, Handler handler) {
+        routes.add(new Route("POST", template, roles, handler));
+    }
+
+    private void put(String template, Set<String> roles, Handler handler) {
+        routes.add(new Route("PUT", template, roles, handler));
+    }
+
+    private void delete(String template, Set<String> roles, Handler handler) {
+        routes.add(new Route("DELETE", template, roles, handler));
+    }
+
+    private void registerRoutes() {
+        get("/api/health", null, r -> Map.of("status", "UP",
+            "uptimeSeconds", metrics.snapshot().get("uptimeSeconds")));
+        post("/api/login", null, this::login);
+        post("/api/logout", Set.of(), r -> {
+            sessions.values().remove(r.session);
+            return Map.of("loggedOut", true);
+        });
+        get("/api/me", Set.of(), r -> r.session.user);
+        get("/api/metrics", ADMIN, r -> metricsSnapshot());
+
+        get("/api/users", ADMIN, r -> r.query.containsKey("role")
+            ? userService.getUsersByRole(r.query.get("role").toUpperCase()) : userService.getAllUsers());
+        get("/api/users/exists", ADMIN, r -> Map.of("exists", userService.usernameExists(r.query.get("username"))));
+        get("/api/users/{id}", ADMIN, r -> found(userService.getUserById(r.intParam("id"))));
+        post("/api/users", ADMIN, r -> Map.of("id", userService.createUser(Json.bind(r.body(), User.class))));
+        put("/api/users/{id}", ADMIN, r -> {
+            User user = Json.bind(r.body(), User.class);
+            user.setId(r.intParam("id"));
+            return Map.of("updated", userService.updateUser(user));
+        });
+        delete("/api/users/{id}", ADMIN, r -> Map.of("deleted", userService.deleteUser(r.intParam("id"))));
+
+        get("/api/students", STAFF, r -> {
+            if (r.query.containsKey("className")) {
+                return studentService.getStudentsByClassName(r.query.get("className"));
+            }
+            if (r.query.containsKey("classId")) {
+                return studentService.getStudentsByClassId(Integer.parseInt(r.query.get("classId")));
+            }
+            return studentService.getAllStudents();
+        });
+        get("/api/students/classes", STAFF, r -> studentService.getClassNamesInUse());
+        get("/api/students/exists", ADMIN, r -> Map.of("exists", r.query.containsKey("email")
+            ? studentService.emailExists(r.query.get("email"))
+            : studentService.studentIdExists(r.query.get("studentId"))));
+        post("/api/students", ADMIN, r -> Map.of("saved", studentService.addStudent(Json.bind(r.body(), Student.class))));
+        put("/api/students/{id}", ADMIN, r -> {
+            Student student = Json.bind(r.body(), Student.class);
+            student.setId(r.intParam("id"));
+            return Map.of("updated", studentService.updateStudent(student));
+        });
+        delete("/api/students/{id}", ADMIN, r -> Map.of("deleted", "true".equals(r.query.get("force"))
+            ? studentService.forceDeleteStudent(r.intParam("id")) : studentService.deleteStudent(r.intParam("id"))));
+        get("/api/students/{id}", Set.of(), r -> {
+            int id = requireStudentAccess(r, r.intParam("id"));
+            return found(studentService.getStudentById(id));
+        });
+        get("/api/students/{id}/attendance", Set.of(), r -> {
+            int id = requireStudentAccess(r, r.intParam("id"));
+            return studentService.getAttendanceForStudent(id, r.date("from", LocalDate.MIN), r.date("to", LocalDate.MAX));
+        });
+
+        get("/api/teachers", ADMIN, r -> teacherService.getAllTeachers());
+        get("/api/teachers/{id}/classes", STAFF, r ->
+            teacherService.getTeacherClasses(requireTeacherAccess(r, r.intParam("id"))));
+        get("/api/teachers/{id}/statistics", STAFF, r -> {
+            int id = requireTeacherAccess(r, r.intParam("id"));
+            LocalDate to = r.date("to", LocalDate.now());
+            return teacherService.getAttendanceStatistics(id, r.date("from", to.minusDays(30)), to);
+        });
+
+        get("/api/classes", STAFF, r -> r.query.containsKey("teacherId")
+            ? classService.getClassesByTeacher(Integer.parseInt(r.query.get("teacherId")))
+            : classService.getAllClasses());
+        get("/api/classes/{name}/students", STAFF, r ->
+            teacherService.getStudentsInClass(requireClassAccess(r, r.params.get("name"))));
+        get("/api/classes/{name}/attendance", STAFF, r ->
+            teacherService.getClassAttendance(requireClassAccess(r, r.params.get("name")), r.date("date", LocalDate.now())));
+        // e.g. ?status=ABSENT&dates=2026-10-12,2026-10-13&match=all for students absent on both days
+        get("/api/classes/{name}/students/by-status", STAFF, r -> {
+            String className = requireClassAccess(r, r.params.get("name"));
+            List<LocalDate> dates = new ArrayList<>();
+            for (String value : r.query.getOrDefault("dates", "").split(",")) {
+                if (!value.isBlank()) {
+                    try {
+                        dates.add(LocalDate.parse(value.trim()));
+                    } catch (DateTimeParseException e) {
+                        throw new ApiException(400, "Invalid date in dates: " + value);
+                    }
+                }
+            }
+            if (dates.isEmpty()) {
+                throw new ApiException(400, "dates is required");
+            }
+            String match = r.query.getOrDefault("match", "all");
+            if (!match.equals("all") && !match.equals("any")) {
+                throw new ApiException(400, "match must be all or any");
+            }
+            return teacherService.getStudentsWithStatus(className,
+                AttendanceStatus.parse(r.query.getOrDefault("status", "ABSENT")), dates, match.equals("all"));
+        });
+
+        post("/api/attendance", STAFF, this::markAttendance);
+        // Re-derives PRESENT/LATE from the class timetables for recorded check-ins
+        post("/api/attendance/recompute-lateness", ADMIN, r -> {
+            LocalDate to = r.date("to", LocalDate.now());
+            return Map.of("updated", ClassScheduleService.getInstance().recomputeStatuses(r.date("from", to.minusDays(30)), to));
+        });
+        get("/api/attendance/report", STAFF, r -> attendanceReport(r, r.query.get("className")));
+        // Filed under the logged-in user, as reports are listed by users.id
+        post("/api/attendance/report", STAFF, r -> {
+            Map<String, Object> body = r.body();
+            List<AttendanceReportRow> rows = Json.bind(body.get("rows"), Json.listOf(AttendanceReportRow.class));
+            LocalDate from;
+            LocalDate to;
+            try {
+                from = LocalDate.parse(string(body, "from", true));
+                to = LocalDate.parse(string(body, "to", true));
+            } catch (DateTimeParseException e) {
+                throw new ApiException(400, "Invalid report range: " + e.getParsedString());
+            }
+            String className = string(body, "className", false);
+            if (className != null) {
+                requireClassAccess(r, className);
+            }
+            int reportId = teacherService.submitAttendanceReport(r.session.user.getId(), className,
+                from, to, rows != null ? rows : List.of());
+            if (reportId < 0) {
+                throw new ApiException(503, "Attendance report could not be saved");
+            }
+            return Map.of("reportId", reportId);
+        });
+        post("/api/attendance/sync", STAFF, this::syncAttendance);
+        // Kiosks on the network post badge scans here; the first scan starts the flusher
+        post("/api/kiosk/scan", null, r -> {
+            requireKiosk(r);
+            KioskCheckInService kiosk = KioskCheckInService.getInstance();
+            kiosk.start();
+            return kiosk.scan(string(r.body(), "badge", true));
+        });
+
+        get("/api/notifications", Set.of(), r -> notificationService.getNotifications(r.session.user.getId()));
+        get("/api/notifications/unread-count", Set.of(), r ->
+            Map.of("unread", notificationService.getUnreadCount(r.session.user.getId())));
+        post("/api/notifications", STAFF, this::sendNotification);
+        post("/api/notifications/attendance-report", STAFF, r -> {
+            Map<String, Object> body = r.body();
+            Object reportId = body.get("reportId");
+            return Map.of("sent", notificationService.sendAttendanceReportToAdmin(
+                r.session.teacherId != null ? r.session.teacherId : r.session.user.getId(),
+                string(body, "teacherName", false), string(body, "className", true),
+                string(body, "fromDate", true), string(body, "toDate", true),
+                reportId instanceof Number ? ((Number) reportId).intValue() : 0));
+        });
+        post("/api/notifications/attendance-published", STAFF, r -> {
+            Map<String, Object> body = r.body();
+            return Map.of("sent", notificationService.notifyStudentsAboutAttendance(
+                requireClassAccess(r, string(body, "className", true)),
+                string(body, "fromDate", true), string(body, "toDate", true)));
+        });
+        post("/api/notifications/read-all", Set.of(), r ->
+            Map.of("updated", notificationService.markAllAsRead(r.session.user.getId())));
+        post("/api/notifications/{id}/read", Set.of(), r -> {
+            int id = r.intParam("id");
+            boolean own = notificationService.getNotifications(r.session.user.getId()).stream()
+                .anyMatch(n -> n.getId() == id);
+            if (!own) {
+                throw new ApiException(404, "Notification not found");
+            }
+            return Map.of("updated", notificationService.markAsRead(id));
+        });
+    }
+
+    private Object login(Request r) throws IOException {
+        Map<String, Object> body = r.body();
+        String username = string(body, "username", true);
+        String password = string(body, "password", true);
+
+        User user = userService.authenticate(username, password);
+        if (user == null) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+
+        Integer teacherId = user.isTeacher() ? teacherService.getTeacherIdFromUserId(user.getId()) : null;
+        Student student = user.isStudent() ? studentService.getStudentByUserId(user.getId()) : null;
+
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user, teacherId, student != null ? student.getId() : null));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("token", token);
+        result.put("user", user);
+        result.put("teacherId", teacherId);
+        result.put("studentId", student != null ? student.getId() : null);
+        return result;
+    }
+
+    // One record or {"records": [...]}; each is saved on its own so one bad row does not sink the rest
+    @SuppressWarnings("unchecked")
+    private Object markAttendance(Request r) throws IOException {
+        Map<String, Object> body = r.body();
+        List<Map<String, Object>> records = body.get("records") instanceof List
+            ? (List<Map<String, Object>>) body.get("records") : List.of(body);
+
+        Set<Integer> writable = writableStudents(r);
+        int saved = 0;
+        List<Object> failed = new ArrayList<>();
+        for (Map<String, Object> record : records) {
+            Object studentId = record.get("studentId");
+            try {
+                int id = ((Number) studentId).intValue();
+                if (writable != null && !writable.contains(id)) {
+                    failed.add(studentId);
+                    continue;
+                }
+                LocalDate date = LocalDate.parse(string(record, "date", true));
+                AttendanceStatus status = AttendanceStatus.parse(string(record, "status", false));
+                if (teacherService.markAttendance(id, date, status, string(record, "remarks", false))) {
+                    saved++;
+                } else {
+                    failed.add(studentId);
+                }
+            } catch (ClassCastException | NullPointerException | IllegalArgumentException
+                     | DateTimeParseException e) {
+                failed.add(studentId);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("saved", saved);
+        result.put("failed", failed);
+        return result;
+    }
+
+    // Edits for students outside the teacher's classes count as failed, so the journal
+    // that sent them still drains instead of retrying them forever
+    private Object syncAttendance(Request r) throws IOException, SQLException {
+        List<AttendanceEdit> edits = Json.bind(r.body().get("edits"), Json.listOf(AttendanceEdit.class));
+        Set<Integer> writable = writableStudents(r);
+        if (writable == null) {
+            return teacherService.applyEdits(edits);
+        }
+        List<AttendanceEdit> allowed = new ArrayList<>(edits.size());
+        for (AttendanceEdit edit : edits) {
+            if (writable.contains(edit.studentId())) {
+                allowed.add(edit);
+            }
+        }
+        TeacherService.ApplyResult result = teacherService.applyEdits(allowed);
+        return new TeacherService.ApplyResult(result.applied(), result.superseded(),
+            result.failed() + edits.size() - allowed.size(), result.clock());
+    }
+
+    // A teacher asking for every class gets every class of theirs, in the same order
+    private Object attendanceReport(Request r, String className) {
+        LocalDate to = r.date("to", LocalDate.now());
+        LocalDate from = r.date("from", to.minusDays(7));
+        List<String> classNames = className != null ? List.of(requireClassAccess(r, className))
+            : r.session.user.isAdmin() ? null : new ArrayList<>(ownClassNames(r));
+
+        List<AttendanceReportRow> rows;
+        if (classNames == null) {
+            rows = teacherService.getAttendanceReport(null, from, to);
+        } else {
+            rows = new ArrayList<>();
+            for (String name : classNames) {
+                List<AttendanceReportRow> part = teacherService.getAttendanceReport(name, from, to);
+                if (part == null) {
+                    rows = null;
+                    break;
+                }
+                rows.addAll(part);
+            }
+            if (rows != null && classNames.size() > 1) {
+                rows.sort(Comparator.comparing(AttendanceReportRow::date).reversed()
+                    .thenComparing(AttendanceReportRow::lastName).thenComparing(AttendanceReportRow::firstName));
+            }
+        }
+        if (rows == null) {
+            throw new ApiException(503, "Attendance report could not be loaded");
+        }
+        return rows;
+    }
+
+    private Object sendNotification(Request r) throws IOException {
+        Map<String, Object> body = r.body();
+        Object receiver = body.get("receiverId");
+        if (!(receiver instanceof Number)) {
+            throw new ApiException(400, "receiverId is required");
+        }
+        String type = string(body, "type", false);
+        boolean sent = notificationService.createNotification(r.session.user.getId(), ((Number) receiver).intValue(),
+            string(body, "title", true), string(body, "message", true), type != null ? type : "INFO", null, 0);
+        return Map.of("sent", sent);
+    }
+
+    private Map<String, Object> metricsSnapshot() {
+        Map<String, Object> result = metrics.snapshot();
+        result.put("connectionPool", pool.getStatsSummary());
+        result.put("retryPolicy", RetryPolicy.getDefault().getMetricsSummary().trim());
+        result.put("workerQueue", executor instanceof ThreadPoolExecutor
+            ? ((ThreadPoolExecutor) executor).getQueue().size() : slots.getQueueLength());
+        result.put("sessions", sessions.size());
+        if (KioskCheckInService.getInstance().isRunning()) {
+            result.put("kiosk", KioskCheckInService.getInstance().getStatsSummary());
+        }
+        return result;
+    }
+
+    // MARK: ACCESS
+
+    // classes.teacher_id holds the teacher's users.id, which is what the desktop screens pass
+    private static int requireTeacherAccess(Request r, int teacherId) {
+        if (!r.session.user.isAdmin() && r.session.user.getId() != teacherId) {
+            throw new ApiException(403, "Teachers can only see their own classes");
+        }
+        return teacherId;
+    }
+
+    private Set<String> ownClassNames(Request r) {
+        Set<String> names = new HashSet<>();
+        for (ClassSummary summary : teacherService.getTeacherClasses(r.session.user.getId())) {
+            names.add(summary.className());
+        }
+        return names;
+    }
+
+    private String requireClassAccess(Request r, String className) {
+        if (!r.session.user.isAdmin() && !ownClassNames(r).contains(className)) {
+            throw new ApiException(403, "Teachers can only see their own classes");
+        }
+        return className;
+    }
+
+    // Students whose attendance the caller may write; null for admins, who may write any
+    private Set<Integer> writableStudents(Request r) {
+        if (r.session.user.isAdmin()) {
+            return null;
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (String className : ownClassNames(r)) {
+            for (StudentSummary student : teacherService.getStudentsInClass(className)) {
+                ids.add(student.id());
+            }
+        }
+        return ids;
+    }
+
+    // Students see themselves, teachers the students of their own classes
+    private int requireStudentAccess(Request r, int studentId) {
+        if (r.session.user.isStudent() && (r.session.studentId == null || r.session.studentId != studentId)) {
+            throw new ApiException(403, "Students can only see their own records");
+        }
+        if (!r.session.user.isStudent()) {
+            Set<Integer> writable = writableStudents(r);
+            if (writable != null && !writable.contains(studentId)) {
+                throw new ApiException(403, "Teachers can only see students of their own classes");
+            }
+        }
+        return studentId;
+    }
+
+    private void requireKiosk(Request r) {
+        if (kioskToken == null) {
+            throw new ApiException(403, "Kiosk scanning is not enabled on this server");
+        }
+        String token = r.exchange.getRequestHeaders().getFirst("X-Kiosk-Token");
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                                                    kioskToken.getBytes(StandardCharsets.UTF_8))) {
+            throw new ApiException(401, "Kiosk token required");
+        }
+    }
+
+    private Session authenticate(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        Session session = sessions.get(header.substring(7).trim());
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - session.lastSeenMillis > SESSION_IDLE_MILLIS) {
+            sessions.values().remove(session);
+            return null;
+        }
+        session.lastSeenMillis = now;
+        return session;
+    }
+
+    // MARK: DISPATCH
+
+    // Beyond the worker count, requests wait parked here rather than crowd the connection pool
+    private void dispatchInSlot(HttpExchange exchange) {
+        slots.acquireUninterruptibly();
+        try {
+            dispatch(exchange);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void dispatch(HttpExchange exchange) {
+        long started = System.nanoTime();
+        metrics.requestStarted();
+        String routeKey = exchange.getRequestMethod() + " (unmatched)";
+        int status = 500;
+        Object body;
+
+        try {
+            String path = exchange.getRequestURI().getRawPath();
+            Route route = null;
+            Matcher matcher = null;
+            boolean pathMatched = false;
+            for (Route candidate : routes) {
+                Matcher m = candidate.pattern.matcher(path);
+                if (m.matches()) {
+                    pathMatched = true;
+                    if (candidate.method.equals(exchange.getRequestMethod())) {
+                        route = candidate;
+                        matcher = m;
+                        break;
+                    }
+                }
+            }
+            if (route == null) {
+                throw new ApiException(pathMatched ? 405 : 404, pathMatched ? "Method not allowed" : "Not found");
+            }
+            routeKey = route.key();
+
+            Map<String, String> params = new HashMap<>();
+            for (int i = 0; i < route.names.size(); i++) {
+                params.put(route.names.get(i), URLDecoder.decode(matcher.group(i + 1), StandardCharsets.UTF_8));
+            }
+            Request request = new Request(exchange, params, parseQuery(exchange.getRequestURI().getRawQuery()));
+
+            if (route.roles != null) {
+                request.session = authenticate(exchange);
+                if (request.session == null) {
+                    throw new ApiException(401, "Login required");
+                }
+                if (!route.roles.isEmpty() && !route.roles.contains(request.session.user.getRole())) {
+                    throw new ApiException(403, "Not allowed for role " + request.session.user.getRole());
+                }
+            }
+
+            body = route.handler.handle(request);
+            status = 200;
+
+        } catch (ApiException e) {
+            status = e.getStatus();
+            body = Map.of("error", e.getMessage());
+        } catch (NumberFormatException e) {
+            status = 400;
+            body = Map.of("error", "Invalid number: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = Map.of("error", e.getMessage());
+        } catch (Exception e) {
+            System.err.println("❌ API error on " + routeKey + ": " + e);
+            body = Map.of("error", "Internal server error");
+        }
+
+        try {
+            send(exchange, status, body);
+        } catch (IOException e) {
+            // Client went away; nothing left to tell it
+        } finally {
+            exchange.close();
+            metrics.requestFinished(routeKey, status, System.nanoTime() - started);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (bytes.length >= GZIP_MIN_BYTES && accept != null && accept.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            query.put(key, value);
+        }
+        return query;
+    }
+
+    private static Object found(Object value) {
+        if (value == null) {
+            throw new ApiException(404, "Not found");
+        }
+        return value;
+    }
+
+    private static String string(Map<String, Object> body, String name, boolean required) {
+        Object value = body.get(name);
+        if (value == null || value.toString().isBlank()) {
+            if (required) {
+                throw new ApiException(400, name + " is required");
+            }
+            return null;
+        }
+        return value.toString();
+    }
+}
\ No newline at end of file
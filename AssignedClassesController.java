@@ -1,5 +1,7 @@
 package attendance.controller;
 
+import attendance.model.ClassSummary;
+import attendance.model.StudentSummary;
 import attendance.model.User;
 import attendance.service.ClassService;
 import attendance.service.TeacherService;
@@ -9,17 +11,15 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class AssignedClassesController {
     
-    @FXML private TableView<Map<String, Object>> classesTable;
-    @FXML private TableColumn<Map<String, Object>, String> classNameColumn;
-    @FXML private TableColumn<Map<String, Object>, String> roomColumn;
-    @FXML private TableColumn<Map<String, Object>, String> scheduleColumn;
-    @FXML private TableColumn<Map<String, Object>, Integer> studentCountColumn;
+    @FXML private TableView<ClassSummary> classesTable;
+    @FXML private TableColumn<ClassSummary, String> classNameColumn;
+    @FXML private TableColumn<ClassSummary, String> roomColumn;
+    @FXML private TableColumn<ClassSummary, String> scheduleColumn;
+    @FXML private TableColumn<ClassSummary, Integer> studentCountColumn;
     
     @FXML private Label totalClassesLabel;
     @FXML private Label totalStudentsLabel;
@@ -27,7 +27,7 @@ public class AssignedClassesController {
     private User currentUser;
     private TeacherService teacherService;
     private ClassService classService;
-    private ObservableList<Map<String, Object>> classesList;
+    private ObservableList<ClassSummary> classesList;
     
     public void setCurrentUser(User user) {
         this.currentUser = user;
@@ -53,28 +53,24 @@ public class AssignedClassesController {
     private void setupTableColumns() {
         // Setup cell value factories
         classNameColumn.setCellValueFactory(data -> {
-            Map<String, Object> rowData = data.getValue();
-            String className = (String) rowData.get("className");
+            String className = data.getValue().className();
             return new javafx.beans.property.SimpleStringProperty(className != null ? className : "");
         });
         
         roomColumn.setCellValueFactory(data -> {
-            Map<String, Object> rowData = data.getValue();
-            String room = (String) rowData.get("room");
+            String room = data.getValue().room();
             return new javafx.beans.property.SimpleStringProperty(room != null ? room : "");
         });
         
         scheduleColumn.setCellValueFactory(data -> {
-            Map<String, Object> rowData = data.getValue();
-            String schedule = (String) rowData.get("schedule");
+            String schedule = data.getValue().schedule();
             return new javafx.beans.property.SimpleStringProperty(schedule != null ? schedule : "");
         });
         
-        studentCountColumn.setCellValueFactory(data -> {
-            Map<String, Object> rowData = data.getValue();
-            Integer studentCount = (Integer) rowData.get("studentCount");
-            return new javafx.beans.property.SimpleIntegerProperty(studentCount != null ? studentCount : 0).asObject();
-        });
+        studentCountColumn.setCellValueFactory(data ->
+            new javafx.beans.property.SimpleIntegerProperty(data.getValue().studentCount()).asObject());
+        
+        classesTable.setPlaceholder(new Label("No classes assigned"));
     }
     
     private void initializeData() {
@@ -98,36 +94,14 @@ public class AssignedClassesController {
         classesList.clear();
         
         // Get classes assigned to this teacher
-        List<Map<String, Object>> classes = classService.getClassesByTeacher(teacherId);
+        List<ClassSummary> classes = classService.getClassesByTeacher(teacherId);
         
-        if (classes != null && !classes.isEmpty()) {
+        if (!classes.isEmpty()) {
             System.out.println("✅ Found " + classes.size() + " assigned classes");
-            
-            // Convert to proper format for table
-            for (Map<String, Object> cls : classes) {
-                Map<String, Object> classData = new HashMap<>();
-                classData.put("id", cls.get("id"));
-                classData.put("className", cls.get("className"));
-                classData.put("room", cls.get("room"));
-                classData.put("schedule", cls.get("schedule"));
-                
-                // Get student count
-                Integer studentCount = (Integer) cls.get("studentCount");
-                classData.put("studentCount", studentCount != null ? studentCount : 0);
-                
-                classesList.add(classData);
-            }
+            classesList.setAll(classes);
         } else {
+            // The table placeholder tells the user
             System.out.println("⚠️ No classes assigned to this teacher");
-            classesList.clear();
-            
-            // Show message in table
-            Map<String, Object> noClassesRow = new HashMap<>();
-            noClassesRow.put("className", "No classes assigned");
-            noClassesRow.put("room", "N/A");
-            noClassesRow.put("schedule", "N/A");
-            noClassesRow.put("studentCount", 0);
-            classesList.add(noClassesRow);
         }
         
         // Update classes count
@@ -137,11 +111,8 @@ public class AssignedClassesController {
     private void updateStatistics() {
         // Calculate total students across all classes
         int totalStudents = 0;
-        for (Map<String, Object> cls : classesList) {
-            Object studentCountObj = cls.get("studentCount");
-            if (studentCountObj instanceof Integer) {
-                totalStudents += (Integer) studentCountObj;
-            }
+        for (ClassSummary cls : classesList) {
+            totalStudents += cls.studentCount();
         }
         totalStudentsLabel.setText(String.valueOf(totalStudents));
     }
@@ -165,14 +136,14 @@ public class AssignedClassesController {
         System.out.println("✅ Take Attendance button clicked");
         
         // Get selected class
-        Map<String, Object> selectedClass = classesTable.getSelectionModel().getSelectedItem();
+        ClassSummary selectedClass = classesTable.getSelectionModel().getSelectedItem();
         
-        if (selectedClass == null || "No classes assigned".equals(selectedClass.get("className"))) {
+        if (selectedClass == null) {
             showAlert("No Selection", "Please select a class to take attendance for.");
             return;
         }
         
-        String className = (String) selectedClass.get("className");
+        String className = selectedClass.className();
         System.out.println("✅ Taking attendance for class: " + className);
         
         // Here you would navigate to take attendance page
@@ -186,14 +157,14 @@ public class AssignedClassesController {
         System.out.println("✅ View Attendance button clicked");
         
         // Get selected class
-        Map<String, Object> selectedClass = classesTable.getSelectionModel().getSelectedItem();
+        ClassSummary selectedClass = classesTable.getSelectionModel().getSelectedItem();
         
-        if (selectedClass == null || "No classes assigned".equals(selectedClass.get("className"))) {
+        if (selectedClass == null) {
             showAlert("No Selection", "Please select a class to view attendance.");
             return;
         }
         
-        String className = (String) selectedClass.get("className");
+        String className = selectedClass.className();
         System.out.println("✅ Viewing attendance for class: " + className);
         
         // Here you would navigate to view attendance page
@@ -207,30 +178,27 @@ public class AssignedClassesController {
         System.out.println("✅ View Students button clicked");
         
         // Get selected class
-        Map<String, Object> selectedClass = classesTable.getSelectionModel().getSelectedItem();
+        ClassSummary selectedClass = classesTable.getSelectionModel().getSelectedItem();
         
-        if (selectedClass == null || "No classes assigned".equals(selectedClass.get("className"))) {
+        if (selectedClass == null) {
             showAlert("No Selection", "Please select a class to view students.");
             return;
         }
         
-        String className = (String) selectedClass.get("className");
+        String className = selectedClass.className();
         System.out.println("✅ Viewing students for class: " + className);
         
         // Get students in this class
-        List<Map<String, Object>> students = teacherService.getStudentsInClass(className);
+        List<StudentSummary> students = teacherService.getStudentsInClass(className);
         
-        if (students != null && !students.isEmpty()) {
+        if (!students.isEmpty()) {
             StringBuilder studentList = new StringBuilder();
             studentList.append("Students in ").append(className).append(":\n\n");
             
             int count = 1;
-            for (Map<String, Object> student : students) {
-                String studentId = (String) student.get("studentId");
-                String firstName = (String) student.get("firstName");
-                String lastName = (String) student.get("lastName");
-                studentList.append(count).append(". ").append(firstName).append(" ").append(lastName)
-                          .append(" (").append(studentId).append(")\n");
+            for (StudentSummary student : students) {
+                studentList.append(count).append(". ").append(student.fullName())
+                          .append(" (").append(student.studentId()).append(")\n");
                 count++;
             }
             
@@ -0,0 +1,311 @@
+package attendance.service;
+
+import attendance.model.AttendanceStatus;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flags chronically absent students as attendance is written. For every
+ * student it keeps the last WINDOW_DAYS recorded days in a small ring buffer
+ * with a running absence count and the current run of consecutive absences,
+ * so each write from TeacherService.markAttendance is O(1). When a student
+ * crosses a threshold, their class teacher and the admins get an AT_RISK
+ * notification, at most once per reason per student every week.
+ *
+ * State is built lazily from the last LOOKBACK_DAYS of attendance and rebuilt
+ * by the nightly maintenance pass, which corrects drift from writes that
+ * bypassed markAttendance or landed before the window.
+ */
+public class AtRiskDetector {
+
+    public static final int WINDOW_DAYS = 20;
+    public static final int MIN_DAYS = 5;
+    public static final double ABSENCE_RATE_THRESHOLD = 30.0;
+    public static final int STREAK_THRESHOLD = 3;
+
+    private static final int LOOKBACK_DAYS = 120;
+    private static final int RENOTIFY_DAYS = 7;
+    private static final String NOTIFICATION_TYPE = "AT_RISK";
+    private static final String RATE_TITLE = "At-Risk Student: High Absence Rate";
+    private static final String STREAK_TITLE = "At-Risk Student: Consecutive Absences";
+
+    // Last WINDOW_DAYS recorded days of one student, oldest first from head
+    private static final class Window {
+        final int[] days = new int[WINDOW_DAYS];
+        final byte[] statuses = new byte[WINDOW_DAYS];
+        int head;
+        int size;
+        int absences;
+        int streak;
+        boolean rateFlagged;
+        boolean streakFlagged;
+
+        int index(int i) {
+            return (head + i) % WINDOW_DAYS;
+        }
+
+        int lastDay() {
+            return size == 0 ? Integer.MIN_VALUE : days[index(size - 1)];
+        }
+
+        double absenceRate() {
+            return size == 0 ? 0 : absences * 100.0 / size;
+        }
+
+        // Returns false when the day is older than the window and cannot be applied
+        boolean apply(int day, int code) {
+            if (day > lastDay()) {
+                if (size == WINDOW_DAYS) {
+                    if (statuses[head] == ABSENT) {
+                        absences--;
+                    }
+                    head = (head + 1) % WINDOW_DAYS;
+                    size--;
+                }
+                int slot = index(size);
+                days[slot] = day;
+                statuses[slot] = (byte) code;
+                size++;
+                if (code == ABSENT) {
+                    absences++;
+                    streak++;
+                } else {
+                    streak = 0;
+                }
+                return true;
+            }
+
+            // A correction of a day already in the window; at most WINDOW_DAYS steps
+            for (int i = size - 1; i >= 0; i--) {
+                int slot = index(i);
+                if (days[slot] == day) {
+                    absences += (code == ABSENT ? 1 : 0) - (statuses[slot] == ABSENT ? 1 : 0);
+                    statuses[slot] = (byte) code;
+                    recountStreak();
+                    return true;
+                }
+                if (days[slot] < day) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private void recountStreak() {
+            int run = 0;
+            for (int i = size - 1; i >= 0 && statuses[index(i)] == ABSENT; i--) {
+                run++;
+            }
+            // A run covering the whole window may have started before it
+            streak = run == size ? Math.max(streak, run) : run;
+        }
+    }
+
+    private static final int ABSENT = AttendanceStatus.ABSENT.getCode();
+
+    private static AtRiskDetector instance;
+
+    private final DatabaseService databaseService;
+    private final AttendanceQueryRouter queryRouter;
+    private final NotificationService notificationService;
+    private final Map<Integer, Window> windows = new HashMap<>();
+    private boolean loaded;
+
+    public static synchronized AtRiskDetector getInstance() {
+        if (instance == null) {
+            instance = new AtRiskDetector(new DatabaseService());
+        }
+        return instance;
+    }
+
+    public AtRiskDetector(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.queryRouter = new AttendanceQueryRouter(databaseService);
+        this.notificationService = new NotificationService();
+    }
+
+    /** Feeds one committed write through the student's window and notifies on a threshold crossing. */
+    public void record(int studentId, LocalDate date, AttendanceStatus status) {
+        List<String> crossed;
+        synchronized (this) {
+            if (!loaded) {
+                load();
+            }
+            Window window = windows.computeIfAbsent(studentId, id -> new Window());
+            if (!window.apply((int) AttendanceDates.toDay(date), status.getCode())) {
+                return;
+            }
+            crossed = updateFlags(window);
+        }
+        for (String title : crossed) {
+            notifyAtRisk(studentId, title);
+        }
+    }
+
+    /** Recomputes every window from the database and notifies for any crossing the stream missed. */
+    public void rebuild() {
+        Map<Integer, List<String>> crossed = new HashMap<>();
+        synchronized (this) {
+            Map<Integer, Window> previous = new HashMap<>(windows);
+            if (!load()) {
+                return;
+            }
+            for (Map.Entry<Integer, Window> entry : windows.entrySet()) {
+                Window before = previous.get(entry.getKey());
+                Window window = entry.getValue();
+                List<String> titles = new ArrayList<>();
+                if (window.rateFlagged && (before == null || !before.rateFlagged)) {
+                    titles.add(RATE_TITLE);
+                }
+                if (window.streakFlagged && (before == null || !before.streakFlagged)) {
+                    titles.add(STREAK_TITLE);
+                }
+                if (!titles.isEmpty()) {
+                    crossed.put(entry.getKey(), titles);
+                }
+            }
+        }
+        crossed.forEach((studentId, titles) -> titles.forEach(title -> notifyAtRisk(studentId, title)));
+    }
+
+    /** Forgets all state; the next write rebuilds it. */
+    public synchronized void invalidate() {
+        loaded = false;
+        windows.clear();
+    }
+
+    public synchronized double getAbsenceRate(int studentId) {
+        Window window = windows.get(studentId);
+        return window != null ? window.absenceRate() : 0;
+    }
+
+    public synchronized int getAbsenceStreak(int studentId) {
+        Window window = windows.get(studentId);
+        return window != null ? window.streak : 0;
+    }
+
+    public synchronized boolean isAtRisk(int studentId) {
+        Window window = windows.get(studentId);
+        return window != null && (window.rateFlagged || window.streakFlagged);
+    }
+
+    // Raises a flag only on the way up; dropping back below clears it so a relapse notifies again
+    private static List<String> updateFlags(Window window) {
+        List<String> crossed = new ArrayList<>();
+        boolean rateRisk = window.size >= MIN_DAYS && window.absenceRate() >= ABSENCE_RATE_THRESHOLD;
+        if (rateRisk && !window.rateFlagged) {
+            crossed.add(RATE_TITLE);
+        }
+        window.rateFlagged = rateRisk;
+
+        boolean streakRisk = window.streak >= STREAK_THRESHOLD;
+        if (streakRisk && !window.streakFlagged) {
+            crossed.add(STREAK_TITLE);
+        }
+        window.streakFlagged = streakRisk;
+        return crossed;
+    }
+
+    private boolean load() {
+        long started = System.nanoTime();
+        LocalDate since = LocalDate.now().minusDays(LOOKBACK_DAYS);
+        String sql = "SELECT student_id, day, status FROM " + AttendanceQueryRouter.VIEW +
+                     " WHERE day >= ? AND status IS NOT NULL ORDER BY student_id, day";
+
+        try (Connection conn = queryRouter.openConnection(since, null);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, AttendanceDates.toDay(since));
+
+            Map<Integer, Window> rebuilt = new HashMap<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rebuilt.computeIfAbsent(rs.getInt(1), id -> new Window()).apply(rs.getInt(2), rs.getInt(3));
+                }
+            }
+            int atRisk = 0;
+            for (Window window : rebuilt.values()) {
+                updateFlags(window);
+                if (window.rateFlagged || window.streakFlagged) {
+                    atRisk++;
+                }
+            }
+
+            windows.clear();
+            windows.putAll(rebuilt);
+            loaded = true;
+            System.out.println("✅ At-risk detector built for " + rebuilt.size() + " students (" + atRisk +
+                             " at risk) in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error building at-risk detector: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void notifyAtRisk(int studentId, String title) {
+        String studentSql = "SELECT s.student_id, s.first_name, s.last_name, c.class_name, c.teacher_id " +
+                            "FROM students s LEFT JOIN classes c ON s.class_id = c.id WHERE s.id = ?";
+        String recentSql = "SELECT 1 FROM notifications WHERE notification_type = ? AND related_entity_type = 'STUDENT' " +
+                           "AND related_entity_id = ? AND title = ? AND created_at >= ? LIMIT 1";
+
+        try (Connection conn = databaseService.getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(recentSql)) {
+                pstmt.setString(1, NOTIFICATION_TYPE);
+                pstmt.setInt(2, studentId);
+                pstmt.setString(3, title);
+                pstmt.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now().minusDays(RENOTIFY_DAYS)));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return;
+                    }
+                }
+            }
+
+            String message;
+            List<Integer> recipients = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(studentSql)) {
+                pstmt.setInt(1, studentId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return;
+                    }
+                    String detail = title.equals(RATE_TITLE)
+                        ? String.format("was absent on %.0f%% of their last %d recorded days",
+                                        getAbsenceRate(studentId), Math.min(WINDOW_DAYS, windowSize(studentId)))
+                        : "has been absent " + getAbsenceStreak(studentId) + " days in a row";
+                    message = String.format("%s %s (%s) in %s %s.", rs.getString(2), rs.getString(3),
+                        rs.getString(1), rs.getString(4) != null ? rs.getString(4) : "no class", detail);
+                    if (rs.getObject(5) != null) {
+                        recipients.add(rs.getInt(5));
+                    }
+                }
+            }
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id FROM users WHERE role = 'ADMIN'")) {
+                while (rs.next()) {
+                    recipients.add(rs.getInt(1));
+                }
+            }
+
+            System.out.println("🚩 " + title + ": " + message);
+            for (int recipient : recipients) {
+                notificationService.createNotification(0, recipient, title, message,
+                                                       NOTIFICATION_TYPE, "STUDENT", studentId);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error sending at-risk notification: " + e.getMessage());
+        }
+    }
+
+    private synchronized int windowSize(int studentId) {
+        Window window = windows.get(studentId);
+        return window != null ? window.size : 0;
+    }
+}
\ No newline at end of file
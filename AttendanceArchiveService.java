@@ -0,0 +1,234 @@
+package attendance.service;
+
+import java.io.File;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves attendance rows of closed terms out of attendance.db into
+ * attendance_<term>.db files. The hot table then only holds open terms;
+ * AttendanceQueryRouter attaches the archives when a date range needs them.
+ *
+ * Archiving copies, checks and deletes in one IMMEDIATE transaction with the
+ * archive attached, so no write can land between the copy and the delete.
+ * Copies are keyed on the attendance id, so re-running a term replaces the
+ * archived rows instead of duplicating them. Once a term is registered,
+ * TeacherService refuses attendance writes to its days.
+ */
+public class AttendanceArchiveService {
+
+    private static final String ARCHIVE_ALIAS = "term_archive";
+
+    private final DatabaseService databaseService;
+
+    public AttendanceArchiveService() {
+        this(new DatabaseService());
+    }
+
+    public AttendanceArchiveService(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    public static void ensureRegistry(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS attendance_archives (" +
+                    "term TEXT PRIMARY KEY," +
+                    "file_name TEXT NOT NULL," +
+                    "from_date DATE NOT NULL," +
+                    "to_date DATE NOT NULL," +
+                    "row_count INTEGER NOT NULL DEFAULT 0," +
+                    "archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+    }
+
+    public static String archiveFileName(String term) {
+        return "attendance_" + term + ".db";
+    }
+
+    /** Archive every attendance row dated within [from, to] under the given term name. */
+    public boolean archiveTerm(String term, LocalDate from, LocalDate to) {
+        if (term == null || !term.matches("[A-Za-z0-9_-]+")) {
+            System.err.println("❌ Invalid term name: " + term);
+            return false;
+        }
+        if (from.isAfter(to) || !to.isBefore(LocalDate.now())) {
+            System.err.println("❌ Only closed terms can be archived: " + from + " to " + to);
+            return false;
+        }
+
+        System.out.println("📦 Archiving term " + term + " (" + from + " to " + to + ")");
+        String fileName = archiveFileName(term);
+
+        try (Connection conn = databaseService.getConnectionSafe()) {
+            ensureRegistry(conn);
+
+            for (TermArchive existing : listArchives(conn)) {
+                if (existing.overlaps(from, to) && !existing.getTerm().equals(term)) {
+                    System.err.println("❌ Term " + term + " overlaps archived term " + existing.getTerm());
+                    return false;
+                }
+            }
+
+            try (PreparedStatement attach = conn.prepareStatement("ATTACH DATABASE ? AS " + ARCHIVE_ALIAS)) {
+                attach.setString(1, new File(fileName).getAbsolutePath());
+                attach.execute();
+            }
+
+            try {
+                List<String> mainColumns = AttendanceQueryRouter.columnsOf(conn, "main");
+                String columns = String.join(", ", mainColumns);
+                int copied;
+                int removed;
+
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS " + ARCHIVE_ALIAS + ".attendance AS " +
+                                 "SELECT " + columns + " FROM main.attendance_records WHERE 0");
+                    // A term archived before a column was added keeps its old layout
+                    List<String> archived = AttendanceQueryRouter.columnsOf(conn, ARCHIVE_ALIAS);
+                    mainColumns.retainAll(archived);
+                    columns = String.join(", ", mainColumns);
+                    stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + ARCHIVE_ALIAS +
+                                 ".idx_attendance_id ON attendance(id)");
+                    stmt.execute("CREATE INDEX IF NOT EXISTS " + ARCHIVE_ALIAS +
+                                 ".idx_attendance_student_day ON attendance(student_id, day)");
+                    stmt.execute("CREATE INDEX IF NOT EXISTS " + ARCHIVE_ALIAS +
+                                 ".idx_attendance_day ON attendance(day)");
+                }
+
+                try (Statement begin = conn.createStatement()) {
+                    begin.execute("BEGIN IMMEDIATE");
+                }
+
+                try (PreparedStatement copy = conn.prepareStatement(
+                         "INSERT OR REPLACE INTO " + ARCHIVE_ALIAS + ".attendance (" + columns + ") " +
+                         "SELECT " + columns + " FROM main.attendance_records WHERE day BETWEEN ? AND ?");
+                     PreparedStatement check = conn.prepareStatement(
+                         "SELECT COUNT(*) FROM main.attendance_records m WHERE m.day BETWEEN ? AND ? " +
+                         "AND NOT EXISTS (SELECT 1 FROM " + ARCHIVE_ALIAS + ".attendance t WHERE t.id = m.id)");
+                     PreparedStatement delete = conn.prepareStatement(
+                         "DELETE FROM main.attendance_records WHERE day BETWEEN ? AND ?");
+                     PreparedStatement register = conn.prepareStatement(
+                         "INSERT OR REPLACE INTO main.attendance_archives " +
+                         "(term, file_name, from_date, to_date, row_count, archived_at) " +
+                         "VALUES (?, ?, ?, ?, (SELECT COUNT(*) FROM " + ARCHIVE_ALIAS + ".attendance), CURRENT_TIMESTAMP)")) {
+
+                    // Copy into the archive file, replacing rows left by an earlier run
+                    copy.setLong(1, AttendanceDates.toDay(from));
+                    copy.setLong(2, AttendanceDates.toDay(to));
+                    copied = copy.executeUpdate();
+
+                    // Never delete a hot row that did not make it into the archive
+                    check.setLong(1, AttendanceDates.toDay(from));
+                    check.setLong(2, AttendanceDates.toDay(to));
+                    try (ResultSet rs = check.executeQuery()) {
+                        if (rs.next() && rs.getInt(1) > 0) {
+                            throw new SQLException(rs.getInt(1) + " rows missing from archive after copy");
+                        }
+                    }
+
+                    // Drop the rows from the hot table and register the archive
+                    delete.setLong(1, AttendanceDates.toDay(from));
+                    delete.setLong(2, AttendanceDates.toDay(to));
+                    // The rows still count towards the student summaries from the archive
+                    removed = AttendanceSummaryService.deleteUntracked(conn, delete);
+
+                    register.setString(1, term);
+                    register.setString(2, fileName);
+                    register.setString(3, from.toString());
+                    register.setString(4, to.toString());
+                    register.executeUpdate();
+
+                    try (Statement commit = conn.createStatement()) {
+                        commit.execute("COMMIT");
+                    }
+                } catch (SQLException e) {
+                    try (Statement rollback = conn.createStatement()) {
+                        rollback.execute("ROLLBACK");
+                    } catch (SQLException ex) {
+                        // Transaction was already rolled back by SQLite
+                    }
+                    throw e;
+                }
+
+                System.out.println("✅ Archived term " + term + ": " + copied + " rows copied, " +
+                                 removed + " rows removed from the hot table");
+                return true;
+
+            } finally {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("DETACH DATABASE " + ARCHIVE_ALIAS);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error archiving term " + term + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    public List<TermArchive> listArchives() {
+        try (Connection conn = databaseService.getConnection()) {
+            return listArchives(conn);
+        } catch (SQLException e) {
+            System.err.println("❌ Error listing term archives: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    static List<TermArchive> listArchives(Connection conn) throws SQLException {
+        List<TermArchive> archives = new ArrayList<>();
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet exists = stmt.executeQuery(
+                 "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'attendance_archives'")) {
+            if (!exists.next()) {
+                return archives;
+            }
+        }
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT term, file_name, from_date, to_date, row_count FROM attendance_archives ORDER BY from_date")) {
+            while (rs.next()) {
+                archives.add(new TermArchive(
+                    rs.getString("term"),
+                    rs.getString("file_name"),
+                    LocalDate.parse(rs.getString("from_date")),
+                    LocalDate.parse(rs.getString("to_date")),
+                    rs.getInt("row_count")
+                ));
+            }
+        }
+        return archives;
+    }
+
+    public static class TermArchive {
+        private final String term;
+        private final String fileName;
+        private final LocalDate fromDate;
+        private final LocalDate toDate;
+        private final int rowCount;
+
+        public TermArchive(String term, String fileName, LocalDate fromDate, LocalDate toDate, int rowCount) {
+            this.term = term;
+            this.fileName = fileName;
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+            this.rowCount = rowCount;
+        }
+
+        public String getTerm() { return term; }
+        public String getFileName() { return fileName; }
+        public LocalDate getFromDate() { return fromDate; }
+        public LocalDate getToDate() { return toDate; }
+        public int getRowCount() { return rowCount; }
+
+        // A null bound means the range is open on that side
+        public boolean overlaps(LocalDate from, LocalDate to) {
+            return (to == null || !fromDate.isAfter(to)) && (from == null || !toDate.isBefore(from));
+        }
+    }
+}
\ No newline at end of file
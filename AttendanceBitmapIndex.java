@@ -0,0 +1,319 @@
+package attendance.service;
+
+import attendance.model.AttendanceStatus;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory attendance index for analytics. For every student and term it
+ * keeps one CompressedBitmap of epoch days per AttendanceStatus, and for every
+ * day one bitmap of student ids per status. Rates, absence streaks, "status on
+ * date X" and class-wide "who was absent on all/any of these days" questions
+ * are answered from the bitmaps without going back to SQLite.
+ *
+ * The index is built lazily from attendance_records and the term archives on
+ * first use. TeacherService.attendanceWritten feeds every write in afterwards;
+ * deleting a student drops that student's days, and bulk deletes such as the
+ * retention purge call invalidate() so the next query rebuilds. The student
+ * attendance page reads its term rate, streak and today's status from here,
+ * and TeacherService.getStudentsWithStatus answers the class-wide queries.
+ */
+public class AttendanceBitmapIndex {
+
+    private static final int STATUS_COUNT = AttendanceStatus.values().length;
+
+    private static AttendanceBitmapIndex instance;
+
+    private final AttendanceQueryRouter queryRouter;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // (student id << 32 | term) -> days by status code
+    private final Map<Long, CompressedBitmap[]> studentTerms = new HashMap<>();
+    // epoch day -> student ids by status code
+    private final Map<Integer, CompressedBitmap[]> days = new HashMap<>();
+    private boolean loaded;
+
+    public static synchronized AttendanceBitmapIndex getInstance() {
+        if (instance == null) {
+            instance = new AttendanceBitmapIndex(new DatabaseService());
+        }
+        return instance;
+    }
+
+    public AttendanceBitmapIndex(DatabaseService databaseService) {
+        this.queryRouter = new AttendanceQueryRouter(databaseService);
+    }
+
+    // MARK: UPDATES
+
+    /** Applies a write that has already been committed. Ignored until the index is built. */
+    public void record(int studentId, LocalDate date, AttendanceStatus status) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                apply(studentId, (int) AttendanceDates.toDay(date), status.getCode());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drops everything; the next query rebuilds from the database. */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            studentTerms.clear();
+            days.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drops a deleted student's days. Ignored until the index is built. */
+    public void forgetStudent(int studentId) {
+        lock.writeLock().lock();
+        try {
+            studentTerms.keySet().removeIf(key -> (int) (key >>> 32) == studentId);
+            for (CompressedBitmap[] onDay : days.values()) {
+                for (CompressedBitmap students : onDay) {
+                    students.remove(studentId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A day holds one status per student, so clear any other status first
+    private void apply(int studentId, int day, int code) {
+        CompressedBitmap[] byStatus = studentTerms.computeIfAbsent(key(studentId, day), k -> newBitmaps());
+        CompressedBitmap[] onDay = days.computeIfAbsent(day, k -> newBitmaps());
+
+        for (int s = 0; s < STATUS_COUNT; s++) {
+            if (s != code && byStatus[s].remove(day)) {
+                onDay[s].remove(studentId);
+            }
+        }
+        byStatus[code].add(day);
+        onDay[code].add(studentId);
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        String sql = "SELECT student_id, day, status FROM " + AttendanceQueryRouter.VIEW +
+                     " WHERE status IS NOT NULL";
+        int rows = 0;
+
+        try (Connection conn = queryRouter.openConnection(null, null);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                apply(rs.getInt(1), rs.getInt(2), rs.getInt(3));
+                rows++;
+            }
+            loaded = true;
+            System.out.println("✅ Attendance bitmap index built from " + rows + " rows in " +
+                             (System.nanoTime() - started) / 1_000_000 + " ms, " + getFootprintSummary());
+
+        } catch (SQLException e) {
+            // Leave it unloaded so the next query tries again
+            studentTerms.clear();
+            days.clear();
+            System.err.println("❌ Error building attendance bitmap index: " + e.getMessage());
+        }
+    }
+
+    // MARK: QUERIES
+
+    /** Percentage of the term's recorded days the student attended (present or late). */
+    public double attendanceRate(int studentId, LocalDate anyDayInTerm) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            CompressedBitmap[] byStatus = studentTerms.get(key(studentId, anyDayInTerm));
+            if (byStatus == null) {
+                return 0.0;
+            }
+            int total = 0;
+            int attended = 0;
+            for (AttendanceStatus status : AttendanceStatus.values()) {
+                int count = byStatus[status.getCode()].cardinality();
+                total += count;
+                if (status.isAttended()) {
+                    attended += count;
+                }
+            }
+            return total > 0 ? attended * 100.0 / total : 0.0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Longest run of consecutive absences in the term, counted over the days
+     * the student has records for, so weekends and holidays do not break a run.
+     */
+    public int longestAbsenceStreak(int studentId, LocalDate anyDayInTerm) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            CompressedBitmap[] byStatus = studentTerms.get(key(studentId, anyDayInTerm));
+            if (byStatus == null) {
+                return 0;
+            }
+            CompressedBitmap absent = byStatus[AttendanceStatus.ABSENT.getCode()];
+            CompressedBitmap recorded = new CompressedBitmap();
+            for (int s = 0; s < STATUS_COUNT; s++) {
+                recorded = CompressedBitmap.or(recorded, byStatus[s]);
+            }
+
+            int longest = 0;
+            int current = 0;
+            for (int day : recorded.toArray()) {
+                current = absent.contains(day) ? current + 1 : 0;
+                longest = Math.max(longest, current);
+            }
+            return longest;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The student's status on the date, or null when nothing was recorded. */
+    public AttendanceStatus statusOn(int studentId, LocalDate date) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            CompressedBitmap[] byStatus = studentTerms.get(key(studentId, date));
+            if (byStatus != null) {
+                int day = (int) AttendanceDates.toDay(date);
+                for (int s = 0; s < STATUS_COUNT; s++) {
+                    if (byStatus[s].contains(day)) {
+                        return AttendanceStatus.fromCode(s);
+                    }
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Roster students with the status on every one of the dates. */
+    public CompressedBitmap withStatusOnAll(CompressedBitmap roster, AttendanceStatus status, List<LocalDate> dates) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            CompressedBitmap result = roster;
+            for (LocalDate date : dates) {
+                if (result.isEmpty()) {
+                    break;
+                }
+                result = CompressedBitmap.and(result, studentsOn(date, status));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Roster students with the status on at least one of the dates. */
+    public CompressedBitmap withStatusOnAny(CompressedBitmap roster, AttendanceStatus status, List<LocalDate> dates) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            CompressedBitmap any = new CompressedBitmap();
+            for (LocalDate date : dates) {
+                any = CompressedBitmap.or(any, studentsOn(date, status));
+            }
+            return CompressedBitmap.and(roster, any);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private CompressedBitmap studentsOn(LocalDate date, AttendanceStatus status) {
+        CompressedBitmap[] onDay = days.get((int) AttendanceDates.toDay(date));
+        return onDay != null ? onDay[status.getCode()] : new CompressedBitmap();
+    }
+
+    // MARK: FOOTPRINT
+
+    /** Approximate heap used by the bitmaps and their map entries. */
+    public long getFootprintBytes() {
+        lock.readLock().lock();
+        try {
+            // HashMap entry, boxed key and the bitmap array per map entry
+            long bytes = (studentTerms.size() + days.size()) * (48L + 16 + 16 + 8L * STATUS_COUNT);
+            for (CompressedBitmap[] byStatus : studentTerms.values()) {
+                bytes += sizeOf(byStatus);
+            }
+            for (CompressedBitmap[] byStatus : days.values()) {
+                bytes += sizeOf(byStatus);
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getFootprintSummary() {
+        lock.readLock().lock();
+        try {
+            return studentTerms.size() + " student terms, " + days.size() + " days, ~" +
+                   (getFootprintBytes() + 1023) / 1024 + " KB";
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long sizeOf(CompressedBitmap[] byStatus) {
+        long bytes = 0;
+        for (CompressedBitmap bitmap : byStatus) {
+            bytes += bitmap.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private static CompressedBitmap[] newBitmaps() {
+        CompressedBitmap[] bitmaps = new CompressedBitmap[STATUS_COUNT];
+        for (int s = 0; s < STATUS_COUNT; s++) {
+            bitmaps[s] = new CompressedBitmap();
+        }
+        return bitmaps;
+    }
+
+    private static long key(int studentId, int day) {
+        return key(studentId, AttendanceDates.fromDay(day));
+    }
+
+    private static long key(int studentId, LocalDate date) {
+        return ((long) studentId << 32) | AttendanceDates.termOf(date);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,477 @@
+package attendance.service;
+
+import attendance.model.AttendanceStatistics;
+import attendance.model.AttendanceStatus;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Columnar in-memory copy of all attendance, hot table and archives, for
+ * school-wide reports. Each term is one segment of parallel primitive arrays
+ * (student, class, day, status) sorted by day. A group-by skips segments
+ * outside its date range, binary-searches the edges of the rest and splits
+ * the rows across the common fork-join pool; every leaf counts into a dense
+ * int array and the joins add those up.
+ *
+ * The snapshot is taken on first use and retaken when the version in
+ * attendance_version has moved. Triggers bump it on every change to
+ * attendance, students or classes, whichever code path or process made it,
+ * so a report never misses a committed change and unrelated writes such as
+ * notifications never force a reload.
+ */
+public class AttendanceColumnStore {
+
+    public enum Dimension { ALL, CLASS, STUDENT, WEEK, MONTH, TERM }
+
+    private static final int STATUS_COUNT = AttendanceStatus.values().length;
+    private static final int LEAF_ROWS = 1 << 15;
+
+    public static final String VERSION_TABLE = "attendance_version";
+
+    private static AttendanceColumnStore instance;
+
+    private final DatabaseService databaseService;
+    private final AttendanceQueryRouter queryRouter;
+    private volatile Snapshot snapshot;
+
+    public static synchronized AttendanceColumnStore getInstance() {
+        if (instance == null) {
+            instance = new AttendanceColumnStore(new DatabaseService());
+        }
+        return instance;
+    }
+
+    public AttendanceColumnStore(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.queryRouter = new AttendanceQueryRouter(databaseService);
+    }
+
+    static void createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + VERSION_TABLE + " (" +
+                    "id INTEGER PRIMARY KEY CHECK (id = 1)," +
+                    "version INTEGER NOT NULL)");
+            // Seeded from the clock so a recreated table never repeats a version a snapshot was taken at
+            stmt.execute("INSERT OR IGNORE INTO " + VERSION_TABLE + " (id, version) VALUES (1, " +
+                    System.currentTimeMillis() + ")");
+
+            bumpVersionOn(stmt, "attendance_records", "insert", "INSERT");
+            bumpVersionOn(stmt, "attendance_records", "update", "UPDATE OF student_id, class_id, day, status");
+            bumpVersionOn(stmt, "attendance_records", "delete", "DELETE");
+            bumpVersionOn(stmt, "students", "insert", "INSERT");
+            bumpVersionOn(stmt, "students", "update", "UPDATE OF student_id, first_name, last_name, class_id");
+            bumpVersionOn(stmt, "students", "delete", "DELETE");
+            bumpVersionOn(stmt, "classes", "insert", "INSERT");
+            bumpVersionOn(stmt, "classes", "update", "UPDATE OF class_name");
+            bumpVersionOn(stmt, "classes", "delete", "DELETE");
+        }
+    }
+
+    private static void bumpVersionOn(Statement stmt, String table, String name, String event) throws SQLException {
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_version_" + name + " AFTER " + event + " ON " + table +
+                " BEGIN UPDATE " + VERSION_TABLE + " SET version = version + 1 WHERE id = 1; END");
+    }
+
+    private long readVersion() throws SQLException {
+        try (Connection conn = databaseService.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM " + VERSION_TABLE + " WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    // MARK: SNAPSHOT
+
+    private static final class Segment {
+        final int term;
+        int size;
+        int[] student = new int[1024];
+        int[] clazz = new int[1024];
+        int[] day = new int[1024];
+        byte[] status = new byte[1024];
+
+        Segment(int term) {
+            this.term = term;
+        }
+
+        void add(int studentIndex, int classIndex, int dayValue, int code) {
+            if (size == day.length) {
+                int capacity = size * 2;
+                student = Arrays.copyOf(student, capacity);
+                clazz = Arrays.copyOf(clazz, capacity);
+                day = Arrays.copyOf(day, capacity);
+                status = Arrays.copyOf(status, capacity);
+            }
+            student[size] = studentIndex;
+            clazz[size] = classIndex;
+            day[size] = dayValue;
+            status[size] = (byte) code;
+            size++;
+        }
+
+        // First row on or after the day
+        int lowerBound(int target) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (day[mid] < target) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private static final class Snapshot {
+        final long version;
+        final List<Segment> segments = new ArrayList<>();
+        // Dense row index -> database id and display name
+        final List<Integer> classIds = new ArrayList<>();
+        final List<String> classNames = new ArrayList<>();
+        final List<Integer> studentIds = new ArrayList<>();
+        final List<String> studentNames = new ArrayList<>();
+        int rows;
+        int firstDay;
+        int lastDay = -1;
+
+        Snapshot(long version) {
+            this.version = version;
+        }
+    }
+
+    private Snapshot current() throws SQLException {
+        Snapshot s = snapshot;
+        if (s != null && s.version == readVersion()) {
+            return s;
+        }
+        synchronized (this) {
+            // Read before loading so a write during the load triggers another one
+            long version = readVersion();
+            s = snapshot;
+            if (s == null || s.version != version) {
+                s = load(version);
+                snapshot = s;
+            }
+            return s;
+        }
+    }
+
+    /** Drop the snapshot so the next query reloads it. */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot load(long version) throws SQLException {
+        long started = System.nanoTime();
+        Snapshot s = new Snapshot(version);
+
+        Map<Integer, String> classNames = new HashMap<>();
+        Map<Integer, String> studentNames = new HashMap<>();
+        Map<Integer, Integer> classIndex = new HashMap<>();
+        Map<Integer, Integer> studentIndex = new HashMap<>();
+
+        String sql = "SELECT a.student_id, COALESCE(a.class_id, st.class_id, 0), a.day, a.status " +
+                     "FROM " + AttendanceQueryRouter.VIEW + " a LEFT JOIN main.students st ON st.id = a.student_id " +
+                     "WHERE a.status IS NOT NULL ORDER BY a.day";
+
+        try (Connection conn = queryRouter.openConnection(null, null);
+             Statement stmt = conn.createStatement()) {
+
+            try (ResultSet rs = stmt.executeQuery("SELECT id, class_name FROM main.classes")) {
+                while (rs.next()) {
+                    classNames.put(rs.getInt(1), rs.getString(2));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT id, student_id || ' ' || first_name || ' ' || last_name FROM main.students")) {
+                while (rs.next()) {
+                    studentNames.put(rs.getInt(1), rs.getString(2));
+                }
+            }
+
+            Segment segment = null;
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    int studentId = rs.getInt(1);
+                    int classId = rs.getInt(2);
+                    int day = rs.getInt(3);
+                    int term = AttendanceDates.termOf(AttendanceDates.fromDay(day));
+
+                    if (segment == null || segment.term != term) {
+                        segment = new Segment(term);
+                        s.segments.add(segment);
+                    }
+                    int c = classIndex.computeIfAbsent(classId, id -> {
+                        s.classIds.add(id);
+                        s.classNames.add(classNames.getOrDefault(id, id == 0 ? "No class" : "Class #" + id));
+                        return s.classIds.size() - 1;
+                    });
+                    int st = studentIndex.computeIfAbsent(studentId, id -> {
+                        s.studentIds.add(id);
+                        s.studentNames.add(studentNames.getOrDefault(id, "Student #" + id));
+                        return s.studentIds.size() - 1;
+                    });
+                    segment.add(st, c, day, rs.getInt(4));
+                    if (s.rows++ == 0) {
+                        s.firstDay = day;
+                    }
+                    s.lastDay = day;
+                }
+            }
+        }
+
+        System.out.println("✅ Attendance column snapshot: " + s.rows + " rows in " + s.segments.size() +
+                         " terms, loaded in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        return s;
+    }
+
+    // MARK: QUERIES
+
+    /**
+     * Counts attendance by status over [from, to], grouped by two dimensions
+     * (use ALL for a single bucket). classFilter holds database class ids,
+     * or null for every class. Open ranges such as LocalDate.MIN are clamped
+     * to the data. Returns null if the snapshot cannot be loaded.
+     */
+    public GroupedCounts groupBy(LocalDate from, LocalDate to, Set<Integer> classFilter,
+                                 Dimension rows, Dimension columns) {
+        long started = System.nanoTime();
+        Snapshot s;
+        try {
+            s = current();
+        } catch (SQLException e) {
+            System.err.println("❌ Error loading attendance column snapshot: " + e.getMessage());
+            return null;
+        }
+
+        int fromDay = (int) Math.max(AttendanceDates.toDay(from), s.firstDay);
+        int toDay = (int) Math.min(AttendanceDates.toDay(to), s.lastDay);
+        Buckets rowBuckets = buckets(s, rows, fromDay, toDay);
+        Buckets columnBuckets = buckets(s, columns, fromDay, toDay);
+
+        boolean[] allowed = null;
+        if (classFilter != null) {
+            allowed = new boolean[s.classIds.size()];
+            for (int c = 0; c < allowed.length; c++) {
+                allowed[c] = classFilter.contains(s.classIds.get(c));
+            }
+        }
+
+        // Row ranges inside the date range, cut to leaf size
+        List<int[]> chunks = new ArrayList<>();
+        for (int i = 0; i < s.segments.size(); i++) {
+            Segment segment = s.segments.get(i);
+            if (segment.size == 0 || segment.day[segment.size - 1] < fromDay || segment.day[0] > toDay) {
+                continue;
+            }
+            int lo = segment.lowerBound(fromDay);
+            int hi = segment.lowerBound(toDay + 1);
+            for (int start = lo; start < hi; start += LEAF_ROWS) {
+                chunks.add(new int[] { i, start, Math.min(start + LEAF_ROWS, hi) });
+            }
+        }
+
+        int cells = rowBuckets.count * columnBuckets.count * STATUS_COUNT;
+        int[] counts = chunks.isEmpty() ? new int[cells]
+            : ForkJoinPool.commonPool().invoke(new CountTask(s, chunks, 0, chunks.size(), allowed,
+                                                             rowBuckets, columnBuckets, fromDay, cells));
+
+        return new GroupedCounts(rowBuckets, columnBuckets, counts, (System.nanoTime() - started) / 1_000);
+    }
+
+    private static final class CountTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Snapshot snapshot;
+        private final List<int[]> chunks;
+        private final int first;
+        private final int last;
+        private final boolean[] allowed;
+        private final Buckets rows;
+        private final Buckets columns;
+        private final int fromDay;
+        private final int cells;
+
+        CountTask(Snapshot snapshot, List<int[]> chunks, int first, int last, boolean[] allowed,
+                  Buckets rows, Buckets columns, int fromDay, int cells) {
+            this.snapshot = snapshot;
+            this.chunks = chunks;
+            this.first = first;
+            this.last = last;
+            this.allowed = allowed;
+            this.rows = rows;
+            this.columns = columns;
+            this.fromDay = fromDay;
+            this.cells = cells;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (last - first > 1) {
+                int mid = (first + last) >>> 1;
+                CountTask left = new CountTask(snapshot, chunks, first, mid, allowed, rows, columns, fromDay, cells);
+                CountTask right = new CountTask(snapshot, chunks, mid, last, allowed, rows, columns, fromDay, cells);
+                left.fork();
+                int[] sum = right.compute();
+                int[] other = left.join();
+                for (int k = 0; k < sum.length; k++) {
+                    sum[k] += other[k];
+                }
+                return sum;
+            }
+
+            int[] chunk = chunks.get(first);
+            Segment segment = snapshot.segments.get(chunk[0]);
+            int[] counts = new int[cells];
+            for (int r = chunk[1]; r < chunk[2]; r++) {
+                if (allowed != null && !allowed[segment.clazz[r]]) {
+                    continue;
+                }
+                int cell = rows.of(segment, r, fromDay) * columns.count + columns.of(segment, r, fromDay);
+                counts[cell * STATUS_COUNT + segment.status[r]]++;
+            }
+            return counts;
+        }
+    }
+
+    // Maps a row to a dense bucket; time dimensions precompute a per-day table
+    private static final class Buckets {
+        final Dimension dimension;
+        final int count;
+        final String[] labels;
+        final int[] ids;
+        final int[] byDay;
+
+        Buckets(Dimension dimension, String[] labels, int[] ids, int[] byDay) {
+            this.dimension = dimension;
+            this.count = labels.length;
+            this.labels = labels;
+            this.ids = ids;
+            this.byDay = byDay;
+        }
+
+        int of(Segment segment, int row, int fromDay) {
+            switch (dimension) {
+                case ALL: return 0;
+                case CLASS: return segment.clazz[row];
+                case STUDENT: return segment.student[row];
+                default: return byDay[segment.day[row] - fromDay];
+            }
+        }
+    }
+
+    private static Buckets buckets(Snapshot s, Dimension dimension, int fromDay, int toDay) {
+        switch (dimension) {
+            case ALL:
+                return new Buckets(dimension, new String[] { "All" }, null, null);
+            case CLASS:
+                return new Buckets(dimension, s.classNames.toArray(new String[0]),
+                                   s.classIds.stream().mapToInt(Integer::intValue).toArray(), null);
+            case STUDENT:
+                return new Buckets(dimension, s.studentNames.toArray(new String[0]),
+                                   s.studentIds.stream().mapToInt(Integer::intValue).toArray(), null);
+            default:
+                break;
+        }
+
+        // One bucket per distinct week, month or term label in the range, in date order
+        int[] byDay = new int[Math.max(0, toDay - fromDay + 1)];
+        TreeSet<String> sorted = new TreeSet<>();
+        String[] dayLabels = new String[byDay.length];
+        for (int d = 0; d < byDay.length; d++) {
+            LocalDate date = AttendanceDates.fromDay(fromDay + d);
+            String label;
+            if (dimension == Dimension.WEEK) {
+                label = String.format("%d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR),
+                                      date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            } else if (dimension == Dimension.MONTH) {
+                label = YearMonth.from(date).toString();
+            } else {
+                int term = AttendanceDates.termOf(date);
+                label = (term / 10) + "-T" + (term % 10);
+            }
+            dayLabels[d] = label;
+            sorted.add(label);
+        }
+        // The labels sort in date order
+        Map<String, Integer> position = new HashMap<>();
+        for (String label : sorted) {
+            position.put(label, position.size());
+        }
+        for (int d = 0; d < byDay.length; d++) {
+            byDay[d] = position.get(dayLabels[d]);
+        }
+        return new Buckets(dimension, sorted.toArray(new String[0]), null, byDay);
+    }
+
+    /** Status counts on a rows x columns grid. */
+    public static final class GroupedCounts {
+        private final String[] rowLabels;
+        private final String[] columnLabels;
+        private final int[] rowIds;
+        private final int[] columnIds;
+        private final int[] counts;
+        private final long elapsedMicros;
+
+        GroupedCounts(Buckets rows, Buckets columns, int[] counts, long elapsedMicros) {
+            this.rowLabels = rows.labels;
+            this.columnLabels = columns.labels;
+            this.rowIds = rows.ids;
+            this.columnIds = columns.ids;
+            this.counts = counts;
+            this.elapsedMicros = elapsedMicros;
+        }
+
+        public int getRowCount() { return rowLabels.length; }
+        public int getColumnCount() { return columnLabels.length; }
+        public String getRowLabel(int row) { return rowLabels[row]; }
+        public String getColumnLabel(int column) { return columnLabels[column]; }
+        public long getElapsedMicros() { return elapsedMicros; }
+
+        /** Database id behind a CLASS or STUDENT row, or -1 for other dimensions. */
+        public int getRowId(int row) { return rowIds != null ? rowIds[row] : -1; }
+        public int getColumnId(int column) { return columnIds != null ? columnIds[column] : -1; }
+
+        public int count(int row, int column, AttendanceStatus status) {
+            return counts[(row * columnLabels.length + column) * STATUS_COUNT + status.getCode()];
+        }
+
+        public int total(int row, int column) {
+            int base = (row * columnLabels.length + column) * STATUS_COUNT;
+            int total = 0;
+            for (int k = 0; k < STATUS_COUNT; k++) {
+                total += counts[base + k];
+            }
+            return total;
+        }
+
+        public AttendanceStatistics statistics(int row, int column) {
+            return new AttendanceStatistics(total(row, column), count(row, column, AttendanceStatus.PRESENT),
+                                            count(row, column, AttendanceStatus.ABSENT),
+                                            count(row, column, AttendanceStatus.LATE));
+        }
+
+        /** Present or late as a percentage of all records in the cell. */
+        public double attendanceRate(int row, int column) {
+            int total = total(row, column);
+            if (total == 0) {
+                return 0.0;
+            }
+            return (count(row, column, AttendanceStatus.PRESENT) + count(row, column, AttendanceStatus.LATE)) * 100.0 / total;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,379 @@
+package attendance.service;
+
+import attendance.model.AttendanceStatistics;
+import attendance.model.AttendanceStatus;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Precomputed attendance counts per (class, teacher, department, ISO week),
+ * one counter per AttendanceStatus. Any roll-up or drill-down over those
+ * dimensions is answered by folding the cells in memory, so dashboard widgets
+ * need no full-table scan of their own.
+ *
+ * Built lazily with one grouped query over attendance_records and the term
+ * archives. TeacherService.markAttendance moves a row between cells as it is
+ * written. Changes to the dimensions themselves (a class's teacher, a
+ * student's department) and bulk deletes call invalidate() so the next query
+ * rebuilds. Class and teacher are -1 and department is "" when unknown.
+ *
+ * The build reads the database without holding the lock. Every write and
+ * invalidation bumps a version, and a build that saw the version move is not
+ * installed, since the write it raced with may already be in its counts. It
+ * is retried a few times; if writes keep landing, the query is answered from
+ * the last build, which is as current as running the grouped query directly.
+ */
+public class AttendanceCube {
+
+    public enum Dimension { CLASS, TEACHER, DEPARTMENT, WEEK }
+
+    /** A cell coordinate; in roll-up results the dimensions not grouped by are null. */
+    public record CubeKey(Integer classId, Integer teacherId, String department, Integer week) {
+    }
+
+    /** Filter over the dimensions; null means no restriction. */
+    public static final class Slice {
+        private Set<Integer> classIds;
+        private Set<Integer> teacherIds;
+        private Set<String> departments;
+        private int fromWeek = Integer.MIN_VALUE;
+        private int toWeek = Integer.MAX_VALUE;
+
+        public static Slice all() {
+            return new Slice();
+        }
+
+        public Slice classes(Set<Integer> classIds) {
+            this.classIds = classIds;
+            return this;
+        }
+
+        public Slice teachers(Set<Integer> teacherIds) {
+            this.teacherIds = teacherIds;
+            return this;
+        }
+
+        public Slice departments(Set<String> departments) {
+            this.departments = departments;
+            return this;
+        }
+
+        /** Whole ISO weeks touching [from, to]. */
+        public Slice between(LocalDate from, LocalDate to) {
+            this.fromWeek = weekOf(from);
+            this.toWeek = weekOf(to);
+            return this;
+        }
+
+        boolean contains(CellKey cell) {
+            return cell.week >= fromWeek && cell.week <= toWeek &&
+                   (classIds == null || classIds.contains(cell.classId)) &&
+                   (teacherIds == null || teacherIds.contains(cell.teacherId)) &&
+                   (departments == null || departments.contains(cell.department));
+        }
+    }
+
+    private record CellKey(int classId, int teacherId, String department, int week) {
+    }
+
+    private static final int STATUS_COUNT = AttendanceStatus.values().length;
+    private static final int MAX_BUILD_ATTEMPTS = 3;
+
+    private static AttendanceCube instance;
+
+    private final AttendanceQueryRouter queryRouter;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<CellKey, int[]> cells = new HashMap<>();
+    // Dimension attributes as of the build, for placing incremental writes
+    private final Map<Integer, Integer> classTeachers = new HashMap<>();
+    private final Map<Integer, String> studentDepartments = new HashMap<>();
+    private boolean loaded;
+    // Bumped by every write and invalidation so a build that raced with one is not installed
+    private long version;
+    // One build at a time; queries keep using the read lock meanwhile
+    private final Object buildLock = new Object();
+
+    public static synchronized AttendanceCube getInstance() {
+        if (instance == null) {
+            instance = new AttendanceCube(new DatabaseService());
+        }
+        return instance;
+    }
+
+    public AttendanceCube(DatabaseService databaseService) {
+        this.queryRouter = new AttendanceQueryRouter(databaseService);
+    }
+
+    /** ISO week as week-based year * 100 + week, e.g. 202503. */
+    public static int weekOf(LocalDate date) {
+        return date.get(IsoFields.WEEK_BASED_YEAR) * 100 + date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+    }
+
+    public static String weekLabel(int week) {
+        return String.format("%d-W%02d", week / 100, week % 100);
+    }
+
+    // MARK: UPDATES
+
+    /**
+     * Applies a committed write of the row for (studentId, date) in the given
+     * class; previous is the status it replaced, or null for a new row.
+     * Ignored until the cube is built.
+     */
+    public void record(int studentId, Integer classId, LocalDate date, AttendanceStatus previous,
+                       AttendanceStatus status) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            if (!loaded) {
+                return;
+            }
+            int clazz = classId != null ? classId : -1;
+            if ((clazz >= 0 && !classTeachers.containsKey(clazz)) || !studentDepartments.containsKey(studentId)) {
+                // A class or student created since the build; rebuild rather than guess its cell
+                clear();
+                return;
+            }
+
+            CellKey cell = new CellKey(clazz, classTeachers.getOrDefault(clazz, -1),
+                                       studentDepartments.get(studentId), weekOf(date));
+            int[] counts = cells.computeIfAbsent(cell, k -> new int[STATUS_COUNT]);
+            if (previous != null) {
+                counts[previous.getCode()]--;
+            }
+            counts[status.getCode()]++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drops everything; the next query rebuilds from the database. */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            version++;
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clear() {
+        loaded = false;
+        cells.clear();
+        classTeachers.clear();
+        studentDepartments.clear();
+    }
+
+    // MARK: QUERIES
+
+    /**
+     * Counts in the slice grouped by the given dimensions, ordered by the
+     * grouped values. No dimensions gives a single grand total. Empty if the
+     * database cannot be read.
+     */
+    public Map<CubeKey, AttendanceStatistics> rollUp(Slice slice, Dimension... groupBy) {
+        Map<CellKey, int[]> source;
+        boolean shared;
+        while (true) {
+            source = ensureLoaded();
+            if (source == null) {
+                return Collections.emptyMap();
+            }
+            // A build that could not be installed is private to this query and needs no lock
+            shared = source == cells;
+            if (!shared) {
+                break;
+            }
+            lock.readLock().lock();
+            if (loaded) {
+                break;
+            }
+            // Invalidated since ensureLoaded returned
+            lock.readLock().unlock();
+        }
+        List<Dimension> dimensions = List.of(groupBy);
+        Map<CubeKey, int[]> groups = new HashMap<>();
+
+        try {
+            for (Map.Entry<CellKey, int[]> entry : source.entrySet()) {
+                CellKey cell = entry.getKey();
+                if (!slice.contains(cell)) {
+                    continue;
+                }
+                CubeKey key = new CubeKey(
+                    dimensions.contains(Dimension.CLASS) ? cell.classId : null,
+                    dimensions.contains(Dimension.TEACHER) ? cell.teacherId : null,
+                    dimensions.contains(Dimension.DEPARTMENT) ? cell.department : null,
+                    dimensions.contains(Dimension.WEEK) ? cell.week : null);
+                int[] sums = groups.computeIfAbsent(key, k -> new int[STATUS_COUNT]);
+                int[] counts = entry.getValue();
+                for (int s = 0; s < STATUS_COUNT; s++) {
+                    sums[s] += counts[s];
+                }
+            }
+        } finally {
+            if (shared) {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<CubeKey> keys = new ArrayList<>(groups.keySet());
+        keys.sort(Comparator.comparing(CubeKey::week, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CubeKey::classId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CubeKey::teacherId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CubeKey::department, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        Map<CubeKey, AttendanceStatistics> result = new LinkedHashMap<>();
+        for (CubeKey key : keys) {
+            int[] sums = groups.get(key);
+            int total = 0;
+            for (int count : sums) {
+                total += count;
+            }
+            if (total > 0) {
+                result.put(key, new AttendanceStatistics(total, sums[AttendanceStatus.PRESENT.getCode()],
+                    sums[AttendanceStatus.ABSENT.getCode()], sums[AttendanceStatus.LATE.getCode()]));
+            }
+        }
+        return result;
+    }
+
+    /** Grand total of the slice. */
+    public AttendanceStatistics total(Slice slice) {
+        return rollUp(slice).values().stream().findFirst().orElse(AttendanceStatistics.EMPTY);
+    }
+
+    public int getCellCount() {
+        lock.readLock().lock();
+        try {
+            return cells.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // MARK: BUILD
+
+    // The installed cells, or the last build when every attempt raced with a write;
+    // null if the database could not be read
+    private Map<CellKey, int[]> ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return cells;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        synchronized (buildLock) {
+            Build build = null;
+            for (int attempt = 0; attempt < MAX_BUILD_ATTEMPTS; attempt++) {
+                long buildVersion;
+                lock.readLock().lock();
+                try {
+                    if (loaded) {
+                        return cells;
+                    }
+                    buildVersion = version;
+                } finally {
+                    lock.readLock().unlock();
+                }
+
+                build = load();
+                if (build == null) {
+                    return null;
+                }
+
+                lock.writeLock().lock();
+                try {
+                    // A write that landed during the build may be counted already, so only
+                    // an undisturbed build is installed for writes to be applied to
+                    if (version == buildVersion) {
+                        cells.putAll(build.cells);
+                        classTeachers.putAll(build.classTeachers);
+                        studentDepartments.putAll(build.studentDepartments);
+                        loaded = true;
+                        return cells;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            System.out.println("⚠️ Attendance cube build raced with writes " + MAX_BUILD_ATTEMPTS +
+                             " times; answering from the last build without keeping it");
+            return build.cells;
+        }
+    }
+
+    private static final class Build {
+        final Map<CellKey, int[]> cells = new HashMap<>();
+        final Map<Integer, Integer> classTeachers = new HashMap<>();
+        final Map<Integer, String> studentDepartments = new HashMap<>();
+    }
+
+    private Build load() {
+        long started = System.nanoTime();
+        String sql = "SELECT a.class_id, c.teacher_id, s.department, a.day, a.status, COUNT(*) " +
+                     "FROM " + AttendanceQueryRouter.VIEW + " a " +
+                     "LEFT JOIN classes c ON a.class_id = c.id " +
+                     "LEFT JOIN students s ON a.student_id = s.id " +
+                     "WHERE a.status IS NOT NULL " +
+                     "GROUP BY a.class_id, c.teacher_id, s.department, a.day, a.status";
+        Map<Integer, Integer> weeks = new HashMap<>();
+        Build build = new Build();
+        int rows = 0;
+
+        try (Connection conn = queryRouter.openConnection(null, null);
+             Statement stmt = conn.createStatement()) {
+
+            try (ResultSet rs = stmt.executeQuery("SELECT id, teacher_id FROM classes")) {
+                while (rs.next()) {
+                    build.classTeachers.put(rs.getInt(1), rs.getObject(2) != null ? rs.getInt(2) : -1);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT id, department FROM students")) {
+                while (rs.next()) {
+                    build.studentDepartments.put(rs.getInt(1), departmentOf(rs.getString(2)));
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    int day = rs.getInt(4);
+                    int week = weeks.computeIfAbsent(day, d -> weekOf(AttendanceDates.fromDay(d)));
+                    CellKey cell = new CellKey(rs.getObject(1) != null ? rs.getInt(1) : -1,
+                                               rs.getObject(2) != null ? rs.getInt(2) : -1,
+                                               departmentOf(rs.getString(3)), week);
+                    build.cells.computeIfAbsent(cell, k -> new int[STATUS_COUNT])[rs.getInt(5)] += rs.getInt(6);
+                    rows++;
+                }
+            }
+            System.out.println("✅ Attendance cube built with " + build.cells.size() + " cells from " + rows +
+                             " groups in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+            return build;
+
+        } catch (SQLException e) {
+            // Leave it unloaded so the next query tries again
+            System.err.println("❌ Error building attendance cube: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String departmentOf(String department) {
+        return department != null ? department.trim() : "";
+    }
+}
\ No newline at end of file
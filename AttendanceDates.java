@@ -0,0 +1,82 @@
+package attendance.service;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Conversions for attendance_records.day, which stores dates as days since
+ * 1970-01-01. Month, week and range filters become "day BETWEEN ? AND ?" so
+ * they are answered from the (student_id, day) and (day) indexes.
+ */
+public final class AttendanceDates {
+
+    private AttendanceDates() {
+    }
+
+    public static long toDay(LocalDate date) {
+        return date.toEpochDay();
+    }
+
+    public static LocalDate fromDay(long day) {
+        return LocalDate.ofEpochDay(day);
+    }
+
+    /** The date of epoch millis as PreparedStatement.setDate stores them: local midnight. */
+    public static LocalDate fromMillis(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    // Accepts the 'yyyy-MM-dd' strings the controllers pass around
+    public static long toDay(String isoDate) {
+        return LocalDate.parse(isoDate).toEpochDay();
+    }
+
+    /** First and last day of the month, inclusive. */
+    public static long[] monthRange(YearMonth month) {
+        return new long[] { toDay(month.atDay(1)), toDay(month.atEndOfMonth()) };
+    }
+
+    /** Monday to Sunday of the ISO week containing the date, inclusive. */
+    public static long[] weekRange(LocalDate anyDayInWeek) {
+        LocalDate monday = anyDayInWeek.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return new long[] { toDay(monday), toDay(monday.plusDays(6)) };
+    }
+
+    /**
+     * Term number for a date: calendar half-years written as year * 10 + half,
+     * so January to June 2025 is 20251 and July to December is 20252.
+     */
+    public static int termOf(LocalDate date) {
+        return date.getYear() * 10 + (date.getMonthValue() > 6 ? 2 : 1);
+    }
+
+    /** SQL expression computing termOf from a day column. */
+    public static String sqlTerm(String dayExpression) {
+        String date = dayExpression + " * 86400, 'unixepoch'";
+        return "(CAST(strftime('%Y', " + date + ") AS INTEGER) * 10 + " +
+               "(CAST(strftime('%m', " + date + ") AS INTEGER) > 6) + 1)";
+    }
+
+    /** SQL expression turning a day column back into 'yyyy-MM-dd' text. */
+    public static String sqlDate(String dayExpression) {
+        return "date(" + dayExpression + " * 86400, 'unixepoch')";
+    }
+
+    /**
+     * SQL expression turning a legacy date value into a day number. Handles the
+     * 'yyyy-MM-dd' text written by the app; anything unparseable yields NULL.
+     * Epoch millis from PreparedStatement.setDate mark local midnight, so they
+     * are read in SQLite's local time zone, the host zone Java also defaults to.
+     * The migration converts them with fromMillis first, and the attendance
+     * view refuses them, so this only matters for old term archives.
+     */
+    public static String sqlDay(String dateExpression) {
+        return "(CASE WHEN typeof(" + dateExpression + ") = 'integer' THEN " +
+               "CAST(julianday(date(" + dateExpression + " / 1000, 'unixepoch', 'localtime')) - 2440587.5 AS INTEGER) " +
+               "ELSE CAST(julianday(date(" + dateExpression + ")) - 2440587.5 AS INTEGER) END)";
+    }
+}
\ No newline at end of file
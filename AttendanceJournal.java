@@ -0,0 +1,219 @@
+package attendance.service;
+
+import attendance.model.AttendanceEdit;
+import attendance.model.AttendanceStatus;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Local append-only log of attendance edits that have not reached the shared
+ * database yet. Each append is forced to disk before it returns, so an edit
+ * the teacher saved survives a crash or power cut. Synced entries are
+ * acknowledged by sequence number in a separate file; once everything is
+ * acknowledged the log is truncated.
+ *
+ * One line per edit: seq, hlc, student id, epoch day, status code, remarks,
+ * tab separated with tabs, newlines and backslashes escaped in the remarks.
+ */
+public class AttendanceJournal {
+
+    public static final String JOURNAL_FILE = "attendance_journal.log";
+    public static final String ACK_FILE = "attendance_journal.ack";
+
+    private final Path journalFile;
+    private final Path ackFile;
+    private final Deque<AttendanceEdit> pending = new ArrayDeque<>();
+    private long nextSeq = 1;
+    private long acknowledged;
+
+    public AttendanceJournal() {
+        this(Paths.get(JOURNAL_FILE), Paths.get(ACK_FILE));
+    }
+
+    public AttendanceJournal(Path journalFile, Path ackFile) {
+        this.journalFile = journalFile;
+        this.ackFile = ackFile;
+        load();
+    }
+
+    /** Stamps, writes and forces a batch of edits; returns them with their sequence numbers. */
+    public synchronized List<AttendanceEdit> append(List<AttendanceEdit> edits) throws IOException {
+        List<AttendanceEdit> written = new ArrayList<>(edits.size());
+        StringBuilder lines = new StringBuilder();
+        long seq = nextSeq;
+        for (AttendanceEdit edit : edits) {
+            AttendanceEdit numbered = new AttendanceEdit(seq++, edit.hlc(), edit.studentId(), edit.date(),
+                                                         edit.status(), edit.remarks());
+            lines.append(format(numbered)).append('\n');
+            written.add(numbered);
+        }
+
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+
+        nextSeq = seq;
+        pending.addAll(written);
+        return written;
+    }
+
+    /** Up to max unacknowledged edits, oldest first. */
+    public synchronized List<AttendanceEdit> peek(int max) {
+        List<AttendanceEdit> batch = new ArrayList<>(Math.min(max, pending.size()));
+        for (AttendanceEdit edit : pending) {
+            if (batch.size() == max) {
+                break;
+            }
+            batch.add(edit);
+        }
+        return batch;
+    }
+
+    /** Marks everything up to and including seq as synced. */
+    public synchronized void acknowledge(long seq) throws IOException {
+        if (seq <= acknowledged) {
+            return;
+        }
+        Path temp = ackFile.resolveSibling(ackFile.getFileName() + ".tmp");
+        Files.writeString(temp, Long.toString(seq), StandardCharsets.UTF_8);
+        Files.move(temp, ackFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        acknowledged = seq;
+
+        while (!pending.isEmpty() && pending.peekFirst().seq() <= seq) {
+            pending.removeFirst();
+        }
+        // The ack file keeps the sequence going, so the emptied log can start over
+        if (pending.isEmpty() && Files.exists(journalFile)) {
+            try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                channel.truncate(0);
+                channel.force(false);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public synchronized AttendanceEdit oldest() {
+        return pending.peekFirst();
+    }
+
+    public synchronized long getAcknowledgedSeq() {
+        return acknowledged;
+    }
+
+    private void load() {
+        try {
+            if (Files.exists(ackFile)) {
+                acknowledged = Long.parseLong(Files.readString(ackFile, StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("⚠️ Unreadable " + ackFile + ", replaying the whole journal: " + e.getMessage());
+        }
+        nextSeq = acknowledged + 1;
+
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                AttendanceEdit edit = parse(line);
+                if (edit == null) {
+                    // Most likely the tail of a write cut short by a crash
+                    skipped++;
+                    continue;
+                }
+                nextSeq = Math.max(nextSeq, edit.seq() + 1);
+                if (edit.seq() > acknowledged) {
+                    pending.add(edit);
+                }
+                HybridLogicalClock.getInstance().observe(edit.hlc());
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error reading attendance journal: " + e.getMessage());
+        }
+
+        terminateLastLine();
+        if (!pending.isEmpty() || skipped > 0) {
+            System.out.println("📒 Attendance journal: " + pending.size() + " edits waiting to sync" +
+                             (skipped > 0 ? ", " + skipped + " unreadable lines skipped" : ""));
+        }
+    }
+
+    // A torn final line must not swallow the next append
+    private void terminateLastLine() {
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, size - 1);
+            if (last.get(0) != '\n') {
+                channel.write(ByteBuffer.wrap(new byte[] { '\n' }), size);
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not repair the end of the attendance journal: " + e.getMessage());
+        }
+    }
+
+    private static String format(AttendanceEdit edit) {
+        return edit.seq() + "\t" + edit.hlc() + "\t" + edit.studentId() + "\t" +
+               AttendanceDates.toDay(edit.date()) + "\t" + edit.status().getCode() + "\t" +
+               (edit.remarks() == null ? "" : escape(edit.remarks()));
+    }
+
+    private static AttendanceEdit parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 6) {
+            return null;
+        }
+        try {
+            return new AttendanceEdit(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                Integer.parseInt(fields[2]), AttendanceDates.fromDay(Long.parseLong(fields[3])),
+                AttendanceStatus.fromCode(Integer.parseInt(fields[4])),
+                fields[5].isEmpty() ? null : unescape(fields[5]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String s) {
+        StringBuilder out = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                out.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
\ No newline at end of file
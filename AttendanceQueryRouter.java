@@ -0,0 +1,115 @@
+package attendance.service;
+
+import attendance.model.AttendanceStatus;
+import java.io.File;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens connections whose TEMP view attendance_range covers the hot
+ * attendance_records table plus only the archived terms that overlap the
+ * requested dates. Queries select FROM attendance_range instead of
+ * attendance_records and otherwise stay the same; SQLite pushes their WHERE
+ * clauses into each branch of the view, so the per-file day indexes are still used.
+ */
+public class AttendanceQueryRouter {
+
+    public static final String VIEW = "attendance_range";
+
+    // SQLite allows 10 attached databases by default
+    private static final int MAX_ATTACHED = 10;
+
+    private final DatabaseService databaseService;
+
+    public AttendanceQueryRouter() {
+        this(new DatabaseService());
+    }
+
+    public AttendanceQueryRouter(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    /**
+     * Connection for queries over [from, to]. Either bound may be null for an
+     * open range, e.g. a student's full history. The caller closes it, which
+     * also detaches the archives.
+     */
+    public Connection openConnection(LocalDate from, LocalDate to) throws SQLException {
+        Connection conn = databaseService.getConnection();
+
+        try {
+            List<String> columns = columnsOf(conn, "main");
+            List<String> branches = new ArrayList<>();
+            branches.add("SELECT " + String.join(", ", columns) + " FROM main.attendance_records");
+
+            List<AttendanceArchiveService.TermArchive> needed = new ArrayList<>();
+            for (AttendanceArchiveService.TermArchive archive : AttendanceArchiveService.listArchives(conn)) {
+                if (archive.overlaps(from, to)) {
+                    needed.add(archive);
+                }
+            }
+            if (needed.size() > MAX_ATTACHED) {
+                throw new SQLException("Date range spans " + needed.size() + " archived terms; narrow the range");
+            }
+
+            for (AttendanceArchiveService.TermArchive archive : needed) {
+                File file = new File(archive.getFileName());
+                if (!file.exists()) {
+                    System.err.println("⚠️ Archive file missing for term " + archive.getTerm() + ": " + file);
+                    continue;
+                }
+
+                String alias = "term_" + archive.getTerm().replace('-', '_');
+                try (PreparedStatement attach = conn.prepareStatement("ATTACH DATABASE ? AS " + alias)) {
+                    attach.setString(1, file.getAbsolutePath());
+                    attach.execute();
+                }
+                branches.add(branchFor(conn, alias, columns));
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TEMP VIEW " + VIEW + " AS " + String.join(" UNION ALL ", branches));
+            }
+            return conn;
+
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    // Older archives may predate a column; fill it with NULL so the branches line up.
+    // Archives written before the epoch-day change only have the text date column,
+    // and archives created before status codes keep a text status column.
+    private static String branchFor(Connection conn, String alias, List<String> columns) throws SQLException {
+        List<String> archived = columnsOf(conn, alias);
+        List<String> select = new ArrayList<>();
+        for (String column : columns) {
+            if (column.equals("status") && archived.contains(column)) {
+                select.add(AttendanceStatus.sqlCode("status") + " AS status");
+            } else if (archived.contains(column)) {
+                select.add(column);
+            } else if (column.equals("day") && archived.contains("date")) {
+                select.add(AttendanceDates.sqlDay("date") + " AS day");
+            } else {
+                select.add("NULL AS " + column);
+            }
+        }
+        return "SELECT " + String.join(", ", select) + " FROM " + alias + ".attendance";
+    }
+
+    // Archive files keep their table named attendance; the hot table is attendance_records
+    static List<String> columnsOf(Connection conn, String schema) throws SQLException {
+        String table = schema.equals("main") ? "attendance_records" : "attendance";
+        List<String> columns = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA " + schema + ".table_info(" + table + ")")) {
+            while (rs.next()) {
+                columns.add(rs.getString("name"));
+            }
+        }
+        return columns;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+package attendance.service;
+
+import attendance.model.AttendanceRegister;
+import attendance.model.AttendanceStatistics;
+import attendance.model.AttendanceStatus;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pivots a class's attendance rows into an AttendanceRegister. The rows are
+ * scattered straight into one byte per (student, day) of the full range and
+ * the days nobody attended are squeezed out afterwards, so building a
+ * 200 x 180 register touches a 36 KB array rather than a map per cell.
+ */
+public class AttendanceRegisterService {
+
+    private final DatabaseService databaseService;
+    private final AttendanceQueryRouter queryRouter;
+
+    public AttendanceRegisterService() {
+        this(new DatabaseService());
+    }
+
+    public AttendanceRegisterService(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.queryRouter = new AttendanceQueryRouter(databaseService);
+    }
+
+    /** The register of the class's current roster over [from, to], or null on failure. */
+    public AttendanceRegister build(String className, LocalDate from, LocalDate to) {
+        long started = System.nanoTime();
+        List<String> studentIds = new ArrayList<>();
+        List<String> studentNames = new ArrayList<>();
+        Map<Integer, Integer> rows = new HashMap<>();
+
+        String rosterSql = "SELECT s.id, s.student_id, s.first_name || ' ' || s.last_name FROM students s " +
+                           "JOIN classes c ON s.class_id = c.id WHERE c.class_name = ? " +
+                           "ORDER BY s.last_name, s.first_name";
+        try (Connection conn = databaseService.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(rosterSql)) {
+            pstmt.setString(1, className);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.put(rs.getInt(1), studentIds.size());
+                    studentIds.add(rs.getString(2));
+                    studentNames.add(rs.getString(3));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error loading register roster: " + e.getMessage());
+            return null;
+        }
+
+        int firstDay = (int) AttendanceDates.toDay(from);
+        int span = (int) (AttendanceDates.toDay(to) - firstDay + 1);
+        int students = studentIds.size();
+        byte[] full = new byte[students * span];
+        Arrays.fill(full, AttendanceRegister.NO_RECORD);
+        boolean[] used = new boolean[span];
+
+        String sql = "SELECT a.student_id, a.day, a.status FROM " + AttendanceQueryRouter.VIEW + " a " +
+                     "JOIN students s ON a.student_id = s.id JOIN classes c ON s.class_id = c.id " +
+                     "WHERE c.class_name = ? AND a.day BETWEEN ? AND ? AND a.status IS NOT NULL";
+        try (Connection conn = queryRouter.openConnection(from, to);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, className);
+            pstmt.setLong(2, firstDay);
+            pstmt.setLong(3, firstDay + span - 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Integer row = rows.get(rs.getInt(1));
+                    if (row == null) {
+                        continue;
+                    }
+                    int column = rs.getInt(2) - firstDay;
+                    full[row * span + column] = (byte) rs.getInt(3);
+                    used[column] = true;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error loading register attendance: " + e.getMessage());
+            return null;
+        }
+
+        int dayCount = 0;
+        for (boolean u : used) {
+            if (u) {
+                dayCount++;
+            }
+        }
+        int[] days = new int[dayCount];
+        byte[] cells = new byte[students * dayCount];
+        for (int column = 0, out = 0; column < span; column++) {
+            if (!used[column]) {
+                continue;
+            }
+            days[out] = firstDay + column;
+            for (int row = 0; row < students; row++) {
+                cells[row * dayCount + out] = full[row * span + column];
+            }
+            out++;
+        }
+
+        System.out.println("✅ Built register for " + className + ": " + students + " students x " + dayCount +
+                         " days in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        return new AttendanceRegister(className, studentIds.toArray(new String[0]),
+            studentNames.toArray(new String[0]), days, cells);
+    }
+
+    /**
+     * Writes the register as CSV one student row at a time: ID, name, a
+     * P/A/L/E column per day and the student's attendance rate.
+     */
+    public static void writeCsv(AttendanceRegister register, Writer writer) throws IOException {
+        StringBuilder line = new StringBuilder("Student ID,Name");
+        for (int column = 0; column < register.getDayCount(); column++) {
+            line.append(',').append(register.getDate(column));
+        }
+        writer.write(line.append(",Attendance %\n").toString());
+
+        for (int row = 0; row < register.getStudentCount(); row++) {
+            line.setLength(0);
+            line.append(csv(register.getStudentId(row))).append(',').append(csv(register.getStudentName(row)));
+            for (int column = 0; column < register.getDayCount(); column++) {
+                line.append(',').append(symbol(register.getStatus(row, column)));
+            }
+            AttendanceStatistics stats = register.rowStatistics(row);
+            line.append(',').append(String.format("%.1f", stats.presentRate() + stats.lateRate())).append('\n');
+            writer.write(line.toString());
+        }
+        writer.flush();
+    }
+
+    /** One letter per status for grids and CSV; blank when there is no record. */
+    public static String symbol(AttendanceStatus status) {
+        return status == null ? "" : status.name().substring(0, 1);
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
\ No newline at end of file
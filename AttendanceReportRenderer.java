@@ -0,0 +1,407 @@
+package attendance.service;
+
+import attendance.model.AttendanceStatus;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders class attendance reports as paginated HTML or PDF straight from the
+ * report query. Rows are read with a bounded fetch size and written out one
+ * page at a time, so memory stays at one page however long the report is,
+ * and the listener sees the first page before the last row has been read.
+ *
+ * The PDF writer is a minimal PDF 1.4 generator using the built-in Helvetica
+ * font; only the object offsets are kept until the cross-reference table is
+ * written at the end.
+ */
+public class AttendanceReportRenderer {
+
+    public enum Format { HTML, PDF }
+
+    /** Called after every finished page with its rows as plain text. */
+    @FunctionalInterface
+    public interface PageListener {
+        void onPage(int pageNumber, int rowsSoFar, String pageText);
+    }
+
+    public static final int ROWS_PER_PAGE = 40;
+
+    private static final int FETCH_SIZE = 500;
+    private static final int SUMMARY_ROWS = 8;
+
+    private final AttendanceQueryRouter queryRouter;
+
+    public AttendanceReportRenderer() {
+        this(new DatabaseService());
+    }
+
+    public AttendanceReportRenderer(DatabaseService databaseService) {
+        this.queryRouter = new AttendanceQueryRouter(databaseService);
+    }
+
+    /** Picks the format from the file extension; anything but .pdf is HTML. */
+    public static Format formatFor(File file) {
+        return file.getName().toLowerCase().endsWith(".pdf") ? Format.PDF : Format.HTML;
+    }
+
+    /**
+     * Renders the report into a file. className null means every class, further
+     * limited to one teacher's classes when teacherId is not null. Returns the
+     * number of rows rendered, or -1 on failure, in which case the file is removed.
+     */
+    public int renderToFile(File file, String className, Integer teacherId, LocalDate from, LocalDate to,
+                            PageListener listener) {
+        int rows;
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            rows = render(out, formatFor(file), className, teacherId, from, to, listener);
+        } catch (IOException e) {
+            System.err.println("❌ Error writing report " + file.getName() + ": " + e.getMessage());
+            rows = -1;
+        }
+        if (rows < 0) {
+            file.delete();
+        }
+        return rows;
+    }
+
+    public int render(OutputStream out, Format format, String className, Integer teacherId,
+                      LocalDate from, LocalDate to, PageListener listener) {
+        long started = System.nanoTime();
+        String title = "Attendance Report - " + (className != null ? className : "All Classes");
+        String period = from + " to " + to;
+
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT a.day, s.student_id, s.first_name, s.last_name, a.status, a.remarks ")
+           .append("FROM ").append(AttendanceQueryRouter.VIEW).append(" a ")
+           .append("JOIN students s ON a.student_id = s.id ")
+           .append("JOIN classes c ON a.class_id = c.id ")
+           .append("WHERE a.day BETWEEN ? AND ? ");
+        if (className != null) {
+            sql.append("AND c.class_name = ? ");
+        }
+        if (teacherId != null) {
+            sql.append("AND c.teacher_id = ? ");
+        }
+        sql.append("ORDER BY a.day, s.last_name, s.first_name");
+
+        PageWriter writer = format == Format.PDF ? new PdfPageWriter(out, title, period)
+                                                 : new HtmlPageWriter(out, title, period);
+        int[] statusCounts = new int[AttendanceStatus.values().length];
+        int rows = 0;
+
+        try (Connection conn = queryRouter.openConnection(from, to);
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            pstmt.setLong(index++, AttendanceDates.toDay(from));
+            pstmt.setLong(index++, AttendanceDates.toDay(to));
+            if (className != null) {
+                pstmt.setString(index++, className);
+            }
+            if (teacherId != null) {
+                pstmt.setInt(index, teacherId);
+            }
+            pstmt.setFetchSize(FETCH_SIZE);
+
+            writer.begin();
+            StringBuilder pageText = new StringBuilder();
+            int page = 0;
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (rows % ROWS_PER_PAGE == 0) {
+                        writer.beginPage(++page);
+                    }
+
+                    AttendanceStatus status = AttendanceStatus.fromCode(rs.getInt(5));
+                    String remarks = rs.getString(6);
+                    String[] cells = {
+                        AttendanceDates.fromDay(rs.getLong(1)).toString(),
+                        rs.getString(2),
+                        rs.getString(3) + " " + rs.getString(4),
+                        status.name(),
+                        remarks != null ? remarks : ""
+                    };
+                    writer.row(cells, status);
+                    pageText.append(String.join("  |  ", cells)).append("\n");
+                    statusCounts[status.getCode()]++;
+                    rows++;
+
+                    if (rows % ROWS_PER_PAGE == 0) {
+                        writer.endPage(page);
+                        notify(listener, page, rows, pageText);
+                    }
+                }
+            }
+
+            // The summary goes on the last page if it fits, otherwise on a page of its own
+            int onLastPage = rows % ROWS_PER_PAGE;
+            if (onLastPage > ROWS_PER_PAGE - SUMMARY_ROWS) {
+                writer.endPage(page);
+                notify(listener, page, rows, pageText);
+                onLastPage = 0;
+            }
+            if (onLastPage == 0) {
+                writer.beginPage(++page);
+            }
+            writer.summary(summaryLines(rows, statusCounts));
+            writer.endPage(page);
+            notify(listener, page, rows, pageText);
+            writer.finish();
+
+            System.out.println("✅ Rendered " + rows + " report rows on " + page + " " + format + " pages in " +
+                             (System.nanoTime() - started) / 1_000_000 + " ms");
+            return rows;
+
+        } catch (SQLException | IOException e) {
+            System.err.println("❌ Error rendering attendance report: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private static void notify(PageListener listener, int page, int rows, StringBuilder pageText) {
+        if (listener != null) {
+            listener.onPage(page, rows, pageText.toString());
+        }
+        pageText.setLength(0);
+    }
+
+    private static List<String> summaryLines(int rows, int[] statusCounts) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Total records: " + rows);
+        for (AttendanceStatus status : AttendanceStatus.values()) {
+            int count = statusCounts[status.getCode()];
+            lines.add(status.name() + ": " + count +
+                      (rows > 0 ? String.format(" (%.1f%%)", count * 100.0 / rows) : ""));
+        }
+        lines.add("Generated on: " + LocalDateTime.now().withNano(0).toString().replace('T', ' '));
+        return lines;
+    }
+
+    private interface PageWriter {
+        void begin() throws IOException;
+        void beginPage(int page) throws IOException;
+        void row(String[] cells, AttendanceStatus status) throws IOException;
+        void summary(List<String> lines) throws IOException;
+        void endPage(int page) throws IOException;
+        void finish() throws IOException;
+    }
+
+    // One <section> per page; the print stylesheet breaks after each
+    private static class HtmlPageWriter implements PageWriter {
+        private final OutputStream out;
+        private final String title;
+        private final String period;
+        private final StringBuilder buffer = new StringBuilder();
+
+        HtmlPageWriter(OutputStream out, String title, String period) {
+            this.out = out;
+            this.title = title;
+            this.period = period;
+        }
+
+        public void begin() throws IOException {
+            buffer.append("<!DOCTYPE html><html><head><meta charset='UTF-8'><title>").append(escape(title))
+                  .append("</title><style>")
+                  .append("body { font-family: Arial, sans-serif; margin: 20px; }")
+                  .append("table { width: 100%; border-collapse: collapse; font-size: 12px; }")
+                  .append("th, td { border: 1px solid #ddd; padding: 4px 6px; text-align: left; }")
+                  .append("th { background: #4CAF50; color: white; }")
+                  .append(".PRESENT { color: #065f46; } .ABSENT { color: #991b1b; } .LATE { color: #92400e; }")
+                  .append(".footer { color: #888; font-size: 11px; text-align: right; }")
+                  .append("@media print { .page { page-break-after: always; } }")
+                  .append("</style></head><body>\n");
+            flush();
+        }
+
+        public void beginPage(int page) {
+            buffer.append("<section class='page'><h2>📊 ").append(escape(title)).append("</h2>")
+                  .append("<p>Period: ").append(escape(period)).append("</p>")
+                  .append("<table><tr><th>Date</th><th>Student ID</th><th>Name</th><th>Status</th><th>Remarks</th></tr>\n");
+        }
+
+        public void row(String[] cells, AttendanceStatus status) {
+            buffer.append("<tr>");
+            for (int i = 0; i < cells.length; i++) {
+                buffer.append(i == 3 ? "<td class='" + status.name() + "'>" : "<td>").append(escape(cells[i])).append("</td>");
+            }
+            buffer.append("</tr>\n");
+        }
+
+        public void summary(List<String> lines) {
+            buffer.append("</table><h3>📈 Summary</h3><table>");
+            for (String line : lines) {
+                buffer.append("<tr><td>").append(escape(line)).append("</td></tr>");
+            }
+        }
+
+        public void endPage(int page) throws IOException {
+            buffer.append("</table><p class='footer'>Page ").append(page).append("</p></section>\n");
+            flush();
+        }
+
+        public void finish() throws IOException {
+            buffer.append("</body></html>\n");
+            flush();
+        }
+
+        private void flush() throws IOException {
+            out.write(buffer.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            buffer.setLength(0);
+        }
+
+        private static String escape(String text) {
+            return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                       .replace("\"", "&quot;").replace("'", "&#39;");
+        }
+    }
+
+    // A4 portrait, Helvetica 10pt; object 1 is the catalog, 2 the page tree, 3 the font
+    private static class PdfPageWriter implements PageWriter {
+        private static final Charset ENCODING = Charset.forName("windows-1252");
+        private static final int PAGE_WIDTH = 595;
+        private static final int PAGE_HEIGHT = 842;
+        private static final int MARGIN = 50;
+        private static final int LEADING = 16;
+        private static final int[] COLUMN_X = { 50, 125, 205, 375, 440 };
+        private static final int[] COLUMN_CHARS = { 12, 13, 30, 10, 26 };
+
+        private final OutputStream out;
+        private final String title;
+        private final String period;
+        private final List<Long> offsets = new ArrayList<>();
+        private final List<Integer> pageObjects = new ArrayList<>();
+        private final StringBuilder content = new StringBuilder();
+        private long position;
+        private int y;
+
+        PdfPageWriter(OutputStream out, String title, String period) {
+            this.out = out;
+            this.title = title;
+            this.period = period;
+        }
+
+        public void begin() throws IOException {
+            write("%PDF-1.4\n");
+            // Catalog and page tree are written at the end, once the pages are known
+            offsets.add(0L);
+            offsets.add(0L);
+            startObject(3);
+            write("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n");
+        }
+
+        public void beginPage(int page) {
+            y = PAGE_HEIGHT - MARGIN;
+            text(MARGIN, y, 14, title);
+            y -= 20;
+            text(MARGIN, y, 10, "Period: " + period);
+            y -= 24;
+            String[] headers = { "Date", "Student ID", "Name", "Status", "Remarks" };
+            for (int i = 0; i < headers.length; i++) {
+                text(COLUMN_X[i], y, 10, headers[i]);
+            }
+            content.append(MARGIN).append(' ').append(y - 4).append(" m ")
+                   .append(PAGE_WIDTH - MARGIN).append(' ').append(y - 4).append(" l S\n");
+            y -= LEADING;
+        }
+
+        public void row(String[] cells, AttendanceStatus status) {
+            for (int i = 0; i < cells.length; i++) {
+                text(COLUMN_X[i], y, 10, clip(cells[i], COLUMN_CHARS[i]));
+            }
+            y -= LEADING;
+        }
+
+        public void summary(List<String> lines) {
+            y -= LEADING / 2;
+            text(MARGIN, y, 12, "Summary");
+            y -= LEADING;
+            for (String line : lines) {
+                text(MARGIN, y, 10, line);
+                y -= LEADING;
+            }
+        }
+
+        public void endPage(int page) throws IOException {
+            text(PAGE_WIDTH - MARGIN - 40, MARGIN / 2, 9, "Page " + page);
+
+            byte[] stream = content.toString().getBytes(ENCODING);
+            content.setLength(0);
+            int contentObject = offsets.size() + 1;
+            startObject(contentObject);
+            write("<< /Length " + stream.length + " >>\nstream\n");
+            write(stream);
+            write("\nendstream\nendobj\n");
+
+            int pageObject = offsets.size() + 1;
+            startObject(pageObject);
+            write("<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + PAGE_WIDTH + " " + PAGE_HEIGHT + "] " +
+                  "/Resources << /Font << /F1 3 0 R >> >> /Contents " + contentObject + " 0 R >>\nendobj\n");
+            pageObjects.add(pageObject);
+            out.flush();
+        }
+
+        public void finish() throws IOException {
+            offsets.set(0, position);
+            write("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+
+            offsets.set(1, position);
+            StringBuilder kids = new StringBuilder();
+            for (int pageObject : pageObjects) {
+                kids.append(pageObject).append(" 0 R ");
+            }
+            write("2 0 obj\n<< /Type /Pages /Kids [" + kids + "] /Count " + pageObjects.size() + " >>\nendobj\n");
+
+            long xref = position;
+            StringBuilder table = new StringBuilder();
+            table.append("xref\n0 ").append(offsets.size() + 1).append("\n0000000000 65535 f \n");
+            for (long offset : offsets) {
+                table.append(String.format("%010d 00000 n \n", offset));
+            }
+            table.append("trailer\n<< /Size ").append(offsets.size() + 1).append(" /Root 1 0 R >>\n")
+                 .append("startxref\n").append(xref).append("\n%%EOF\n");
+            write(table.toString());
+            out.flush();
+        }
+
+        private void text(int x, int y, int size, String text) {
+            content.append("BT /F1 ").append(size).append(" Tf ").append(x).append(' ').append(y)
+                   .append(" Td (").append(escape(text)).append(") Tj ET\n");
+        }
+
+        private void startObject(int number) throws IOException {
+            offsets.add(position);
+            write(number + " 0 obj\n");
+        }
+
+        private void write(String text) throws IOException {
+            write(text.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+            position += bytes.length;
+        }
+
+        private static String clip(String text, int maxChars) {
+            return text.length() <= maxChars ? text : text.substring(0, maxChars - 1) + "…";
+        }
+
+        // Characters outside WinAnsi become '?' when the stream is encoded
+        private static String escape(String text) {
+            return text.replace("\\", "\\\\").replace("(", "\\(").replace(")", "\\)")
+                       .replace("\r", " ").replace("\n", " ");
+        }
+    }
+}
\ No newline at end of file
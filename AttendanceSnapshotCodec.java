@@ -0,0 +1,215 @@
+package attendance.service;
+
+import attendance.model.AttendanceSnapshot;
+import attendance.model.AttendanceStatus;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary format for attendance_reports.report_data. A 4-byte magic and a
+ * version byte are followed by a deflated body:
+ *
+ *   class name, from and to (epoch days), generated at (epoch seconds), row count
+ *   student dictionary: count, then id and name per student
+ *   days: delta from the previous row's day (the first from "from")
+ *   students: dictionary index per row
+ *   statuses: one 4-bit code per row, two rows per byte
+ *   remarks: count, then (row delta, text) for the rows that have one
+ *
+ * Integers are unsigned LEB128 varints, signed ones zigzag-encoded first;
+ * strings use DataOutput.writeUTF. Reports submitted before the format
+ * existed are plain text and decode to null.
+ */
+public final class AttendanceSnapshotCodec {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = { 'A', 'T', 'S', 'N' };
+
+    private AttendanceSnapshotCodec() {
+    }
+
+    public static byte[] encode(AttendanceSnapshot snapshot) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(MAGIC, 0, MAGIC.length);
+        bytes.write(VERSION);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            long fromDay = snapshot.getFrom().toEpochDay();
+            out.writeUTF(snapshot.getClassName() != null ? snapshot.getClassName() : "");
+            writeSigned(out, fromDay);
+            writeSigned(out, snapshot.getTo().toEpochDay());
+            writeSigned(out, snapshot.getGeneratedAt().toEpochSecond(ZoneOffset.UTC));
+
+            int rows = snapshot.size();
+            writeVarint(out, rows);
+            writeVarint(out, snapshot.getStudentCount());
+            for (int student = 0; student < snapshot.getStudentCount(); student++) {
+                out.writeUTF(snapshot.getStudentId(student));
+                out.writeUTF(snapshot.getStudentName(student));
+            }
+
+            long previous = fromDay;
+            for (int row = 0; row < rows; row++) {
+                writeSigned(out, snapshot.getDay(row) - previous);
+                previous = snapshot.getDay(row);
+            }
+            for (int row = 0; row < rows; row++) {
+                writeVarint(out, snapshot.getStudent(row));
+            }
+            for (int row = 0; row < rows; row += 2) {
+                int low = snapshot.getStatus(row).getCode();
+                int high = row + 1 < rows ? snapshot.getStatus(row + 1).getCode() : 0;
+                out.writeByte(high << 4 | low);
+            }
+
+            int remarked = 0;
+            for (int row = 0; row < rows; row++) {
+                if (snapshot.getRemarks(row) != null) {
+                    remarked++;
+                }
+            }
+            writeVarint(out, remarked);
+            int previousRow = 0;
+            for (int row = 0; row < rows; row++) {
+                if (snapshot.getRemarks(row) != null) {
+                    writeVarint(out, row - previousRow);
+                    out.writeUTF(snapshot.getRemarks(row));
+                    previousRow = row;
+                }
+            }
+        } catch (IOException e) {
+            // Only reachable for strings over 64 KB; the in-memory stream itself cannot fail
+            throw new IllegalArgumentException("Cannot encode attendance snapshot: " + e.getMessage(), e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    /** True when the data starts with this format's magic, whatever the version. */
+    public static boolean isSnapshot(byte[] data) {
+        if (data == null || data.length <= MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Null for legacy text reports, unknown versions and corrupt data. */
+    public static AttendanceSnapshot decode(byte[] data) {
+        if (!isSnapshot(data)) {
+            return null;
+        }
+        int version = data[MAGIC.length];
+        if (version != VERSION) {
+            System.err.println("⚠️ Unsupported attendance snapshot version " + version);
+            return null;
+        }
+
+        ByteArrayInputStream compressed = new ByteArrayInputStream(data, MAGIC.length + 1, data.length - MAGIC.length - 1);
+        // Inflate in one go; reading varints a byte at a time through the inflater is far slower
+        try (InflaterInputStream inflater = new InflaterInputStream(compressed);
+             DataInputStream in = new DataInputStream(new ByteArrayInputStream(inflater.readAllBytes()))) {
+            String className = in.readUTF();
+            long fromDay = readSigned(in);
+            LocalDate from = LocalDate.ofEpochDay(fromDay);
+            LocalDate to = LocalDate.ofEpochDay(readSigned(in));
+            LocalDateTime generatedAt = LocalDateTime.ofEpochSecond(readSigned(in), 0, ZoneOffset.UTC);
+
+            int rows = (int) readVarint(in);
+            int dictionarySize = (int) readVarint(in);
+            String[] studentIds = new String[dictionarySize];
+            String[] studentNames = new String[dictionarySize];
+            for (int student = 0; student < dictionarySize; student++) {
+                studentIds[student] = in.readUTF();
+                studentNames[student] = in.readUTF();
+            }
+
+            int[] days = new int[rows];
+            long day = fromDay;
+            for (int row = 0; row < rows; row++) {
+                day += readSigned(in);
+                days[row] = (int) day;
+            }
+            int[] students = new int[rows];
+            for (int row = 0; row < rows; row++) {
+                students[row] = (int) readVarint(in);
+                if (students[row] >= dictionarySize) {
+                    throw new IOException("student index out of range at row " + row);
+                }
+            }
+            byte[] statuses = new byte[rows];
+            for (int row = 0; row < rows; row += 2) {
+                int packed = in.readUnsignedByte();
+                statuses[row] = checkedStatus(packed & 0x0F);
+                if (row + 1 < rows) {
+                    statuses[row + 1] = checkedStatus(packed >>> 4);
+                }
+            }
+
+            String[] remarks = new String[rows];
+            int remarked = (int) readVarint(in);
+            int row = 0;
+            for (int i = 0; i < remarked; i++) {
+                row += (int) readVarint(in);
+                remarks[row] = in.readUTF();
+            }
+
+            return new AttendanceSnapshot(className.isEmpty() ? null : className, from, to, generatedAt,
+                studentIds, studentNames, days, students, statuses, remarks);
+
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Corrupt attendance snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte checkedStatus(int code) {
+        AttendanceStatus.fromCode(code);
+        return (byte) code;
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static void writeSigned(DataOutputStream out, long value) throws IOException {
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private static long readSigned(DataInputStream in) throws IOException {
+        long raw = readVarint(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,231 @@
+package attendance.service;
+
+import attendance.model.AttendanceStatistics;
+import attendance.model.AttendanceStatus;
+import java.sql.*;
+import java.time.LocalDate;
+
+/**
+ * Per-student attendance counters, one row per student and term (see
+ * AttendanceDates.termOf), kept up to date by triggers on attendance_records.
+ * Dashboards read a student's counters by primary key instead of aggregating
+ * every attendance row on each view.
+ *
+ * Archiving a term moves rows out of attendance_records with the delete
+ * trigger suspended, so the counters keep covering the full history.
+ * verify() recounts from the hot table plus every archive and rebuild()
+ * rewrites the table from that recount.
+ */
+public class AttendanceSummaryService {
+
+    public static final String TABLE = "student_attendance_summary";
+
+    private static final String INSERT_TRIGGER = "attendance_summary_insert";
+    private static final String UPDATE_TRIGGER = "attendance_summary_update";
+    private static final String DELETE_TRIGGER = "attendance_summary_delete";
+
+    private final DatabaseService databaseService;
+    private final AttendanceQueryRouter queryRouter;
+    private final RetryPolicy retryPolicy;
+
+    public AttendanceSummaryService() {
+        this(new DatabaseService());
+    }
+
+    public AttendanceSummaryService(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.queryRouter = new AttendanceQueryRouter(databaseService);
+        this.retryPolicy = RetryPolicy.getDefault();
+    }
+
+    /**
+     * Creates the table and any missing triggers. Returns true when a trigger
+     * had to be created, in which case the counters may be stale and the
+     * caller should rebuild.
+     */
+    public static boolean createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                    "student_id INTEGER NOT NULL," +
+                    "term INTEGER NOT NULL," +
+                    "total INTEGER NOT NULL DEFAULT 0," +
+                    "present INTEGER NOT NULL DEFAULT 0," +
+                    "absent INTEGER NOT NULL DEFAULT 0," +
+                    "late INTEGER NOT NULL DEFAULT 0," +
+                    "PRIMARY KEY (student_id, term)) WITHOUT ROWID");
+
+            int existing;
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master WHERE type = 'trigger' " +
+                    "AND name IN ('" + INSERT_TRIGGER + "', '" + UPDATE_TRIGGER + "', '" + DELETE_TRIGGER + "')")) {
+                existing = rs.next() ? rs.getInt(1) : 0;
+            }
+            if (existing == 3) {
+                return false;
+            }
+
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS " + INSERT_TRIGGER + " AFTER INSERT ON attendance_records BEGIN " +
+                    addRow("NEW") + "; END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS " + UPDATE_TRIGGER +
+                    " AFTER UPDATE OF student_id, day, status ON attendance_records " +
+                    "WHEN OLD.student_id IS NOT NEW.student_id OR OLD.day IS NOT NEW.day OR OLD.status IS NOT NEW.status BEGIN " +
+                    removeRow("OLD") + "; " + addRow("NEW") + "; END");
+            createDeleteTrigger(stmt);
+            return true;
+        }
+    }
+
+    private static void createDeleteTrigger(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + DELETE_TRIGGER + " AFTER DELETE ON attendance_records BEGIN " +
+                removeRow("OLD") + "; END");
+    }
+
+    /**
+     * Run a delete that moves rows elsewhere rather than removing them, such as
+     * archiving, without decrementing the counters. Must be called inside the
+     * caller's transaction so no other writer sees the trigger missing.
+     */
+    static int deleteUntracked(Connection conn, PreparedStatement delete) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TRIGGER IF EXISTS main." + DELETE_TRIGGER);
+            int removed = delete.executeUpdate();
+            createDeleteTrigger(stmt);
+            return removed;
+        }
+    }
+
+    // Status flags as 0/1 values in the column order present, absent, late
+    private static String flags(String row) {
+        return row + ".status = " + AttendanceStatus.PRESENT.getCode() + ", " +
+               row + ".status = " + AttendanceStatus.ABSENT.getCode() + ", " +
+               row + ".status = " + AttendanceStatus.LATE.getCode();
+    }
+
+    private static String addRow(String row) {
+        return "INSERT INTO " + TABLE + " (student_id, term, total, present, absent, late) " +
+               "VALUES (" + row + ".student_id, " + AttendanceDates.sqlTerm(row + ".day") + ", 1, " + flags(row) + ") " +
+               "ON CONFLICT (student_id, term) DO UPDATE SET total = total + 1, " +
+               "present = present + excluded.present, absent = absent + excluded.absent, late = late + excluded.late";
+    }
+
+    private static String removeRow(String row) {
+        String key = " WHERE student_id = " + row + ".student_id AND term = " + AttendanceDates.sqlTerm(row + ".day");
+        return "UPDATE " + TABLE + " SET total = total - 1, " +
+               "present = present - (" + row + ".status = " + AttendanceStatus.PRESENT.getCode() + "), " +
+               "absent = absent - (" + row + ".status = " + AttendanceStatus.ABSENT.getCode() + "), " +
+               "late = late - (" + row + ".status = " + AttendanceStatus.LATE.getCode() + ")" + key + "; " +
+               "DELETE FROM " + TABLE + key + " AND total <= 0";
+    }
+
+    // Recount over the router view, i.e. the hot table plus every attached archive
+    private static String recountSql() {
+        return "SELECT student_id, " + AttendanceDates.sqlTerm("day") + " AS term, COUNT(*) AS total, " +
+               "SUM(status = " + AttendanceStatus.PRESENT.getCode() + ") AS present, " +
+               "SUM(status = " + AttendanceStatus.ABSENT.getCode() + ") AS absent, " +
+               "SUM(status = " + AttendanceStatus.LATE.getCode() + ") AS late " +
+               "FROM " + AttendanceQueryRouter.VIEW + " GROUP BY student_id, term";
+    }
+
+    /** Totals over all of a student's terms. */
+    public AttendanceStatistics getSummary(int studentId) {
+        String sql = "SELECT COALESCE(SUM(total), 0), COALESCE(SUM(present), 0), " +
+                     "COALESCE(SUM(absent), 0), COALESCE(SUM(late), 0) FROM " + TABLE + " WHERE student_id = ?";
+        return read(sql, studentId, null);
+    }
+
+    /** Counters for the term containing the given date. */
+    public AttendanceStatistics getTermSummary(int studentId, LocalDate anyDayInTerm) {
+        String sql = "SELECT total, present, absent, late FROM " + TABLE + " WHERE student_id = ? AND term = ?";
+        return read(sql, studentId, AttendanceDates.termOf(anyDayInTerm));
+    }
+
+    private AttendanceStatistics read(String sql, int studentId, Integer term) {
+        try (Connection conn = databaseService.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, studentId);
+            if (term != null) {
+                pstmt.setInt(2, term);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new AttendanceStatistics(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error reading attendance summary: " + e.getMessage());
+        }
+        return AttendanceStatistics.EMPTY;
+    }
+
+    /**
+     * Compares the counters with a full recount. Returns the number of
+     * (student, term) rows that differ, or -1 if the check could not run.
+     */
+    public int verify() {
+        String counters = "SELECT student_id, term, total, present, absent, late FROM main." + TABLE;
+        String sql = "WITH expected AS (" + recountSql() + ") SELECT " +
+                     "(SELECT COUNT(*) FROM (SELECT * FROM expected EXCEPT " + counters + ")) + " +
+                     "(SELECT COUNT(*) FROM (" + counters + " EXCEPT SELECT * FROM expected))";
+
+        try (Connection conn = queryRouter.openConnection(null, null);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            int mismatched = rs.next() ? rs.getInt(1) : 0;
+            if (mismatched == 0) {
+                System.out.println("✅ Attendance summary matches attendance records");
+            } else {
+                System.out.println("⚠️ Attendance summary has " + mismatched + " stale rows");
+            }
+            return mismatched;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error verifying attendance summary: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /** Rewrites every counter from a full recount in one write transaction. */
+    public boolean rebuild() {
+        System.out.println("🔄 Rebuilding attendance summary...");
+
+        try {
+            int rows = retryPolicy.executeIdempotent("rebuildAttendanceSummary", () -> {
+                try (Connection conn = queryRouter.openConnection(null, null);
+                     Statement stmt = conn.createStatement()) {
+
+                    stmt.execute("BEGIN IMMEDIATE");
+                    try {
+                        stmt.executeUpdate("DELETE FROM main." + TABLE);
+                        int inserted = stmt.executeUpdate("INSERT INTO main." + TABLE +
+                                " (student_id, term, total, present, absent, late) " + recountSql());
+                        stmt.execute("COMMIT");
+                        return inserted;
+                    } catch (SQLException e) {
+                        try {
+                            stmt.execute("ROLLBACK");
+                        } catch (SQLException ex) {
+                            // Transaction was already rolled back by SQLite
+                        }
+                        throw e;
+                    }
+                }
+            });
+            System.out.println("✅ Attendance summary rebuilt: " + rows + " student terms");
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error rebuilding attendance summary: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Verify, and rebuild if anything is off. Returns true when the counters end up correct. */
+    public boolean verifyAndRepair() {
+        int mismatched = verify();
+        if (mismatched == 0) {
+            return true;
+        }
+        return mismatched > 0 && rebuild();
+    }
+}
\ No newline at end of file
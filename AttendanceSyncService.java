@@ -0,0 +1,178 @@
+package attendance.service;
+
+import attendance.model.AttendanceEdit;
+import attendance.model.AttendanceStatus;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline-first attendance saving. Edits go to the local AttendanceJournal
+ * first, stamped with the HybridLogicalClock, and are then replayed into the
+ * shared database in batches through TeacherService.applyEdits, locally or on
+ * an ApiServer in client mode. If the database cannot be reached the edits
+ * stay journaled and a background retry replays them once it is back.
+ * Conflicting edits to the same student and date resolve to the highest
+ * stamp, so the order in which machines come back online does not matter.
+ */
+public class AttendanceSyncService {
+
+    public static final int BATCH_SIZE = 200;
+
+    private static final long RETRY_SECONDS = 15;
+
+    private static AttendanceSyncService instance;
+
+    private final AttendanceJournal journal;
+    private final TeacherService teacherService;
+    private final HybridLogicalClock clock;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean online = true;
+    private volatile String lastError;
+    private volatile long lastSyncMillis;
+    private long syncedEdits;
+    private long supersededEdits;
+    private long failedEdits;
+    private long batches;
+    private long syncNanos;
+
+    public static synchronized AttendanceSyncService getInstance() {
+        if (instance == null) {
+            instance = new AttendanceSyncService(new AttendanceJournal(), Services.teacherService());
+        }
+        return instance;
+    }
+
+    public AttendanceSyncService(AttendanceJournal journal, TeacherService teacherService) {
+        this.journal = journal;
+        this.teacherService = teacherService;
+        this.clock = HybridLogicalClock.getInstance();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "attendance-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::retry, RETRY_SECONDS, RETRY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /** Journals one edit per student; returns false only if the local disk write failed. */
+    public boolean save(List<Integer> studentIds, LocalDate date, List<AttendanceStatus> statuses, List<String> remarks) {
+        List<AttendanceEdit> edits = new ArrayList<>(studentIds.size());
+        for (int i = 0; i < studentIds.size(); i++) {
+            edits.add(new AttendanceEdit(0, clock.now(), studentIds.get(i), date, statuses.get(i), remarks.get(i)));
+        }
+        try {
+            journal.append(edits);
+            return true;
+        } catch (IOException e) {
+            System.err.println("❌ Error writing attendance journal: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * What one syncNow did: edits still waiting, and edits that reached the
+     * database but lost to a newer edit of the same student and day.
+     */
+    public record SyncResult(int waiting, int superseded) {
+    }
+
+    /** Replays the journal until it is empty or the database is unreachable. */
+    public synchronized SyncResult syncNow() {
+        int superseded = 0;
+        while (true) {
+            List<AttendanceEdit> batch = journal.peek(BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            long started = System.nanoTime();
+            TeacherService.ApplyResult result;
+            try {
+                result = teacherService.applyEdits(batch);
+            } catch (SQLException e) {
+                if (online) {
+                    System.err.println("⚠️ Attendance sync paused, " + journal.size() + " edits kept locally: " + e.getMessage());
+                }
+                online = false;
+                lastError = e.getMessage();
+                break;
+            }
+
+            try {
+                journal.acknowledge(batch.get(batch.size() - 1).seq());
+            } catch (IOException e) {
+                // Replaying the batch later is harmless: the stamps make it a no-op
+                System.err.println("⚠️ Could not acknowledge synced attendance edits: " + e.getMessage());
+                lastError = e.getMessage();
+                break;
+            }
+
+            // The stored stamps that beat ours are older than this one, so the next edit wins
+            clock.observe(result.clock());
+            superseded += result.superseded();
+            batches++;
+            syncNanos += System.nanoTime() - started;
+            syncedEdits += result.applied();
+            supersededEdits += result.superseded();
+            failedEdits += result.failed();
+            lastSyncMillis = System.currentTimeMillis();
+            if (!online) {
+                System.out.println("✅ Attendance sync resumed");
+            }
+            online = true;
+            lastError = null;
+            if (result.failed() > 0) {
+                System.err.println("⚠️ " + result.failed() + " journaled edits were for students that no longer exist or for archived terms");
+            }
+        }
+        return new SyncResult(journal.size(), superseded);
+    }
+
+    private void retry() {
+        try {
+            if (journal.size() > 0) {
+                int left = syncNow().waiting();
+                System.out.println("🔄 Attendance sync: " + getStatsSummary() + (left > 0 ? "" : ", journal drained"));
+            }
+        } catch (RuntimeException e) {
+            // Never let one failure cancel the schedule
+            System.err.println("❌ Attendance sync retry failed: " + e.getMessage());
+        }
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    public long getLastSyncMillis() {
+        return lastSyncMillis;
+    }
+
+    public int getBacklog() {
+        return journal.size();
+    }
+
+    /** Age of the oldest unsynced edit, 0 when the journal is empty. */
+    public long getBacklogAgeMillis() {
+        AttendanceEdit oldest = journal.oldest();
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - HybridLogicalClock.millisOf(oldest.hlc()));
+    }
+
+    public synchronized double getThroughput() {
+        return syncNanos == 0 ? 0 : (syncedEdits + supersededEdits + failedEdits) * 1_000_000_000.0 / syncNanos;
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format("%s, backlog %d (oldest %ds), %d synced, %d superseded, %d failed in %d batches, %.0f edits/s%s",
+            online ? "online" : "offline", journal.size(), getBacklogAgeMillis() / 1000, syncedEdits,
+            supersededEdits, failedEdits, batches, getThroughput(),
+            lastError != null ? ", last error: " + lastError : "");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,269 @@
+package attendance.service;
+
+import attendance.model.AttendanceStatistics;
+import attendance.model.ClassSummary;
+import attendance.model.StudentSummary;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Term-end attendance reports for every class, written into one zip with an
+ * index. The attendance data is read once: three grouped passes over the
+ * AttendanceColumnStore snapshot (per class, per class and week, per student)
+ * serve every class, and all rosters come from a single query. Rendering
+ * fans out over a small worker pool while the calling thread writes finished
+ * reports into the zip in completion order.
+ */
+public class BatchReportService {
+
+    /** Called after every report written to the zip. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(int reportsDone, int reportsTotal);
+    }
+
+    public static class BatchResult {
+        private final File zipFile;
+        private final int reports;
+        private final long elapsedMillis;
+        private final boolean cancelled;
+
+        BatchResult(File zipFile, int reports, long elapsedMillis, boolean cancelled) {
+            this.zipFile = zipFile;
+            this.reports = reports;
+            this.elapsedMillis = elapsedMillis;
+            this.cancelled = cancelled;
+        }
+
+        public File getZipFile() { return zipFile; }
+        public int getReports() { return reports; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public boolean isCancelled() { return cancelled; }
+    }
+
+    private static final int MAX_WORKERS = 4;
+
+    private final DatabaseService databaseService;
+    private final ClassService classService;
+    private final AttendanceColumnStore columnStore;
+    private volatile boolean cancelled;
+
+    public BatchReportService() {
+        this(new DatabaseService());
+    }
+
+    public BatchReportService(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.classService = new ClassService();
+        this.columnStore = AttendanceColumnStore.getInstance();
+    }
+
+    /** Stop after the reports in progress; the partial zip is deleted. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Writes one report per class for [from, to] plus index.csv into zipFile.
+     * Returns null on failure; a cancelled run returns a result with
+     * isCancelled() set and leaves no file behind.
+     */
+    public BatchResult generateAll(File zipFile, LocalDate from, LocalDate to, String generatedBy,
+                                   ProgressListener listener) {
+        cancelled = false;
+        long started = System.nanoTime();
+        System.out.println("📦 Generating reports for all classes (" + from + " to " + to + ")");
+
+        List<ClassSummary> classes = classService.getAllClasses();
+        Map<Integer, List<StudentSummary>> rosters;
+        try {
+            rosters = loadRosters();
+        } catch (SQLException e) {
+            System.err.println("❌ Error loading class rosters: " + e.getMessage());
+            return null;
+        }
+
+        AttendanceColumnStore.GroupedCounts byClass = columnStore.groupBy(from, to, null,
+            AttendanceColumnStore.Dimension.CLASS, AttendanceColumnStore.Dimension.ALL);
+        AttendanceColumnStore.GroupedCounts byClassWeek = columnStore.groupBy(from, to, null,
+            AttendanceColumnStore.Dimension.CLASS, AttendanceColumnStore.Dimension.WEEK);
+        AttendanceColumnStore.GroupedCounts byStudent = columnStore.groupBy(from, to, null,
+            AttendanceColumnStore.Dimension.STUDENT, AttendanceColumnStore.Dimension.ALL);
+        if (byClass == null || byClassWeek == null || byStudent == null) {
+            return null;
+        }
+        Map<Integer, Integer> classRows = rowsById(byClass);
+        Map<Integer, Integer> classWeekRows = rowsById(byClassWeek);
+        Map<Integer, Integer> studentRows = rowsById(byStudent);
+
+        int workers = Math.max(1, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "batch-report-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<String[]> completion = new ExecutorCompletionService<>(pool);
+
+        for (ClassSummary cls : classes) {
+            completion.submit(() -> {
+                if (cancelled) {
+                    return null;
+                }
+                String report = renderClassReport(cls, rosters.getOrDefault(cls.id(), List.of()),
+                    byClass, classRows.get(cls.id()), byClassWeek, classWeekRows.get(cls.id()),
+                    byStudent, studentRows, from, to, generatedBy);
+                return new String[] { fileNameFor(cls), report, indexLine(cls, byClass, classRows.get(cls.id())) };
+            });
+        }
+
+        int written = 0;
+        StringBuilder index = new StringBuilder("class,file,students,records,present,absent,late,attendance_rate\n");
+
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            for (int i = 0; i < classes.size() && !cancelled; i++) {
+                String[] done = completion.take().get();
+                if (done == null) {
+                    continue;
+                }
+                writeEntry(zip, done[0], done[1]);
+                index.append(done[2]);
+                written++;
+                if (listener != null) {
+                    listener.onProgress(written, classes.size());
+                }
+            }
+            if (!cancelled) {
+                writeEntry(zip, "index.csv", index.toString());
+            }
+
+        } catch (IOException | ExecutionException e) {
+            System.err.println("❌ Error writing report archive: " + e.getMessage());
+            cancelled = true;
+            pool.shutdownNow();
+            zipFile.delete();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long elapsed = (System.nanoTime() - started) / 1_000_000;
+        if (cancelled) {
+            zipFile.delete();
+            System.out.println("⚠️ Batch report cancelled after " + written + " of " + classes.size() +
+                             " classes (" + elapsed + " ms)");
+            return new BatchResult(null, written, elapsed, true);
+        }
+
+        System.out.println("✅ Wrote " + written + " class reports to " + zipFile.getName() + " in " + elapsed + " ms");
+        return new BatchResult(zipFile, written, elapsed, false);
+    }
+
+    // Every class roster in one query, in the order the reports list students
+    private Map<Integer, List<StudentSummary>> loadRosters() throws SQLException {
+        Map<Integer, List<StudentSummary>> rosters = new HashMap<>();
+        String sql = "SELECT id, student_id, first_name, last_name, email, class_id FROM students " +
+                     "WHERE class_id IS NOT NULL ORDER BY last_name, first_name";
+
+        try (Connection conn = databaseService.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                rosters.computeIfAbsent(rs.getInt(6), id -> new ArrayList<>()).add(new StudentSummary(
+                    rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)));
+            }
+        }
+        return rosters;
+    }
+
+    private static Map<Integer, Integer> rowsById(AttendanceColumnStore.GroupedCounts counts) {
+        Map<Integer, Integer> rows = new HashMap<>();
+        for (int row = 0; row < counts.getRowCount(); row++) {
+            rows.put(counts.getRowId(row), row);
+        }
+        return rows;
+    }
+
+    private static String renderClassReport(ClassSummary cls, List<StudentSummary> roster,
+                                            AttendanceColumnStore.GroupedCounts byClass, Integer classRow,
+                                            AttendanceColumnStore.GroupedCounts byClassWeek, Integer classWeekRow,
+                                            AttendanceColumnStore.GroupedCounts byStudent, Map<Integer, Integer> studentRows,
+                                            LocalDate from, LocalDate to, String generatedBy) {
+        StringBuilder report = new StringBuilder();
+        report.append("📊 Attendance Report for Class: ").append(cls.className()).append("\n");
+        report.append("============================================\n");
+        report.append("Period: ").append(from).append(" to ").append(to).append("\n");
+        report.append("Teacher: ").append(cls.teacherName()).append("\n");
+        report.append("Generated on: ").append(LocalDateTime.now().withNano(0)).append("\n");
+        report.append("Generated by: ").append(generatedBy).append("\n");
+        report.append("Total Students: ").append(roster.size()).append("\n");
+
+        AttendanceStatistics stats = classRow != null ? byClass.statistics(classRow, 0) : AttendanceStatistics.EMPTY;
+        report.append("\n📈 Attendance Statistics:\n");
+        report.append("-------------------------\n");
+        report.append("Total Attendance Records: ").append(stats.totalRecords()).append("\n");
+        report.append("Total Present: ").append(stats.presentCount()).append("\n");
+        report.append("Total Absent: ").append(stats.absentCount()).append("\n");
+        report.append("Total Late: ").append(stats.lateCount()).append("\n");
+        report.append(String.format("Present Rate: %.1f%%%n", stats.presentRate()));
+
+        if (classWeekRow != null) {
+            report.append("\n📅 Weekly Attendance Rate:\n");
+            report.append("-------------------------\n");
+            for (int week = 0; week < byClassWeek.getColumnCount(); week++) {
+                if (byClassWeek.total(classWeekRow, week) > 0) {
+                    report.append(byClassWeek.getColumnLabel(week)).append(": ")
+                          .append(String.format("%.1f%%", byClassWeek.attendanceRate(classWeekRow, week))).append("\n");
+                }
+            }
+        }
+
+        report.append("\n👥 Students:\n");
+        report.append("-------------\n");
+        for (StudentSummary student : roster) {
+            Integer row = studentRows.get(student.id());
+            AttendanceStatistics s = row != null ? byStudent.statistics(row, 0) : AttendanceStatistics.EMPTY;
+            report.append(String.format("• %s - %s: %d present, %d absent, %d late of %d (%.1f%%)%n",
+                student.studentId(), student.fullName(), s.presentCount(), s.absentCount(), s.lateCount(),
+                s.totalRecords(), s.presentRate() + s.lateRate()));
+        }
+        return report.toString();
+    }
+
+    private static String indexLine(ClassSummary cls, AttendanceColumnStore.GroupedCounts byClass, Integer classRow) {
+        AttendanceStatistics s = classRow != null ? byClass.statistics(classRow, 0) : AttendanceStatistics.EMPTY;
+        return String.format("\"%s\",%s,%d,%d,%d,%d,%d,%.1f%n", cls.className().replace("\"", "\"\""),
+            fileNameFor(cls), cls.studentCount(), s.totalRecords(), s.presentCount(), s.absentCount(),
+            s.lateCount(), s.presentRate() + s.lateRate());
+    }
+
+    private static String fileNameFor(ClassSummary cls) {
+        return "Attendance_Report_" + cls.className().replaceAll("[^a-zA-Z0-9]", "_") + "_" + cls.id() + ".txt";
+    }
+
+    private static void writeEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
\ No newline at end of file
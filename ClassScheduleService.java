@@ -0,0 +1,487 @@
+package attendance.service;
+
+import attendance.model.AttendanceStatus;
+import attendance.model.ClassSlot;
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Weekly time slots parsed from the free-text classes.schedule column and
+ * kept in class_slots. Each class's slots are held in memory as sorted
+ * minute-of-week intervals, so the slot in session at a check-in time is a
+ * binary search, and the check-in decides PRESENT or LATE without a teacher.
+ */
+public class ClassScheduleService {
+
+    public static final String TABLE = "class_slots";
+
+    // A check-in this long before the start counts for that slot
+    private static final int EARLY_MINUTES = 30;
+    // Arriving within this many minutes of the start is still on time
+    private static final int GRACE_MINUTES = 5;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int RECOMPUTE_CHUNK = 500;
+
+    // "9:00-10:30", "9-10", "9.30am - 11am", "14:00 to 15:30"
+    private static final Pattern TIME_RANGE = Pattern.compile(
+        "(\\d{1,2})(?:[:.](\\d{2}))?\\s*([ap]\\.?m\\.?)?\\s*(?:-|–|to)\\s*(\\d{1,2})(?:[:.](\\d{2}))?\\s*([ap]\\.?m\\.?)?",
+        Pattern.CASE_INSENSITIVE);
+    private static final Pattern DAY_TOKEN = Pattern.compile(
+        "\\b(mon|tue|wed|thu|fri|sat|sun)[a-z]*\\b|\\b(to|through|thru)\\b|\\b(weekdays|daily)\\b",
+        Pattern.CASE_INSENSITIVE);
+
+    private static ClassScheduleService instance;
+
+    private final DatabaseService databaseService;
+    private final RetryPolicy retryPolicy;
+    private volatile Map<Integer, Timetable> timetables;
+
+    public static synchronized ClassScheduleService getInstance() {
+        if (instance == null) {
+            instance = new ClassScheduleService(new DatabaseService());
+        }
+        return instance;
+    }
+
+    public ClassScheduleService(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.retryPolicy = RetryPolicy.getDefault();
+    }
+
+    static void createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "class_id INTEGER NOT NULL," +
+                    "day_of_week INTEGER NOT NULL CHECK (day_of_week BETWEEN 1 AND 7)," +
+                    "start_minute INTEGER NOT NULL," +
+                    "end_minute INTEGER NOT NULL," +
+                    "FOREIGN KEY (class_id) REFERENCES classes(id) ON DELETE CASCADE)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_class_slots_class ON " + TABLE + "(class_id)");
+        }
+    }
+
+    // MARK: PARSING
+
+    /**
+     * Parses schedules such as "Mon-Wed-Fri 9:00-10:30" or
+     * "Mon to Thu 9am-10am; Fri 14:00-15:00". Day names joined by '-' or ','
+     * are a list, "to" between two days is a range, and a time range with no
+     * days before it repeats the previous days. Returns an empty list when
+     * nothing usable is found.
+     */
+    public static List<ClassSlot> parse(int classId, String schedule) {
+        List<ClassSlot> slots = new ArrayList<>();
+        if (schedule == null || schedule.isBlank()) {
+            return slots;
+        }
+
+        Matcher times = TIME_RANGE.matcher(schedule);
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        int segmentStart = 0;
+        while (times.find()) {
+            Set<DayOfWeek> segmentDays = parseDays(schedule.substring(segmentStart, times.start()));
+            segmentStart = times.end();
+            if (!segmentDays.isEmpty()) {
+                days = segmentDays;
+            }
+
+            LocalTime[] range = parseTimes(times);
+            if (range == null || days.isEmpty()) {
+                continue;
+            }
+            for (DayOfWeek day : days) {
+                slots.add(new ClassSlot(classId, day, range[0], range[1]));
+            }
+        }
+        return slots;
+    }
+
+    private static Set<DayOfWeek> parseDays(String text) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        DayOfWeek previous = null;
+        boolean range = false;
+
+        Matcher m = DAY_TOKEN.matcher(text);
+        while (m.find()) {
+            if (m.group(3) != null) {
+                days.addAll(m.group(3).equalsIgnoreCase("daily")
+                    ? EnumSet.allOf(DayOfWeek.class) : EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+            } else if (m.group(2) != null) {
+                range = previous != null;
+            } else {
+                DayOfWeek day = dayOf(m.group(1));
+                if (range) {
+                    for (DayOfWeek d = previous; d != day; d = d.plus(1)) {
+                        days.add(d);
+                    }
+                    range = false;
+                }
+                days.add(day);
+                previous = day;
+            }
+        }
+        return days;
+    }
+
+    private static DayOfWeek dayOf(String prefix) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day.name().startsWith(prefix.toUpperCase(Locale.ROOT))) {
+                return day;
+            }
+        }
+        throw new IllegalArgumentException(prefix);
+    }
+
+    // Hours without am/pm are 24-hour; "9-11am" and "1-2:30pm" share the end's suffix
+    private static LocalTime[] parseTimes(Matcher m) {
+        String endSuffix = m.group(6);
+        String startSuffix = m.group(3) != null ? m.group(3) : endSuffix;
+        int start = minutes(m.group(1), m.group(2), startSuffix);
+        int end = minutes(m.group(4), m.group(5), endSuffix);
+        if (m.group(3) == null && endSuffix != null && start >= end && start >= 12 * 60) {
+            // "11-1pm": the start is the morning
+            start -= 12 * 60;
+        }
+        if (start < 0 || end < 0 || start >= end) {
+            return null;
+        }
+        return new LocalTime[] { LocalTime.of(start / 60, start % 60), LocalTime.of(end / 60, end % 60) };
+    }
+
+    private static int minutes(String hours, String mins, String suffix) {
+        int h = Integer.parseInt(hours);
+        int m = mins != null ? Integer.parseInt(mins) : 0;
+        if (suffix != null) {
+            if (h < 1 || h > 12) {
+                return -1;
+            }
+            h = h % 12 + (Character.toLowerCase(suffix.charAt(0)) == 'p' ? 12 : 0);
+        }
+        return h < 24 && m < 60 ? h * 60 + m : -1;
+    }
+
+    // MARK: SLOTS TABLE
+
+    /** Re-parses every class's schedule into class_slots and reloads the index. Returns the slot count. */
+    public int rebuild() {
+        String selectSql = "SELECT id, class_name, schedule FROM classes";
+        String insertSql = "INSERT INTO " + TABLE + " (class_id, day_of_week, start_minute, end_minute) VALUES (?, ?, ?, ?)";
+
+        try {
+            // Replaces the whole table, so a replay ends in the same state
+            int count = retryPolicy.executeIdempotent("rebuild class slots", () -> {
+                try (Connection conn = databaseService.getConnection()) {
+                    conn.setAutoCommit(false);
+                    try (Statement stmt = conn.createStatement();
+                         PreparedStatement insert = conn.prepareStatement(insertSql)) {
+                        List<ClassSlot> slots = new ArrayList<>();
+                        try (ResultSet rs = stmt.executeQuery(selectSql)) {
+                            while (rs.next()) {
+                                String schedule = rs.getString("schedule");
+                                List<ClassSlot> parsed = parse(rs.getInt("id"), schedule);
+                                if (parsed.isEmpty() && schedule != null && !schedule.isBlank()) {
+                                    System.out.println("⚠️ Could not read the schedule of " + rs.getString("class_name") +
+                                                     ": '" + schedule + "'");
+                                }
+                                slots.addAll(parsed);
+                            }
+                        }
+
+                        stmt.executeUpdate("DELETE FROM " + TABLE);
+                        for (ClassSlot slot : slots) {
+                            insert.setInt(1, slot.classId());
+                            insert.setInt(2, slot.day().getValue());
+                            insert.setInt(3, slot.start().toSecondOfDay() / 60);
+                            insert.setInt(4, slot.end().toSecondOfDay() / 60);
+                            insert.addBatch();
+                        }
+                        insert.executeBatch();
+                        conn.commit();
+                        timetables = index(slots);
+                        return slots.size();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        throw e;
+                    } finally {
+                        conn.setAutoCommit(true);
+                    }
+                }
+            });
+            System.out.println("✅ Class schedules parsed into " + count + " weekly slots");
+            return count;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error rebuilding class slots: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /** Drops the in-memory index; the next lookup reloads it. */
+    public void invalidate() {
+        timetables = null;
+    }
+
+    private Map<Integer, Timetable> timetables() {
+        Map<Integer, Timetable> loaded = timetables;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = timetables;
+                if (loaded == null) {
+                    loaded = load();
+                    timetables = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    // Files created before class_slots existed start empty; parse them once
+    private Map<Integer, Timetable> load() {
+        String sql = "SELECT class_id, day_of_week, start_minute, end_minute FROM " + TABLE;
+        List<ClassSlot> slots = new ArrayList<>();
+
+        try (Connection conn = databaseService.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                int start = rs.getInt(3);
+                int end = rs.getInt(4);
+                slots.add(new ClassSlot(rs.getInt(1), DayOfWeek.of(rs.getInt(2)),
+                    LocalTime.of(start / 60, start % 60), LocalTime.of(end / 60, end % 60)));
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error loading class slots: " + e.getMessage());
+            return Map.of();
+        }
+
+        if (slots.isEmpty() && rebuild() > 0) {
+            return timetables;
+        }
+        return index(slots);
+    }
+
+    private static Map<Integer, Timetable> index(List<ClassSlot> slots) {
+        Map<Integer, List<ClassSlot>> byClass = new HashMap<>();
+        for (ClassSlot slot : slots) {
+            byClass.computeIfAbsent(slot.classId(), id -> new ArrayList<>()).add(slot);
+        }
+        Map<Integer, Timetable> index = new HashMap<>();
+        byClass.forEach((classId, list) -> index.put(classId, new Timetable(list)));
+        return index;
+    }
+
+    public List<ClassSlot> getSlots(int classId) {
+        Timetable timetable = timetables().get(classId);
+        return timetable != null ? List.of(timetable.slots) : List.of();
+    }
+
+    // MARK: LATENESS
+
+    /** The slot of the class in session at the given time, counting the early window, or null. */
+    public ClassSlot activeSlot(int classId, LocalDateTime at) {
+        Timetable timetable = timetables().get(classId);
+        if (timetable == null) {
+            return null;
+        }
+        int i = timetable.find(minuteOfWeek(at));
+        return i >= 0 && minuteOfWeek(at) < timetable.ends[i] ? timetable.slots[i] : null;
+    }
+
+    /**
+     * PRESENT or LATE for a check-in, or null when the class has no slot that
+     * day. The register has one row per day, so only arriving for the day's
+     * first slot, no later than GRACE_MINUTES after it starts, is on time;
+     * arriving after a slot of that day has begun is late.
+     */
+    public AttendanceStatus statusFor(Integer classId, LocalDateTime checkIn) {
+        Timetable timetable = classId != null ? timetables().get(classId) : null;
+        if (timetable == null) {
+            return null;
+        }
+
+        int t = minuteOfWeek(checkIn);
+        int day = t / MINUTES_PER_DAY;
+        int i = timetable.find(t);
+        if (i >= 0 && timetable.starts[i] / MINUTES_PER_DAY == day) {
+            boolean firstOfDay = i == 0 || timetable.starts[i - 1] / MINUTES_PER_DAY != day;
+            boolean onTime = t < timetable.ends[i] && t <= timetable.starts[i] + GRACE_MINUTES;
+            return firstOfDay && onTime ? AttendanceStatus.PRESENT : AttendanceStatus.LATE;
+        }
+        // Before the day's first slot opens
+        if (i + 1 < timetable.starts.length && timetable.starts[i + 1] / MINUTES_PER_DAY == day) {
+            return AttendanceStatus.PRESENT;
+        }
+        return null;
+    }
+
+    /** Kiosk rule using the timetable, and the fallback for classes without slots that day. */
+    public KioskCheckInService.StatusRule statusRule(KioskCheckInService.StatusRule fallback) {
+        return (studentId, classId, checkIn) -> {
+            AttendanceStatus status = statusFor(classId, checkIn);
+            return status != null ? status : fallback.statusFor(studentId, classId, checkIn);
+        };
+    }
+
+    /**
+     * Re-derives PRESENT/LATE for recorded check-ins in [from, to] from the
+     * timetable. Rows without a check-in, absences and excused rows are left
+     * alone. Returns the number of rows whose status changed.
+     */
+    public int recomputeStatuses(LocalDate from, LocalDate to) {
+        String selectSql = "SELECT a.id, a.student_id, COALESCE(a.class_id, s.class_id), a.day, a.check_in, a.status " +
+                           "FROM attendance_records a LEFT JOIN students s ON s.id = a.student_id " +
+                           "WHERE a.day BETWEEN ? AND ? AND a.check_in IS NOT NULL AND a.status IN (?, ?)";
+        List<Recomputed> changes = new ArrayList<>();
+
+        try (Connection conn = databaseService.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(selectSql)) {
+            pstmt.setLong(1, AttendanceDates.toDay(from));
+            pstmt.setLong(2, AttendanceDates.toDay(to));
+            pstmt.setInt(3, AttendanceStatus.PRESENT.getCode());
+            pstmt.setInt(4, AttendanceStatus.LATE.getCode());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Object classValue = rs.getObject(3);
+                    Integer classId = classValue != null ? ((Number) classValue).intValue() : null;
+                    LocalDate date = AttendanceDates.fromDay(rs.getLong(4));
+                    LocalTime checkIn;
+                    try {
+                        checkIn = LocalTime.parse(rs.getString(5).trim());
+                    } catch (RuntimeException e) {
+                        continue;
+                    }
+                    AttendanceStatus previous = AttendanceStatus.fromCode(rs.getInt(6));
+                    AttendanceStatus status = statusFor(classId, date.atTime(checkIn));
+                    if (status != null && status != previous) {
+                        changes.add(new Recomputed(rs.getLong(1), rs.getInt(2), classId, date, previous, status));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error reading check-ins for lateness: " + e.getMessage());
+            return 0;
+        }
+
+        int updated = 0;
+        for (int i = 0; i < changes.size(); i += RECOMPUTE_CHUNK) {
+            List<Recomputed> chunk = changes.subList(i, Math.min(i + RECOMPUTE_CHUNK, changes.size()));
+            try {
+                // Each update is guarded on the old status, so a replay skips rows already done
+                List<Recomputed> written = retryPolicy.executeIdempotent("recompute lateness", () -> writeStatuses(chunk));
+                for (Recomputed r : written) {
+                    TeacherService.attendanceWritten(r.studentId(), r.classId(), r.date(), r.previous(), r.status());
+                }
+                updated += written.size();
+            } catch (SQLException e) {
+                System.err.println("❌ Error recomputing lateness after " + updated + " rows: " + e.getMessage());
+                return updated;
+            }
+        }
+
+        System.out.println("✅ Recomputed lateness for " + from + " to " + to + ": " + updated + " rows changed");
+        return updated;
+    }
+
+    private record Recomputed(long id, int studentId, Integer classId, LocalDate date,
+                              AttendanceStatus previous, AttendanceStatus status) {}
+
+    private List<Recomputed> writeStatuses(List<Recomputed> chunk) throws SQLException {
+        String sql = "UPDATE attendance_records SET status = ?, hlc = ? WHERE id = ? AND status = ?";
+        HybridLogicalClock clock = HybridLogicalClock.getInstance();
+
+        try (Connection conn = databaseService.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                List<Recomputed> written = new ArrayList<>(chunk.size());
+                for (Recomputed r : chunk) {
+                    pstmt.setInt(1, r.status().getCode());
+                    pstmt.setLong(2, clock.now());
+                    pstmt.setLong(3, r.id());
+                    pstmt.setInt(4, r.previous().getCode());
+                    if (pstmt.executeUpdate() > 0) {
+                        written.add(r);
+                    }
+                }
+                conn.commit();
+                return written;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static int minuteOfWeek(LocalDateTime at) {
+        return (at.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY + at.getHour() * 60 + at.getMinute();
+    }
+
+    /**
+     * One class's slots as sorted minute-of-week intervals. Overlapping slots
+     * are merged, keeping the earlier start, so the intervals are disjoint and
+     * the last start at or before a time identifies the only slot it can be in.
+     */
+    private static final class Timetable {
+        final ClassSlot[] slots;
+        final int[] starts;
+        final int[] ends;
+
+        Timetable(List<ClassSlot> list) {
+            List<ClassSlot> sorted = new ArrayList<>(list);
+            sorted.sort(Comparator.comparing(ClassSlot::day).thenComparing(ClassSlot::start));
+
+            List<ClassSlot> merged = new ArrayList<>();
+            for (ClassSlot slot : sorted) {
+                ClassSlot last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+                if (last != null && last.day() == slot.day() && !slot.start().isAfter(last.end())) {
+                    if (slot.end().isAfter(last.end())) {
+                        merged.set(merged.size() - 1, new ClassSlot(last.classId(), last.day(), last.start(), slot.end()));
+                    }
+                } else {
+                    merged.add(slot);
+                }
+            }
+
+            slots = merged.toArray(new ClassSlot[0]);
+            starts = new int[slots.length];
+            ends = new int[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                int dayStart = (slots[i].day().getValue() - 1) * MINUTES_PER_DAY;
+                starts[i] = dayStart + slots[i].start().toSecondOfDay() / 60;
+                ends[i] = dayStart + slots[i].end().toSecondOfDay() / 60;
+            }
+        }
+
+        // Last slot whose early window has opened by minute t, or -1
+        int find(int t) {
+            int lo = 0;
+            int hi = starts.length - 1;
+            int found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] - EARLY_MINUTES <= t) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return found;
+        }
+    }
+}
\ No newline at end of file
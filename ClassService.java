@@ -1,62 +1,48 @@
 package attendance.service;
 
+import attendance.model.ClassSummary;
 import java.sql.*;
 import java.util.*;
 
 public class ClassService {
     
+    // Shared by the class listings here and in TeacherService; CLASS_MAPPER reads these by position
+    static final String CLASS_COLUMNS =
+        "c.id, c.class_name, c.room, c.schedule, COALESCE(c.teacher_id, 0), " +
+        "CASE WHEN u.first_name IS NULL THEN '" + ClassSummary.NO_TEACHER + "' " +
+        "ELSE u.first_name || ' ' || u.last_name END, " +
+        "(SELECT COUNT(*) FROM students s WHERE s.class_id = c.id) " +
+        "FROM classes c LEFT JOIN users u ON c.teacher_id = u.id ";
+    
+    static final RowMapper<ClassSummary> CLASS_MAPPER = rs -> new ClassSummary(
+        rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+        rs.getInt(5), rs.getString(6), rs.getInt(7));
+    
     private DatabaseService databaseService;
+    private RetryPolicy retryPolicy;
     
     public ClassService() {
         databaseService = new DatabaseService();
+        retryPolicy = RetryPolicy.getDefault();
     }
     
     // Get all classes with teacher names and student counts
-    public List<Map<String, Object>> getAllClasses() {
-        List<Map<String, Object>> classes = new ArrayList<>();
-        String sql = """
-            SELECT DISTINCT 
-                c.id, 
-                c.class_name, 
-                c.room,
-                c.schedule,
-                c.teacher_id,
-                CASE 
-                    WHEN u.first_name IS NULL THEN 'No Teacher Assigned'
-                    ELSE u.first_name || ' ' || u.last_name 
-                END as teacher_name,
-                (SELECT COUNT(DISTINCT s.id) FROM students s WHERE s.class_id = c.id) as student_count
-            FROM classes c
-            LEFT JOIN users u ON c.teacher_id = u.id
-            WHERE c.class_name IS NOT NULL AND c.class_name != ''
-            ORDER BY c.class_name
-        """;
+    public List<ClassSummary> getAllClasses() {
+        String sql = "SELECT " + CLASS_COLUMNS +
+                     "WHERE c.class_name IS NOT NULL AND c.class_name != '' ORDER BY c.class_name";
         
         try (Connection conn = databaseService.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                Map<String, Object> classData = new HashMap<>();
-                classData.put("id", rs.getInt("id"));
-                classData.put("className", rs.getString("class_name"));
-                classData.put("room", rs.getString("room"));
-                classData.put("schedule", rs.getString("schedule"));
-                classData.put("teacherId", rs.getInt("teacher_id"));
-                
-                String teacherName = rs.getString("teacher_name");
-                classData.put("teacherName", teacherName != null ? teacherName : "No Teacher Assigned");
-                
-                classData.put("studentCount", rs.getInt("student_count"));
-                classes.add(classData);
-            }
+            return RowMapper.mapAll(rs, CLASS_MAPPER);
             
         } catch (SQLException e) {
             System.err.println("❌ Error getting all classes: " + e.getMessage());
             e.printStackTrace();
         }
         
-        return classes;
+        return new ArrayList<>();
     }
     
     // Get all teachers for dropdown - FIXED VERSION
@@ -111,22 +97,31 @@ public class ClassService {
         
         String sql = "INSERT INTO classes (class_name, room, schedule, teacher_id) VALUES (?, ?, ?, ?)";
         
-        try (Connection conn = databaseService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, className);
-            pstmt.setString(2, room);
-            pstmt.setString(3, schedule);
-            
-            if (teacherId != null && teacherId > 0) {
-                pstmt.setInt(4, teacherId);
-            } else {
-                pstmt.setNull(4, Types.INTEGER);
+        try {
+            boolean added = retryPolicy.execute("addClass", () -> {
+                try (Connection conn = databaseService.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setString(1, className);
+                    pstmt.setString(2, room);
+                    pstmt.setString(3, schedule);
+                    
+                    if (teacherId != null && teacherId > 0) {
+                        pstmt.setInt(4, teacherId);
+                    } else {
+                        pstmt.setNull(4, Types.INTEGER);
+                    }
+                    
+                    int affectedRows = pstmt.executeUpdate();
+                    System.out.println("✅ Added class '" + className + "', affected rows: " + affectedRows);
+                    return affectedRows > 0;
+                }
+            });
+            // Timetable lookups for check-ins follow the schedule text
+            if (added) {
+                ClassScheduleService.getInstance().rebuild();
             }
-            
-            int affectedRows = pstmt.executeUpdate();
-            System.out.println("✅ Added class '" + className + "', affected rows: " + affectedRows);
-            return affectedRows > 0;
+            return added;
             
         } catch (SQLException e) {
             System.err.println("❌ Error adding class: " + e.getMessage());
@@ -146,23 +141,22 @@ public class ClassService {
         System.out.println("  teacherId: " + teacherId);
         
         // Get current class data
-        Map<String, Object> currentClass = getClassById(classId);
+        ClassSummary currentClass = getClassById(classId);
         if (currentClass == null) {
             System.err.println("❌ Class ID " + classId + " not found");
             return false;
         }
         
         // Get current values
-        String currentClassName = (String) currentClass.get("className");
-        String currentRoom = (String) currentClass.get("room");
-        String currentSchedule = (String) currentClass.get("schedule");
-        Integer currentTeacherId = (Integer) currentClass.get("teacherId");
+        String currentClassName = currentClass.className();
+        String currentRoom = currentClass.room();
+        String currentSchedule = currentClass.schedule();
+        Integer currentTeacherId = currentClass.teacherId();
         
         // Normalize values to handle nulls
         if (currentRoom == null) currentRoom = "";
         if (currentSchedule == null) currentSchedule = "";
         if (teacherId == null) teacherId = 0;
-        if (currentTeacherId == null) currentTeacherId = 0;
         
         System.out.println("Current class data:");
         System.out.println("  currentClassName: '" + currentClassName + "'");
@@ -203,25 +197,36 @@ public class ClassService {
         }
         
         String sql = "UPDATE classes SET class_name = ?, room = ?, schedule = ?, teacher_id = ? WHERE id = ?";
+        int newTeacherId = teacherId;
         
-        try (Connection conn = databaseService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, className);
-            pstmt.setString(2, room);
-            pstmt.setString(3, schedule);
-            
-            if (teacherId != null && teacherId > 0) {
-                pstmt.setInt(4, teacherId);
-            } else {
-                pstmt.setNull(4, Types.INTEGER);
+        try {
+            boolean updated = retryPolicy.executeIdempotent("updateClass", () -> {
+                try (Connection conn = databaseService.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setString(1, className);
+                    pstmt.setString(2, room);
+                    pstmt.setString(3, schedule);
+                    
+                    if (newTeacherId > 0) {
+                        pstmt.setInt(4, newTeacherId);
+                    } else {
+                        pstmt.setNull(4, Types.INTEGER);
+                    }
+                    
+                    pstmt.setInt(5, classId);
+                    
+                    int affectedRows = pstmt.executeUpdate();
+                    System.out.println("✅ Updated class ID " + classId + " to '" + className + "', affected rows: " + affectedRows);
+                    AttendanceCube.getInstance().invalidate();
+                    ReportCache.getInstance().invalidateAll();
+                    return affectedRows > 0;
+                }
+            });
+            if (updated) {
+                ClassScheduleService.getInstance().rebuild();
             }
-            
-            pstmt.setInt(5, classId);
-            
-            int affectedRows = pstmt.executeUpdate();
-            System.out.println("✅ Updated class ID " + classId + " to '" + className + "', affected rows: " + affectedRows);
-            return affectedRows > 0;
+            return updated;
             
         } catch (SQLException e) {
             System.err.println("❌ Error updating class: " + e.getMessage());
@@ -232,51 +237,51 @@ public class ClassService {
     
     // Delete a class
     public boolean deleteClass(int classId) {
-        Connection conn = null;
-        
         try {
-            conn = databaseService.getConnection();
-            conn.setAutoCommit(false);
-            
-            // First, unassign students from this class
-            String unassignStudentsSql = "UPDATE students SET class_id = NULL WHERE class_id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(unassignStudentsSql)) {
-                pstmt.setInt(1, classId);
-                int unassigned = pstmt.executeUpdate();
-                System.out.println("ℹ️ Unassigned " + unassigned + " students from class ID " + classId);
-            }
-            
-            // Delete the class
-            String deleteClassSql = "DELETE FROM classes WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(deleteClassSql)) {
-                pstmt.setInt(1, classId);
-                int affectedRows = pstmt.executeUpdate();
-                
-                conn.commit();
-                System.out.println("✅ Deleted class ID " + classId + ", affected rows: " + affectedRows);
-                return affectedRows > 0;
+            boolean deleted = retryPolicy.execute("deleteClass", () -> {
+                try (Connection conn = databaseService.getConnection()) {
+                    conn.setAutoCommit(false);
+                    
+                    try {
+                        // First, unassign students from this class
+                        String unassignStudentsSql = "UPDATE students SET class_id = NULL WHERE class_id = ?";
+                        try (PreparedStatement pstmt = conn.prepareStatement(unassignStudentsSql)) {
+                            pstmt.setInt(1, classId);
+                            int unassigned = pstmt.executeUpdate();
+                            System.out.println("ℹ️ Unassigned " + unassigned + " students from class ID " + classId);
+                        }
+                        
+                        // Delete the class
+                        String deleteClassSql = "DELETE FROM classes WHERE id = ?";
+                        try (PreparedStatement pstmt = conn.prepareStatement(deleteClassSql)) {
+                            pstmt.setInt(1, classId);
+                            int affectedRows = pstmt.executeUpdate();
+                            
+                            conn.commit();
+                            System.out.println("✅ Deleted class ID " + classId + ", affected rows: " + affectedRows);
+                            AttendanceCube.getInstance().invalidate();
+                            ReportCache.getInstance().invalidateAll();
+                            return affectedRows > 0;
+                        }
+                    } catch (SQLException e) {
+                        try {
+                            conn.rollback();
+                        } catch (SQLException ex) {
+                            ex.printStackTrace();
+                        }
+                        throw e;
+                    }
+                }
+            });
+            if (deleted) {
+                ClassScheduleService.getInstance().rebuild();
             }
+            return deleted;
             
         } catch (SQLException e) {
             System.err.println("❌ Error deleting class: " + e.getMessage());
             e.printStackTrace();
-            
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
-            }
             return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
         }
     }
     
@@ -309,37 +314,15 @@ public class ClassService {
     }
     
     // Get class by ID
-    public Map<String, Object> getClassById(int classId) {
-        String sql = """
-            SELECT 
-                c.*, 
-                CASE 
-                    WHEN u.first_name IS NULL THEN 'No Teacher Assigned'
-                    ELSE u.first_name || ' ' || u.last_name 
-                END as teacher_name
-            FROM classes c
-            LEFT JOIN users u ON c.teacher_id = u.id
-            WHERE c.id = ?
-        """;
+    public ClassSummary getClassById(int classId) {
+        String sql = "SELECT " + CLASS_COLUMNS + "WHERE c.id = ?";
         
         try (Connection conn = databaseService.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, classId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                Map<String, Object> classData = new HashMap<>();
-                classData.put("id", rs.getInt("id"));
-                classData.put("className", rs.getString("class_name"));
-                classData.put("room", rs.getString("room"));
-                classData.put("schedule", rs.getString("schedule"));
-                classData.put("teacherId", rs.getInt("teacher_id"));
-                
-                String teacherName = rs.getString("teacher_name");
-                classData.put("teacherName", teacherName != null ? teacherName : "No Teacher Assigned");
-                
-                return classData;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMapper.mapFirst(rs, CLASS_MAPPER);
             }
             
         } catch (SQLException e) {
@@ -375,31 +358,15 @@ public class ClassService {
     }
     
     // Get classes assigned to a teacher
-    public List<Map<String, Object>> getClassesByTeacher(int teacherId) {
-        List<Map<String, Object>> classes = new ArrayList<>();
-        String sql = """
-            SELECT DISTINCT c.*, COUNT(s.id) as student_count
-            FROM classes c
-            LEFT JOIN students s ON c.id = s.class_id
-            WHERE c.teacher_id = ?
-            GROUP BY c.id, c.class_name, c.room, c.schedule
-            ORDER BY c.class_name
-        """;
+    public List<ClassSummary> getClassesByTeacher(int teacherId) {
+        String sql = "SELECT " + CLASS_COLUMNS + "WHERE c.teacher_id = ? ORDER BY c.class_name";
         
         try (Connection conn = databaseService.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, teacherId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Map<String, Object> classData = new HashMap<>();
-                classData.put("id", rs.getInt("id"));
-                classData.put("className", rs.getString("class_name"));
-                classData.put("room", rs.getString("room"));
-                classData.put("schedule", rs.getString("schedule"));
-                classData.put("studentCount", rs.getInt("student_count"));
-                classes.add(classData);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMapper.mapAll(rs, CLASS_MAPPER);
             }
             
         } catch (SQLException e) {
@@ -407,7 +374,7 @@ public class ClassService {
             e.printStackTrace();
         }
         
-        return classes;
+        return new ArrayList<>();
     }
     
     // Check if class name already exists
@@ -480,52 +447,46 @@ public class ClassService {
     
     // Assign students to class
     public boolean assignStudentsToClass(List<Integer> studentIds, int classId) {
-        Connection conn = null;
-        
         try {
-            conn = databaseService.getConnection();
-            conn.setAutoCommit(false);
-            
-            String sql = "UPDATE students SET class_id = ? WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                for (int studentId : studentIds) {
-                    pstmt.setInt(1, classId);
-                    pstmt.setInt(2, studentId);
-                    pstmt.addBatch();
+            return retryPolicy.executeIdempotent("assignStudentsToClass", () -> {
+                try (Connection conn = databaseService.getConnection()) {
+                    conn.setAutoCommit(false);
+                    
+                    String sql = "UPDATE students SET class_id = ? WHERE id = ?";
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        for (int studentId : studentIds) {
+                            pstmt.setInt(1, classId);
+                            pstmt.setInt(2, studentId);
+                            pstmt.addBatch();
+                        }
+                        
+                        int[] results = pstmt.executeBatch();
+                        conn.commit();
+                        
+                        int successCount = 0;
+                        for (int result : results) {
+                            if (result > 0) successCount++;
+                        }
+                        
+                        System.out.println("✅ Assigned " + successCount + " students to class ID " + classId);
+                        ReportCache.getInstance().invalidateAll();
+                        return successCount > 0;
+                        
+                    } catch (SQLException e) {
+                        try {
+                            conn.rollback();
+                        } catch (SQLException ex) {
+                            ex.printStackTrace();
+                        }
+                        throw e;
+                    }
                 }
-                
-                int[] results = pstmt.executeBatch();
-                conn.commit();
-                
-                int successCount = 0;
-                for (int result : results) {
-                    if (result > 0) successCount++;
-                }
-                
-                System.out.println("✅ Assigned " + successCount + " students to class ID " + classId);
-                return successCount > 0;
-            }
+            });
             
         } catch (SQLException e) {
             System.err.println("❌ Error assigning students to class: " + e.getMessage());
             e.printStackTrace();
-            
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
-            }
             return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
         }
     }
     
@@ -0,0 +1,217 @@
+package attendance.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size pool of SQLite connections for server mode, installed with
+ * DatabaseService.usePool so every service picks it up without changes.
+ * Callers still close what they get; close hands the connection back after
+ * closing any statements left open, rolling back an unfinished transaction and
+ * dropping the TEMP view and archives AttendanceQueryRouter attaches, so the
+ * next borrower sees a clean connection.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final String url;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final BlockingQueue<Connection> idle;
+    private final AtomicInteger created = new AtomicInteger();
+    private volatile boolean closed;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    public ConnectionPool(String url, int maxSize, long acquireTimeoutMillis) {
+        this.url = url;
+        this.maxSize = Math.max(1, maxSize);
+        this.acquireTimeoutMillis = Math.max(1, acquireTimeoutMillis);
+        this.idle = new ArrayBlockingQueue<>(this.maxSize);
+    }
+
+    /** Borrow a connection; closing it returns it to the pool. */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        Connection physical = idle.poll();
+        if (physical == null && created.incrementAndGet() <= maxSize) {
+            try {
+                physical = open();
+            } catch (SQLException e) {
+                created.decrementAndGet();
+                throw e;
+            }
+        } else if (physical == null) {
+            created.decrementAndGet();
+            long started = System.nanoTime();
+            try {
+                physical = idle.poll(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for a database connection");
+            }
+            waited.incrementAndGet();
+            waitNanos.addAndGet(System.nanoTime() - started);
+            if (physical == null) {
+                timeouts.incrementAndGet();
+                throw new SQLException("No database connection free after " + acquireTimeoutMillis + " ms");
+            }
+        }
+
+        acquired.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class }, new Borrowed(physical));
+    }
+
+    // Same pragmas as DatabaseService.getConnectionSafe, applied once per physical connection
+    private Connection open() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = ON");
+            stmt.execute("PRAGMA busy_timeout = 3000");
+            stmt.execute("PRAGMA journal_mode = WAL");
+            DatabaseService.applyWalArchivePragmas(stmt);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+
+    private void release(Connection physical) {
+        if (!closed && reset(physical) && idle.offer(physical)) {
+            return;
+        }
+        discard(physical);
+    }
+
+    private boolean reset(Connection conn) {
+        try {
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP VIEW IF EXISTS temp." + AttendanceQueryRouter.VIEW);
+                List<String> attached = new ArrayList<>();
+                try (ResultSet rs = stmt.executeQuery("PRAGMA database_list")) {
+                    while (rs.next()) {
+                        String name = rs.getString("name");
+                        if (!name.equals("main") && !name.equals("temp")) {
+                            attached.add(name);
+                        }
+                    }
+                }
+                for (String name : attached) {
+                    stmt.execute("DETACH DATABASE " + name);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("⚠️ Discarding pooled connection that failed to reset: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void discard(Connection physical) {
+        discarded.incrementAndGet();
+        created.decrementAndGet();
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            System.err.println("⚠️ Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection conn;
+        while ((conn = idle.poll()) != null) {
+            discard(conn);
+        }
+    }
+
+    public int getMaxSize() { return maxSize; }
+    public int getOpenCount() { return created.get(); }
+    public int getIdleCount() { return idle.size(); }
+    public long getAcquiredCount() { return acquired.get(); }
+    public long getTimeoutCount() { return timeouts.get(); }
+
+    public String getStatsSummary() {
+        long waits = waited.get();
+        return String.format("%d/%d open, %d idle, %d acquired, %d waited (avg %.2f ms), %d timed out, %d discarded",
+            created.get(), maxSize, idle.size(), acquired.get(), waits,
+            waits == 0 ? 0.0 : waitNanos.get() / 1_000_000.0 / waits, timeouts.get(), discarded.get());
+    }
+
+    // Hands out the physical connection, tracking statements so a careless caller cannot leak them
+    private final class Borrowed implements InvocationHandler {
+        private final Connection physical;
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean returned;
+
+        Borrowed(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(this, args);
+            }
+            if (method.getName().equals("close")) {
+                if (!returned) {
+                    returned = true;
+                    closeStatements();
+                    release(physical);
+                }
+                return null;
+            }
+            if (method.getName().equals("isClosed")) {
+                return returned || physical.isClosed();
+            }
+            if (returned) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                statements.add((Statement) result);
+            }
+            return result;
+        }
+
+        private void closeStatements() {
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // Already closed or broken; the connection reset decides its fate
+                }
+            }
+            statements.clear();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,247 @@
+package attendance.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+
+import org.sqlite.SQLiteConnection;
+
+/**
+ * Online backup of the live database. Pages are copied a few at a time with
+ * the SQLite backup API, so writers are only blocked for the duration of a
+ * single step and un-checkpointed WAL content is included in the copy.
+ *
+ * The copy is written next to the target, checked with integrity_check and
+ * only then moved into place, so a failed backup never replaces a good one.
+ *
+ * Every write from another connection makes SQLite restart the copy, so on a
+ * busy database the stepped backup is abandoned after MAX_RESTARTS restarts
+ * or TIME_BUDGET_MILLIS, and the backup is taken with VACUUM INTO instead.
+ */
+public class DatabaseBackupService {
+
+    /** Called after every step with the pages still to copy and the database size in pages. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(int remainingPages, int totalPages);
+    }
+
+    private static final String DB_NAME = "main";
+
+    // Tuned so one step holds the read lock for roughly a millisecond
+    private static final int DEFAULT_PAGES_PER_STEP = 64;
+    private static final int DEFAULT_PAUSE_MILLIS = 5;
+    // A WAL source is only busy during recovery, and abandoning a backup waits these out
+    private static final int BUSY_SLEEP_MILLIS = 20;
+    private static final int BUSY_RETRIES = 10;
+    private static final int MAX_RESTARTS = 5;
+    private static final long TIME_BUDGET_MILLIS = 10 * 60 * 1000L;
+
+    private final DatabaseService databaseService;
+    private final int pagesPerStep;
+    private final int pauseMillis;
+
+    private volatile long lastBackupMillis;
+    private volatile int lastBackupPages;
+    private volatile String lastBackupMethod;
+
+    public DatabaseBackupService() {
+        this(new DatabaseService());
+    }
+
+    public DatabaseBackupService(DatabaseService databaseService) {
+        this(databaseService, DEFAULT_PAGES_PER_STEP, DEFAULT_PAUSE_MILLIS);
+    }
+
+    public DatabaseBackupService(DatabaseService databaseService, int pagesPerStep, int pauseMillis) {
+        this.databaseService = databaseService;
+        this.pagesPerStep = Math.max(1, pagesPerStep);
+        this.pauseMillis = Math.max(0, pauseMillis);
+    }
+
+    public boolean backup(String backupPath) {
+        return backup(backupPath, null);
+    }
+
+    public boolean backup(String backupPath, ProgressListener listener) {
+        System.out.println("💾 Starting online backup to: " + backupPath);
+        long start = System.currentTimeMillis();
+
+        Path target = new File(backupPath).getAbsoluteFile().toPath();
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+
+        try {
+            Files.deleteIfExists(partial);
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+
+            int pages;
+            try {
+                pages = copyWithBackupApi(partial, listener);
+                lastBackupMethod = "backup API";
+            } catch (SQLException | LinkageError e) {
+                // Drivers older than 3.42 have no stepped backup with progress, and a
+                // busy database can keep restarting it
+                System.out.println("⚠️ Stepped backup not completed (" + e.getMessage() + "), using VACUUM INTO");
+                Files.deleteIfExists(partial);
+                pages = copyWithVacuumInto(partial, listener);
+                lastBackupMethod = "VACUUM INTO";
+            }
+
+            if (!verify(partial)) {
+                Files.deleteIfExists(partial);
+                return false;
+            }
+
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            lastBackupPages = pages;
+            lastBackupMillis = System.currentTimeMillis() - start;
+            System.out.println("✅ Database backup created successfully: " + backupPath +
+                             " (" + pages + " pages in " + lastBackupMillis + "ms via " + lastBackupMethod + ")");
+            return true;
+
+        } catch (SQLException | IOException e) {
+            System.err.println("❌ Error creating database backup: " + e.getMessage());
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+            }
+            return false;
+        }
+    }
+
+    private int copyWithBackupApi(Path destination, ProgressListener listener) throws SQLException {
+        int[] totalPages = new int[1];
+        int[] lastRemaining = { Integer.MAX_VALUE };
+        int[] restarts = new int[1];
+        boolean[] abandoned = new boolean[1];
+        long started = System.currentTimeMillis();
+
+        try (Connection conn = databaseService.getConnection()) {
+            SQLiteConnection sqlite = conn.unwrap(SQLiteConnection.class);
+            int rc;
+
+            try {
+                rc = sqlite.getDatabase().backup(DB_NAME, destination.toString(), (remaining, pageCount) -> {
+                    if (remaining > lastRemaining[0]) {
+                        restarts[0]++;
+                    }
+                    lastRemaining[0] = remaining;
+                    totalPages[0] = pageCount;
+
+                    if (listener != null) {
+                        listener.onProgress(remaining, pageCount);
+                    }
+                    if (remaining == 0 || abandoned[0]) {
+                        return;
+                    }
+
+                    if (restarts[0] > MAX_RESTARTS || System.currentTimeMillis() - started > TIME_BUDGET_MILLIS) {
+                        // The driver cannot cancel a running backup, but SQLite answers the next
+                        // step with SQLITE_BUSY while the source connection holds a write
+                        // transaction; the backup ends once the busy retries run out
+                        abandoned[0] = true;
+                        try (Statement stmt = conn.createStatement()) {
+                            stmt.execute("BEGIN IMMEDIATE");
+                        } catch (SQLException e) {
+                            System.err.println("⚠️ Could not stop the stepped backup: " + e.getMessage());
+                        }
+                        return;
+                    }
+
+                    // Throttle between steps so readers and writers get the lock back
+                    if (pauseMillis > 0) {
+                        try {
+                            Thread.sleep(pauseMillis);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }, BUSY_SLEEP_MILLIS, BUSY_RETRIES, pagesPerStep);
+            } finally {
+                if (abandoned[0]) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("ROLLBACK");
+                    } catch (SQLException e) {
+                        // BEGIN failed, so there is nothing to roll back
+                    }
+                }
+            }
+
+            if (abandoned[0]) {
+                throw new SQLException("abandoned after " + restarts[0] + " restarts in " +
+                                       (System.currentTimeMillis() - started) + "ms");
+            }
+            if (rc != 0) {
+                throw new SQLException("backup stopped with SQLite error " + rc);
+            }
+        }
+
+        // The backup API starts over whenever another connection writes mid-copy
+        if (restarts[0] > 0) {
+            System.out.println("ℹ️ Backup restarted " + restarts[0] + " times due to concurrent writes");
+        }
+        return totalPages[0];
+    }
+
+    // One read transaction: consistent in WAL mode and does not block writers, but not stepped
+    private int copyWithVacuumInto(Path destination, ProgressListener listener) throws SQLException {
+        try (Connection conn = databaseService.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            int pageCount = 0;
+            try (ResultSet rs = stmt.executeQuery("PRAGMA page_count")) {
+                if (rs.next()) {
+                    pageCount = rs.getInt(1);
+                }
+            }
+            if (listener != null) {
+                listener.onProgress(pageCount, pageCount);
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement("VACUUM INTO ?")) {
+                pstmt.setString(1, destination.toString());
+                pstmt.execute();
+            }
+
+            if (listener != null) {
+                listener.onProgress(0, pageCount);
+            }
+            return pageCount;
+        }
+    }
+
+    public boolean verify(Path backupFile) {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + backupFile);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA integrity_check")) {
+
+            StringBuilder problems = new StringBuilder();
+            while (rs.next()) {
+                String line = rs.getString(1);
+                if (!"ok".equalsIgnoreCase(line)) {
+                    problems.append("\n   ").append(line);
+                }
+            }
+
+            if (problems.length() > 0) {
+                System.err.println("❌ Backup failed integrity check:" + problems);
+                return false;
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Could not verify backup: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public long getLastBackupMillis() { return lastBackupMillis; }
+    public int getLastBackupPages() { return lastBackupPages; }
+    public String getLastBackupMethod() { return lastBackupMethod; }
+}
\ No newline at end of file
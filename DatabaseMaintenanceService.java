@@ -0,0 +1,387 @@
+package attendance.service;
+
+import java.io.File;
+import java.sql.*;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background upkeep for the WAL-mode database: checkpoints the WAL before it
+ * grows without bound, reclaims free pages with incremental_vacuum, keeps
+ * planner statistics fresh with ANALYZE and runs the daily retention purge
+ * followed by a check of the attendance summary counters.
+ * Also reports database health.
+ *
+ * Checkpoint policy, checked every tick:
+ *   WAL past the hard limit       -> TRUNCATE (waits for readers, resets the file)
+ *   idle and WAL not empty        -> TRUNCATE (cheap when nobody is writing)
+ *   WAL past the restart limit    -> RESTART  (next writer starts at the top)
+ *   WAL past the soft limit       -> PASSIVE  (copies what it can, never blocks)
+ * While WAL frames are archived for point-in-time restore, TRUNCATE runs as RESTART.
+ */
+public class DatabaseMaintenanceService {
+
+    private static final long TICK_SECONDS = 30;
+    private static final long SOFT_LIMIT_BYTES = 4L * 1024 * 1024;
+    private static final long RESTART_LIMIT_BYTES = 16L * 1024 * 1024;
+    private static final long HARD_LIMIT_BYTES = 64L * 1024 * 1024;
+    private static final long IDLE_MILLIS = 60_000;
+    private static final Set<String> CHECKPOINT_MODES = Set.of("PASSIVE", "FULL", "RESTART", "TRUNCATE");
+
+    private static final long VACUUM_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long ANALYZE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(24);
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(24);
+    private static final int VACUUM_PAGES_PER_RUN = 500;
+    private static final double VACUUM_FREELIST_RATIO = 0.10;
+
+    private static DatabaseMaintenanceService instance;
+
+    private final DatabaseService databaseService;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> task;
+    private volatile IncrementalBackupStore walArchive;
+    // Held open while archiving: when the last connection closes SQLite checkpoints
+    // and deletes the WAL, which would skip the archive
+    private Connection walKeeper;
+
+    private volatile long lastCheckpointMillis;
+    private volatile String lastCheckpointMode = "NONE";
+    private volatile int lastCheckpointFrames;
+    private volatile boolean lastCheckpointBusy;
+    private volatile long lastVacuumMillis;
+    private volatile long lastAnalyzeMillis;
+    private volatile long lastPurgeMillis;
+    private volatile long checkpointCount;
+
+    public static synchronized DatabaseMaintenanceService getInstance() {
+        if (instance == null) {
+            instance = new DatabaseMaintenanceService(new DatabaseService());
+        }
+        return instance;
+    }
+
+    public DatabaseMaintenanceService(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        if (walArchive != null) {
+            try {
+                walKeeper = databaseService.getConnectionSafe();
+            } catch (SQLException e) {
+                System.err.println("⚠️ Could not hold the WAL open for archiving: " + e.getMessage());
+            }
+        }
+        task = scheduler.scheduleWithFixedDelay(this::tick, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+        System.out.println("✅ Database maintenance started (every " + TICK_SECONDS + "s)");
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+
+        task.cancel(false);
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+
+        // Leave a clean, empty WAL behind on exit
+        checkpoint("TRUNCATE");
+        if (walKeeper != null) {
+            try {
+                walKeeper.close();
+            } catch (SQLException e) {
+                // Closing is best effort on shutdown
+            }
+            walKeeper = null;
+        }
+        System.out.println("🔌 Database maintenance stopped");
+    }
+
+    /**
+     * Archive WAL frames on every tick and before every checkpoint so
+     * point-in-time restore has no gaps. Call before start() and before
+     * connections are opened, since it also turns off automatic checkpoints.
+     */
+    public void setWalArchive(IncrementalBackupStore walArchive) {
+        this.walArchive = walArchive;
+        DatabaseService.setWalArchiving(walArchive != null);
+    }
+
+    private void tick() {
+        try {
+            if (walArchive != null) {
+                walArchive.archiveWal();
+            }
+            long walSize = getWalSizeBytes();
+            long idleFor = System.currentTimeMillis() - DatabaseService.getLastWriteMillis();
+
+            if (walSize >= HARD_LIMIT_BYTES) {
+                checkpoint("TRUNCATE");
+            } else if (walSize > 0 && idleFor >= IDLE_MILLIS && lastCheckpointMillis < DatabaseService.getLastWriteMillis()) {
+                checkpoint("TRUNCATE");
+            } else if (walSize >= RESTART_LIMIT_BYTES) {
+                checkpoint("RESTART");
+            } else if (walSize >= SOFT_LIMIT_BYTES) {
+                checkpoint("PASSIVE");
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastVacuumMillis >= VACUUM_INTERVAL_MILLIS) {
+                incrementalVacuum();
+            }
+            if (now - lastAnalyzeMillis >= ANALYZE_INTERVAL_MILLIS && idleFor >= IDLE_MILLIS) {
+                analyze();
+            }
+            if (now - lastPurgeMillis >= PURGE_INTERVAL_MILLIS && idleFor >= IDLE_MILLIS) {
+                lastPurgeMillis = now;
+                new RetentionPurgeService(databaseService).purgeAll(null);
+                new AttendanceSummaryService(databaseService).verifyAndRepair();
+                AtRiskDetector.getInstance().rebuild();
+                System.out.println("📊 Report cache: " + ReportCache.getInstance().getStatsSummary());
+            }
+        } catch (RuntimeException e) {
+            // Never let one failure cancel the schedule
+            System.err.println("❌ Database maintenance tick failed: " + e.getMessage());
+        }
+    }
+
+    // MARK: CHECKPOINTS
+
+    /** Run PRAGMA wal_checkpoint with PASSIVE, FULL, RESTART or TRUNCATE. */
+    public boolean checkpoint(String mode) {
+        if (!CHECKPOINT_MODES.contains(mode)) {
+            throw new IllegalArgumentException("Unknown checkpoint mode: " + mode);
+        }
+
+        IncrementalBackupStore archive = walArchive;
+        IncrementalBackupStore.WalGeneration generation = archive != null ? archive.archiveBeforeCheckpoint() : null;
+        // TRUNCATE resets the WAL inside the checkpoint and reports 0 frames, so the
+        // archive could not learn where the generation ended; RESTART reports it
+        if (archive != null && mode.equals("TRUNCATE")) {
+            mode = "RESTART";
+        }
+
+        long walBefore = getWalSizeBytes();
+        try (Connection conn = databaseService.getConnectionSafe();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+
+            if (rs.next()) {
+                // busy flag, frames in the WAL, frames copied back into the database
+                boolean busy = rs.getInt(1) != 0;
+                int logFrames = rs.getInt(2);
+                int checkpointed = rs.getInt(3);
+
+                lastCheckpointMillis = System.currentTimeMillis();
+                lastCheckpointMode = mode;
+                lastCheckpointFrames = checkpointed;
+                lastCheckpointBusy = busy;
+                checkpointCount++;
+                
+                // Every frame is back in the database, so the next writer may reset the WAL
+                if (archive != null && !busy && checkpointed == logFrames) {
+                    archive.generationCheckpointed(generation, logFrames);
+                }
+
+                System.out.println((busy ? "⚠️ " : "✅ ") + mode + " checkpoint: " + checkpointed + "/" +
+                                 logFrames + " frames, WAL " + walBefore / 1024 + " KB -> " +
+                                 getWalSizeBytes() / 1024 + " KB" + (busy ? " (blocked by a reader)" : ""));
+                return !busy;
+            }
+            return false;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error running " + mode + " checkpoint: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public long getWalSizeBytes() {
+        File wal = new File(DatabaseService.DB_FILE + "-wal");
+        return wal.exists() ? wal.length() : 0;
+    }
+
+    // MARK: VACUUM AND ANALYZE
+
+    /**
+     * Hand free pages back to the file system a few hundred at a time. Needs
+     * auto_vacuum = INCREMENTAL, which new databases get from initializeDatabase;
+     * older files are converted once with enableIncrementalVacuum().
+     */
+    public int incrementalVacuum() {
+        lastVacuumMillis = System.currentTimeMillis();
+
+        try (Connection conn = databaseService.getConnectionSafe();
+             Statement stmt = conn.createStatement()) {
+
+            if (queryInt(stmt, "PRAGMA auto_vacuum") != 2) {
+                return 0;
+            }
+
+            int pageCount = queryInt(stmt, "PRAGMA page_count");
+            int freePages = queryInt(stmt, "PRAGMA freelist_count");
+            if (pageCount == 0 || (double) freePages / pageCount < VACUUM_FREELIST_RATIO) {
+                return 0;
+            }
+
+            stmt.execute("PRAGMA incremental_vacuum(" + VACUUM_PAGES_PER_RUN + ")");
+            int reclaimed = freePages - queryInt(stmt, "PRAGMA freelist_count");
+            System.out.println("🧹 Incremental vacuum reclaimed " + reclaimed + " pages");
+            return reclaimed;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error running incremental vacuum: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /** One-off conversion of an existing file; rewrites the whole database, so run it off-hours. */
+    public boolean enableIncrementalVacuum() {
+        try (Connection conn = databaseService.getConnectionSafe();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            stmt.execute("VACUUM");
+            System.out.println("✅ Incremental vacuum enabled");
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error enabling incremental vacuum: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean analyze() {
+        lastAnalyzeMillis = System.currentTimeMillis();
+
+        try (Connection conn = databaseService.getConnectionSafe();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("ANALYZE");
+            System.out.println("✅ Planner statistics refreshed");
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error running ANALYZE: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // MARK: HEALTH
+
+    public HealthReport getHealth() {
+        try (Connection conn = databaseService.getConnectionSafe();
+             Statement stmt = conn.createStatement()) {
+
+            int pageSize = queryInt(stmt, "PRAGMA page_size");
+            int pageCount = queryInt(stmt, "PRAGMA page_count");
+            int freePages = queryInt(stmt, "PRAGMA freelist_count");
+            int cacheSize = queryInt(stmt, "PRAGMA cache_size");
+
+            // Negative cache_size is a budget in KiB rather than pages
+            long cachePages = cacheSize < 0 ? (-cacheSize * 1024L) / pageSize : cacheSize;
+
+            return new HealthReport(pageSize, pageCount, freePages, getWalSizeBytes(), cachePages,
+                                    lastCheckpointMillis, lastCheckpointMode, lastCheckpointFrames,
+                                    lastCheckpointBusy, checkpointCount, lastVacuumMillis, lastAnalyzeMillis);
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error reading database health: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static int queryInt(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public static class HealthReport {
+        private final int pageSize;
+        private final int pageCount;
+        private final int freelistPages;
+        private final long walSizeBytes;
+        private final long cachePages;
+        private final long lastCheckpointMillis;
+        private final String lastCheckpointMode;
+        private final int lastCheckpointFrames;
+        private final boolean lastCheckpointBusy;
+        private final long checkpointCount;
+        private final long lastVacuumMillis;
+        private final long lastAnalyzeMillis;
+
+        HealthReport(int pageSize, int pageCount, int freelistPages, long walSizeBytes, long cachePages,
+                     long lastCheckpointMillis, String lastCheckpointMode, int lastCheckpointFrames,
+                     boolean lastCheckpointBusy, long checkpointCount, long lastVacuumMillis, long lastAnalyzeMillis) {
+            this.pageSize = pageSize;
+            this.pageCount = pageCount;
+            this.freelistPages = freelistPages;
+            this.walSizeBytes = walSizeBytes;
+            this.cachePages = cachePages;
+            this.lastCheckpointMillis = lastCheckpointMillis;
+            this.lastCheckpointMode = lastCheckpointMode;
+            this.lastCheckpointFrames = lastCheckpointFrames;
+            this.lastCheckpointBusy = lastCheckpointBusy;
+            this.checkpointCount = checkpointCount;
+            this.lastVacuumMillis = lastVacuumMillis;
+            this.lastAnalyzeMillis = lastAnalyzeMillis;
+        }
+
+        public int getPageSize() { return pageSize; }
+        public int getPageCount() { return pageCount; }
+        public int getFreelistPages() { return freelistPages; }
+        public long getDatabaseSizeBytes() { return (long) pageSize * pageCount; }
+        public long getWalSizeBytes() { return walSizeBytes; }
+        public long getLastCheckpointMillis() { return lastCheckpointMillis; }
+        public String getLastCheckpointMode() { return lastCheckpointMode; }
+        public int getLastCheckpointFrames() { return lastCheckpointFrames; }
+        public boolean isLastCheckpointBusy() { return lastCheckpointBusy; }
+        public long getCheckpointCount() { return checkpointCount; }
+        public long getLastVacuumMillis() { return lastVacuumMillis; }
+        public long getLastAnalyzeMillis() { return lastAnalyzeMillis; }
+
+        // Share of the file that is free pages waiting to be reused or vacuumed
+        public double getFragmentation() {
+            return pageCount == 0 ? 0 : (double) freelistPages / pageCount;
+        }
+
+        // Share of the live pages one connection's page cache can hold. This is a
+        // capacity ratio, not a hit rate: SQLite's hit/miss counters are per
+        // connection and reset with every connection opened per call
+        public double getCacheCoverage() {
+            int livePages = pageCount - freelistPages;
+            return livePages <= 0 ? 1.0 : Math.min(1.0, (double) cachePages / livePages);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "Pages: %d x %d bytes (%d free, %.1f%% fragmented) | WAL: %d KB | " +
+                "Last checkpoint: %s %s | Cache covers %.0f%% of live pages",
+                pageCount, pageSize, freelistPages, getFragmentation() * 100, walSizeBytes / 1024,
+                lastCheckpointMode,
+                lastCheckpointMillis == 0 ? "never" : new Timestamp(lastCheckpointMillis).toString(),
+                getCacheCoverage() * 100
+            );
+        }
+    }
+}
\ No newline at end of file
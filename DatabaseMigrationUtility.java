@@ -1,5 +1,6 @@
 package attendance.service;
 
+import attendance.model.AttendanceStatus;
 import java.sql.Connection;
 import java.sql.Statement;
 
@@ -16,18 +17,25 @@ public class DatabaseMigrationUtility {
             // we need to recreate the tables with proper constraints
             
             // 1. Recreate attendance table with CASCADE
-            recreateTableWithCascade(conn, "attendance", 
-                "CREATE TABLE attendance_new (" +
+            recreateTableWithCascade(conn, "attendance_records", 
+                "CREATE TABLE attendance_records_new (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT," +
                 "student_id INTEGER NOT NULL," +
                 "class_id INTEGER," +
-                "date DATE NOT NULL," +
+                "day INTEGER NOT NULL," +
                 "check_in TIME," +
                 "check_out TIME," +
-                "status TEXT DEFAULT 'ABSENT'," +
+                "status INTEGER NOT NULL DEFAULT " + AttendanceStatus.ABSENT.getCode() +
+                " CHECK (" + AttendanceStatus.sqlCheck("status") + ")," +
                 "remarks TEXT," +
                 "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
                 "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE)");
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_attendance_student_day ON attendance_records(student_id, day)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_attendance_day ON attendance_records(day)");
+            }
+            // Dropping the old table took the summary triggers with it; the rows are unchanged
+            AttendanceSummaryService.createSchema(conn);
             
             // 2. Recreate students table with CASCADE
             recreateTableWithCascade(conn, "students",
@@ -1,25 +1,99 @@
 package attendance.service;
 
+import attendance.model.AttendanceStatus;
 import java.sql.*;
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
 
 public class DatabaseService {
-    private static final String DB_URL = "jdbc:sqlite:attendance.db";
+    public static final String DB_FILE = "attendance.db";
+    private static final String DB_URL = "jdbc:sqlite:" + DB_FILE;
+    
+    // Updated by RetryPolicy after every successful mutation; drives idle checkpoints
+    private static volatile long lastWriteMillis = System.currentTimeMillis();
+    
+    // Set in server mode; the desktop client keeps opening a connection per call
+    private static volatile ConnectionPool pool;
+    
+    // While WAL frames are archived, only DatabaseMaintenanceService may checkpoint
+    private static volatile boolean walArchiving;
+    
+    public static void recordWrite() {
+        lastWriteMillis = System.currentTimeMillis();
+    }
+    
+    public static long getLastWriteMillis() {
+        return lastWriteMillis;
+    }
+    
+    /** Route every service's connections through a pool; null goes back to one connection per call. */
+    public static void usePool(ConnectionPool connectionPool) {
+        pool = connectionPool;
+    }
+    
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+    
+    /** Turns off SQLite's automatic checkpoints on connections opened from now on. */
+    public static void setWalArchiving(boolean archiving) {
+        walArchiving = archiving;
+    }
+    
+    public static boolean isWalArchiving() {
+        return walArchiving;
+    }
+    
+    // An automatic checkpoint could reset the WAL before its frames are archived.
+    // Checkpoints then use RESTART instead of TRUNCATE, so the size limit is what
+    // shrinks the file when the next writer resets it.
+    static void applyWalArchivePragmas(Statement stmt) throws SQLException {
+        if (walArchiving) {
+            stmt.execute("PRAGMA wal_autocheckpoint = 0");
+            stmt.execute("PRAGMA journal_size_limit = " + 4L * 1024 * 1024);
+        }
+    }
+    
+    public static ConnectionPool createPool(int maxSize, long acquireTimeoutMillis) {
+        return new ConnectionPool(DB_URL, maxSize, acquireTimeoutMillis);
+    }
     
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+        ConnectionPool current = pool;
+        if (current != null) {
+            return current.getConnection();
+        }
+        Connection conn = DriverManager.getConnection(DB_URL);
+        if (walArchiving) {
+            try (Statement stmt = conn.createStatement()) {
+                applyWalArchivePragmas(stmt);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+        }
+        return conn;
+    }
+    
+    public Connection getConnectionSafe() throws SQLException {
+        ConnectionPool current = pool;
+        if (current != null) {
+            // Pooled connections already carry these pragmas
+            return current.getConnection();
+        }
+        return openConnectionSafe();
     }
     
-    public synchronized Connection getConnectionSafe() throws SQLException {
+    private synchronized Connection openConnectionSafe() throws SQLException {
         Connection conn = DriverManager.getConnection(DB_URL);
         
         try (Statement stmt = conn.createStatement()) {
             stmt.execute("PRAGMA foreign_keys = ON");
             stmt.execute("PRAGMA busy_timeout = 3000");
+            // Must precede the first write to a new file; elsewhere it only applies at the next VACUUM
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
             stmt.execute("PRAGMA journal_mode = WAL");
+            applyWalArchivePragmas(stmt);
         }
         
         return conn;
@@ -59,6 +133,7 @@ public class DatabaseService {
                         "class_name TEXT," +
                         "department TEXT," +
                         "user_id INTEGER," +
+                        "class_id INTEGER REFERENCES classes(id) ON DELETE SET NULL," +
                         "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
                         "FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE)";
                 stmt.execute(createStudentsTable);
@@ -91,21 +166,13 @@ public class DatabaseService {
                 stmt.execute(createClassesTable);
                 System.out.println("✅ Classes table created");
                 
-                // Create attendance table
-                String createAttendanceTable = "CREATE TABLE IF NOT EXISTS attendance (" +
-                        "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                        "student_id INTEGER NOT NULL," +
-                        "class_id INTEGER," +
-                        "date DATE NOT NULL," +
-                        "check_in TIME," +
-                        "check_out TIME," +
-                        "status TEXT DEFAULT 'ABSENT'," +
-                        "remarks TEXT," +
-                        "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                        "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE)";
-                stmt.execute(createAttendanceTable);
+                // Create attendance table (converts an older text-date table if present)
+                upgradeAttendanceSchema(conn);
                 System.out.println("✅ Attendance table created");
                 
+                upgradeClassLinks(conn);
+                upgradeAttendanceSummary(conn);
+                
                 // Create notifications table
                 String createNotificationsTable = "CREATE TABLE IF NOT EXISTS notifications (" +
                         "id INTEGER PRIMARY KEY AUTOINCREMENT," +
@@ -119,6 +186,10 @@ public class DatabaseService {
                 stmt.execute(createNotificationsTable);
                 System.out.println("✅ Notifications table created");
                 
+                SubmittedReportService.createSchema(conn);
+                ClassScheduleService.createSchema(conn);
+                AttendanceColumnStore.createSchema(conn);
+                
                 System.out.println("✅ All tables created successfully!");
                 
                 // Check if database is empty before inserting default data
@@ -140,6 +211,253 @@ public class DatabaseService {
         }
     }
 
+    // Schema upgrades for existing files; safe to run on every start
+    public void upgradeSchema() {
+        synchronized (DatabaseService.class) {
+            try (Connection conn = getConnectionSafe()) {
+                upgradeAttendanceSchema(conn);
+                upgradeClassLinks(conn);
+                upgradeAttendanceSummary(conn);
+                SubmittedReportService.createSchema(conn);
+                ClassScheduleService.createSchema(conn);
+                AttendanceColumnStore.createSchema(conn);
+                System.out.println("✅ Database schema is up to date");
+            } catch (SQLException e) {
+                System.err.println("❌ Error upgrading database schema: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    // The counters are only right if the triggers saw every write, so a trigger
+    // that had to be (re)created means a recount
+    private void upgradeAttendanceSummary(Connection conn) throws SQLException {
+        if (AttendanceSummaryService.createSchema(conn)) {
+            new AttendanceSummaryService(this).rebuild();
+        }
+    }
+    
+    // students.class_id is the link to classes; class_name stays only as a display
+    // copy. Fills in class_id for rows that only carry a name, keeps the two in step
+    // through triggers, and indexes the integer joins.
+    private static void upgradeClassLinks(Connection conn) throws SQLException {
+        String classIdForName = "(SELECT MIN(c.id) FROM classes c WHERE LOWER(TRIM(c.class_name)) = LOWER(TRIM(%s)))";
+        
+        try (Statement stmt = conn.createStatement()) {
+            int students = stmt.executeUpdate(
+                "UPDATE students SET class_id = " + String.format(classIdForName, "students.class_name") + " " +
+                "WHERE class_name IS NOT NULL AND TRIM(class_name) != '' " +
+                "AND (class_id IS NULL OR class_id NOT IN (SELECT id FROM classes))");
+            int attendance = stmt.executeUpdate(
+                "UPDATE attendance_records SET class_id = " +
+                "(SELECT s.class_id FROM students s WHERE s.id = attendance_records.student_id) " +
+                "WHERE class_id IS NULL");
+            if (students > 0 || attendance > 0) {
+                System.out.println("✅ Linked " + students + " students and " + attendance + " attendance rows to class ids");
+            }
+            
+            // Writers that only set a name (or a stale id) get the id of that class
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS students_class_id_insert AFTER INSERT ON students " +
+                    "WHEN NEW.class_name IS NOT NULL AND (NEW.class_id IS NULL OR NEW.class_id NOT IN (SELECT id FROM classes)) BEGIN " +
+                    "UPDATE students SET class_id = " + String.format(classIdForName, "NEW.class_name") + " WHERE id = NEW.id; END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS students_class_id_update AFTER UPDATE OF class_name, class_id ON students " +
+                    "WHEN NEW.class_name IS NOT NULL AND ((NEW.class_name IS NOT OLD.class_name AND NEW.class_id IS OLD.class_id) " +
+                    "OR NEW.class_id IS NULL OR NEW.class_id NOT IN (SELECT id FROM classes)) BEGIN " +
+                    "UPDATE students SET class_id = " + String.format(classIdForName, "NEW.class_name") + " WHERE id = NEW.id; END");
+            // Writers that only move the id get the matching display name
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS students_class_name_update AFTER UPDATE OF class_id ON students " +
+                    "WHEN NEW.class_id IS NOT OLD.class_id AND NEW.class_id IN (SELECT id FROM classes) BEGIN " +
+                    "UPDATE students SET class_name = (SELECT class_name FROM classes WHERE id = NEW.class_id) WHERE id = NEW.id; END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS classes_rename_students AFTER UPDATE OF class_name ON classes BEGIN " +
+                    "UPDATE students SET class_name = NEW.class_name WHERE class_id = NEW.id; END");
+            
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_students_class_id ON students(class_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_classes_teacher_id ON classes(teacher_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_classes_class_name ON classes(class_name)");
+        }
+    }
+    
+    // attendance_records keeps the date as an integer epoch day (see AttendanceDates)
+    // and the status as an AttendanceStatus code. The attendance view exposes the old
+    // text date and status columns, and writes through them, for queries that have
+    // not been converted. Writes through the view must give the date as text: epoch
+    // millis mark midnight in the writer's zone, which SQL cannot know.
+    private static void createAttendanceSchema(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS attendance_records (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "student_id INTEGER NOT NULL," +
+                "class_id INTEGER," +
+                "day INTEGER NOT NULL," +
+                "check_in TIME," +
+                "check_out TIME," +
+                "status INTEGER NOT NULL DEFAULT " + AttendanceStatus.ABSENT.getCode() +
+                " CHECK (" + AttendanceStatus.sqlCheck("status") + ")," +
+                "remarks TEXT," +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                "hlc INTEGER," +
+                "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE)");
+        // HybridLogicalClock stamp of the last write, for last-writer-wins sync
+        if (!hasColumn(stmt, "attendance_records", "hlc")) {
+            stmt.execute("ALTER TABLE attendance_records ADD COLUMN hlc INTEGER");
+        }
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_attendance_student_day ON attendance_records(student_id, day)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_attendance_day ON attendance_records(day)");
+        
+        stmt.execute("CREATE VIEW IF NOT EXISTS attendance AS " +
+                "SELECT id, student_id, class_id, " + AttendanceDates.sqlDate("day") + " AS date, " +
+                "check_in, check_out, " + AttendanceStatus.sqlName("status") + " AS status, " +
+                "remarks, created_at FROM attendance_records");
+        
+        String newStatus = "COALESCE(" + AttendanceStatus.sqlCode("NEW.status") + ", " + AttendanceStatus.ABSENT.getCode() + ")";
+        String refuseMillis = "SELECT RAISE(ABORT, 'attendance.date must be yyyy-MM-dd text') " +
+                "WHERE typeof(NEW.date) = 'integer'; ";
+        dropOutdatedTrigger(stmt, "attendance_view_insert");
+        dropOutdatedTrigger(stmt, "attendance_view_update");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS attendance_view_insert INSTEAD OF INSERT ON attendance BEGIN " + refuseMillis +
+                "INSERT INTO attendance_records (id, student_id, class_id, day, check_in, check_out, status, remarks, created_at) " +
+                "VALUES (NEW.id, NEW.student_id, NEW.class_id, " + AttendanceDates.sqlDay("NEW.date") + ", " +
+                "NEW.check_in, NEW.check_out, " + newStatus + ", NEW.remarks, " +
+                "COALESCE(NEW.created_at, CURRENT_TIMESTAMP)); END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS attendance_view_update INSTEAD OF UPDATE ON attendance BEGIN " + refuseMillis +
+                "UPDATE attendance_records SET student_id = NEW.student_id, class_id = NEW.class_id, " +
+                "day = " + AttendanceDates.sqlDay("NEW.date") + ", check_in = NEW.check_in, check_out = NEW.check_out, " +
+                "status = " + newStatus + ", remarks = NEW.remarks WHERE id = OLD.id; END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS attendance_view_delete INSTEAD OF DELETE ON attendance BEGIN " +
+                "DELETE FROM attendance_records WHERE id = OLD.id; END");
+    }
+    
+    // View triggers from before integer dates were refused are replaced
+    private static void dropOutdatedTrigger(Statement stmt, String name) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT sql FROM sqlite_master WHERE type = 'trigger' AND name = '" + name + "'")) {
+            if (!rs.next() || rs.getString(1).contains("RAISE")) {
+                return;
+            }
+        }
+        stmt.execute("DROP TRIGGER " + name);
+    }
+    
+    private static boolean hasColumn(Statement stmt, String table, String column) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (rs.getString("name").equalsIgnoreCase(column)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static void dropAttendanceView(Statement stmt) throws SQLException {
+        stmt.execute("DROP TRIGGER IF EXISTS attendance_view_insert");
+        stmt.execute("DROP TRIGGER IF EXISTS attendance_view_update");
+        stmt.execute("DROP TRIGGER IF EXISTS attendance_view_delete");
+        stmt.execute("DROP VIEW IF EXISTS attendance");
+    }
+    
+    // Rebuilds attendance into the current attendance_records layout. Handles the
+    // original attendance table (text date and status) and attendance_records
+    // with a text status; anything already current is left alone.
+    private void upgradeAttendanceSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            boolean legacyTable;
+            try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'attendance'")) {
+                legacyTable = rs.next();
+            }
+            
+            boolean textStatus = false;
+            if (!legacyTable) {
+                try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(attendance_records)")) {
+                    while (rs.next()) {
+                        if (rs.getString("name").equals("status")) {
+                            textStatus = !rs.getString("type").equalsIgnoreCase("INTEGER");
+                        }
+                    }
+                }
+            }
+            
+            if (!legacyTable && !textStatus) {
+                createAttendanceSchema(stmt);
+                return;
+            }
+            
+            System.out.println("🔄 Converting attendance table to epoch days and status codes...");
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            
+            try {
+                String dayExpression;
+                if (legacyTable) {
+                    stmt.execute("ALTER TABLE attendance RENAME TO attendance_legacy");
+                    localizeMillisDates(conn, "attendance_legacy");
+                    dayExpression = AttendanceDates.sqlDay("date");
+                } else {
+                    dropAttendanceView(stmt);
+                    stmt.execute("ALTER TABLE attendance_records RENAME TO attendance_legacy");
+                    stmt.execute("DROP INDEX IF EXISTS idx_attendance_student_day");
+                    stmt.execute("DROP INDEX IF EXISTS idx_attendance_day");
+                    dayExpression = "day";
+                }
+                createAttendanceSchema(stmt);
+                
+                // Rows written before the status column had a default may hold NULL
+                String statusExpression = "COALESCE(" + AttendanceStatus.sqlCode("status") + ", " +
+                        "CASE WHEN status IS NULL THEN " + AttendanceStatus.ABSENT.getCode() + " END)";
+                
+                int copied = stmt.executeUpdate(
+                    "INSERT INTO attendance_records " +
+                    "(id, student_id, class_id, day, check_in, check_out, status, remarks, created_at) " +
+                    "SELECT id, student_id, class_id, " + dayExpression + ", " +
+                    "check_in, check_out, " + statusExpression + ", remarks, created_at FROM attendance_legacy " +
+                    "WHERE " + dayExpression + " IS NOT NULL AND " + statusExpression + " IS NOT NULL");
+                
+                int total = 0;
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM attendance_legacy")) {
+                    if (rs.next()) {
+                        total = rs.getInt(1);
+                    }
+                }
+                if (copied != total) {
+                    throw new SQLException((total - copied) + " attendance rows have unreadable dates or statuses, conversion abandoned");
+                }
+                
+                stmt.execute("DROP TABLE attendance_legacy");
+                conn.commit();
+                System.out.println("✅ Converted " + copied + " attendance rows");
+                
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+    
+    // PreparedStatement.setDate stored the epoch millis of midnight in the writer's zone,
+    // so those dates are rewritten as text here rather than divided out in SQL
+    private static void localizeMillisDates(Connection conn, String table) throws SQLException {
+        Map<Long, String> dates = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT rowid, date FROM " + table + " WHERE typeof(date) = 'integer'")) {
+            while (rs.next()) {
+                dates.put(rs.getLong(1), AttendanceDates.fromMillis(rs.getLong(2)).toString());
+            }
+        }
+        if (dates.isEmpty()) {
+            return;
+        }
+        
+        try (PreparedStatement update = conn.prepareStatement("UPDATE " + table + " SET date = ? WHERE rowid = ?")) {
+            for (Map.Entry<Long, String> entry : dates.entrySet()) {
+                update.setString(1, entry.getValue());
+                update.setLong(2, entry.getKey());
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+        System.out.println("🔄 Converted " + dates.size() + " epoch-millis attendance dates in the local time zone");
+    }
+    
     private boolean isDatabaseEmpty(Connection conn) throws SQLException {
         String sql = "SELECT COUNT(*) as count FROM users";
         try (Statement stmt = conn.createStatement();
@@ -300,14 +618,29 @@ public class DatabaseService {
                  Statement stmt = conn.createStatement()) {
                 
                 System.out.println("🗑️ Dropping tables...");
-                stmt.execute("DROP TABLE IF EXISTS attendance");
+                boolean attendanceIsView;
+                try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'view' AND name = 'attendance'")) {
+                    attendanceIsView = rs.next();
+                }
+                stmt.execute(attendanceIsView ? "DROP VIEW IF EXISTS attendance" : "DROP TABLE IF EXISTS attendance");
+                stmt.execute("DROP TABLE IF EXISTS attendance_records");
+                stmt.execute("DROP TABLE IF EXISTS " + AttendanceSummaryService.TABLE);
+                stmt.execute("DROP TABLE IF EXISTS " + SubmittedReportService.TABLE);
                 stmt.execute("DROP TABLE IF EXISTS notifications");
+                stmt.execute("DROP TABLE IF EXISTS " + ClassScheduleService.TABLE);
+                stmt.execute("DROP TABLE IF EXISTS " + AttendanceColumnStore.VERSION_TABLE);
                 stmt.execute("DROP TABLE IF EXISTS classes");
                 stmt.execute("DROP TABLE IF EXISTS teachers");
                 stmt.execute("DROP TABLE IF EXISTS students");
                 stmt.execute("DROP TABLE IF EXISTS users");
                 
                 System.out.println("✅ All tables dropped");
+                AttendanceBitmapIndex.getInstance().invalidate();
+                AttendanceCube.getInstance().invalidate();
+                AtRiskDetector.getInstance().invalidate();
+                ClassScheduleService.getInstance().invalidate();
+                AttendanceColumnStore.getInstance().invalidate();
+                ReportCache.getInstance().invalidateAll();
                 initializeDatabase();
                 
                 System.out.println("✅ Database reset complete with fresh tables");
@@ -655,19 +988,24 @@ public class DatabaseService {
                 System.out.println("Student ID for Jane Smith: " + studentId);
                 
                 // Check if attendance already exists for today
-                String checkAttendance = "SELECT COUNT(*) as count FROM attendance WHERE student_id = ? AND date = DATE('now')";
+                long today = AttendanceDates.toDay(java.time.LocalDate.now());
+                String checkAttendance = "SELECT COUNT(*) as count FROM attendance_records WHERE student_id = ? AND day = ?";
                 try (PreparedStatement pstmt = conn.prepareStatement(checkAttendance)) {
                     pstmt.setInt(1, studentId);
+                    pstmt.setLong(2, today);
                     ResultSet rs2 = pstmt.executeQuery();
                     if (rs2.next() && rs2.getInt("count") == 0) {
-                        String insertAttendance = "INSERT INTO attendance (student_id, date, status) VALUES " +
-                                "(?, DATE('now'), 'PRESENT'), " +
-                                "(?, DATE('now', '-1 day'), 'PRESENT'), " +
-                                "(?, DATE('now', '-2 days'), 'ABSENT')";
+                        String insertAttendance = "INSERT INTO attendance_records (student_id, day, status) VALUES " +
+                                "(?, ?, " + AttendanceStatus.PRESENT.getCode() + "), " +
+                                "(?, ?, " + AttendanceStatus.PRESENT.getCode() + "), " +
+                                "(?, ?, " + AttendanceStatus.ABSENT.getCode() + ")";
                         try (PreparedStatement pstmt2 = conn.prepareStatement(insertAttendance)) {
                             pstmt2.setInt(1, studentId);
-                            pstmt2.setInt(2, studentId);
+                            pstmt2.setLong(2, today);
                             pstmt2.setInt(3, studentId);
+                            pstmt2.setLong(4, today - 1);
+                            pstmt2.setInt(5, studentId);
+                            pstmt2.setLong(6, today - 2);
                             pstmt2.executeUpdate();
                             System.out.println("✅ Sample attendance records inserted");
                         }
@@ -733,24 +1071,19 @@ public class DatabaseService {
         return false;
     }
     
+    // Online backup: copies pages in small steps without holding the class lock,
+    // so other connections keep working and WAL content is included
     public boolean backupDatabase(String backupPath) {
-        System.out.println("💾 Creating database backup to: " + backupPath);
-        
-        synchronized (DatabaseService.class) {
-            try {
-                File sourceFile = new File("attendance.db");
-                File backupFile = new File(backupPath);
-                
-                Files.copy(sourceFile.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                
-                System.out.println("✅ Database backup created successfully: " + backupPath);
-                return true;
-                
-            } catch (IOException e) {
-                System.err.println("❌ Error creating database backup: " + e.getMessage());
-                return false;
-            }
-        }
+        return backupDatabase(backupPath, null);
+    }
+    
+    public boolean backupDatabase(String backupPath, DatabaseBackupService.ProgressListener listener) {
+        return new DatabaseBackupService(this).backup(backupPath, listener);
+    }
+    
+    // Deduplicated snapshot into a backup store; returns the snapshot id or null
+    public String backupDatabaseIncremental(String storeDir) {
+        return new IncrementalBackupStore(this, storeDir).createSnapshot();
     }
     
     public boolean testConnection() {
@@ -775,9 +1108,19 @@ public class DatabaseService {
             )
         """;
         
+        // Point students at the surviving row first so they keep their class
+        String relinkSql = """
+            UPDATE students SET class_id = (
+                SELECT MIN(c2.id) FROM classes c1 JOIN classes c2 ON c2.class_name = c1.class_name
+                WHERE c1.id = students.class_id
+            )
+            WHERE class_id IS NOT NULL
+        """;
+        
         try (Connection conn = getConnection();
              Statement stmt = conn.createStatement()) {
             
+            stmt.executeUpdate(relinkSql);
             int deleted = stmt.executeUpdate(sql);
             if (deleted > 0) {
                 System.out.println("🧹 Cleaned " + deleted + " duplicate class entries");
@@ -10,6 +10,11 @@ public class DatabaseUpdateService {
         databaseService = new DatabaseService();
     }
     
+    // Called at startup after initializeDatabase
+    public void checkAndUpdateSchema() {
+        databaseService.upgradeSchema();
+    }
+    
     public void addDepartmentColumn() {
         System.out.println("🔄 Checking and updating database structure...");
         
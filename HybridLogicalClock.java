@@ -0,0 +1,112 @@
+package attendance.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.time.Instant;
+
+/**
+ * Hybrid logical clock for last-writer-wins on attendance. A stamp packs
+ * wall-clock millis (42 bits, good until 2109), a counter (12 bits) that
+ * orders stamps within one millisecond or while the wall clock lags a stamp
+ * already seen, and this machine's node id (10 bits) as the final tie-break.
+ * Stamps therefore compare as plain longs, in Java and in SQLite, and every
+ * machine that has seen the same edits picks the same winner.
+ */
+public final class HybridLogicalClock {
+
+    public static final String NODE_FILE = "attendance_node.id";
+
+    private static final int COUNTER_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final int MAX_COUNTER = (1 << COUNTER_BITS) - 1;
+    private static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    private static HybridLogicalClock instance;
+
+    private final int node;
+    private long lastMillis;
+    private int counter;
+
+    public static synchronized HybridLogicalClock getInstance() {
+        if (instance == null) {
+            instance = new HybridLogicalClock(loadNode());
+        }
+        return instance;
+    }
+
+    public HybridLogicalClock(int node) {
+        this.node = node & MAX_NODE;
+    }
+
+    /** A stamp greater than every stamp this clock has issued or observed. */
+    public synchronized long now() {
+        long wall = System.currentTimeMillis();
+        if (wall > lastMillis) {
+            lastMillis = wall;
+            counter = 0;
+        } else if (++counter > MAX_COUNTER) {
+            // Thousands of stamps in one millisecond: borrow the next one
+            lastMillis++;
+            counter = 0;
+        }
+        return pack(lastMillis, counter, node);
+    }
+
+    /** Merge a stamp from elsewhere so later local stamps order after it. */
+    public synchronized void observe(long stamp) {
+        long millis = millisOf(stamp);
+        int count = counterOf(stamp);
+        if (millis > lastMillis) {
+            lastMillis = millis;
+            counter = count;
+        } else if (millis == lastMillis && count > counter) {
+            counter = count;
+        }
+    }
+
+    public int getNode() {
+        return node;
+    }
+
+    public static long pack(long millis, int counter, int node) {
+        return (millis << (COUNTER_BITS + NODE_BITS)) | ((long) counter << NODE_BITS) | node;
+    }
+
+    public static long millisOf(long stamp) {
+        return stamp >>> (COUNTER_BITS + NODE_BITS);
+    }
+
+    public static int counterOf(long stamp) {
+        return (int) (stamp >>> NODE_BITS) & MAX_COUNTER;
+    }
+
+    public static int nodeOf(long stamp) {
+        return (int) stamp & MAX_NODE;
+    }
+
+    /** e.g. "2025-03-04T08:15:02.117Z+3@412" */
+    public static String describe(long stamp) {
+        return Instant.ofEpochMilli(millisOf(stamp)) + "+" + counterOf(stamp) + "@" + nodeOf(stamp);
+    }
+
+    // The node id must survive restarts, or the same machine could tie-break differently
+    private static int loadNode() {
+        Path file = Paths.get(NODE_FILE);
+        try {
+            if (Files.exists(file)) {
+                return Integer.parseInt(Files.readString(file, StandardCharsets.UTF_8).trim()) & MAX_NODE;
+            }
+            int node = new SecureRandom().nextInt(MAX_NODE + 1);
+            Files.writeString(file, Integer.toString(node), StandardCharsets.UTF_8);
+            System.out.println("✅ Assigned sync node id " + node);
+            return node;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("⚠️ Could not read or save " + NODE_FILE + ", using a temporary node id: " + e.getMessage());
+            return new SecureRandom().nextInt(MAX_NODE + 1);
+        }
+    }
+}
\ No newline at end of file
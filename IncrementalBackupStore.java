@@ -0,0 +1,781 @@
+package attendance.service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deduplicated snapshot store for attendance.db.
+ *
+ * Each snapshot is an online backup split into fixed runs of pages. Runs are
+ * stored once under their SHA-256 (deflate-compressed), and a small manifest
+ * lists the runs that make up the snapshot, so a nightly snapshot only costs
+ * the pages that changed since the last one.
+ *
+ * Committed WAL frames can also be archived between snapshots. Replaying them
+ * on top of a snapshot restores the database to any archive point after it.
+ *
+ * Layout:
+ *   chunks/ab/abcdef...    compressed page runs
+ *   manifests/<id>.txt     one per snapshot
+ *   wal/index.txt          one line per archived WAL segment
+ *   wal/00000001.wal.z     compressed frames of complete transactions
+ *   wal/generations.txt    final frame of each WAL generation, as seen by a completed checkpoint
+ */
+public class IncrementalBackupStore {
+
+    public static final String DEFAULT_STORE_DIR = "attendance_backups";
+
+    /** A WAL generation is identified by the salts SQLite writes into the header at each reset. */
+    public record WalGeneration(int salt1, int salt2) {}
+
+    private static final int CHUNK_PAGES = 16;
+
+    private static final int WAL_HEADER_SIZE = 32;
+    private static final int WAL_FRAME_HEADER_SIZE = 24;
+    private static final int WAL_MAGIC_LITTLE_ENDIAN = 0x377f0682;
+    private static final int WAL_MAGIC_BIG_ENDIAN = 0x377f0683;
+
+    // Only the stepped backup API keeps page numbers identical to the live file,
+    // which WAL replay relies on; VACUUM INTO renumbers pages
+    private static final String PAGE_EXACT_METHOD = "backup API";
+
+    private static final DateTimeFormatter SNAPSHOT_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final DatabaseService databaseService;
+    private final Path chunkDir;
+    private final Path manifestDir;
+    private final Path walDir;
+    private final Path walIndex;
+    private final Path walGenerations;
+
+    public IncrementalBackupStore(String storeDir) {
+        this(new DatabaseService(), storeDir);
+    }
+
+    public IncrementalBackupStore(DatabaseService databaseService, String storeDir) {
+        this.databaseService = databaseService;
+        Path root = Paths.get(storeDir).toAbsolutePath();
+        this.chunkDir = root.resolve("chunks");
+        this.manifestDir = root.resolve("manifests");
+        this.walDir = root.resolve("wal");
+        this.walIndex = walDir.resolve("index.txt");
+        this.walGenerations = walDir.resolve("generations.txt");
+    }
+
+    // MARK: SNAPSHOTS
+
+    /** Take a snapshot and store only its new chunks. Returns the snapshot id, or null on failure. */
+    public String createSnapshot() {
+        String id = LocalDateTime.now().format(SNAPSHOT_ID);
+        System.out.println("💾 Creating incremental snapshot " + id);
+
+        Path staging = manifestDir.resolve(id + ".db");
+        try {
+            Files.createDirectories(chunkDir);
+            Files.createDirectories(manifestDir);
+            Files.createDirectories(walDir);
+
+            // Archive first so replay after this snapshot starts from a known segment
+            archiveWal();
+            Segment lastSegment = lastSegment();
+
+            DatabaseBackupService backup = new DatabaseBackupService(databaseService);
+            if (!backup.backup(staging.toString())) {
+                return null;
+            }
+
+            Manifest manifest = new Manifest();
+            manifest.id = id;
+            manifest.createdAt = System.currentTimeMillis();
+            manifest.method = backup.getLastBackupMethod();
+            manifest.pageSize = readPageSize(staging);
+            manifest.size = Files.size(staging);
+            manifest.walSeq = lastSegment != null ? lastSegment.seq : 0;
+
+            int chunkBytes = manifest.pageSize * CHUNK_PAGES;
+            MessageDigest whole = sha256();
+            int newChunks = 0;
+            long storedBytes = 0;
+
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(staging))) {
+                byte[] buffer = new byte[chunkBytes];
+                int read;
+                while ((read = in.readNBytes(buffer, 0, chunkBytes)) > 0) {
+                    whole.update(buffer, 0, read);
+
+                    MessageDigest digest = sha256();
+                    digest.update(buffer, 0, read);
+                    String hash = hex(digest.digest());
+                    manifest.chunks.add(hash);
+
+                    Path chunk = chunkPath(hash);
+                    if (!Files.exists(chunk)) {
+                        storedBytes += writeChunk(chunk, buffer, read);
+                        newChunks++;
+                    }
+                }
+            }
+
+            manifest.sha256 = hex(whole.digest());
+            writeManifest(manifest);
+
+            System.out.println("✅ Snapshot " + id + " stored: " + manifest.chunks.size() + " chunks, " +
+                             newChunks + " new (" + storedBytes / 1024 + " KB written)");
+            return id;
+
+        } catch (IOException e) {
+            System.err.println("❌ Error creating incremental snapshot: " + e.getMessage());
+            return null;
+        } finally {
+            deleteQuietly(staging);
+        }
+    }
+
+    public List<String> listSnapshots() {
+        List<String> ids = new ArrayList<>();
+        if (!Files.isDirectory(manifestDir)) {
+            return ids;
+        }
+
+        try (Stream<Path> files = Files.list(manifestDir)) {
+            files.map(p -> p.getFileName().toString())
+                 .filter(name -> name.endsWith(".txt"))
+                 .map(name -> name.substring(0, name.length() - 4))
+                 .sorted()
+                 .forEach(ids::add);
+        } catch (IOException e) {
+            System.err.println("❌ Error listing snapshots: " + e.getMessage());
+        }
+        return ids;
+    }
+
+    /** Rebuild a snapshot into targetPath. */
+    public boolean restoreSnapshot(String snapshotId, String targetPath) {
+        Manifest manifest = readManifest(snapshotId);
+        if (manifest == null) {
+            System.err.println("❌ Snapshot not found: " + snapshotId);
+            return false;
+        }
+        return restore(manifest, targetPath, -1);
+    }
+
+    /**
+     * Restore the latest snapshot taken before the given time, then replay
+     * archived WAL segments up to that time.
+     */
+    public boolean restoreToPointInTime(Instant pointInTime, String targetPath) {
+        long until = pointInTime.toEpochMilli();
+
+        Manifest chosen = null;
+        List<String> ids = listSnapshots();
+        for (int i = ids.size() - 1; i >= 0 && chosen == null; i--) {
+            Manifest manifest = readManifest(ids.get(i));
+            if (manifest != null && manifest.createdAt <= until) {
+                chosen = manifest;
+            }
+        }
+
+        if (chosen == null) {
+            System.err.println("❌ No snapshot exists before " + pointInTime);
+            return false;
+        }
+        return restore(chosen, targetPath, until);
+    }
+
+    private boolean restore(Manifest manifest, String targetPath, long replayUntil) {
+        System.out.println("🔄 Restoring snapshot " + manifest.id + " to " + targetPath);
+
+        Path target = Paths.get(targetPath).toAbsolutePath();
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+
+        try {
+            MessageDigest whole = sha256();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                for (String hash : manifest.chunks) {
+                    byte[] data = readChunk(hash);
+                    whole.update(data);
+                    out.write(data);
+                }
+            }
+
+            if (!hex(whole.digest()).equals(manifest.sha256)) {
+                System.err.println("❌ Snapshot " + manifest.id + " failed checksum verification");
+                deleteQuietly(partial);
+                return false;
+            }
+
+            if (replayUntil >= 0) {
+                int transactions = replayWal(partial, manifest, replayUntil);
+                System.out.println("✅ Replayed " + transactions + " archived transactions");
+            }
+
+            if (!new DatabaseBackupService(databaseService).verify(partial)) {
+                deleteSidecars(partial);
+                deleteQuietly(partial);
+                return false;
+            }
+            deleteSidecars(partial);
+
+            // A stale -wal next to the target would be applied on top of the restored file
+            deleteSidecars(target);
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            System.out.println("✅ Restore completed: " + targetPath);
+            return true;
+
+        } catch (IOException e) {
+            System.err.println("❌ Error restoring snapshot " + manifest.id + ": " + e.getMessage());
+            deleteQuietly(partial);
+            return false;
+        }
+    }
+
+    /** Drop all but the newest snapshots along with WAL segments and chunks only they used. */
+    public boolean prune(int keepSnapshots) {
+        List<String> ids = listSnapshots();
+        if (ids.size() <= keepSnapshots) {
+            return true;
+        }
+
+        try {
+            List<String> kept = ids.subList(ids.size() - Math.max(1, keepSnapshots), ids.size());
+            Set<String> liveChunks = new HashSet<>();
+            long oldestWalSeq = Long.MAX_VALUE;
+
+            for (String id : kept) {
+                Manifest manifest = readManifest(id);
+                if (manifest == null) {
+                    // Never delete chunks on the strength of a manifest we cannot read
+                    System.err.println("❌ Prune aborted, manifest unreadable: " + id);
+                    return false;
+                }
+                liveChunks.addAll(manifest.chunks);
+                oldestWalSeq = Math.min(oldestWalSeq, manifest.walSeq);
+            }
+
+            for (String id : ids) {
+                if (!kept.contains(id)) {
+                    Files.deleteIfExists(manifestDir.resolve(id + ".txt"));
+                }
+            }
+
+            int deletedChunks = 0;
+            if (Files.isDirectory(chunkDir)) {
+                try (Stream<Path> files = Files.walk(chunkDir)) {
+                    for (Path chunk : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                        if (!liveChunks.contains(chunk.getFileName().toString())) {
+                            Files.delete(chunk);
+                            deletedChunks++;
+                        }
+                    }
+                }
+            }
+
+            // Keep the segment each remaining snapshot starts from, for the continuity check
+            int deletedSegments = 0;
+            synchronized (this) {
+                List<Segment> remaining = new ArrayList<>();
+                for (Segment segment : readIndex()) {
+                    if (segment.seq < oldestWalSeq) {
+                        Files.deleteIfExists(walDir.resolve(segment.file));
+                        deletedSegments++;
+                    } else {
+                        remaining.add(segment);
+                    }
+                }
+                writeIndex(remaining);
+            }
+
+            System.out.println("🧹 Pruned " + (ids.size() - kept.size()) + " snapshots, " +
+                             deletedChunks + " chunks, " + deletedSegments + " WAL segments");
+            return true;
+
+        } catch (IOException e) {
+            System.err.println("❌ Error pruning backup store: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // MARK: WAL ARCHIVE
+
+    /**
+     * Copy committed frames that were added to attendance.db-wal since the last
+     * call. Should run on a timer and before checkpoints: frames that are
+     * checkpointed and reset out of the WAL before being archived are lost to
+     * point-in-time restore. Returns the number of frames archived.
+     */
+    public synchronized int archiveWal() {
+        return archive(null);
+    }
+
+    /**
+     * Archive ahead of a checkpoint. Returns the generation that was archived,
+     * to pass to generationCheckpointed afterwards, or null when there is no WAL.
+     */
+    public synchronized WalGeneration archiveBeforeCheckpoint() {
+        WalGeneration[] generation = new WalGeneration[1];
+        archive(generation);
+        return generation[0];
+    }
+
+    /**
+     * Record that a checkpoint copied every frame of the generation back into
+     * the database, so the next writer may reset the WAL. mxFrame is the frame
+     * count the checkpoint reported. Archives once more first in case a
+     * transaction committed between archiveBeforeCheckpoint and the checkpoint.
+     * Replay only moves from one generation to the next when the archived
+     * frames reach the recorded end; anything else is a gap.
+     */
+    public synchronized void generationCheckpointed(WalGeneration generation, int mxFrame) {
+        if (generation == null || mxFrame <= 0) {
+            return;
+        }
+        archive(null);
+        try {
+            Files.createDirectories(walDir);
+            Files.writeString(walGenerations, generation.salt1() + " " + generation.salt2() + " " + mxFrame +
+                              System.lineSeparator(), StandardCharsets.UTF_8,
+                              StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("❌ Error recording WAL generation end: " + e.getMessage());
+        }
+    }
+
+    private int archive(WalGeneration[] seen) {
+        Path wal = Paths.get(DatabaseService.DB_FILE + "-wal");
+
+        try {
+            if (!Files.exists(wal)) {
+                return 0;
+            }
+
+            // The WAL is bounded by checkpointing, so reading it whole is cheap
+            byte[] bytes = Files.readAllBytes(wal);
+            if (bytes.length < WAL_HEADER_SIZE) {
+                return 0;
+            }
+
+            ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN);
+            int magic = header.getInt(0);
+            if (magic != WAL_MAGIC_LITTLE_ENDIAN && magic != WAL_MAGIC_BIG_ENDIAN) {
+                return 0;
+            }
+            boolean bigEndian = magic == WAL_MAGIC_BIG_ENDIAN;
+            int pageSize = header.getInt(8);
+            int checkpointSeq = header.getInt(12);
+            int salt1 = header.getInt(16);
+            int salt2 = header.getInt(20);
+
+            int[] sum = walChecksum(bytes, 0, 24, 0, 0, bigEndian);
+            if (sum[0] != header.getInt(24) || sum[1] != header.getInt(28)) {
+                // Header is being rewritten by a WAL reset; try again next time
+                return 0;
+            }
+            if (seen != null) {
+                seen[0] = new WalGeneration(salt1, salt2);
+            }
+
+            // Walk the checksum chain like SQLite's own recovery and stop at the first
+            // torn or stale frame; only whole transactions are archived
+            int frameSize = WAL_FRAME_HEADER_SIZE + pageSize;
+            int frame = 0;
+            int lastCommitFrame = 0;
+            for (int offset = WAL_HEADER_SIZE; offset + frameSize <= bytes.length; offset += frameSize) {
+                if (header.getInt(offset + 8) != salt1 || header.getInt(offset + 12) != salt2) {
+                    break;
+                }
+                sum = walChecksum(bytes, offset, 8, sum[0], sum[1], bigEndian);
+                sum = walChecksum(bytes, offset + WAL_FRAME_HEADER_SIZE, pageSize, sum[0], sum[1], bigEndian);
+                if (sum[0] != header.getInt(offset + 16) || sum[1] != header.getInt(offset + 20)) {
+                    break;
+                }
+                frame++;
+                if (header.getInt(offset + 4) != 0) {
+                    lastCommitFrame = frame;
+                }
+            }
+
+            Segment last = lastSegment();
+            boolean sameGeneration = last != null && last.salt1 == salt1 && last.salt2 == salt2;
+            int alreadyArchived = sameGeneration ? last.lastFrame : 0;
+            if (lastCommitFrame <= alreadyArchived) {
+                return 0;
+            }
+
+            Files.createDirectories(walDir);
+
+            Segment segment = new Segment();
+            segment.seq = last != null ? last.seq + 1 : 1;
+            segment.salt1 = salt1;
+            segment.salt2 = salt2;
+            segment.checkpointSeq = checkpointSeq;
+            segment.pageSize = pageSize;
+            segment.firstFrame = alreadyArchived + 1;
+            segment.lastFrame = lastCommitFrame;
+            segment.archivedAt = System.currentTimeMillis();
+            segment.file = String.format("%08d.wal.z", segment.seq);
+
+            int from = WAL_HEADER_SIZE + alreadyArchived * frameSize;
+            int to = WAL_HEADER_SIZE + lastCommitFrame * frameSize;
+            writeChunk(walDir.resolve(segment.file), Arrays.copyOfRange(bytes, from, to), to - from);
+
+            Files.writeString(walIndex, segment.toLine() + System.lineSeparator(), StandardCharsets.UTF_8,
+                              StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+            return lastCommitFrame - alreadyArchived;
+
+        } catch (IOException e) {
+            System.err.println("❌ Error archiving WAL frames: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // Apply archived transactions after the manifest's WAL position, up to the given time
+    // or to the last one before a gap in the archive, whichever comes first
+    private int replayWal(Path dbFile, Manifest manifest, long until) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        Segment previous = null;
+        for (Segment segment : readIndex()) {
+            if (segment.seq == manifest.walSeq) {
+                previous = segment;
+            } else if (segment.seq > manifest.walSeq && segment.archivedAt <= until) {
+                segments.add(segment);
+            }
+        }
+
+        if (segments.isEmpty()) {
+            return 0;
+        }
+        if (!PAGE_EXACT_METHOD.equals(manifest.method)) {
+            System.out.println("⚠️ Snapshot " + manifest.id + " was taken with " + manifest.method +
+                             ", which renumbers pages; WAL replay skipped");
+            return 0;
+        }
+
+        // Check the whole chain before touching the file: replaying later page images
+        // onto a base that missed frames in between yields a corrupt database, so the
+        // replay stops at the last segment before a gap
+        Map<WalGeneration, Integer> generationEnds = readGenerationEnds();
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            String problem = segment.pageSize != manifest.pageSize ? "page size changed at WAL segment " + segment.seq
+                : previous != null && !segment.continues(previous, generationEnds)
+                    ? "WAL archive has a gap before segment " + segment.seq : null;
+            if (problem != null) {
+                Instant reached = Instant.ofEpochMilli(previous != null ? previous.archivedAt : manifest.createdAt);
+                System.out.println("⚠️ " + problem + "; restoring to " + reached + ", " +
+                                 Instant.ofEpochMilli(until) + " cannot be reached");
+                segments = segments.subList(0, i);
+                break;
+            }
+            previous = segment;
+        }
+
+        int transactions = 0;
+        try (FileChannel channel = FileChannel.open(dbFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (Segment segment : segments) {
+                transactions += applySegment(channel, segment);
+            }
+        }
+        return transactions;
+    }
+
+    private int applySegment(FileChannel channel, Segment segment) throws IOException {
+        int pageSize = segment.pageSize;
+        byte[] frameHeader = new byte[WAL_FRAME_HEADER_SIZE];
+        List<Integer> pages = new ArrayList<>();
+        List<byte[]> images = new ArrayList<>();
+        int transactions = 0;
+
+        try (InputStream in = new InflaterInputStream(new BufferedInputStream(
+                Files.newInputStream(walDir.resolve(segment.file))))) {
+
+            while (in.readNBytes(frameHeader, 0, WAL_FRAME_HEADER_SIZE) == WAL_FRAME_HEADER_SIZE) {
+                byte[] image = in.readNBytes(pageSize);
+                if (image.length != pageSize) {
+                    throw new IOException("truncated WAL segment " + segment.file);
+                }
+
+                ByteBuffer fields = ByteBuffer.wrap(frameHeader).order(ByteOrder.BIG_ENDIAN);
+                pages.add(fields.getInt(0));
+                images.add(image);
+
+                int commitSize = fields.getInt(4);
+                if (commitSize != 0) {
+                    for (int i = 0; i < pages.size(); i++) {
+                        channel.write(ByteBuffer.wrap(images.get(i)), (long) (pages.get(i) - 1) * pageSize);
+                    }
+                    channel.truncate((long) commitSize * pageSize);
+                    pages.clear();
+                    images.clear();
+                    transactions++;
+                }
+            }
+        }
+        return transactions;
+    }
+
+    // SQLite's WAL checksum: two running 32-bit sums over pairs of words
+    private static int[] walChecksum(byte[] data, int offset, int length, int s1, int s2, boolean bigEndian) {
+        ByteBuffer words = ByteBuffer.wrap(data).order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        for (int i = offset; i < offset + length; i += 8) {
+            s1 += words.getInt(i) + s2;
+            s2 += words.getInt(i + 4) + s1;
+        }
+        return new int[] { s1, s2 };
+    }
+
+    private Segment lastSegment() throws IOException {
+        List<Segment> segments = readIndex();
+        return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    }
+
+    private List<Segment> readIndex() throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        if (!Files.exists(walIndex)) {
+            return segments;
+        }
+        for (String line : Files.readAllLines(walIndex, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                segments.add(Segment.parse(line));
+            }
+        }
+        return segments;
+    }
+
+    // Later lines win: a generation that kept growing after one checkpoint is sealed again by the next
+    private Map<WalGeneration, Integer> readGenerationEnds() throws IOException {
+        Map<WalGeneration, Integer> ends = new HashMap<>();
+        if (!Files.exists(walGenerations)) {
+            return ends;
+        }
+        for (String line : Files.readAllLines(walGenerations, StandardCharsets.UTF_8)) {
+            String[] parts = line.trim().split(" ");
+            if (parts.length == 3) {
+                ends.merge(new WalGeneration(Integer.parseInt(parts[0]), Integer.parseInt(parts[1])),
+                           Integer.parseInt(parts[2]), Math::max);
+            }
+        }
+        return ends;
+    }
+
+    private void writeIndex(List<Segment> segments) throws IOException {
+        Path temp = walDir.resolve("index.txt.tmp");
+        List<String> lines = segments.stream().map(Segment::toLine).toList();
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, walIndex, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // MARK: CHUNKS AND MANIFESTS
+
+    private Path chunkPath(String hash) {
+        return chunkDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private long writeChunk(Path path, byte[] data, int length) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (OutputStream out = new DeflaterOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)), deflater)) {
+            out.write(data, 0, length);
+        } finally {
+            deflater.end();
+        }
+
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(path);
+    }
+
+    private byte[] readChunk(String hash) throws IOException {
+        Path chunk = chunkPath(hash);
+        if (!Files.exists(chunk)) {
+            throw new IOException("missing chunk " + hash);
+        }
+
+        byte[] data;
+        try (InputStream in = new InflaterInputStream(new BufferedInputStream(Files.newInputStream(chunk)))) {
+            data = in.readAllBytes();
+        }
+
+        MessageDigest digest = sha256();
+        if (!hex(digest.digest(data)).equals(hash)) {
+            throw new IOException("corrupt chunk " + hash);
+        }
+        return data;
+    }
+
+    private void writeManifest(Manifest manifest) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("id=" + manifest.id);
+        lines.add("created=" + manifest.createdAt);
+        lines.add("method=" + manifest.method);
+        lines.add("pageSize=" + manifest.pageSize);
+        lines.add("size=" + manifest.size);
+        lines.add("sha256=" + manifest.sha256);
+        lines.add("walSeq=" + manifest.walSeq);
+        lines.add("");
+        lines.addAll(manifest.chunks);
+
+        Path temp = manifestDir.resolve(manifest.id + ".txt.tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, manifestDir.resolve(manifest.id + ".txt"),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Manifest readManifest(String id) {
+        Path path = manifestDir.resolve(id + ".txt");
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try {
+            Manifest manifest = new Manifest();
+            boolean inChunks = false;
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (inChunks) {
+                    if (!line.isBlank()) {
+                        manifest.chunks.add(line.trim());
+                    }
+                    continue;
+                }
+                if (line.isBlank()) {
+                    inChunks = true;
+                    continue;
+                }
+
+                int eq = line.indexOf('=');
+                String key = line.substring(0, eq);
+                String value = line.substring(eq + 1);
+                switch (key) {
+                    case "id" -> manifest.id = value;
+                    case "created" -> manifest.createdAt = Long.parseLong(value);
+                    case "method" -> manifest.method = value;
+                    case "pageSize" -> manifest.pageSize = Integer.parseInt(value);
+                    case "size" -> manifest.size = Long.parseLong(value);
+                    case "sha256" -> manifest.sha256 = value;
+                    case "walSeq" -> manifest.walSeq = Long.parseLong(value);
+                    default -> { }
+                }
+            }
+            return manifest;
+
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Error reading manifest " + id + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // MARK: HELPERS
+
+    // Page size lives at offset 16 of the database header; 1 means 65536
+    private static int readPageSize(Path dbFile) throws IOException {
+        try (InputStream in = Files.newInputStream(dbFile)) {
+            byte[] header = in.readNBytes(18);
+            if (header.length < 18) {
+                throw new IOException("not a SQLite database: " + dbFile);
+            }
+            int size = ((header[16] & 0xff) << 8) | (header[17] & 0xff);
+            return size == 1 ? 65536 : size;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static void deleteSidecars(Path dbFile) {
+        deleteQuietly(dbFile.resolveSibling(dbFile.getFileName() + "-wal"));
+        deleteQuietly(dbFile.resolveSibling(dbFile.getFileName() + "-shm"));
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not delete " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static class Manifest {
+        String id;
+        long createdAt;
+        String method;
+        int pageSize;
+        long size;
+        String sha256;
+        long walSeq;
+        final List<String> chunks = new ArrayList<>();
+    }
+
+    private static class Segment {
+        long seq;
+        int salt1;
+        int salt2;
+        int checkpointSeq;
+        int pageSize;
+        int firstFrame;
+        int lastFrame;
+        long archivedAt;
+        String file;
+
+        // Same WAL generation picks up at the next frame. A new generation starts at
+        // frame 1 and only follows if a completed checkpoint recorded the previous
+        // generation ending exactly where its archive ends; otherwise its tail may
+        // have been checkpointed away unarchived.
+        boolean continues(Segment previous, Map<WalGeneration, Integer> generationEnds) {
+            if (salt1 == previous.salt1 && salt2 == previous.salt2) {
+                return firstFrame == previous.lastFrame + 1;
+            }
+            Integer previousEnd = generationEnds.get(new WalGeneration(previous.salt1, previous.salt2));
+            return firstFrame == 1 && previousEnd != null && previousEnd == previous.lastFrame;
+        }
+
+        String toLine() {
+            return seq + " " + salt1 + " " + salt2 + " " + checkpointSeq + " " + pageSize + " " +
+                   firstFrame + " " + lastFrame + " " + archivedAt + " " + file;
+        }
+
+        static Segment parse(String line) {
+            String[] parts = line.trim().split(" ");
+            Segment segment = new Segment();
+            segment.seq = Long.parseLong(parts[0]);
+            segment.salt1 = Integer.parseInt(parts[1]);
+            segment.salt2 = Integer.parseInt(parts[2]);
+            segment.checkpointSeq = Integer.parseInt(parts[3]);
+            segment.pageSize = Integer.parseInt(parts[4]);
+            segment.firstFrame = Integer.parseInt(parts[5]);
+            segment.lastFrame = Integer.parseInt(parts[6]);
+            segment.archivedAt = Long.parseLong(parts[7]);
+            segment.file = parts[8];
+            return segment;
+        }
+    }
+}
\ No newline at end of file
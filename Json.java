@@ -0,0 +1,436 @@
+package attendance.server;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Just enough JSON for the API: writes maps, collections, records and the
+ * model beans through their getters, and parses request bodies into maps,
+ * lists, strings, numbers, booleans and null. Passwords are never written.
+ * bind turns parsed values back into records and beans, on the server for
+ * request bodies and in ApiClient for responses.
+ */
+public final class Json {
+
+    private static final Set<String> HIDDEN = Set.of("password");
+    private static final Map<Class<?>, List<Method>> GETTERS = new ConcurrentHashMap<>();
+
+    private Json() {
+    }
+
+    public static String write(Object value) {
+        StringBuilder out = new StringBuilder();
+        write(value, out);
+        return out.toString();
+    }
+
+    private static void write(Object value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof String || value instanceof Character || value instanceof Enum
+                   || value instanceof Temporal) {
+            quote(value.toString(), out);
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            out.append(Double.isFinite(d) ? value.toString() : "null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value);
+        } else if (value instanceof Map) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                quote(String.valueOf(entry.getKey()), out);
+                out.append(':');
+                write(entry.getValue(), out);
+            }
+            out.append('}');
+        } else if (value instanceof Collection || value instanceof Object[]) {
+            Iterable<?> items = value instanceof Collection ? (Collection<?>) value : List.of((Object[]) value);
+            out.append('[');
+            boolean first = true;
+            for (Object item : items) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                write(item, out);
+            }
+            out.append(']');
+        } else {
+            write(properties(value), out);
+        }
+    }
+
+    /** The properties write would emit for a record or bean. */
+    public static Map<String, Object> asMap(Object bean) {
+        return properties(bean);
+    }
+
+    // Records by component, beans by public getX/isX
+    private static Map<String, Object> properties(Object bean) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (Method getter : GETTERS.computeIfAbsent(bean.getClass(), Json::gettersOf)) {
+            try {
+                map.put(propertyName(bean.getClass(), getter), getter.invoke(bean));
+            } catch (ReflectiveOperationException e) {
+                // Skip properties that cannot be read
+            }
+        }
+        return map;
+    }
+
+    private static List<Method> gettersOf(Class<?> type) {
+        List<Method> getters = new ArrayList<>();
+        if (type.isRecord()) {
+            for (var component : type.getRecordComponents()) {
+                if (!HIDDEN.contains(component.getName())) {
+                    getters.add(component.getAccessor());
+                }
+            }
+            return getters;
+        }
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            boolean getter = (name.startsWith("get") && name.length() > 3) || (name.startsWith("is") && name.length() > 2);
+            if (getter && method.getParameterCount() == 0 && !Modifier.isStatic(method.getModifiers())
+                && method.getDeclaringClass() != Object.class && method.getReturnType() != void.class
+                && !HIDDEN.contains(propertyName(type, method))) {
+                getters.add(method);
+            }
+        }
+        getters.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return getters;
+    }
+
+    private static String propertyName(Class<?> type, Method getter) {
+        if (type.isRecord()) {
+            return getter.getName();
+        }
+        String name = getter.getName().substring(getter.getName().startsWith("is") ? 2 : 3);
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static void quote(String s, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /** Parses a JSON document; throws IllegalArgumentException on malformed input. */
+    public static Object parse(String text) {
+        Parser parser = new Parser(text);
+        Object value = parser.value();
+        parser.skipWhitespace();
+        if (parser.pos != text.length()) {
+            throw parser.error("Unexpected trailing content");
+        }
+        return value;
+    }
+
+    /** Parses a JSON object, or returns an empty map for a blank body. */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text) {
+        if (text == null || text.isBlank()) {
+            return new LinkedHashMap<>();
+        }
+        Object value = parse(text);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Converts a parsed value to the given type: records through their canonical
+     * constructor, beans through setX methods, List<T> element by element.
+     * Unknown properties are ignored; throws IllegalArgumentException when a
+     * value does not fit.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T bind(Object value, Type type) {
+        try {
+            return (T) convert(value, type);
+        } catch (ReflectiveOperationException | ClassCastException | NumberFormatException e) {
+            throw new IllegalArgumentException("Cannot bind JSON to " + type.getTypeName() + ": " + e, e);
+        }
+    }
+
+    /** List<T> for bind. */
+    public static Type listOf(Class<?> elementType) {
+        return new ParameterizedType() {
+            @Override public Type[] getActualTypeArguments() { return new Type[] { elementType }; }
+            @Override public Type getRawType() { return List.class; }
+            @Override public Type getOwnerType() { return null; }
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convert(Object value, Type type) throws ReflectiveOperationException {
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            if (value == null || !List.class.isAssignableFrom((Class<?>) parameterized.getRawType())) {
+                return value;
+            }
+            List<Object> list = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                list.add(convert(item, parameterized.getActualTypeArguments()[0]));
+            }
+            return list;
+        }
+
+        Class<?> target = (Class<?>) type;
+        if (value == null) {
+            if (!target.isPrimitive()) {
+                return null;
+            }
+            return target == boolean.class ? Boolean.FALSE : convert(0L, target);
+        }
+        if (target == Object.class || target.isInstance(value) && !(value instanceof Map)) {
+            return value;
+        }
+        if (target == String.class) {
+            return value.toString();
+        }
+        if (target == int.class || target == Integer.class) {
+            return ((Number) value).intValue();
+        }
+        if (target == long.class || target == Long.class) {
+            return ((Number) value).longValue();
+        }
+        if (target == double.class || target == Double.class) {
+            return ((Number) value).doubleValue();
+        }
+        if (target == float.class || target == Float.class) {
+            return ((Number) value).floatValue();
+        }
+        if (target == boolean.class || target == Boolean.class) {
+            return value instanceof Boolean ? value : Boolean.parseBoolean(value.toString());
+        }
+        if (target == LocalDate.class) {
+            return LocalDate.parse(value.toString());
+        }
+        if (target == LocalDateTime.class) {
+            return LocalDateTime.parse(value.toString());
+        }
+        if (target.isEnum()) {
+            return Enum.valueOf((Class<Enum>) target, value.toString());
+        }
+        if (target == Map.class) {
+            return value;
+        }
+
+        Map<String, Object> map = (Map<String, Object>) value;
+        if (target.isRecord()) {
+            RecordComponent[] components = target.getRecordComponents();
+            Class<?>[] types = new Class<?>[components.length];
+            Object[] args = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                types[i] = components[i].getType();
+                args[i] = convert(map.get(components[i].getName()), components[i].getGenericType());
+            }
+            Constructor<?> constructor = target.getDeclaredConstructor(types);
+            return constructor.newInstance(args);
+        }
+
+        Object bean = target.getDeclaredConstructor().newInstance();
+        for (Method method : target.getMethods()) {
+            String name = method.getName();
+            if (name.length() > 3 && name.startsWith("set") && method.getParameterCount() == 1) {
+                String property = Character.toLowerCase(name.charAt(3)) + name.substring(4);
+                if (map.containsKey(property)) {
+                    method.invoke(bean, convert(map.get(property), method.getGenericParameterTypes()[0]));
+                }
+            }
+        }
+        return bean;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Object value() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw error("Unexpected end of input");
+            }
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{': return object();
+                case '[': return array();
+                case '"': return string();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default: return number();
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek('}')) {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhitespace();
+                if (!peek('"')) {
+                    throw error("Expected a property name");
+                }
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                map.put(key, value());
+                skipWhitespace();
+                if (peek(',')) {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek(']')) {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(value());
+                skipWhitespace();
+                if (peek(',')) {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String string() {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("Bad unicode escape");
+                        }
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(escaped);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private Object number() {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            String token = text.substring(start, pos);
+            if (token.isEmpty()) {
+                throw error("Unexpected character '" + text.charAt(start) + "'");
+            }
+            try {
+                if (token.indexOf('.') < 0 && token.indexOf('e') < 0 && token.indexOf('E') < 0) {
+                    return Long.parseLong(token);
+                }
+                return Double.parseDouble(token);
+            } catch (NumberFormatException e) {
+                throw error("Bad number '" + token + "'");
+            }
+        }
+
+        private Object literal(String word, Object value) {
+            if (!text.startsWith(word, pos)) {
+                throw error("Unexpected token");
+            }
+            pos += word.length();
+            return value;
+        }
+
+        private boolean peek(char c) {
+            return pos < text.length() && text.charAt(pos) == c;
+        }
+
+        private void expect(char c) {
+            if (!peek(c)) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos);
+        }
+    }
+}
\ No newline at end of file
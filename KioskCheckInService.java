@@ -0,0 +1,479 @@
+package attendance.service;
+
+import attendance.model.AttendanceStatus;
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Badge scans from check-in kiosks. A scan is acknowledged from memory: the
+ * badge is looked up in a cached map, repeats inside the dedupe window are
+ * dropped, and the scan goes into a lock-free ring buffer. A single flusher
+ * thread drains the buffer and writes each batch in one transaction, filling
+ * attendance_records.check_in with the first scan of the day and check_out
+ * with the last. Rows still ABSENT get PRESENT or LATE from the class
+ * timetable (see ClassScheduleService); a status a teacher already set is
+ * left alone.
+ */
+public class KioskCheckInService {
+
+    public enum Outcome { ACCEPTED, DUPLICATE, UNKNOWN, BUSY }
+
+    /** Acknowledgement returned to the kiosk; name is null unless the badge was recognised. */
+    public record ScanResult(Outcome outcome, String name, long nanos) {}
+
+    /** Decides the status of a student who checks in while still marked absent. */
+    @FunctionalInterface
+    public interface StatusRule {
+        AttendanceStatus statusFor(int studentId, Integer classId, LocalDateTime checkIn);
+    }
+
+    private record Badge(int studentId, String name) {}
+
+    private record Scan(int studentId, long millis) {}
+
+    private static final int RING_CAPACITY = 8192;
+    private static final int BATCH_MAX = 512;
+    private static final long FLUSH_INTERVAL_NANOS = 100_000_000L;
+    private static final long DEDUPE_MILLIS = 60_000;
+    private static final long BADGE_RELOAD_MILLIS = 30_000;
+    private static final LocalTime DEFAULT_LATE_AFTER = LocalTime.of(8, 15);
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private static KioskCheckInService instance;
+
+    private final DatabaseService databaseService;
+    private final RetryPolicy retryPolicy;
+    private final HybridLogicalClock clock;
+    private final ScanRing ring = new ScanRing(RING_CAPACITY);
+    private final Map<String, Badge> badges = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> lastAccepted = new ConcurrentHashMap<>();
+    // Classes without a timetable slot that day fall back to the fixed cutoff
+    private volatile StatusRule statusRule = ClassScheduleService.getInstance().statusRule(fixedCutoff(DEFAULT_LATE_AFTER));
+    private volatile boolean reloadRequested;
+    private volatile long badgesLoadedAt;
+    private volatile Thread flusher;
+    private volatile boolean running;
+
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong unknown = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong ackNanos = new AtomicLong();
+    private final LongAccumulator maxAckNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong failedScans = new AtomicLong();
+
+    public static synchronized KioskCheckInService getInstance() {
+        if (instance == null) {
+            instance = new KioskCheckInService(new DatabaseService());
+        }
+        return instance;
+    }
+
+    public KioskCheckInService(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.retryPolicy = RetryPolicy.getDefault();
+        this.clock = HybridLogicalClock.getInstance();
+    }
+
+    /** Students checking in after the given time are marked LATE. */
+    public static StatusRule fixedCutoff(LocalTime lateAfter) {
+        return (studentId, classId, checkIn) ->
+            checkIn.toLocalTime().isAfter(lateAfter) ? AttendanceStatus.LATE : AttendanceStatus.PRESENT;
+    }
+
+    public void setStatusRule(StatusRule statusRule) {
+        this.statusRule = statusRule;
+    }
+
+    /** Loads the badge map and starts the flusher; does nothing if already running. */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        loadBadges();
+        running = true;
+        Thread t = new Thread(this::flushLoop, "kiosk-flusher");
+        t.setDaemon(true);
+        t.start();
+        flusher = t;
+        System.out.println("🪪 Kiosk check-in started with " + badges.size() + " badges");
+    }
+
+    /** Stops the flusher after writing whatever is still buffered. */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Thread t = flusher;
+        LockSupport.unpark(t);
+        try {
+            t.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flusher = null;
+        System.out.println("🪪 Kiosk check-in stopped: " + getStatsSummary());
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Accepts one badge scan. Never touches the database, so it is safe to call per keystroke burst. */
+    public ScanResult scan(String badgeId) {
+        return scan(badgeId, System.currentTimeMillis());
+    }
+
+    public ScanResult scan(String badgeId, long millis) {
+        long start = System.nanoTime();
+        scans.incrementAndGet();
+
+        Badge badge = badgeId != null ? badges.get(normalize(badgeId)) : null;
+        Outcome outcome;
+        if (badge == null) {
+            unknown.incrementAndGet();
+            // The flusher reloads off this thread so an unknown badge still answers quickly
+            reloadRequested = true;
+            outcome = Outcome.UNKNOWN;
+        } else if (!running) {
+            dropped.incrementAndGet();
+            outcome = Outcome.BUSY;
+        } else if (isRepeat(badge.studentId(), millis)) {
+            duplicates.incrementAndGet();
+            outcome = Outcome.DUPLICATE;
+        } else if (!ring.offer(new Scan(badge.studentId(), millis))) {
+            lastAccepted.remove(badge.studentId());
+            dropped.incrementAndGet();
+            outcome = Outcome.BUSY;
+        } else {
+            accepted.incrementAndGet();
+            outcome = Outcome.ACCEPTED;
+        }
+
+        long nanos = System.nanoTime() - start;
+        ackNanos.addAndGet(nanos);
+        maxAckNanos.accumulate(nanos);
+        return new ScanResult(outcome, badge != null ? badge.name() : null, nanos);
+    }
+
+    // Claims the student's dedupe slot; a badge held against the reader scans many times a second
+    private boolean isRepeat(int studentId, long millis) {
+        while (true) {
+            Long last = lastAccepted.get(studentId);
+            if (last != null && millis - last < DEDUPE_MILLIS) {
+                return true;
+            }
+            boolean claimed = last == null
+                ? lastAccepted.putIfAbsent(studentId, millis) == null
+                : lastAccepted.replace(studentId, last, millis);
+            if (claimed) {
+                return false;
+            }
+        }
+    }
+
+    private static String normalize(String badgeId) {
+        return badgeId.trim().toUpperCase();
+    }
+
+    // Badges are the students.student_id codes printed on the cards
+    private void loadBadges() {
+        String sql = "SELECT id, student_id, first_name, last_name FROM students";
+        Map<String, Badge> loaded = new LinkedHashMap<>();
+
+        try (Connection conn = databaseService.getConnectionSafe();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String code = rs.getString("student_id");
+                if (code != null) {
+                    loaded.put(normalize(code), new Badge(rs.getInt("id"),
+                        rs.getString("first_name") + " " + rs.getString("last_name")));
+                }
+            }
+            badges.keySet().retainAll(loaded.keySet());
+            badges.putAll(loaded);
+        } catch (SQLException e) {
+            System.err.println("❌ Error loading kiosk badges: " + e.getMessage());
+        }
+        badgesLoadedAt = System.currentTimeMillis();
+    }
+
+    private void flushLoop() {
+        List<Scan> batch = new ArrayList<>(BATCH_MAX);
+        while (true) {
+            batch.clear();
+            ring.drain(batch, BATCH_MAX);
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+            } else if (!running) {
+                return;
+            } else {
+                if (reloadRequested && System.currentTimeMillis() - badgesLoadedAt >= BADGE_RELOAD_MILLIS) {
+                    reloadRequested = false;
+                    loadBadges();
+                }
+                expireDedupe();
+                LockSupport.parkNanos(FLUSH_INTERVAL_NANOS);
+            }
+        }
+    }
+
+    private void expireDedupe() {
+        long cutoff = System.currentTimeMillis() - DEDUPE_MILLIS;
+        lastAccepted.values().removeIf(millis -> millis < cutoff);
+    }
+
+    // First and last scan per student and day within one batch
+    private record Span(int studentId, LocalDate date, LocalTime first, LocalTime last) {
+        Span widen(LocalTime time) {
+            return new Span(studentId, date, time.isBefore(first) ? time : first, time.isAfter(last) ? time : last);
+        }
+    }
+
+    private void flush(List<Scan> batch) {
+        ZoneId zone = ZoneId.systemDefault();
+        Map<String, Span> spans = new LinkedHashMap<>();
+        for (Scan scan : batch) {
+            LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochMilli(scan.millis()), zone).withNano(0);
+            String key = scan.studentId() + "@" + at.toLocalDate();
+            Span span = spans.get(key);
+            spans.put(key, span == null
+                ? new Span(scan.studentId(), at.toLocalDate(), at.toLocalTime(), at.toLocalTime())
+                : span.widen(at.toLocalTime()));
+        }
+
+        long start = System.nanoTime();
+        try {
+            // Times only ever widen and status only moves off ABSENT, so a replay is harmless
+            List<Written> written = retryPolicy.executeIdempotent("kiosk check-in",
+                () -> writeSpans(new ArrayList<>(spans.values())));
+            batches.incrementAndGet();
+            rowsWritten.addAndGet(written.size());
+            for (Written w : written) {
+                if (w.status() != w.previous()) {
+                    TeacherService.attendanceWritten(w.studentId(), w.classId(), w.date(), w.previous(), w.status());
+                }
+            }
+        } catch (SQLException e) {
+            failedScans.addAndGet(batch.size());
+            // Let the students scan again rather than wait out the dedupe window
+            for (Scan scan : batch) {
+                lastAccepted.remove(scan.studentId());
+            }
+            System.err.println("❌ Error writing " + batch.size() + " kiosk scans: " + e.getMessage());
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        if (millis > 500) {
+            System.out.println("⚠️ Kiosk batch of " + batch.size() + " scans took " + millis + " ms");
+        }
+    }
+
+    private record Written(int studentId, Integer classId, LocalDate date, AttendanceStatus previous, AttendanceStatus status) {}
+
+    private List<Written> writeSpans(List<Span> spans) throws SQLException {
+        String checkSql = "SELECT a.id, a.status, a.class_id, s.class_id, a.check_in, a.check_out FROM students s "
+                        + "LEFT JOIN attendance_records a ON a.student_id = s.id AND a.day = ? WHERE s.id = ?";
+        String insertSql = "INSERT INTO attendance_records (student_id, class_id, day, check_in, check_out, status, hlc) "
+                         + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        // A null stamp keeps the row's own, so widening the times never outranks a teacher's edit
+        String updateSql = "UPDATE attendance_records SET check_in = ?, check_out = ?, status = ?, hlc = COALESCE(?, hlc) WHERE id = ?";
+
+        try (Connection conn = databaseService.getConnection()) {
+            try (Statement begin = conn.createStatement()) {
+                begin.execute("BEGIN IMMEDIATE");
+            }
+
+            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql);
+                 PreparedStatement insertStmt = conn.prepareStatement(insertSql);
+                 PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                List<Written> written = new ArrayList<>(spans.size());
+
+                for (Span span : spans) {
+                    long day = AttendanceDates.toDay(span.date());
+                    checkStmt.setLong(1, day);
+                    checkStmt.setInt(2, span.studentId());
+                    try (ResultSet rs = checkStmt.executeQuery()) {
+                        if (!rs.next()) {
+                            // Student deleted since the badges were loaded
+                            continue;
+                        }
+
+                        if (rs.getObject(1) == null) {
+                            Integer classId = intOrNull(rs.getObject(4));
+                            AttendanceStatus status = statusRule.statusFor(span.studentId(), classId,
+                                span.date().atTime(span.first()));
+                            insertStmt.setInt(1, span.studentId());
+                            insertStmt.setObject(2, classId);
+                            insertStmt.setLong(3, day);
+                            insertStmt.setString(4, span.first().format(TIME));
+                            insertStmt.setString(5, span.last().isAfter(span.first()) ? span.last().format(TIME) : null);
+                            insertStmt.setInt(6, status.getCode());
+                            insertStmt.setLong(7, clock.now());
+                            insertStmt.executeUpdate();
+                            written.add(new Written(span.studentId(), classId, span.date(), null, status));
+                            continue;
+                        }
+
+                        long id = rs.getLong(1);
+                        AttendanceStatus previous = AttendanceStatus.fromCode(rs.getInt(2));
+                        Integer classId = intOrNull(rs.getObject(3));
+                        String oldIn = rs.getString(5);
+                        String oldOut = rs.getString(6);
+
+                        // 'HH:mm:ss' text compares in time order
+                        String first = span.first().format(TIME);
+                        String last = span.last().format(TIME);
+                        String checkIn = min(min(oldIn, oldOut), first);
+                        String checkOut = max(max(oldIn, oldOut), last);
+                        if (checkOut.equals(checkIn)) {
+                            checkOut = null;
+                        }
+
+                        AttendanceStatus status = previous;
+                        if (previous == AttendanceStatus.ABSENT) {
+                            status = statusRule.statusFor(span.studentId(), classId,
+                                span.date().atTime(LocalTime.parse(checkIn)));
+                        }
+
+                        if (checkIn.equals(oldIn) && Objects.equals(checkOut, oldOut) && status == previous) {
+                            continue;
+                        }
+                        updateStmt.setString(1, checkIn);
+                        updateStmt.setString(2, checkOut);
+                        updateStmt.setInt(3, status.getCode());
+                        if (status != previous) {
+                            updateStmt.setLong(4, clock.now());
+                        } else {
+                            updateStmt.setNull(4, Types.BIGINT);
+                        }
+                        updateStmt.setLong(5, id);
+                        updateStmt.executeUpdate();
+                        written.add(new Written(span.studentId(), classId, span.date(), previous, status));
+                    }
+                }
+
+                try (Statement commit = conn.createStatement()) {
+                    commit.execute("COMMIT");
+                }
+                return written;
+
+            } catch (SQLException e) {
+                try (Statement rollback = conn.createStatement()) {
+                    rollback.execute("ROLLBACK");
+                } catch (SQLException ex) {
+                    // Transaction was already rolled back by SQLite
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static Integer intOrNull(Object value) {
+        return value != null ? ((Number) value).intValue() : null;
+    }
+
+    private static String min(String a, String b) {
+        return a == null ? b : b == null ? a : a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static String max(String a, String b) {
+        return a == null ? b : b == null ? a : a.compareTo(b) >= 0 ? a : b;
+    }
+
+    public long getScans() { return scans.get(); }
+    public long getAccepted() { return accepted.get(); }
+    public long getDuplicates() { return duplicates.get(); }
+    public long getUnknown() { return unknown.get(); }
+    public long getDropped() { return dropped.get(); }
+    public long getRowsWritten() { return rowsWritten.get(); }
+    public int getQueueDepth() { return ring.size(); }
+
+    public double getAverageAckMicros() {
+        long n = scans.get();
+        return n == 0 ? 0 : ackNanos.get() / 1000.0 / n;
+    }
+
+    public String getStatsSummary() {
+        return String.format("%d scans: %d accepted, %d duplicate, %d unknown, %d dropped; ack avg %.1f µs max %.1f µs; " +
+                             "%d rows in %d batches, %d failed, %d queued",
+            scans.get(), accepted.get(), duplicates.get(), unknown.get(), dropped.get(),
+            getAverageAckMicros(), maxAckNanos.get() / 1000.0,
+            rowsWritten.get(), batches.get(), failedScans.get(), ring.size());
+    }
+
+    /**
+     * Bounded multi-producer, single-consumer ring. Producers claim a sequence
+     * with CAS on tail and then publish into the slot; the consumer stops at
+     * the first slot not yet published and picks it up on the next drain.
+     */
+    static final class ScanRing {
+        private final AtomicReferenceArray<Scan> slots;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+
+        ScanRing(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            this.slots = new AtomicReferenceArray<>(size);
+            this.mask = size - 1;
+        }
+
+        boolean offer(Scan scan) {
+            while (true) {
+                long t = tail.get();
+                if (t - head >= slots.length()) {
+                    return false;
+                }
+                if (tail.compareAndSet(t, t + 1)) {
+                    slots.set((int) (t & mask), scan);
+                    return true;
+                }
+            }
+        }
+
+        // Consumer thread only
+        int drain(List<Scan> out, int max) {
+            int n = 0;
+            long h = head;
+            while (n < max) {
+                int index = (int) (h & mask);
+                Scan scan = slots.get(index);
+                if (scan == null) {
+                    break;
+                }
+                slots.set(index, null);
+                out.add(scan);
+                h++;
+                n++;
+                head = h;
+            }
+            return n;
+        }
+
+        int size() {
+            return (int) Math.max(0, tail.get() - head);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package attendance.controller;
+
+import attendance.service.KioskCheckInService;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+/**
+ * Check-in kiosk screen. Badge readers type the code and press Enter, so the
+ * field scans on Enter and clears itself for the next student. Scans are
+ * acknowledged straight away and written to the database in the background.
+ */
+public final class KioskCheckInWindow {
+
+    private KioskCheckInWindow() {
+    }
+
+    public static void show(Window owner) {
+        KioskCheckInService kiosk = KioskCheckInService.getInstance();
+        kiosk.start();
+
+        Label prompt = new Label("🪪 Scan your student card");
+        prompt.setStyle("-fx-font-size: 28px; -fx-font-weight: bold;");
+
+        TextField badgeField = new TextField();
+        badgeField.setPromptText("Student ID");
+        badgeField.setMaxWidth(420);
+        badgeField.setStyle("-fx-font-size: 24px;");
+
+        Label result = new Label(" ");
+        result.setStyle("-fx-font-size: 22px;");
+
+        Label stats = new Label();
+        stats.setStyle("-fx-font-size: 11px; -fx-text-fill: #7f8c8d;");
+        stats.setWrapText(true);
+
+        badgeField.setOnAction(e -> {
+            String badge = badgeField.getText();
+            badgeField.clear();
+            if (badge == null || badge.trim().isEmpty()) {
+                return;
+            }
+
+            KioskCheckInService.ScanResult scan = kiosk.scan(badge);
+            switch (scan.outcome()) {
+                case ACCEPTED -> showResult(result, "✅ Welcome, " + scan.name(), "#27ae60");
+                case DUPLICATE -> showResult(result, "✅ Already recorded, " + scan.name(), "#2980b9");
+                case UNKNOWN -> showResult(result, "❌ Card " + badge.trim() + " not recognised", "#c0392b");
+                case BUSY -> showResult(result, "⚠️ Kiosk busy, please scan again", "#e67e22");
+            }
+        });
+
+        VBox content = new VBox(20, prompt, badgeField, result, stats);
+        content.setAlignment(Pos.CENTER);
+        content.setPadding(new Insets(30));
+
+        Stage stage = new Stage();
+        stage.initOwner(owner);
+        stage.setTitle("Kiosk Check-In");
+        stage.setScene(new Scene(content, 640, 360));
+
+        Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> stats.setText(kiosk.getStatsSummary())));
+        refresh.setCycleCount(Timeline.INDEFINITE);
+        refresh.play();
+
+        // Writes out whatever is still buffered when the kiosk is closed
+        stage.setOnHidden(e -> {
+            refresh.stop();
+            kiosk.stop();
+        });
+
+        stage.show();
+        badgeField.requestFocus();
+    }
+
+    private static void showResult(Label result, String text, String color) {
+        result.setText(text);
+        result.setStyle("-fx-font-size: 22px; -fx-text-fill: " + color + ";");
+    }
+}
\ No newline at end of file
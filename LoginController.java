@@ -3,6 +3,7 @@ package attendance.controller;
 import attendance.Main;
 import attendance.model.User;
 import attendance.service.AuthService;
+import attendance.service.Services;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
@@ -18,7 +19,7 @@ public class LoginController {
     @FXML
     public void initialize() {
         System.out.println("✅ LoginController initialized");
-        authService = new AuthService();
+        authService = Services.authService();
         errorLabel.setVisible(false);
         
         // Set up enter key to trigger login
@@ -1,5 +1,6 @@
 package attendance.controller;
 
+import attendance.model.ClassSummary;
 import attendance.model.User;
 import attendance.service.ClassService;
 import javafx.collections.FXCollections;
@@ -138,33 +139,23 @@ public class ManageClassesController {
     private void loadClassData() {
         try {
             classDataList = FXCollections.observableArrayList();
-            List<Map<String, Object>> classes = classService.getAllClasses();
-            
-            if (classes != null && !classes.isEmpty()) {
-                for (Map<String, Object> cls : classes) {
-                    Integer id = (Integer) cls.get("id");
-                    String className = (String) cls.get("className");
-                    String room = (String) cls.get("room");
-                    String schedule = (String) cls.get("schedule");
-                    
-                    Object studentCountObj = cls.get("studentCount");
-                    int studentCount = (studentCountObj instanceof Integer) ? (Integer) studentCountObj : 0;
-                    
-                    String teacherName = (String) cls.get("teacherName");
+            List<ClassSummary> classes = classService.getAllClasses();
+            
+            if (!classes.isEmpty()) {
+                for (ClassSummary cls : classes) {
+                    String teacherName = cls.teacherName();
                     if (teacherName == null || teacherName.isEmpty()) {
-                        teacherName = "No Teacher Assigned";
+                        teacherName = ClassSummary.NO_TEACHER;
                     }
                     
-                    Integer teacherId = (Integer) cls.get("teacherId");
-                    
                     ClassData data = new ClassData(
-                        id != null ? id : 0,
-                        className != null ? className : "",
-                        room != null ? room : "",
-                        schedule != null ? schedule : "",
-                        studentCount,
+                        cls.id(),
+                        cls.className() != null ? cls.className() : "",
+                        cls.room() != null ? cls.room() : "",
+                        cls.schedule() != null ? cls.schedule() : "",
+                        cls.studentCount(),
                         teacherName,
-                        teacherId
+                        cls.teacherId()
                     );
                     classDataList.add(data);
                 }
@@ -407,21 +398,21 @@ public class ManageClassesController {
         
         try {
             // Get the class data
-            Map<String, Object> classData = classService.getClassById(selectedClassId);
+            ClassSummary classData = classService.getClassById(selectedClassId);
             if (classData == null) {
                 showAlert("Error", "Class not found.");
                 return;
             }
             
-            String className = (String) classData.get("className");
-            String room = (String) classData.get("room");
-            String schedule = (String) classData.get("schedule");
+            String className = classData.className();
+            String room = classData.room();
+            String schedule = classData.schedule();
             
             // Get teacher ID from selection
             Integer teacherId = teacherIdMap.get(selectedTeacher);
             
             // Check if teacher is already assigned
-            Integer currentTeacherId = (Integer) classData.get("teacherId");
+            Integer currentTeacherId = classData.teacherId();
             if (teacherId != null && teacherId.equals(currentTeacherId)) {
                 showAlert("Info", "This teacher is already assigned to this class.");
                 return;
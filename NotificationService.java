@@ -10,9 +10,11 @@ import java.util.List;
 
 public class NotificationService {
     private DatabaseService databaseService;
+    private RetryPolicy retryPolicy;
     
     public NotificationService() {
         this.databaseService = new DatabaseService();
+        this.retryPolicy = RetryPolicy.getDefault();
     }
     
     // Create notification (used by ViewAttendanceController)
@@ -27,28 +29,32 @@ public class NotificationService {
                     "related_entity_type, related_entity_id, is_read, created_at) " +
                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = databaseService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, senderId);
-            pstmt.setInt(2, receiverId);
-            pstmt.setString(3, title);
-            pstmt.setString(4, message);
-            pstmt.setString(5, type);
-            
-            if (relatedEntityType != null) {
-                pstmt.setString(6, relatedEntityType);
-            } else {
-                pstmt.setNull(6, Types.VARCHAR);
-            }
-            
-            pstmt.setInt(7, relatedEntityId > 0 ? relatedEntityId : 0);
-            pstmt.setBoolean(8, false);
-            pstmt.setTimestamp(9, Timestamp.valueOf(LocalDateTime.now()));
-            
-            int rows = pstmt.executeUpdate();
-            System.out.println("📨 Notification sent to user " + receiverId + ": " + title);
-            return rows > 0;
+        try {
+            return retryPolicy.execute("createNotification", () -> {
+                try (Connection conn = databaseService.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setInt(1, senderId);
+                    pstmt.setInt(2, receiverId);
+                    pstmt.setString(3, title);
+                    pstmt.setString(4, message);
+                    pstmt.setString(5, type);
+                    
+                    if (relatedEntityType != null) {
+                        pstmt.setString(6, relatedEntityType);
+                    } else {
+                        pstmt.setNull(6, Types.VARCHAR);
+                    }
+                    
+                    pstmt.setInt(7, relatedEntityId > 0 ? relatedEntityId : 0);
+                    pstmt.setBoolean(8, false);
+                    pstmt.setTimestamp(9, Timestamp.valueOf(LocalDateTime.now()));
+                    
+                    int rows = pstmt.executeUpdate();
+                    System.out.println("📨 Notification sent to user " + receiverId + ": " + title);
+                    return rows > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("❌ Error creating notification: " + e.getMessage());
@@ -103,7 +109,8 @@ public class NotificationService {
         String sql = "SELECT u.id, s.first_name, s.last_name " +
                     "FROM students s " +
                     "JOIN users u ON s.user_id = u.id " +
-                    "WHERE s.class_name = ?";
+                    "JOIN classes c ON s.class_id = c.id " +
+                    "WHERE c.class_name = ?";
         
         try (Connection conn = databaseService.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -183,11 +190,15 @@ public class NotificationService {
     public boolean markAsRead(int notificationId) {
         String sql = "UPDATE notifications SET is_read = TRUE WHERE id = ?";
         
-        try (Connection conn = databaseService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, notificationId);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return retryPolicy.executeIdempotent("markAsRead", () -> {
+                try (Connection conn = databaseService.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setInt(1, notificationId);
+                    return pstmt.executeUpdate() > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("❌ Error marking notification as read: " + e.getMessage());
@@ -199,13 +210,17 @@ public class NotificationService {
     public boolean markAllAsRead(int userId) {
         String sql = "UPDATE notifications SET is_read = TRUE WHERE receiver_id = ? AND is_read = FALSE";
         
-        try (Connection conn = databaseService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, userId);
-            int updated = pstmt.executeUpdate();
-            System.out.println("✅ Marked " + updated + " notifications as read for user " + userId);
-            return updated > 0;
+        try {
+            return retryPolicy.executeIdempotent("markAllAsRead", () -> {
+                try (Connection conn = databaseService.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setInt(1, userId);
+                    int updated = pstmt.executeUpdate();
+                    System.out.println("✅ Marked " + updated + " notifications as read for user " + userId);
+                    return updated > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("❌ Error marking all as read: " + e.getMessage());
@@ -238,11 +253,15 @@ public class NotificationService {
     public boolean deleteNotification(int notificationId) {
         String sql = "DELETE FROM notifications WHERE id = ?";
         
-        try (Connection conn = databaseService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, notificationId);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return retryPolicy.execute("deleteNotification", () -> {
+                try (Connection conn = databaseService.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setInt(1, notificationId);
+                    return pstmt.executeUpdate() > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("❌ Error deleting notification: " + e.getMessage());
@@ -0,0 +1,25 @@
+package attendance.server;
+
+import attendance.model.User;
+import attendance.service.AuthService;
+import java.io.IOException;
+
+/** Logs in against an ApiServer; see Services.authService. */
+public class RemoteAuthService extends AuthService {
+
+    private final ApiClient client;
+
+    public RemoteAuthService(ApiClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public User authenticate(String username, String password) {
+        try {
+            return client.login(username, password);
+        } catch (IOException e) {
+            System.err.println("❌ Error logging in to server: " + e.getMessage());
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package attendance.server;
+
+import attendance.model.Notification;
+import attendance.service.NotificationService;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NotificationService answered by an ApiServer; see Services.notificationService.
+ * The server always reads and marks the logged-in user's notifications, so
+ * the user ids passed in are not sent.
+ */
+public class RemoteNotificationService extends NotificationService {
+
+    private final ApiClient client;
+
+    public RemoteNotificationService(ApiClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public List<Notification> getNotifications(int userId) {
+        try {
+            return client.getFresh("/api/notifications", Json.listOf(Notification.class));
+        } catch (IOException e) {
+            System.err.println("❌ Error getting notifications from server: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public int getUnreadCount(int userId) {
+        try {
+            Map<String, Object> result = client.getFresh("/api/notifications/unread-count", Map.class);
+            return ((Number) result.get("unread")).intValue();
+        } catch (IOException e) {
+            System.err.println("❌ Error getting unread count from server: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public boolean markAsRead(int notificationId) {
+        return post("/api/notifications/" + notificationId + "/read", null, "updated");
+    }
+
+    @Override
+    public boolean markAllAsRead(int userId) {
+        return post("/api/notifications/read-all", null, "updated");
+    }
+
+    @Override
+    public boolean createNotification(int senderId, int receiverId, String title, String message,
+                                      String type, String relatedEntityType, int relatedEntityId) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("receiverId", receiverId);
+        body.put("title", title);
+        body.put("message", message);
+        body.put("type", type);
+        return post("/api/notifications", body, "sent");
+    }
+
+    @Override
+    public boolean sendAttendanceReportToAdmin(int teacherId, String teacherName, String className,
+                                               String fromDate, String toDate, int reportId) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("teacherName", teacherName);
+        body.put("className", className);
+        body.put("fromDate", fromDate);
+        body.put("toDate", toDate);
+        body.put("reportId", reportId);
+        return post("/api/notifications/attendance-report", body, "sent");
+    }
+
+    @Override
+    public boolean notifyStudentsAboutAttendance(String className, String fromDate, String toDate) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("className", className);
+        body.put("fromDate", fromDate);
+        body.put("toDate", toDate);
+        return post("/api/notifications/attendance-published", body, "sent");
+    }
+
+    private boolean post(String path, Object body, String resultKey) {
+        try {
+            Map<String, Object> result = client.send("POST", path, body, Map.class);
+            return Boolean.TRUE.equals(result.get(resultKey));
+        } catch (IOException e) {
+            System.err.println("❌ Error sending notification request to server: " + e.getMessage());
+            return false;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package attendance.server;
+
+import attendance.model.Student;
+import attendance.service.StudentService;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/** StudentService answered by an ApiServer; see Services.studentService. */
+public class RemoteStudentService extends StudentService {
+
+    private final ApiClient client;
+
+    public RemoteStudentService(ApiClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public List<Student> getAllStudents() {
+        try {
+            return client.get("/api/students", Json.listOf(Student.class));
+        } catch (IOException e) {
+            System.err.println("❌ Error getting students from server: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public Student getStudentById(int id) {
+        try {
+            return client.get("/api/students/" + id, Student.class);
+        } catch (IOException e) {
+            System.err.println("❌ Error getting student from server: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean addStudent(Student student) {
+        return update("POST", "/api/students", student, "saved");
+    }
+
+    @Override
+    public boolean updateStudent(Student student) {
+        return update("PUT", "/api/students/" + student.getId(), student, "updated");
+    }
+
+    @Override
+    public boolean deleteStudent(int studentId) {
+        return update("DELETE", "/api/students/" + studentId, null, "deleted");
+    }
+
+    @Override
+    public boolean forceDeleteStudent(int studentId) {
+        return update("DELETE", "/api/students/" + studentId + "?force=true", null, "deleted");
+    }
+
+    @Override
+    public List<String> getClassNamesInUse() {
+        try {
+            return client.get("/api/students/classes", Json.listOf(String.class));
+        } catch (IOException e) {
+            System.err.println("❌ Error getting student classes from server: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public boolean studentIdExists(String studentId) {
+        return exists("studentId=" + ApiClient.encode(studentId));
+    }
+
+    @Override
+    public boolean emailExists(String email) {
+        return exists("email=" + ApiClient.encode(email));
+    }
+
+    private boolean update(String method, String path, Student student, String resultKey) {
+        try {
+            Map<String, Object> result = client.send(method, path, student, Map.class);
+            return Boolean.TRUE.equals(result.get(resultKey));
+        } catch (IOException e) {
+            System.err.println("❌ Error saving student on server: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Checked right before a save, so never answered from the cache
+    private boolean exists(String query) {
+        try {
+            Map<String, Object> result = client.getFresh("/api/students/exists?" + query, Map.class);
+            return Boolean.TRUE.equals(result.get("exists"));
+        } catch (IOException e) {
+            System.err.println("❌ Error checking student on server: " + e.getMessage());
+            return false;
+        }
+    }
+}
\ No newline at end of file
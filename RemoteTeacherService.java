@@ -0,0 +1,138 @@
+package attendance.server;
+
+import attendance.model.AttendanceEdit;
+import attendance.model.AttendanceReportRow;
+import attendance.model.AttendanceStatistics;
+import attendance.model.AttendanceStatus;
+import attendance.model.ClassAttendanceRow;
+import attendance.model.ClassSummary;
+import attendance.model.StudentSummary;
+import attendance.service.TeacherService;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** TeacherService answered by an ApiServer; see Services.teacherService. */
+public class RemoteTeacherService extends TeacherService {
+
+    private final ApiClient client;
+
+    public RemoteTeacherService(ApiClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public boolean markAttendance(int studentId, LocalDate date, AttendanceStatus status, String remarks) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("studentId", studentId);
+        body.put("date", date);
+        body.put("status", status);
+        body.put("remarks", remarks);
+        try {
+            Map<String, Object> result = client.send("POST", "/api/attendance", body, Map.class);
+            return ((Number) result.get("saved")).intValue() == 1;
+        } catch (IOException e) {
+            System.err.println("❌ Error marking attendance on server: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Unreachable server is reported like an unreachable database so the journal keeps the batch
+    @Override
+    public ApplyResult applyEdits(List<AttendanceEdit> edits) throws SQLException {
+        try {
+            return client.send("POST", "/api/attendance/sync", Map.of("edits", edits), ApplyResult.class);
+        } catch (IOException e) {
+            throw new SQLException("Server unreachable: " + e.getMessage(), e);
+        }
+    }
+
+    // Fresh, since the roster's stamps decide whether the teacher's edits win
+    @Override
+    public List<ClassAttendanceRow> getClassAttendance(String className, LocalDate date) {
+        try {
+            List<ClassAttendanceRow> rows = client.getFresh("/api/classes/" + ApiClient.encode(className) +
+                                                            "/attendance?date=" + date,
+                                                            Json.listOf(ClassAttendanceRow.class));
+            observeStamps(rows);
+            return rows;
+        } catch (IOException e) {
+            System.err.println("❌ Error getting class attendance from server: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // The server keeps its own ReportCache, so this skips the client one
+    @Override
+    public List<AttendanceReportRow> getAttendanceReport(String className, LocalDate from, LocalDate to) {
+        try {
+            return client.getFresh("/api/attendance/report?from=" + from + "&to=" + to +
+                                   (className != null ? "&className=" + ApiClient.encode(className) : ""),
+                                   Json.listOf(AttendanceReportRow.class));
+        } catch (IOException e) {
+            System.err.println("❌ Error getting attendance report from server: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // The server files the report under the logged-in teacher, whatever teacherId says
+    @Override
+    public int submitAttendanceReport(int teacherId, String className, LocalDate from, LocalDate to,
+                                      List<AttendanceReportRow> rows) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("className", className);
+        body.put("from", from);
+        body.put("to", to);
+        body.put("rows", rows);
+        try {
+            Map<String, Object> result = client.send("POST", "/api/attendance/report", body, Map.class);
+            return ((Number) result.get("reportId")).intValue();
+        } catch (IOException e) {
+            System.err.println("❌ Error submitting attendance report to server: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    @Override
+    public List<StudentSummary> getStudentsInClass(String className) {
+        try {
+            return client.get("/api/classes/" + ApiClient.encode(className) + "/students",
+                              Json.listOf(StudentSummary.class));
+        } catch (IOException e) {
+            System.err.println("❌ Error getting class students from server: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public List<ClassSummary> getTeacherClasses(int teacherId) {
+        try {
+            return client.get("/api/teachers/" + teacherId + "/classes", Json.listOf(ClassSummary.class));
+        } catch (IOException e) {
+            System.err.println("❌ Error getting teacher classes from server: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public AttendanceStatistics getAttendanceStatistics(int teacherId, LocalDate startDate, LocalDate endDate) {
+        try {
+            return client.get("/api/teachers/" + teacherId + "/statistics?from=" + startDate + "&to=" + endDate,
+                              AttendanceStatistics.class);
+        } catch (IOException e) {
+            System.err.println("❌ Error getting attendance statistics from server: " + e.getMessage());
+            return AttendanceStatistics.EMPTY;
+        }
+    }
+
+    // Only the logged-in teacher's id is known to the client
+    @Override
+    public Integer getTeacherIdFromUserId(int userId) {
+        return client.getCurrentUser() != null && client.getCurrentUser().getId() == userId
+            ? client.getTeacherId() : null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package attendance.server;
+
+import attendance.model.User;
+import attendance.service.UserService;
+import java.io.IOException;
+import java.util.Map;
+
+/** UserService answered by an ApiServer; see Services.userService. */
+public class RemoteUserService extends UserService {
+
+    private final ApiClient client;
+
+    public RemoteUserService(ApiClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public User authenticate(String username, String password) {
+        try {
+            return client.login(username, password);
+        } catch (IOException e) {
+            System.err.println("❌ Error logging in to server: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public User getUserById(int userId) {
+        try {
+            return client.get("/api/users/" + userId, User.class);
+        } catch (IOException e) {
+            System.err.println("❌ Error getting user from server: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public int createUser(User user) {
+        try {
+            Map<String, Object> result = client.send("POST", "/api/users", withPassword(user), Map.class);
+            return ((Number) result.get("id")).intValue();
+        } catch (IOException e) {
+            System.err.println("❌ Error creating user on server: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    @Override
+    public boolean updateUser(User user) {
+        try {
+            Map<String, Object> result = client.send("PUT", "/api/users/" + user.getId(), withPassword(user), Map.class);
+            return Boolean.TRUE.equals(result.get("updated"));
+        } catch (IOException e) {
+            System.err.println("❌ Error updating user on server: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean deleteUser(int userId) {
+        try {
+            Map<String, Object> result = client.send("DELETE", "/api/users/" + userId, null, Map.class);
+            return Boolean.TRUE.equals(result.get("deleted"));
+        } catch (IOException e) {
+            System.err.println("❌ Error deleting user on server: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean usernameExists(String username) {
+        try {
+            Map<String, Object> result = client.getFresh("/api/users/exists?username=" + ApiClient.encode(username), Map.class);
+            return Boolean.TRUE.equals(result.get("exists"));
+        } catch (IOException e) {
+            System.err.println("❌ Error checking username on server: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Json.write leaves passwords out, so add it back for the calls that set one
+    private static Map<String, Object> withPassword(User user) {
+        Map<String, Object> body = Json.asMap(user);
+        body.put("password", user.getPassword());
+        return body;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package attendance.service;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Memoized report results keyed by report, class and date range. An
+ * attendance write only drops the entries for the written student's class
+ * (and the all-classes entries) whose range contains the written day, so
+ * re-opening any other report stays a hit. Roster and bulk changes, which can
+ * move rows between classes, clear everything.
+ *
+ * The cache holds at most MAX_ENTRIES results, evicting the least recently
+ * used. Cached values are shared, so callers must not modify them.
+ */
+public class ReportCache {
+
+    private static final int MAX_ENTRIES = 100;
+
+    private static ReportCache instance;
+
+    // className null means the report covers every class
+    private record Key(String report, String className, long fromDay, long toDay, String filter) {
+        boolean contains(long day) {
+            return day >= fromDay && day <= toDay;
+        }
+
+        boolean covers(String writtenClass, long day) {
+            return contains(day) && (className == null || className.equals(writtenClass));
+        }
+    }
+
+    private final DatabaseService databaseService;
+    private final Map<Key, Object> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+            if (size() > MAX_ENTRIES) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // Bumped by every invalidation so a load that raced with a write is not cached
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    private ReportCache() {
+        this.databaseService = new DatabaseService();
+    }
+
+    public static synchronized ReportCache getInstance() {
+        if (instance == null) {
+            instance = new ReportCache();
+        }
+        return instance;
+    }
+
+    /**
+     * The cached result for the key, or the loader's result, which is cached
+     * unless it is null. className null means all classes; filter
+     * distinguishes reports over the same range, e.g. a teacher id.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String report, String className, LocalDate from, LocalDate to, String filter,
+                     Supplier<T> loader) {
+        Key key = new Key(report, className, AttendanceDates.toDay(from), AttendanceDates.toDay(to), filter);
+        long loadVersion;
+        synchronized (this) {
+            Object cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return (T) cached;
+            }
+            misses++;
+            loadVersion = version;
+        }
+
+        T value = loader.get();
+        if (value != null) {
+            synchronized (this) {
+                if (version == loadVersion) {
+                    entries.put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    /** Drops the results that include the student's attendance on that day. */
+    public void attendanceWritten(int studentId, LocalDate date) {
+        long day = AttendanceDates.toDay(date);
+        synchronized (this) {
+            version++;
+            if (entries.keySet().stream().noneMatch(key -> key.contains(day))) {
+                return;
+            }
+        }
+
+        String className = classNameOf(studentId);
+        synchronized (this) {
+            Iterator<Key> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                Key key = keys.next();
+                // Without the class, drop every entry for the day rather than risk a stale one
+                if (className == null ? key.contains(day) : key.covers(className, day)) {
+                    keys.remove();
+                    invalidations++;
+                }
+            }
+        }
+    }
+
+    /** Students moved between classes or rows deleted in bulk; every result may be stale. */
+    public synchronized void invalidateAll() {
+        version++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : hits * 100.0 / lookups;
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format("%d reports cached, %d hits, %d misses (%.1f%% hit rate), %d evicted, %d invalidated",
+            entries.size(), hits, misses, getHitRate(), evictions, invalidations);
+    }
+
+    private String classNameOf(int studentId) {
+        String sql = "SELECT c.class_name FROM students s JOIN classes c ON s.class_id = c.id WHERE s.id = ?";
+
+        try (Connection conn = databaseService.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, studentId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error resolving class for report cache: " + e.getMessage());
+            return null;
+        }
+    }
+}
\ No newline at end of file
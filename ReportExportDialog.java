@@ -0,0 +1,92 @@
+package attendance.controller;
+
+import attendance.service.AttendanceReportRenderer;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+
+import java.io.File;
+import java.time.LocalDate;
+
+/**
+ * Save dialog shared by the report buttons. The report is rendered on a
+ * background thread straight into the chosen file; the first page is shown as
+ * soon as it is written while the remaining pages keep streaming.
+ */
+public final class ReportExportDialog {
+
+    private ReportExportDialog() {
+    }
+
+    /** className null means all classes, limited to teacherId's classes when it is not null. */
+    public static void show(Window owner, String className, Integer teacherId, LocalDate from, LocalDate to) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Attendance Report As");
+        String cleanName = (className != null ? className : "All_Classes").replaceAll("[^a-zA-Z0-9]", "_");
+        fileChooser.setInitialFileName("Attendance_Report_" + cleanName + "_" + from + "_" + to);
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("PDF Document", "*.pdf"),
+            new FileChooser.ExtensionFilter("HTML Page", "*.html")
+        );
+
+        File chosen = fileChooser.showSaveDialog(owner);
+        if (chosen == null) {
+            return;
+        }
+        File file = withExtension(chosen, fileChooser.getSelectedExtensionFilter());
+
+        TextArea preview = new TextArea("Reading attendance records...");
+        preview.setEditable(false);
+        preview.setPrefSize(640, 420);
+        Label status = new Label("Rendering " + file.getName() + "...");
+        VBox content = new VBox(8, status, preview);
+        content.setPadding(new Insets(10));
+
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.initOwner(owner);
+        dialog.setTitle("Attendance Report");
+        dialog.setHeaderText("📄 Page 1 preview");
+        dialog.getDialogPane().setContent(content);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        dialog.show();
+
+        new Thread(() -> {
+            int rows = new AttendanceReportRenderer().renderToFile(file, className, teacherId, from, to,
+                (page, rowsSoFar, pageText) -> Platform.runLater(() -> {
+                    if (page == 1) {
+                        preview.setText(pageText.isEmpty() ? "No attendance records in this period." : pageText);
+                    }
+                    status.setText("Rendered " + page + " page(s), " + rowsSoFar + " records...");
+                }));
+
+            Platform.runLater(() -> {
+                if (rows < 0) {
+                    status.setText("❌ Failed to render the report.");
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle("Error");
+                    alert.setHeaderText(null);
+                    alert.setContentText("Failed to render the attendance report. See the log for details.");
+                    alert.showAndWait();
+                } else {
+                    status.setText("✅ Saved " + rows + " records to " + file.getAbsolutePath());
+                }
+            });
+        }, "report-renderer").start();
+    }
+
+    private static File withExtension(File file, FileChooser.ExtensionFilter filter) {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".pdf") || name.endsWith(".html") || name.endsWith(".htm")) {
+            return file;
+        }
+        boolean html = filter != null && filter.getExtensions().contains("*.html");
+        return new File(file.getParentFile(), file.getName() + (html ? ".html" : ".pdf"));
+    }
+}
\ No newline at end of file
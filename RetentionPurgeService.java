@@ -0,0 +1,287 @@
+package attendance.service;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deletes rows that have outlived their retention period without holding the
+ * write lock for long. Each policy is purged in rowid-ranged chunks, one short
+ * transaction per chunk with a pause in between, so the app keeps writing
+ * while a purge of millions of rows is running. Freed pages are handed back
+ * with incremental_vacuum afterwards, also in small steps.
+ *
+ * Only notifications are purged by default. Attendance history is kept until
+ * a retention period is configured with the attendance.retentionDays system
+ * property or the ATTENDANCE_RETENTION_DAYS environment variable.
+ */
+public class RetentionPurgeService {
+
+    public static final String ATTENDANCE_RETENTION_PROPERTY = "attendance.retentionDays";
+
+    /** Called after every chunk. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(String table, long rowidsScanned, long rowidRange, long deleted);
+    }
+
+    public enum CutoffType {
+        // 'YYYY-MM-DD' text
+        DATE,
+        // days since 1970-01-01, as stored in attendance_records.day
+        EPOCH_DAY,
+        // CURRENT_TIMESTAMP text or epoch millis from setTimestamp; both appear in notifications
+        TIMESTAMP
+    }
+
+    public static class RetentionPolicy {
+        private final String table;
+        private final String column;
+        private final CutoffType cutoffType;
+        private final String extraCondition;
+        private int retentionDays;
+
+        public RetentionPolicy(String table, String column, CutoffType cutoffType, int retentionDays, String extraCondition) {
+            this.table = table;
+            this.column = column;
+            this.cutoffType = cutoffType;
+            this.retentionDays = retentionDays;
+            this.extraCondition = extraCondition;
+        }
+
+        public String getTable() { return table; }
+        public int getRetentionDays() { return retentionDays; }
+
+        // 0 or less disables the policy
+        public void setRetentionDays(int retentionDays) { this.retentionDays = retentionDays; }
+
+        String describe() {
+            return table + (extraCondition != null ? " (" + extraCondition + ")" : "") +
+                   " older than " + retentionDays + " days";
+        }
+    }
+
+    private static final int DEFAULT_CHUNK_ROWIDS = 2000;
+    private static final int DEFAULT_PAUSE_MILLIS = 50;
+    private static final int VACUUM_STEP_PAGES = 200;
+
+    private final DatabaseService databaseService;
+    private final RetryPolicy retryPolicy;
+    private final List<RetentionPolicy> policies = new ArrayList<>();
+    private int chunkRowids = DEFAULT_CHUNK_ROWIDS;
+    private int pauseMillis = DEFAULT_PAUSE_MILLIS;
+    private volatile boolean cancelled;
+
+    public RetentionPurgeService() {
+        this(new DatabaseService());
+    }
+
+    public RetentionPurgeService(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.retryPolicy = RetryPolicy.getDefault();
+
+        // Defaults: read notifications go after 90 days, unread after a year,
+        // attendance is kept unless a retention period was configured
+        policies.add(new RetentionPolicy("notifications", "created_at", CutoffType.TIMESTAMP, 90, "is_read = 1"));
+        policies.add(new RetentionPolicy("notifications", "created_at", CutoffType.TIMESTAMP, 365, null));
+        policies.add(new RetentionPolicy("attendance_records", "day", CutoffType.EPOCH_DAY,
+                                         configuredAttendanceRetentionDays(), null));
+    }
+
+    // 0, the default, keeps attendance forever
+    private static int configuredAttendanceRetentionDays() {
+        String value = System.getProperty(ATTENDANCE_RETENTION_PROPERTY, System.getenv("ATTENDANCE_RETENTION_DAYS"));
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ Ignoring invalid attendance retention period: " + value);
+            return 0;
+        }
+    }
+
+    public List<RetentionPolicy> getPolicies() {
+        return policies;
+    }
+
+    public void addPolicy(RetentionPolicy policy) {
+        policies.add(policy);
+    }
+
+    public void setChunkRowids(int chunkRowids) {
+        this.chunkRowids = Math.max(1, chunkRowids);
+    }
+
+    public void setPauseMillis(int pauseMillis) {
+        this.pauseMillis = Math.max(0, pauseMillis);
+    }
+
+    /** Stop after the chunk in progress; already deleted chunks stay deleted. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Run every enabled policy, then reclaim the freed pages. Returns total rows deleted. */
+    public long purgeAll(ProgressListener listener) {
+        cancelled = false;
+        long total = 0;
+
+        for (RetentionPolicy policy : policies) {
+            if (cancelled) {
+                break;
+            }
+            if (policy.retentionDays > 0) {
+                total += purge(policy, listener);
+            }
+        }
+
+        if (total > 0) {
+            AttendanceBitmapIndex.getInstance().invalidate();
+            AttendanceCube.getInstance().invalidate();
+            ReportCache.getInstance().invalidateAll();
+            reclaimSpace();
+        }
+        return total;
+    }
+
+    public long purge(RetentionPolicy policy, ProgressListener listener) {
+        System.out.println("🧹 Purging " + policy.describe());
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(policy.retentionDays);
+        String condition = cutoffCondition(policy);
+        long deleted = 0;
+
+        try {
+            long[] range = rowidRange(policy, condition, cutoff);
+            if (range == null) {
+                System.out.println("✅ Nothing to purge in " + policy.table);
+                return 0;
+            }
+
+            long first = range[0];
+            long last = range[1];
+            long span = last - first + 1;
+
+            String sql = "DELETE FROM " + policy.table + " WHERE rowid >= ? AND rowid < ? AND " + condition;
+
+            for (long lo = first; lo <= last && !cancelled; lo += chunkRowids) {
+                long from = lo;
+                long to = Math.min(lo + chunkRowids, last + 1);
+
+                // Deleting a fixed rowid range is safe to replay after a busy error
+                int removed = retryPolicy.executeIdempotent("purge " + policy.table, () -> {
+                    try (Connection conn = databaseService.getConnectionSafe();
+                         PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        pstmt.setLong(1, from);
+                        pstmt.setLong(2, to);
+                        bindCutoff(pstmt, 3, policy, cutoff);
+                        return pstmt.executeUpdate();
+                    }
+                });
+                deleted += removed;
+
+                if (listener != null) {
+                    listener.onProgress(policy.table, to - first, span, deleted);
+                }
+
+                pause();
+            }
+
+            System.out.println((cancelled ? "⚠️ Purge cancelled: " : "✅ Purged ") + deleted +
+                             " rows from " + policy.table);
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error purging " + policy.table + " after " + deleted + " rows: " + e.getMessage());
+        }
+        return deleted;
+    }
+
+    // One scan up front to bound the chunk loop; the chunks themselves use the rowid b-tree
+    private long[] rowidRange(RetentionPolicy policy, String condition, LocalDateTime cutoff) throws SQLException {
+        String sql = "SELECT MIN(rowid), MAX(rowid) FROM " + policy.table + " WHERE " + condition;
+
+        try (Connection conn = databaseService.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bindCutoff(pstmt, 1, policy, cutoff);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next() && rs.getObject(1) != null) {
+                    return new long[] { rs.getLong(1), rs.getLong(2) };
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String cutoffCondition(RetentionPolicy policy) {
+        String condition;
+        if (policy.cutoffType != CutoffType.TIMESTAMP) {
+            condition = policy.column + " < ?";
+        } else {
+            condition = "(CASE WHEN typeof(" + policy.column + ") = 'integer' " +
+                        "THEN " + policy.column + " < ? ELSE " + policy.column + " < ? END)";
+        }
+        return policy.extraCondition != null ? condition + " AND " + policy.extraCondition : condition;
+    }
+
+    private static void bindCutoff(PreparedStatement pstmt, int index, RetentionPolicy policy,
+                                   LocalDateTime cutoff) throws SQLException {
+        if (policy.cutoffType == CutoffType.DATE) {
+            pstmt.setString(index, cutoff.toLocalDate().toString());
+        } else if (policy.cutoffType == CutoffType.EPOCH_DAY) {
+            pstmt.setLong(index, AttendanceDates.toDay(cutoff.toLocalDate()));
+        } else {
+            pstmt.setLong(index, Timestamp.valueOf(cutoff).getTime());
+            pstmt.setString(index + 1, cutoff.toString().replace('T', ' '));
+        }
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        }
+    }
+
+    // Give the freed pages back a few hundred at a time rather than in one long VACUUM
+    private void reclaimSpace() {
+        try (Connection conn = databaseService.getConnectionSafe();
+             Statement stmt = conn.createStatement()) {
+
+            if (queryInt(stmt, "PRAGMA auto_vacuum") != 2) {
+                System.out.println("ℹ️ auto_vacuum is not INCREMENTAL; freed pages will be reused but not returned");
+                return;
+            }
+
+            int before = queryInt(stmt, "PRAGMA freelist_count");
+            int free = before;
+            while (free > 0 && !cancelled) {
+                stmt.execute("PRAGMA incremental_vacuum(" + VACUUM_STEP_PAGES + ")");
+                int now = queryInt(stmt, "PRAGMA freelist_count");
+                if (now >= free) {
+                    break;
+                }
+                free = now;
+                pause();
+            }
+
+            System.out.println("✅ Reclaimed " + (before - free) + " free pages");
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error reclaiming space after purge: " + e.getMessage());
+        }
+    }
+
+    private static int queryInt(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,213 @@
+package attendance.service;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retries service mutations that fail because SQLite reports the database as
+ * busy or locked. Delays grow exponentially with full jitter so that clients
+ * which collided once do not wake up and collide again.
+ *
+ * Operations must be atomic: a single autocommit statement, or a transaction
+ * that is rolled back before the exception leaves the operation.
+ */
+public class RetryPolicy {
+
+    @FunctionalInterface
+    public interface SqlOperation<T> {
+        T run() throws SQLException;
+    }
+
+    // Primary and extended SQLite result codes
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    private static final RetryPolicy DEFAULT = new RetryPolicy(6, 25, 1000);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong giveUps = new AtomicLong();
+    private final AtomicLong backoffMillis = new AtomicLong();
+    private final Map<String, OperationStats> statsByOperation = new ConcurrentHashMap<>();
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+
+    // Shared policy used by all services so the metrics cover the whole app
+    public static RetryPolicy getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Run an operation that must not be applied twice (plain inserts, deletes).
+     * Only retried on SQLITE_BUSY, which SQLite raises before anything is written.
+     */
+    public <T> T execute(String operation, SqlOperation<T> op) throws SQLException {
+        return run(operation, op, false);
+    }
+
+    /**
+     * Run an upsert or update that converges to the same row when replayed.
+     * Also retried on SQLITE_LOCKED and BUSY_SNAPSHOT, which can surface after
+     * a read-then-write operation has already done part of its work.
+     */
+    public <T> T executeIdempotent(String operation, SqlOperation<T> op) throws SQLException {
+        return run(operation, op, true);
+    }
+
+    private <T> T run(String operation, SqlOperation<T> op, boolean idempotent) throws SQLException {
+        calls.incrementAndGet();
+        OperationStats stats = statsByOperation.computeIfAbsent(operation, k -> new OperationStats());
+        stats.calls.incrementAndGet();
+
+        int attempt = 1;
+        while (true) {
+            try {
+                T result = op.run();
+                DatabaseService.recordWrite();
+                if (attempt > 1) {
+                    recovered.incrementAndGet();
+                    System.out.println("✅ " + operation + " succeeded after " + attempt + " attempts");
+                }
+                return result;
+            } catch (SQLException e) {
+                boolean contention = isBusy(e) || isLocked(e);
+                if (!isRetryable(e, idempotent) || attempt >= maxAttempts) {
+                    if (contention) {
+                        giveUps.incrementAndGet();
+                        stats.giveUps.incrementAndGet();
+                        System.err.println("❌ " + operation + " gave up after " + attempt + " attempts: " + e.getMessage());
+                    }
+                    throw e;
+                }
+
+                long delay = backoffDelay(attempt);
+                retries.incrementAndGet();
+                stats.retries.incrementAndGet();
+                backoffMillis.addAndGet(delay);
+                System.out.println("⏳ " + operation + " hit a locked database, retrying in " + delay +
+                                 "ms (attempt " + (attempt + 1) + "/" + maxAttempts + ")");
+
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                attempt++;
+            }
+        }
+    }
+
+    // Full jitter: uniform in [1, min(max, base * 2^attempt)]
+    private long backoffDelay(int attempt) {
+        long ceiling = baseDelayMillis << Math.min(attempt, 20);
+        ceiling = Math.min(ceiling, maxDelayMillis);
+        return 1 + ThreadLocalRandom.current().nextLong(ceiling);
+    }
+
+    private boolean isRetryable(SQLException e, boolean idempotent) {
+        if (idempotent) {
+            return isBusy(e) || isLocked(e);
+        }
+        return isBusy(e) && !isBusySnapshot(e);
+    }
+
+    public static boolean isBusy(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && (sql.getErrorCode() & 0xff) == SQLITE_BUSY) {
+                return true;
+            }
+            String message = t.getMessage();
+            if (message != null && (message.contains("SQLITE_BUSY") || message.contains("database is locked"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean isLocked(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && (sql.getErrorCode() & 0xff) == SQLITE_LOCKED) {
+                return true;
+            }
+            String message = t.getMessage();
+            if (message != null && (message.contains("SQLITE_LOCKED") || message.contains("database table is locked"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // BUSY_SNAPSHOT (517): a read transaction tried to upgrade after another writer committed
+    private static boolean isBusySnapshot(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getErrorCode() == (SQLITE_BUSY | (2 << 8))) {
+                return true;
+            }
+            String message = t.getMessage();
+            if (message != null && message.contains("SQLITE_BUSY_SNAPSHOT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // MARK: METRICS
+
+    public long getCallCount() { return calls.get(); }
+    public long getRetryCount() { return retries.get(); }
+    public long getRecoveredCount() { return recovered.get(); }
+    public long getGiveUpCount() { return giveUps.get(); }
+    public long getTotalBackoffMillis() { return backoffMillis.get(); }
+
+    public Map<String, long[]> getOperationStats() {
+        Map<String, long[]> snapshot = new TreeMap<>();
+        statsByOperation.forEach((name, s) ->
+            snapshot.put(name, new long[] { s.calls.get(), s.retries.get(), s.giveUps.get() }));
+        return snapshot;
+    }
+
+    public String getMetricsSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append("Retry policy: ").append(calls.get()).append(" calls, ")
+               .append(retries.get()).append(" retries, ")
+               .append(recovered.get()).append(" recovered, ")
+               .append(giveUps.get()).append(" gave up, ")
+               .append(backoffMillis.get()).append("ms spent backing off\n");
+        getOperationStats().forEach((name, s) -> {
+            if (s[1] > 0 || s[2] > 0) {
+                summary.append("  ").append(name).append(": ").append(s[0]).append(" calls, ")
+                       .append(s[1]).append(" retries, ").append(s[2]).append(" gave up\n");
+            }
+        });
+        return summary.toString();
+    }
+
+    public void resetMetrics() {
+        calls.set(0);
+        retries.set(0);
+        recovered.set(0);
+        giveUps.set(0);
+        backoffMillis.set(0);
+        statsByOperation.clear();
+    }
+
+    private static class OperationStats {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final AtomicLong giveUps = new AtomicLong();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package attendance.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the current row of a ResultSet into an object. Mappers read columns by
+ * index in SELECT order, so each query keeps its column list next to its mapper.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T map(ResultSet rs) throws SQLException;
+
+    /** Maps every remaining row. */
+    static <T> List<T> mapAll(ResultSet rs, RowMapper<T> mapper) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(mapper.map(rs));
+        }
+        return rows;
+    }
+
+    /** Maps the first row, or returns null when there is none. */
+    static <T> T mapFirst(ResultSet rs, RowMapper<T> mapper) throws SQLException {
+        return rs.next() ? mapper.map(rs) : null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+package attendance.service;
+
+import attendance.server.ApiClient;
+import attendance.server.RemoteAuthService;
+import attendance.server.RemoteNotificationService;
+import attendance.server.RemoteStudentService;
+import attendance.server.RemoteTeacherService;
+import attendance.server.RemoteUserService;
+
+/**
+ * Where controllers get their services. Normally these are the local SQLite
+ * services; started with -Dattendance.server=http://host:8080 (or the
+ * ATTENDANCE_SERVER environment variable) they are the Remote* versions,
+ * which call an ApiServer through one shared ApiClient instead.
+ */
+public final class Services {
+
+    public static final String SERVER_PROPERTY = "attendance.server";
+
+    private static ApiClient client;
+    private static boolean resolved;
+
+    private Services() {
+    }
+
+    /** The shared client in remote mode, or null when running against the local database. */
+    public static synchronized ApiClient getClient() {
+        if (!resolved) {
+            resolved = true;
+            String url = System.getProperty(SERVER_PROPERTY, System.getenv("ATTENDANCE_SERVER"));
+            if (url != null && !url.isBlank()) {
+                client = new ApiClient(url.trim());
+                System.out.println("🌐 Client mode: services call " + url.trim());
+            }
+        }
+        return client;
+    }
+
+    public static boolean isRemote() {
+        return getClient() != null;
+    }
+
+    public static AuthService authService() {
+        return isRemote() ? new RemoteAuthService(client) : new AuthService();
+    }
+
+    public static UserService userService() {
+        return isRemote() ? new RemoteUserService(client) : new UserService();
+    }
+
+    public static StudentService studentService() {
+        return isRemote() ? new RemoteStudentService(client) : new StudentService();
+    }
+
+    public static TeacherService teacherService() {
+        return isRemote() ? new RemoteTeacherService(client) : new TeacherService();
+    }
+
+    public static NotificationService notificationService() {
+        return isRemote() ? new RemoteNotificationService(client) : new NotificationService();
+    }
+}
\ No newline at end of file
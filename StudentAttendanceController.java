@@ -1,6 +1,12 @@
 package attendance.controller;
 
+import attendance.model.AttendanceStatistics;
+import attendance.model.AttendanceStatus;
 import attendance.model.User;
+import attendance.service.AttendanceBitmapIndex;
+import attendance.service.AttendanceDates;
+import attendance.service.AttendanceQueryRouter;
+import attendance.service.AttendanceSummaryService;
 import attendance.service.DatabaseService;
 import attendance.service.StudentService;
 import javafx.collections.FXCollections;
@@ -15,8 +21,11 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class StudentAttendanceController {
@@ -37,18 +46,22 @@ public class StudentAttendanceController {
     @FXML private TableView<AttendanceRecord> attendanceTable;
     @FXML private TableColumn<AttendanceRecord, String> dateColumn;
     @FXML private TableColumn<AttendanceRecord, String> dayColumn;
-    @FXML private TableColumn<AttendanceRecord, String> statusColumn;
+    @FXML private TableColumn<AttendanceRecord, AttendanceStatus> statusColumn;
     @FXML private TableColumn<AttendanceRecord, String> checkInColumn;
     @FXML private TableColumn<AttendanceRecord, String> checkOutColumn;
     @FXML private TableColumn<AttendanceRecord, String> remarksColumn;
     
     private User currentUser;
     private DatabaseService databaseService;
+    private AttendanceQueryRouter queryRouter;
+    private AttendanceSummaryService summaryService;
     private int studentDbId;
     
     public void setCurrentUser(User user) {
         this.currentUser = user;
         this.databaseService = new DatabaseService();
+        this.queryRouter = new AttendanceQueryRouter(databaseService);
+        this.summaryService = new AttendanceSummaryService(databaseService);
         loadStudentData();
     }
     
@@ -63,23 +76,23 @@ public class StudentAttendanceController {
         remarksColumn.setCellValueFactory(new PropertyValueFactory<>("remarks"));
         
         // Style status column
-        statusColumn.setCellFactory(column -> new TableCell<AttendanceRecord, String>() {
+        statusColumn.setCellFactory(column -> new TableCell<AttendanceRecord, AttendanceStatus>() {
             @Override
-            protected void updateItem(String status, boolean empty) {
+            protected void updateItem(AttendanceStatus status, boolean empty) {
                 super.updateItem(status, empty);
                 if (empty || status == null) {
                     setText(null);
                     setStyle("");
                 } else {
-                    setText(status);
+                    setText(status.name());
                     switch (status) {
-                        case "PRESENT":
+                        case PRESENT:
                             setStyle("-fx-background-color: #d1fae5; -fx-text-fill: #065f46; -fx-font-weight: bold; -fx-background-radius: 10px; -fx-padding: 2px 6px;");
                             break;
-                        case "ABSENT":
+                        case ABSENT:
                             setStyle("-fx-background-color: #fee2e2; -fx-text-fill: #991b1b; -fx-font-weight: bold; -fx-background-radius: 10px; -fx-padding: 2px 6px;");
                             break;
-                        case "LATE":
+                        case LATE:
                             setStyle("-fx-background-color: #fef3c7; -fx-text-fill: #92400e; -fx-font-weight: bold; -fx-background-radius: 10px; -fx-padding: 2px 6px;");
                             break;
                         default:
@@ -144,108 +157,109 @@ public class StudentAttendanceController {
     }
     
     private void loadAttendanceStats() {
-        try {
-            String sql = "SELECT " +
-                        "COUNT(*) as total_days, " +
-                        "SUM(CASE WHEN status = 'PRESENT' THEN 1 ELSE 0 END) as present_days, " +
-                        "SUM(CASE WHEN status = 'ABSENT' THEN 1 ELSE 0 END) as absent_days, " +
-                        "SUM(CASE WHEN status = 'LATE' THEN 1 ELSE 0 END) as late_days " +
-                        "FROM attendance WHERE student_id = ?";
+        // Full history, archived terms included, from the per-term counters
+        AttendanceStatistics stats = summaryService.getSummary(studentDbId);
+        int total = stats.totalRecords();
+        int present = stats.presentCount();
+        int late = stats.lateCount();
+        
+        presentCountLabel.setText(String.valueOf(present));
+        absentCountLabel.setText(String.valueOf(stats.absentCount()));
+        lateCountLabel.setText(String.valueOf(late));
+        
+        if (total > 0) {
+            double rate = stats.presentRate() + stats.lateRate();
+            attendanceRateLabel.setText(String.format("%.1f%%", rate));
             
-            try (Connection conn = databaseService.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                
-                pstmt.setInt(1, studentDbId);
-                ResultSet rs = pstmt.executeQuery();
-                
-                if (rs.next()) {
-                    int total = rs.getInt("total_days");
-                    int present = rs.getInt("present_days");
-                    int absent = rs.getInt("absent_days");
-                    int late = rs.getInt("late_days");
-                    
-                    presentCountLabel.setText(String.valueOf(present));
-                    absentCountLabel.setText(String.valueOf(absent));
-                    lateCountLabel.setText(String.valueOf(late));
-                    
-                    if (total > 0) {
-                        double rate = ((present + late) * 100.0) / total;
-                        attendanceRateLabel.setText(String.format("%.1f%%", rate));
-                        
-                        String summary = String.format(
-                            "You have attended %d out of %d days (%.1f%%). %s",
-                            present + late, total, rate,
-                            rate >= 90 ? "Excellent attendance! 🎉" :
-                            rate >= 75 ? "Good attendance. Keep it up! 👍" :
-                            "Try to improve your attendance."
-                        );
-                        summaryLabel.setText(summary);
-                    } else {
-                        attendanceRateLabel.setText("0%");
-                        summaryLabel.setText("No attendance records found.");
-                    }
-                }
+            String summary = String.format(
+                "You have attended %d out of %d days (%.1f%%). %s",
+                present + late, total, rate,
+                rate >= 90 ? "Excellent attendance! 🎉" :
+                rate >= 75 ? "Good attendance. Keep it up! 👍" :
+                "Try to improve your attendance."
+            );
+            
+            // This term, from the in-memory bitmaps rather than another query
+            AttendanceBitmapIndex index = AttendanceBitmapIndex.getInstance();
+            LocalDate today = LocalDate.now();
+            int streak = index.longestAbsenceStreak(studentDbId, today);
+            summary += String.format("\nThis term: %.1f%% attended", index.attendanceRate(studentDbId, today)) +
+                       (streak > 1 ? ", longest run of absences " + streak + " days." : ".");
+            AttendanceStatus todayStatus = index.statusOn(studentDbId, today);
+            if (todayStatus != null) {
+                summary += " Today: " + todayStatus + ".";
             }
-        } catch (SQLException e) {
-            System.err.println("Error loading attendance stats: " + e.getMessage());
+            summaryLabel.setText(summary);
+        } else {
+            attendanceRateLabel.setText("0%");
+            summaryLabel.setText("No attendance records found.");
         }
     }
     
     private void loadAttendanceData() {
-        try {
+        String selectedMonth = monthFilterCombo.getValue();
+        String selectedStatus = statusFilterCombo.getValue();
+        
+        try (Connection conn = queryRouter.openConnection(null, null)) {
             StringBuilder sql = new StringBuilder();
-            sql.append("SELECT date, check_in, check_out, status, remarks ")
-               .append("FROM attendance ")
+            sql.append("SELECT day, check_in, check_out, status, remarks ")
+               .append("FROM ").append(AttendanceQueryRouter.VIEW).append(" ")
                .append("WHERE student_id = ? ");
             
-            String selectedMonth = monthFilterCombo.getValue();
-            String selectedStatus = statusFilterCombo.getValue();
-            
+            // A month filter becomes one day range per year the student has records in
+            List<long[]> monthRanges = new ArrayList<>();
             if (selectedMonth != null && !selectedMonth.equals("All Months")) {
-                sql.append("AND strftime('%m', date) = ? ");
+                monthRanges = monthRanges(conn, getMonthNumber(selectedMonth));
+                if (monthRanges.isEmpty()) {
+                    attendanceTable.setItems(FXCollections.observableArrayList());
+                    return;
+                }
+                
+                sql.append("AND (");
+                for (int i = 0; i < monthRanges.size(); i++) {
+                    sql.append(i > 0 ? " OR " : "").append("day BETWEEN ? AND ?");
+                }
+                sql.append(") ");
             }
             
             if (selectedStatus != null && !selectedStatus.equals("All Status")) {
                 sql.append("AND status = ? ");
             }
             
-            sql.append("ORDER BY date DESC");
+            sql.append("ORDER BY day DESC");
             
-            try (Connection conn = databaseService.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
                 
                 pstmt.setInt(1, studentDbId);
                 int paramIndex = 2;
                 
-                if (selectedMonth != null && !selectedMonth.equals("All Months")) {
-                    int monthNumber = getMonthNumber(selectedMonth);
-                    pstmt.setString(paramIndex++, String.format("%02d", monthNumber));
+                for (long[] range : monthRanges) {
+                    pstmt.setLong(paramIndex++, range[0]);
+                    pstmt.setLong(paramIndex++, range[1]);
                 }
                 
                 if (selectedStatus != null && !selectedStatus.equals("All Status")) {
-                    pstmt.setString(paramIndex, selectedStatus);
+                    pstmt.setInt(paramIndex, AttendanceStatus.parse(selectedStatus).getCode());
                 }
                 
                 ResultSet rs = pstmt.executeQuery();
                 ObservableList<AttendanceRecord> records = FXCollections.observableArrayList();
-                DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
                 DateTimeFormatter displayFormatter = DateTimeFormatter.ofPattern("MMM dd, yyyy");
                 
                 while (rs.next()) {
-                    String dateStr = rs.getString("date");
                     String checkIn = rs.getString("check_in");
                     String checkOut = rs.getString("check_out");
-                    String status = rs.getString("status");
+                    AttendanceStatus status = AttendanceStatus.fromCode(rs.getInt("status"));
                     String remarks = rs.getString("remarks");
                     
-                    LocalDate date = LocalDate.parse(dateStr, dateFormatter);
+                    LocalDate date = AttendanceDates.fromDay(rs.getLong("day"));
                     String dayOfWeek = date.getDayOfWeek().toString();
                     String formattedDate = date.format(displayFormatter);
                     
                     AttendanceRecord record = new AttendanceRecord(
                         formattedDate,
                         dayOfWeek.substring(0, 1) + dayOfWeek.substring(1).toLowerCase(),
-                        status != null ? status : "ABSENT",
+                        status,
                         checkIn != null ? checkIn : "-",
                         checkOut != null ? checkOut : "-",
                         remarks != null ? remarks : ""
@@ -261,6 +275,25 @@ public class StudentAttendanceController {
         }
     }
     
+    private List<long[]> monthRanges(Connection conn, int month) throws SQLException {
+        List<long[]> ranges = new ArrayList<>();
+        String sql = "SELECT MIN(day), MAX(day) FROM " + AttendanceQueryRouter.VIEW + " WHERE student_id = ?";
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, studentDbId);
+            ResultSet rs = pstmt.executeQuery();
+            
+            if (rs.next() && rs.getObject(1) != null) {
+                int firstYear = AttendanceDates.fromDay(rs.getLong(1)).getYear();
+                int lastYear = AttendanceDates.fromDay(rs.getLong(2)).getYear();
+                for (int year = firstYear; year <= lastYear; year++) {
+                    ranges.add(AttendanceDates.monthRange(YearMonth.of(year, month)));
+                }
+            }
+        }
+        return ranges;
+    }
+    
     private int getMonthNumber(String monthName) {
         Map<String, Integer> months = new HashMap<>();
         months.put("January", 1);
@@ -310,12 +343,12 @@ public class StudentAttendanceController {
     public static class AttendanceRecord {
         private String date;
         private String day;
-        private String status;
+        private AttendanceStatus status;
         private String checkIn;
         private String checkOut;
         private String remarks;
         
-        public AttendanceRecord(String date, String day, String status, String checkIn, String checkOut, String remarks) {
+        public AttendanceRecord(String date, String day, AttendanceStatus status, String checkIn, String checkOut, String remarks) {
             this.date = date;
             this.day = day;
             this.status = status;
@@ -326,7 +359,7 @@ public class StudentAttendanceController {
         
         public String getDate() { return date; }
         public String getDay() { return day; }
-        public String getStatus() { return status; }
+        public AttendanceStatus getStatus() { return status; }
         public String getCheckIn() { return checkIn; }
         public String getCheckOut() { return checkOut; }
         public String getRemarks() { return remarks; }
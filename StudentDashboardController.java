@@ -2,7 +2,8 @@ package attendance.controller;
 
 import attendance.model.User;
 import attendance.model.Student;
-import attendance.model.Attendance;
+import attendance.model.AttendanceStatistics;
+import attendance.service.AttendanceSummaryService;
 import attendance.service.StudentService;
 import attendance.service.NotificationService;
 import javafx.fxml.FXML;
@@ -10,7 +11,6 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import java.net.URL;
-import java.util.List;
 import java.util.ResourceBundle;
 
 public class StudentDashboardController implements Initializable {
@@ -23,11 +23,13 @@ public class StudentDashboardController implements Initializable {
     private User currentUser;
     private Student currentStudent;
     private StudentService studentService;
+    private AttendanceSummaryService summaryService;
     private NotificationService notificationService;
     
     public void setCurrentUser(User user) {
         this.currentUser = user;
         this.studentService = new StudentService();
+        this.summaryService = new AttendanceSummaryService();
         this.notificationService = new NotificationService();
         
         initializeData();
@@ -57,17 +59,12 @@ public class StudentDashboardController implements Initializable {
     private void updateDashboardStats() {
         if (currentStudent != null) {
             try {
-                // Calculate attendance statistics
-                List<Attendance> attendanceList = studentService.getAttendanceForStudent(currentStudent.getId());
-                int totalClasses = attendanceList.size();
-                int presentCount = (int) attendanceList.stream()
-                        .filter(a -> a != null && "PRESENT".equals(a.getStatus()))
-                        .count();
-                double percentage = totalClasses > 0 ? (presentCount * 100.0 / totalClasses) : 0;
+                // Counters maintained by triggers, read by primary key
+                AttendanceStatistics summary = summaryService.getSummary(currentStudent.getId());
                 
-                totalClassesLabel.setText("Total Classes: " + totalClasses);
-                presentCountLabel.setText("Present: " + presentCount);
-                attendancePercentageLabel.setText(String.format("Percentage: %.1f%%", percentage));
+                totalClassesLabel.setText("Total Classes: " + summary.totalRecords());
+                presentCountLabel.setText("Present: " + summary.presentCount());
+                attendancePercentageLabel.setText(String.format("Percentage: %.1f%%", summary.presentRate()));
                 
                 // Check for unread notifications
                 int unreadNotifications = notificationService.getUnreadCount(currentUser.getId());
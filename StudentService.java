@@ -2,15 +2,19 @@ package attendance.service;
 
 import attendance.model.Student;
 import attendance.model.Attendance;
+import attendance.model.AttendanceStatus;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 public class StudentService {
     private DatabaseService databaseService;
+    private RetryPolicy retryPolicy;
     
     public StudentService() {
         databaseService = new DatabaseService();
+        retryPolicy = RetryPolicy.getDefault();
     }
     
     public Student getStudentByUserId(int userId) {
@@ -53,19 +57,24 @@ public class StudentService {
     public boolean assignStudentToClass(int studentId, Integer classId) {
         String sql = "UPDATE students SET class_id = ? WHERE id = ?";
         
-        try (Connection conn = databaseService.getConnectionSafe();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            if (classId != null && classId > 0) {
-                pstmt.setInt(1, classId);
-            } else {
-                pstmt.setNull(1, java.sql.Types.INTEGER);
-            }
-            pstmt.setInt(2, studentId);
-            
-            int affectedRows = pstmt.executeUpdate();
-            System.out.println("✅ Assigned student ID " + studentId + " to class ID " + classId);
-            return affectedRows > 0;
+        try {
+            return retryPolicy.executeIdempotent("assignStudentToClass", () -> {
+                try (Connection conn = databaseService.getConnectionSafe();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    if (classId != null && classId > 0) {
+                        pstmt.setInt(1, classId);
+                    } else {
+                        pstmt.setNull(1, java.sql.Types.INTEGER);
+                    }
+                    pstmt.setInt(2, studentId);
+                    
+                    int affectedRows = pstmt.executeUpdate();
+                    System.out.println("✅ Assigned student ID " + studentId + " to class ID " + classId);
+                    ReportCache.getInstance().invalidateAll();
+                    return affectedRows > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("❌ Error assigning student to class: " + e.getMessage());
@@ -75,52 +84,46 @@ public class StudentService {
     }
     
     public boolean assignMultipleStudentsToClass(List<Integer> studentIds, int classId) {
-        Connection conn = null;
-        
         try {
-            conn = databaseService.getConnectionSafe();
-            conn.setAutoCommit(false);
-            
-            String sql = "UPDATE students SET class_id = ? WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                for (int studentId : studentIds) {
-                    pstmt.setInt(1, classId);
-                    pstmt.setInt(2, studentId);
-                    pstmt.addBatch();
-                }
-                
-                int[] results = pstmt.executeBatch();
-                conn.commit();
-                
-                int successCount = 0;
-                for (int result : results) {
-                    if (result > 0) successCount++;
+            return retryPolicy.executeIdempotent("assignMultipleStudentsToClass", () -> {
+                try (Connection conn = databaseService.getConnectionSafe()) {
+                    conn.setAutoCommit(false);
+                    
+                    String sql = "UPDATE students SET class_id = ? WHERE id = ?";
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        for (int studentId : studentIds) {
+                            pstmt.setInt(1, classId);
+                            pstmt.setInt(2, studentId);
+                            pstmt.addBatch();
+                        }
+                        
+                        int[] results = pstmt.executeBatch();
+                        conn.commit();
+                        
+                        int successCount = 0;
+                        for (int result : results) {
+                            if (result > 0) successCount++;
+                        }
+                        
+                        System.out.println("✅ Assigned " + successCount + " students to class ID " + classId);
+                        ReportCache.getInstance().invalidateAll();
+                        return successCount > 0;
+                        
+                    } catch (SQLException e) {
+                        try {
+                            conn.rollback();
+                        } catch (SQLException ex) {
+                            ex.printStackTrace();
+                        }
+                        throw e;
+                    }
                 }
-                
-                System.out.println("✅ Assigned " + successCount + " students to class ID " + classId);
-                return successCount > 0;
-            }
+            });
             
         } catch (SQLException e) {
             System.err.println("❌ Error assigning multiple students to class: " + e.getMessage());
             e.printStackTrace();
-            
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
-            }
             return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
         }
     }
     
@@ -200,31 +203,37 @@ public class StudentService {
         String sql = "UPDATE students SET student_id = ?, first_name = ?, middle_name = ?, last_name = ?, " +
                     "email = ?, class_name = ?, department = ?, class_id = ? WHERE id = ?";
         
-        try (Connection conn = databaseService.getConnectionSafe();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, student.getStudentId());
-            pstmt.setString(2, student.getFirstName());
-            pstmt.setString(3, student.getMiddleName());
-            pstmt.setString(4, student.getLastName());
-            pstmt.setString(5, student.getEmail());
-            pstmt.setString(6, student.getClassName());
-            pstmt.setString(7, student.getDepartment());
-            
-            if (student.getClassId() > 0) {
-                pstmt.setInt(8, student.getClassId());
-            } else {
-                pstmt.setNull(8, java.sql.Types.INTEGER);
-            }
-            
-            pstmt.setInt(9, student.getId());
-            
-            int result = pstmt.executeUpdate();
-            System.out.println("Updated student ID " + student.getId() + 
-                             ", Class ID: " + student.getClassId() +
-                             ", Rows affected: " + result);
-            
-            return result > 0;
+        try {
+            return retryPolicy.executeIdempotent("updateStudent", () -> {
+                try (Connection conn = databaseService.getConnectionSafe();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setString(1, student.getStudentId());
+                    pstmt.setString(2, student.getFirstName());
+                    pstmt.setString(3, student.getMiddleName());
+                    pstmt.setString(4, student.getLastName());
+                    pstmt.setString(5, student.getEmail());
+                    pstmt.setString(6, student.getClassName());
+                    pstmt.setString(7, student.getDepartment());
+                    
+                    if (student.getClassId() > 0) {
+                        pstmt.setInt(8, student.getClassId());
+                    } else {
+                        pstmt.setNull(8, java.sql.Types.INTEGER);
+                    }
+                    
+                    pstmt.setInt(9, student.getId());
+                    
+                    int result = pstmt.executeUpdate();
+                    System.out.println("Updated student ID " + student.getId() + 
+                                     ", Class ID: " + student.getClassId() +
+                                     ", Rows affected: " + result);
+                    AttendanceCube.getInstance().invalidate();
+                    ReportCache.getInstance().invalidateAll();
+                    
+                    return result > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("Error updating student: " + e.getMessage());
@@ -236,6 +245,16 @@ public class StudentService {
     public boolean deleteStudent(int studentId) {
         System.out.println("🚨 DELETE OPERATION STARTED for student ID: " + studentId);
         
+        try {
+            return retryPolicy.execute("deleteStudent", () -> removeStudent(studentId));
+        } catch (SQLException e) {
+            System.err.println("❌ SQL Error deleting student: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    private boolean removeStudent(int studentId) throws SQLException {
         Connection conn = null;
         
         try {
@@ -258,7 +277,7 @@ public class StudentService {
             }
             
             // Delete attendance records first (due to foreign key constraint)
-            String deleteAttendanceSql = "DELETE FROM attendance WHERE student_id = ?";
+            String deleteAttendanceSql = "DELETE FROM attendance_records WHERE student_id = ?";
             try (PreparedStatement pstmt = conn.prepareStatement(deleteAttendanceSql)) {
                 pstmt.setInt(1, studentId);
                 int attendanceDeleted = pstmt.executeUpdate();
@@ -286,6 +305,9 @@ public class StudentService {
                     
                     conn.commit();
                     System.out.println("✅ Transaction committed successfully");
+                    AttendanceBitmapIndex.getInstance().forgetStudent(studentId);
+                    AttendanceCube.getInstance().invalidate();
+                    ReportCache.getInstance().invalidateAll();
                     return true;
                 } else {
                     System.out.println("❌ Student not found or could not be deleted");
@@ -295,9 +317,6 @@ public class StudentService {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ SQL Error deleting student: " + e.getMessage());
-            e.printStackTrace();
-            
             if (conn != null) {
                 try {
                     conn.rollback();
@@ -306,7 +325,7 @@ public class StudentService {
                     ex.printStackTrace();
                 }
             }
-            return false;
+            throw e;
         } finally {
             if (conn != null) {
                 try {
@@ -319,6 +338,75 @@ public class StudentService {
         }
     }
     
+    /**
+     * Last resort when deleteStudent fails on a foreign key: removes the student,
+     * their user account and their attendance with foreign keys switched off.
+     * Orphaned rows elsewhere may remain.
+     */
+    public boolean forceDeleteStudent(int studentId) {
+        try (Connection conn = databaseService.getConnection();
+             Statement stmt = conn.createStatement()) {
+            
+            int userId = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT user_id FROM students WHERE id = ?")) {
+                pstmt.setInt(1, studentId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        userId = rs.getInt(1);
+                    }
+                }
+            }
+            
+            stmt.execute("PRAGMA foreign_keys = OFF");
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM students WHERE id = ?")) {
+                    pstmt.setInt(1, studentId);
+                    pstmt.executeUpdate();
+                }
+                if (userId > 0) {
+                    try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM users WHERE id = ?")) {
+                        pstmt.setInt(1, userId);
+                        pstmt.executeUpdate();
+                    }
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM attendance_records WHERE student_id = ?")) {
+                    pstmt.setInt(1, studentId);
+                    pstmt.executeUpdate();
+                }
+            } finally {
+                // Pooled connections are reused, so never hand one back with the checks off
+                stmt.execute("PRAGMA foreign_keys = ON");
+            }
+            
+            AttendanceBitmapIndex.getInstance().forgetStudent(studentId);
+            AttendanceCube.getInstance().invalidate();
+            ReportCache.getInstance().invalidateAll();
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("❌ Force delete failed for student ID " + studentId + ": " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /** Names of the classes that have at least one student, for filter lists. */
+    public List<String> getClassNamesInUse() {
+        String sql = "SELECT DISTINCT c.class_name FROM students s JOIN classes c ON s.class_id = c.id ORDER BY c.class_name";
+        List<String> classes = new ArrayList<>();
+        
+        try (Connection conn = databaseService.getConnectionSafe();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                classes.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting existing classes: " + e.getMessage());
+        }
+        return classes;
+    }
+    
     public Student getStudentById(int id) {
         String sql = "SELECT * FROM students WHERE id = ?";
         
@@ -452,31 +540,35 @@ public class StudentService {
         String sql = "INSERT INTO students (student_id, first_name, middle_name, last_name, " +
                     "email, class_name, department, user_id, class_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = databaseService.getConnectionSafe();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, student.getStudentId());
-            pstmt.setString(2, student.getFirstName());
-            pstmt.setString(3, student.getMiddleName());
-            pstmt.setString(4, student.getLastName());
-            pstmt.setString(5, student.getEmail());
-            pstmt.setString(6, student.getClassName());
-            pstmt.setString(7, student.getDepartment());
-            pstmt.setInt(8, student.getUserId());
-            
-            if (student.getClassId() > 0) {
-                pstmt.setInt(9, student.getClassId());
-            } else {
-                pstmt.setNull(9, java.sql.Types.INTEGER);
-            }
-            
-            int result = pstmt.executeUpdate();
-            System.out.println("Added student: " + student.getFullName() + 
-                             ", Student ID: " + student.getStudentId() + 
-                             ", Class ID: " + student.getClassId() +
-                             ", Rows affected: " + result);
-            
-            return result > 0;
+        try {
+            return retryPolicy.execute("addStudent", () -> {
+                try (Connection conn = databaseService.getConnectionSafe();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setString(1, student.getStudentId());
+                    pstmt.setString(2, student.getFirstName());
+                    pstmt.setString(3, student.getMiddleName());
+                    pstmt.setString(4, student.getLastName());
+                    pstmt.setString(5, student.getEmail());
+                    pstmt.setString(6, student.getClassName());
+                    pstmt.setString(7, student.getDepartment());
+                    pstmt.setInt(8, student.getUserId());
+                    
+                    if (student.getClassId() > 0) {
+                        pstmt.setInt(9, student.getClassId());
+                    } else {
+                        pstmt.setNull(9, java.sql.Types.INTEGER);
+                    }
+                    
+                    int result = pstmt.executeUpdate();
+                    System.out.println("Added student: " + student.getFullName() + 
+                                     ", Student ID: " + student.getStudentId() + 
+                                     ", Class ID: " + student.getClassId() +
+                                     ", Rows affected: " + result);
+                    
+                    return result > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("Error adding student: " + e.getMessage());
@@ -486,34 +578,32 @@ public class StudentService {
     }
     
     public List<Attendance> getAttendanceForStudent(int studentId) {
+        return getAttendanceForStudent(studentId, LocalDate.MIN, LocalDate.MAX);
+    }
+    
+    // Inclusive range, answered from the (student_id, day) index
+    public List<Attendance> getAttendanceForStudent(int studentId, LocalDate from, LocalDate to) {
         System.out.println("Getting attendance for student ID: " + studentId);
         List<Attendance> attendanceList = new ArrayList<>();
         
-        String sql = "SELECT id, student_id, date, check_in, check_out, status, remarks " +
-                    "FROM attendance WHERE student_id = ? ORDER BY date DESC";
+        String sql = "SELECT id, student_id, day, check_in, check_out, status, remarks " +
+                    "FROM attendance_records WHERE student_id = ? AND day BETWEEN ? AND ? ORDER BY day DESC";
         
         try (Connection conn = databaseService.getConnectionSafe();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, studentId);
+            pstmt.setLong(2, AttendanceDates.toDay(from));
+            pstmt.setLong(3, AttendanceDates.toDay(to));
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 Attendance attendance = new Attendance();
                 attendance.setId(rs.getInt("id"));
                 attendance.setStudentId(rs.getInt("student_id"));
+                attendance.setDate(AttendanceDates.fromDay(rs.getLong("day")));
                 
-                String dateStr = rs.getString("date");
-                if (dateStr != null) {
-                    try {
-                        attendance.setDate(java.time.LocalDate.parse(dateStr));
-                    } catch (Exception e) {
-                        System.err.println("Error parsing date: " + dateStr);
-                        attendance.setDate(java.time.LocalDate.now());
-                    }
-                }
-                
-                attendance.setStatus(rs.getString("status"));
+                attendance.setStatus(AttendanceStatus.fromCode(rs.getInt("status")));
                 attendance.setRemarks(rs.getString("remarks"));
                 attendanceList.add(attendance);
             }
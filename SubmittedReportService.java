@@ -0,0 +1,108 @@
+package attendance.service;
+
+import attendance.model.AttendanceSnapshot;
+import attendance.model.SubmittedReport;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports teachers submit for review. report_data holds the submitted rows as
+ * an AttendanceSnapshotCodec blob, so a report can be reopened and
+ * re-aggregated later exactly as it was sent, whatever happened to the live
+ * attendance tables since.
+ */
+public class SubmittedReportService {
+
+    public static final String TABLE = "attendance_reports";
+
+    private static final RowMapper<SubmittedReport> REPORT_MAPPER = rs -> new SubmittedReport(
+        rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getString(4),
+        rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8));
+
+    private final DatabaseService databaseService;
+
+    public SubmittedReportService() {
+        this(new DatabaseService());
+    }
+
+    public SubmittedReportService(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    static void createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "teacher_id INTEGER," +
+                    "class_name TEXT," +
+                    "from_date TEXT," +
+                    "to_date TEXT," +
+                    "submitted_date TEXT," +
+                    "report_data BLOB," +
+                    "status TEXT DEFAULT 'SUBMITTED'," +
+                    "FOREIGN KEY (teacher_id) REFERENCES users(id))");
+        }
+    }
+
+    /**
+     * Inserts the report on the caller's connection, so it commits or rolls
+     * back with the caller's transaction. Returns the new report id.
+     */
+    public static int insert(Connection conn, int teacherId, AttendanceSnapshot snapshot, String className,
+                             String submittedDate) throws SQLException {
+        String sql = "INSERT INTO " + TABLE + " (teacher_id, class_name, from_date, to_date, " +
+                     "submitted_date, report_data, status) VALUES (?, ?, ?, ?, ?, ?, 'SUBMITTED')";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setInt(1, teacherId);
+            pstmt.setString(2, className);
+            pstmt.setString(3, snapshot.getFrom().toString());
+            pstmt.setString(4, snapshot.getTo().toString());
+            pstmt.setString(5, submittedDate);
+            pstmt.setBytes(6, AttendanceSnapshotCodec.encode(snapshot));
+            pstmt.executeUpdate();
+
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    return keys.getInt(1);
+                }
+            }
+        }
+        throw new SQLException("Failed to get report ID");
+    }
+
+    /** Newest first. */
+    public List<SubmittedReport> getReports() {
+        String sql = "SELECT r.id, r.teacher_id, TRIM(u.first_name || ' ' || COALESCE(u.last_name, '')), " +
+                     "r.class_name, r.from_date, r.to_date, r.submitted_date, r.status " +
+                     "FROM " + TABLE + " r LEFT JOIN users u ON r.teacher_id = u.id ORDER BY r.id DESC";
+
+        try (Connection conn = databaseService.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return RowMapper.mapAll(rs, REPORT_MAPPER);
+        } catch (SQLException e) {
+            System.err.println("❌ Error loading submitted reports: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    /** The submitted rows, or null for a missing report or one sent before snapshots were stored. */
+    public AttendanceSnapshot openSnapshot(int reportId) {
+        String sql = "SELECT report_data FROM " + TABLE + " WHERE id = ?";
+
+        try (Connection conn = databaseService.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, reportId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return AttendanceSnapshotCodec.decode(rs.getBytes(1));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error opening report #" + reportId + ": " + e.getMessage());
+        }
+        return null;
+    }
+}
\ No newline at end of file
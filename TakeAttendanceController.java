@@ -1,7 +1,11 @@
 package attendance.controller;
 
+import attendance.model.AttendanceStatus;
+import attendance.model.ClassAttendanceRow;
+import attendance.model.ClassSummary;
 import attendance.model.User;
-import attendance.service.DatabaseService;
+import attendance.service.AttendanceSyncService;
+import attendance.service.Services;
 import attendance.service.TeacherService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -9,13 +13,11 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class TakeAttendanceController {
@@ -29,19 +31,17 @@ public class TakeAttendanceController {
     @FXML private TableView<StudentAttendance> attendanceTable;
     @FXML private TableColumn<StudentAttendance, String> studentIdColumn;
     @FXML private TableColumn<StudentAttendance, String> nameColumn;
-    @FXML private TableColumn<StudentAttendance, String> statusColumn;
+    @FXML private TableColumn<StudentAttendance, AttendanceStatus> statusColumn;
     @FXML private TableColumn<StudentAttendance, String> remarksColumn;
     
     private User currentUser;
-    private DatabaseService databaseService;
     private TeacherService teacherService;
     private Map<Integer, ComboBox<String>> statusComboBoxes = new HashMap<>();
     private Map<Integer, TextField> remarksFields = new HashMap<>();
     
     public void setCurrentUser(User user) {
         this.currentUser = user;
-        this.databaseService = new DatabaseService();
-        this.teacherService = new TeacherService();
+        this.teacherService = Services.teacherService();
         
         // Set default date to today
         datePicker.setValue(LocalDate.now());
@@ -59,24 +59,24 @@ public class TakeAttendanceController {
         remarksColumn.setCellValueFactory(new PropertyValueFactory<>("remarks"));
         
         // Set up cell factory for status column
-        statusColumn.setCellFactory(column -> new TableCell<StudentAttendance, String>() {
+        statusColumn.setCellFactory(column -> new TableCell<StudentAttendance, AttendanceStatus>() {
             @Override
-            protected void updateItem(String status, boolean empty) {
+            protected void updateItem(AttendanceStatus status, boolean empty) {
                 super.updateItem(status, empty);
                 if (empty || status == null) {
                     setText(null);
                     setStyle("");
                 } else {
-                    setText(status);
+                    setText(status.name());
                     // Remove all status styles first
                     getStyleClass().removeAll("status-present", "status-absent");
                     
                     // Add appropriate status style
                     switch (status) {
-                        case "PRESENT":
+                        case PRESENT:
                             getStyleClass().add("status-present");
                             break;
-                        case "ABSENT":
+                        case ABSENT:
                             getStyleClass().add("status-absent");
                             break;
                     }
@@ -112,28 +112,16 @@ public class TakeAttendanceController {
     private void loadTeacherClasses() {
         if (currentUser == null) return;
         
-        try {
-            String sql = "SELECT class_name FROM classes WHERE teacher_id = ? ORDER BY class_name";
-            try (Connection conn = databaseService.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                
-                pstmt.setInt(1, currentUser.getId());
-                ResultSet rs = pstmt.executeQuery();
-                
-                ObservableList<String> classes = FXCollections.observableArrayList();
-                while (rs.next()) {
-                    classes.add(rs.getString("class_name"));
-                }
-                
-                classComboBox.setItems(classes);
-                if (!classes.isEmpty()) {
-                    classComboBox.getSelectionModel().select(0);
-                    // Auto-load students for first class
-                    handleStartAttendance();
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error loading classes: " + e.getMessage());
+        ObservableList<String> classes = FXCollections.observableArrayList();
+        for (ClassSummary summary : teacherService.getTeacherClasses(currentUser.getId())) {
+            classes.add(summary.className());
+        }
+        
+        classComboBox.setItems(classes);
+        if (!classes.isEmpty()) {
+            classComboBox.getSelectionModel().select(0);
+            // Auto-load students for first class
+            handleStartAttendance();
         }
     }
     
@@ -147,79 +135,49 @@ public class TakeAttendanceController {
             return;
         }
         
-        loadStudentsForAttendance(selectedClass, selectedDate.toString());
+        loadStudentsForAttendance(selectedClass, selectedDate);
     }
     
-    private void loadStudentsForAttendance(String className, String date) {
-        try {
-            // Get students in the selected class
-            String sql = "SELECT s.id, s.student_id, s.first_name, s.last_name, a.status as current_status, a.remarks "
-                       + "FROM students s "
-                       + "LEFT JOIN attendance a ON s.id = a.student_id AND a.date = ? "
-                       + "WHERE s.class_name = ? "
-                       + "ORDER BY s.last_name, s.first_name";
+    private void loadStudentsForAttendance(String className, LocalDate date) {
+        ObservableList<StudentAttendance> students = FXCollections.observableArrayList();
+        statusComboBoxes.clear();
+        remarksFields.clear();
+        
+        int presentCount = 0;
+        int absentCount = 0;
+        
+        for (ClassAttendanceRow row : teacherService.getClassAttendance(className, date)) {
+            // Status is null when attendance has not been taken for this date yet
+            AttendanceStatus currentStatus = row.status();
             
-            try (Connection conn = databaseService.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                
-                pstmt.setString(1, date);
-                pstmt.setString(2, className);
-                ResultSet rs = pstmt.executeQuery();
-                
-                ObservableList<StudentAttendance> students = FXCollections.observableArrayList();
-                statusComboBoxes.clear();
-                remarksFields.clear();
-                
-                int studentCount = 0;
-                int presentCount = 0;
-                int absentCount = 0;
-                
-                while (rs.next()) {
-                    studentCount++;
-                    int studentId = rs.getInt("id");
-                    String studentIdStr = rs.getString("student_id");
-                    String firstName = rs.getString("first_name");
-                    String lastName = rs.getString("last_name");
-                    String currentStatus = rs.getString("current_status");
-                    String currentRemarks = rs.getString("remarks");
-                    
-                    // Count statuses
-                    if ("PRESENT".equals(currentStatus)) presentCount++;
-                    else if ("ABSENT".equals(currentStatus)) absentCount++;
-                    
-                    // Create StudentAttendance object
-                    StudentAttendance student = new StudentAttendance(
-                        studentId,
-                        studentIdStr,
-                        firstName + " " + lastName,
-                        currentStatus != null ? currentStatus : "PRESENT",
-                        currentRemarks != null ? currentRemarks : ""
-                    );
-                    
-                    students.add(student);
-                }
-                
-                attendanceTable.setItems(students);
-                studentCountLabel.setText(studentCount + " students loaded");
-                
-                // Update summary
-                String summary = String.format(
-                    "Total: %d students | Present: %d | Absent: %d",
-                    studentCount, presentCount, absentCount
-                );
-                summaryLabel.setText(summary);
-                
-            }
-        } catch (SQLException e) {
-            System.err.println("Error loading students: " + e.getMessage());
-            showAlert("Error", "Failed to load students: " + e.getMessage());
+            // Count statuses
+            if (currentStatus == AttendanceStatus.PRESENT) presentCount++;
+            else if (currentStatus == AttendanceStatus.ABSENT) absentCount++;
+            
+            students.add(new StudentAttendance(
+                row.id(),
+                row.studentId(),
+                row.firstName() + " " + row.lastName(),
+                currentStatus != null ? currentStatus : AttendanceStatus.PRESENT,
+                row.remarks() != null ? row.remarks() : ""
+            ));
         }
+        
+        attendanceTable.setItems(students);
+        studentCountLabel.setText(students.size() + " students loaded");
+        
+        // Update summary
+        String summary = String.format(
+            "Total: %d students | Present: %d | Absent: %d",
+            students.size(), presentCount, absentCount
+        );
+        summaryLabel.setText(summary);
     }
     
     @FXML
     private void handleMarkAllPresent() {
         for (StudentAttendance student : attendanceTable.getItems()) {
-            student.setStatus("PRESENT");
+            student.setStatus(AttendanceStatus.PRESENT);
         }
         attendanceTable.refresh();
         updateSummary();
@@ -228,7 +186,7 @@ public class TakeAttendanceController {
     @FXML
     private void handleMarkAllAbsent() {
         for (StudentAttendance student : attendanceTable.getItems()) {
-            student.setStatus("ABSENT");
+            student.setStatus(AttendanceStatus.ABSENT);
         }
         attendanceTable.refresh();
         updateSummary();
@@ -244,37 +202,35 @@ public class TakeAttendanceController {
             return;
         }
         
-        int savedCount = 0;
-        int errorCount = 0;
-        String dateStr = selectedDate.toString();
-        
+        // Journal locally first, then sync; if the database is unreachable the
+        // edits stay journaled and are replayed once it is back
+        List<Integer> studentIds = new ArrayList<>();
+        List<AttendanceStatus> statuses = new ArrayList<>();
+        List<String> remarks = new ArrayList<>();
         for (StudentAttendance student : attendanceTable.getItems()) {
-            try {
-                boolean success = teacherService.markAttendance(
-                    student.getStudentDbId(),
-                    dateStr,
-                    student.getStatus(),
-                    student.getRemarks()
-                );
-                
-                if (success) {
-                    savedCount++;
-                } else {
-                    errorCount++;
-                }
-            } catch (Exception e) {
-                errorCount++;
-                System.err.println("Error saving attendance for student " + student.getStudentId() + ": " + e.getMessage());
-            }
+            studentIds.add(student.getStudentDbId());
+            statuses.add(student.getStatus());
+            remarks.add(student.getRemarks());
         }
         
-        String message;
-        if (errorCount == 0) {
-            message = "Attendance successfully saved for " + savedCount + " students!";
-            showAlert("Success", message);
+        AttendanceSyncService syncService = AttendanceSyncService.getInstance();
+        if (!syncService.save(studentIds, selectedDate, statuses, remarks)) {
+            showAlert("Error", "Attendance could not be saved on this computer. Please try again.");
+            return;
+        }
+        
+        AttendanceSyncService.SyncResult result = syncService.syncNow();
+        int waiting = result.waiting();
+        if (waiting == 0 && result.superseded() > 0) {
+            showAlert("Warning", "Attendance was saved, but " + result.superseded() + " of the changes were not " +
+                      "applied because a newer change for the same student and day was already saved elsewhere. " +
+                      "The list now shows the saved attendance.");
+        } else if (waiting == 0) {
+            showAlert("Success", "Attendance successfully saved for " + studentIds.size() + " students!");
         } else {
-            message = "Saved " + savedCount + " records, " + errorCount + " errors occurred.";
-            showAlert("Warning", message);
+            showAlert("Warning", "Attendance for " + studentIds.size() + " students is saved on this computer, " +
+                      "but the database cannot be reached right now. " + waiting +
+                      " changes will be sent automatically when the connection is back.");
         }
         
         // Reload to reflect saved status
@@ -288,7 +244,16 @@ public class TakeAttendanceController {
     
     @FXML
     private void handlePrintReport() {
-        showAlert("Print", "Print feature will be available soon!");
+        String selectedClass = classComboBox.getValue();
+        LocalDate selectedDate = datePicker.getValue();
+        
+        if (selectedClass == null || selectedDate == null) {
+            showAlert("Error", "Please select a class and date");
+            return;
+        }
+        
+        ReportExportDialog.show(attendanceTable.getScene().getWindow(), selectedClass, currentUser.getId(),
+                                selectedDate, selectedDate);
     }
     
     private void updateSummary() {
@@ -296,9 +261,9 @@ public class TakeAttendanceController {
         int absentCount = 0;
         
         for (StudentAttendance student : attendanceTable.getItems()) {
-            if ("PRESENT".equals(student.getStatus())) {
+            if (student.getStatus() == AttendanceStatus.PRESENT) {
                 presentCount++;
-            } else if ("ABSENT".equals(student.getStatus())) {
+            } else if (student.getStatus() == AttendanceStatus.ABSENT) {
                 absentCount++;
             }
         }
@@ -324,10 +289,10 @@ public class TakeAttendanceController {
         private int studentDbId;
         private String studentId;
         private String fullName;
-        private String status;
+        private AttendanceStatus status;
         private String remarks;
         
-        public StudentAttendance(int studentDbId, String studentId, String fullName, String status, String remarks) {
+        public StudentAttendance(int studentDbId, String studentId, String fullName, AttendanceStatus status, String remarks) {
             this.studentDbId = studentDbId;
             this.studentId = studentId;
             this.fullName = fullName;
@@ -338,10 +303,10 @@ public class TakeAttendanceController {
         public int getStudentDbId() { return studentDbId; }
         public String getStudentId() { return studentId; }
         public String getFullName() { return fullName; }
-        public String getStatus() { return status; }
+        public AttendanceStatus getStatus() { return status; }
         public String getRemarks() { return remarks; }
         
-        public void setStatus(String status) { this.status = status; }
+        public void setStatus(AttendanceStatus status) { this.status = status; }
         public void setRemarks(String remarks) { this.remarks = remarks; }
     }
     
@@ -1,5 +1,7 @@
 package attendance.controller;
 
+import attendance.model.ClassSummary;
+import attendance.model.StudentSummary;
 import attendance.model.User;
 import attendance.service.ClassService;
 import attendance.service.TeacherService;
@@ -13,7 +15,6 @@ import javafx.scene.layout.VBox;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
 
 public class TeacherDashboardController {
     
@@ -24,11 +25,11 @@ public class TeacherDashboardController {
     @FXML private Label attendanceRateLabel;
     
     // Assigned Classes Section
-    @FXML private TableView<Map<String, Object>> classesTable;
-    @FXML private TableColumn<Map<String, Object>, String> classNameColumn;
-    @FXML private TableColumn<Map<String, Object>, String> roomColumn;
-    @FXML private TableColumn<Map<String, Object>, String> scheduleColumn;
-    @FXML private TableColumn<Map<String, Object>, Integer> studentCountColumn;
+    @FXML private TableView<ClassSummary> classesTable;
+    @FXML private TableColumn<ClassSummary, String> classNameColumn;
+    @FXML private TableColumn<ClassSummary, String> roomColumn;
+    @FXML private TableColumn<ClassSummary, String> scheduleColumn;
+    @FXML private TableColumn<ClassSummary, Integer> studentCountColumn;
     
     @FXML private Button takeAttendanceBtn;
     @FXML private Button viewAttendanceBtn;
@@ -38,7 +39,7 @@ public class TeacherDashboardController {
     private User currentUser;
     private TeacherService teacherService;
     private ClassService classService;
-    private ObservableList<Map<String, Object>> classesList;
+    private ObservableList<ClassSummary> classesList;
     
     public void setCurrentUser(User user) {
         this.currentUser = user;
@@ -96,28 +97,22 @@ public class TeacherDashboardController {
     
     private void setupTableColumns() {
         classNameColumn.setCellValueFactory(data -> {
-            Map<String, Object> rowData = data.getValue();
-            String className = (String) rowData.get("className");
+            String className = data.getValue().className();
             return new javafx.beans.property.SimpleStringProperty(className != null ? className : "");
         });
         
         roomColumn.setCellValueFactory(data -> {
-            Map<String, Object> rowData = data.getValue();
-            String room = (String) rowData.get("room");
+            String room = data.getValue().room();
             return new javafx.beans.property.SimpleStringProperty(room != null ? room : "");
         });
         
         scheduleColumn.setCellValueFactory(data -> {
-            Map<String, Object> rowData = data.getValue();
-            String schedule = (String) rowData.get("schedule");
+            String schedule = data.getValue().schedule();
             return new javafx.beans.property.SimpleStringProperty(schedule != null ? schedule : "");
         });
         
-        studentCountColumn.setCellValueFactory(data -> {
-            Map<String, Object> rowData = data.getValue();
-            Integer studentCount = (Integer) rowData.get("studentCount");
-            return new javafx.beans.property.SimpleIntegerProperty(studentCount != null ? studentCount : 0).asObject();
-        });
+        studentCountColumn.setCellValueFactory(data ->
+            new javafx.beans.property.SimpleIntegerProperty(data.getValue().studentCount()).asObject());
         
         classesTable.setItems(classesList);
     }
@@ -127,11 +122,11 @@ public class TeacherDashboardController {
         classesList.clear();
         
         // Get classes assigned to this teacher
-        List<Map<String, Object>> classes = classService.getClassesByTeacher(teacherId);
+        List<ClassSummary> classes = classService.getClassesByTeacher(teacherId);
         
-        if (classes != null && !classes.isEmpty()) {
+        if (!classes.isEmpty()) {
             System.out.println("✅ Found " + classes.size() + " assigned classes");
-            classesList.addAll(classes);
+            classesList.setAll(classes);
             
             // Update UI to show classes
             assignedClassesBox.setVisible(true);
@@ -154,11 +149,8 @@ public class TeacherDashboardController {
     private void updateStatistics(int teacherId) {
         // Get total students across all assigned classes
         int totalStudents = 0;
-        for (Map<String, Object> cls : classesList) {
-            Integer studentCount = (Integer) cls.get("studentCount");
-            if (studentCount != null) {
-                totalStudents += studentCount;
-            }
+        for (ClassSummary cls : classesList) {
+            totalStudents += cls.studentCount();
         }
         totalStudentsLabel.setText(String.valueOf(totalStudents));
         
@@ -172,15 +164,15 @@ public class TeacherDashboardController {
         System.out.println("✅ Take Attendance button clicked");
         
         // Get selected class
-        Map<String, Object> selectedClass = classesTable.getSelectionModel().getSelectedItem();
+        ClassSummary selectedClass = classesTable.getSelectionModel().getSelectedItem();
         
         if (selectedClass == null) {
             showAlert("No Selection", "Please select a class to take attendance for.");
             return;
         }
         
-        String className = (String) selectedClass.get("className");
-        Integer classId = (Integer) selectedClass.get("id");
+        String className = selectedClass.className();
+        int classId = selectedClass.id();
         
         System.out.println("✅ Taking attendance for class: " + className + " (ID: " + classId + ")");
         
@@ -196,15 +188,15 @@ public class TeacherDashboardController {
         System.out.println("✅ View Attendance button clicked");
         
         // Get selected class
-        Map<String, Object> selectedClass = classesTable.getSelectionModel().getSelectedItem();
+        ClassSummary selectedClass = classesTable.getSelectionModel().getSelectedItem();
         
         if (selectedClass == null) {
             showAlert("No Selection", "Please select a class to view attendance.");
             return;
         }
         
-        String className = (String) selectedClass.get("className");
-        Integer classId = (Integer) selectedClass.get("id");
+        String className = selectedClass.className();
+        int classId = selectedClass.id();
         
         System.out.println("✅ Viewing attendance for class: " + className + " (ID: " + classId + ")");
         
@@ -234,31 +226,28 @@ public class TeacherDashboardController {
         System.out.println("✅ View Students button clicked");
         
         // Get selected class
-        Map<String, Object> selectedClass = classesTable.getSelectionModel().getSelectedItem();
+        ClassSummary selectedClass = classesTable.getSelectionModel().getSelectedItem();
         
         if (selectedClass == null) {
             showAlert("No Selection", "Please select a class to view students.");
             return;
         }
         
-        String className = (String) selectedClass.get("className");
-        Integer classId = (Integer) selectedClass.get("id");
+        String className = selectedClass.className();
+        int classId = selectedClass.id();
         
         System.out.println("✅ Viewing students for class: " + className + " (ID: " + classId + ")");
         
         // Get students in this class
-        List<Map<String, Object>> students = teacherService.getStudentsInClass(className);
+        List<StudentSummary> students = teacherService.getStudentsInClass(className);
         
-        if (students != null && !students.isEmpty()) {
+        if (!students.isEmpty()) {
             StringBuilder studentList = new StringBuilder();
             studentList.append("Students in ").append(className).append(":\n\n");
             
-            for (Map<String, Object> student : students) {
-                String studentId = (String) student.get("studentId");
-                String firstName = (String) student.get("firstName");
-                String lastName = (String) student.get("lastName");
-                studentList.append("• ").append(firstName).append(" ").append(lastName)
-                          .append(" (").append(studentId).append(")\n");
+            for (StudentSummary student : students) {
+                studentList.append("• ").append(student.fullName())
+                          .append(" (").append(student.studentId()).append(")\n");
             }
             
             showAlert("Students in " + className, studentList.toString());
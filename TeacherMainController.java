@@ -1,6 +1,8 @@
 package attendance.controller;
 
+import attendance.model.AttendanceStatus;
 import attendance.model.User;
+import attendance.service.AttendanceDates;
 import attendance.service.DatabaseService;
 import attendance.service.StudentService;
 import attendance.service.TeacherService;
@@ -10,7 +12,13 @@ import javafx.fxml.Initializable;
 import javafx.scene.Parent;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Dialog;
 import javafx.scene.control.Label;
+import javafx.geometry.Insets;
+import javafx.scene.layout.GridPane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 
@@ -19,6 +27,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.ResourceBundle;
 
 public class TeacherMainController implements Initializable {
@@ -176,10 +185,10 @@ public class TeacherMainController implements Initializable {
             // Get students from database
             String sql = "SELECT s.id, s.student_id, s.first_name, s.last_name, s.class_name, "
                        + "COUNT(a.id) as attendance_count, "
-                       + "SUM(CASE WHEN a.status = 'PRESENT' THEN 1 ELSE 0 END) as present_count "
+                       + "SUM(a.status = " + AttendanceStatus.PRESENT.getCode() + ") as present_count "
                        + "FROM students s "
-                       + "LEFT JOIN attendance a ON s.id = a.student_id "
-                       + "WHERE s.class_name IN (SELECT class_name FROM classes WHERE teacher_id = ?) "
+                       + "LEFT JOIN attendance_records a ON s.id = a.student_id "
+                       + "WHERE s.class_id IN (SELECT id FROM classes WHERE teacher_id = ?) "
                        + "GROUP BY s.id "
                        + "ORDER BY s.last_name, s.first_name";
             
@@ -233,76 +242,57 @@ public class TeacherMainController implements Initializable {
     }
     
     private void showReportGenerationView() {
-        try {
-            StringBuilder htmlContent = new StringBuilder();
-            htmlContent.append("<html><head><style>")
-                     .append("body { font-family: Arial, sans-serif; padding: 20px; }")
-                     .append(".report-form { background: white; padding: 20px; border-radius: 10px; box-shadow: 0 2px 5px rgba(0,0,0,0.1); }")
-                     .append(".form-group { margin-bottom: 15px; }")
-                     .append("label { display: block; margin-bottom: 5px; font-weight: bold; }")
-                     .append("select, input { width: 100%; padding: 8px; border: 1px solid #ddd; border-radius: 4px; }")
-                     .append("button { background: #4CAF50; color: white; padding: 10px 20px; border: none; border-radius: 4px; cursor: pointer; }")
-                     .append("</style></head><body>")
-                     .append("<h2>📊 Generate Reports</h2>")
-                     .append("<div class='report-form'>")
-                     .append("<div class='form-group'>")
-                     .append("<label>Report Type:</label>")
-                     .append("<select id='reportType'>")
-                     .append("<option value='attendance'>Attendance Report</option>")
-                     .append("<option value='performance'>Student Performance</option>")
-                     .append("<option value='summary'>Class Summary</option>")
-                     .append("</select>")
-                     .append("</div>")
-                     .append("<div class='form-group'>")
-                     .append("<label>Date Range:</label>")
-                     .append("<input type='date' id='startDate'> to <input type='date' id='endDate'>")
-                     .append("</div>")
-                     .append("<div class='form-group'>")
-                     .append("<label>Class:</label>")
-                     .append("<select id='classSelect'>");
+        ComboBox<String> classBox = new ComboBox<>();
+        classBox.getItems().add("All Classes");
+        
+        // Load teacher's classes
+        String sql = "SELECT class_name FROM classes WHERE teacher_id = ? ORDER BY class_name";
+        try (Connection conn = databaseService.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            // Load teacher's classes
-            String sql = "SELECT class_name FROM classes WHERE teacher_id = ?";
-            try (Connection conn = databaseService.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                
-                pstmt.setInt(1, currentUser.getId());
-                ResultSet rs = pstmt.executeQuery();
-                
-                htmlContent.append("<option value='all'>All Classes</option>");
-                while (rs.next()) {
-                    htmlContent.append("<option value='").append(rs.getString("class_name")).append("'>")
-                              .append(rs.getString("class_name")).append("</option>");
-                }
-                
-            } catch (SQLException e) {
-                htmlContent.append("<option value='all'>All Classes</option>");
+            pstmt.setInt(1, currentUser.getId());
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                classBox.getItems().add(rs.getString("class_name"));
             }
             
-            htmlContent.append("</select>")
-                      .append("</div>")
-                      .append("<div class='form-group'>")
-                      .append("<label>Format:</label>")
-                      .append("<select id='format'>")
-                      .append("<option value='html'>HTML</option>")
-                      .append("<option value='pdf'>PDF (Coming Soon)</option>")
-                      .append("<option value='excel'>Excel (Coming Soon)</option>")
-                      .append("</select>")
-                      .append("</div>")
-                      .append("<button onclick='generateReport()'>Generate Report</button>")
-                      .append("</div>")
-                      .append("<script>")
-                      .append("function generateReport() {")
-                      .append("  alert('Report generation feature will be implemented soon!');")
-                      .append("}")
-                      .append("</script>")
-                      .append("</body></html>");
-            
-            showHtmlView("Generate Reports", htmlContent.toString());
-            
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load report generator: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("Error loading classes: " + e.getMessage());
         }
+        classBox.getSelectionModel().select(0);
+        
+        // Default to the current term so far
+        LocalDate today = LocalDate.now();
+        DatePicker fromPicker = new DatePicker(LocalDate.of(today.getYear(), today.getMonthValue() > 6 ? 7 : 1, 1));
+        DatePicker toPicker = new DatePicker(today);
+        
+        GridPane form = new GridPane();
+        form.setHgap(10);
+        form.setVgap(10);
+        form.setPadding(new Insets(20));
+        form.addRow(0, new Label("Class:"), classBox);
+        form.addRow(1, new Label("From:"), fromPicker);
+        form.addRow(2, new Label("To:"), toPicker);
+        
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Generate Reports");
+        dialog.setHeaderText("📊 Attendance report as PDF or HTML");
+        dialog.getDialogPane().setContent(form);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        
+        dialog.showAndWait().filter(button -> button == ButtonType.OK).ifPresent(button -> {
+            LocalDate from = fromPicker.getValue();
+            LocalDate to = toPicker.getValue();
+            if (from == null || to == null || from.isAfter(to)) {
+                showAlert("Error", "Please select a valid date range");
+                return;
+            }
+            
+            String selectedClass = classBox.getValue();
+            ReportExportDialog.show(contentArea.getScene().getWindow(),
+                                    "All Classes".equals(selectedClass) ? null : selectedClass,
+                                    currentUser.getId(), from, to);
+        });
     }
     
     private void showHtmlView(String title, String htmlContent) {
@@ -389,7 +379,7 @@ public class TeacherMainController implements Initializable {
             // Get number of students in assigned classes
             String studentSql = "SELECT COUNT(DISTINCT s.id) as student_count "
                               + "FROM students s "
-                              + "JOIN classes c ON s.class_name = c.class_name "
+                              + "JOIN classes c ON s.class_id = c.id "
                               + "WHERE c.teacher_id = ?";
             try (Connection conn = databaseService.getConnection();
                  PreparedStatement pstmt = conn.prepareStatement(studentSql)) {
@@ -402,17 +392,18 @@ public class TeacherMainController implements Initializable {
             }
             
             // Calculate average attendance rate
-            String attendanceSql = "SELECT AVG(CASE WHEN a.status = 'PRESENT' THEN 100 "
-                                 + "WHEN a.status = 'LATE' THEN 80 "
+            String attendanceSql = "SELECT AVG(CASE a.status WHEN " + AttendanceStatus.PRESENT.getCode() + " THEN 100 "
+                                 + "WHEN " + AttendanceStatus.LATE.getCode() + " THEN 80 "
                                  + "ELSE 0 END) as avg_rate "
-                                 + "FROM attendance a "
+                                 + "FROM attendance_records a "
                                  + "JOIN students s ON a.student_id = s.id "
-                                 + "JOIN classes c ON s.class_name = c.class_name "
-                                 + "WHERE c.teacher_id = ? AND date(a.date) = date('now')";
+                                 + "JOIN classes c ON s.class_id = c.id "
+                                 + "WHERE c.teacher_id = ? AND a.day = ?";
             try (Connection conn = databaseService.getConnection();
                  PreparedStatement pstmt = conn.prepareStatement(attendanceSql)) {
                 
                 pstmt.setInt(1, currentUser.getId());
+                pstmt.setLong(2, AttendanceDates.toDay(java.time.LocalDate.now()));
                 ResultSet rs = pstmt.executeQuery();
                 if (rs.next()) {
                     stats[2] = (int) rs.getDouble("avg_rate");
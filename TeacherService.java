@@ -1,17 +1,65 @@
 package attendance.service;
 
+import attendance.model.AttendanceEdit;
+import attendance.model.AttendanceReportRow;
+import attendance.model.AttendanceSnapshot;
+import attendance.model.AttendanceStatistics;
+import attendance.model.AttendanceStatus;
+import attendance.model.ClassAttendanceRow;
+import attendance.model.ClassSummary;
+import attendance.model.StudentSummary;
 import attendance.model.Teacher;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public class TeacherService {
+    private static final RowMapper<StudentSummary> STUDENT_MAPPER = rs -> new StudentSummary(
+        rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5));
+    
+    // Status is NULL when the LEFT JOIN found no record for the day
+    private static final RowMapper<ClassAttendanceRow> CLASS_ATTENDANCE_MAPPER = rs -> {
+        int code = rs.getInt(5);
+        AttendanceStatus status = rs.wasNull() ? null : AttendanceStatus.fromCode(code);
+        long hlc = rs.getLong(7);
+        return new ClassAttendanceRow(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                                      status, rs.getString(6), rs.wasNull() ? null : hlc);
+    };
+    
+    private static final RowMapper<AttendanceReportRow> REPORT_ROW_MAPPER = rs -> new AttendanceReportRow(
+        AttendanceDates.fromDay(rs.getLong(1)), rs.getString(2), rs.getString(3), rs.getString(4),
+        AttendanceStatus.fromCode(rs.getInt(5)), rs.getString(6));
+    
+    /** Class name stored with reports that cover every class. */
+    public static final String ALL_CLASSES = "All Classes";
+    
+    // What a write replaced, for the in-memory analytics; previous is null for a new row
+    private record SavedAttendance(Integer classId, AttendanceStatus previous) {
+    }
+    
+    // Returned when the row already holds a newer edit
+    private static final SavedAttendance SUPERSEDED = new SavedAttendance(null, null);
+    
+    /**
+     * Outcome of applyEdits: written, lost to a newer edit, or for a student
+     * that no longer exists. clock is a stamp from the applying side, taken
+     * after it observed every stamp in the batch and in the rows it checked;
+     * the caller observes it so its next edits order after all of them.
+     */
+    public record ApplyResult(int applied, int superseded, int failed, long clock) {
+    }
+    
     private DatabaseService databaseService;
+    private AttendanceQueryRouter queryRouter;
+    private RetryPolicy retryPolicy;
     
     public TeacherService() {
         databaseService = new DatabaseService();
+        queryRouter = new AttendanceQueryRouter(databaseService);
+        retryPolicy = RetryPolicy.getDefault();
     }
     
     // MARK: TEACHER CRUD METHODS
@@ -54,6 +102,16 @@ public class TeacherService {
      * Add a new teacher to the system - UPDATED to set first_name and last_name in users table
      */
     public boolean addTeacher(Teacher teacher, String password) {
+        try {
+            return retryPolicy.execute("addTeacher", () -> insertTeacher(teacher, password));
+        } catch (SQLException e) {
+            System.err.println("❌ Error adding teacher: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    private boolean insertTeacher(Teacher teacher, String password) throws SQLException {
         // First, get the next teacher_id value
         int nextTeacherId = getNextTeacherId();
         if (nextTeacherId <= 0) {
@@ -123,9 +181,7 @@ public class TeacherService {
             } catch (SQLException ex) {
                 ex.printStackTrace();
             }
-            System.err.println("❌ Error adding teacher: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+            throw e;
         } finally {
             try {
                 if (conn != null) {
@@ -161,6 +217,16 @@ public class TeacherService {
      * Update an existing teacher - UPDATED to set first_name and last_name in users table
      */
     public boolean updateTeacher(Teacher teacher, String newPassword) {
+        try {
+            return retryPolicy.executeIdempotent("updateTeacher", () -> applyTeacherUpdate(teacher, newPassword));
+        } catch (SQLException e) {
+            System.err.println("❌ Error updating teacher: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    private boolean applyTeacherUpdate(Teacher teacher, String newPassword) throws SQLException {
         String updateTeacherSQL = "UPDATE teachers SET first_name = ?, last_name = ?, email = ?, department = ? WHERE id = ?";
         String updateUserSQL = "UPDATE users SET username = ?, first_name = ?, last_name = ? WHERE id = (SELECT user_id FROM teachers WHERE id = ?)";
         String updatePasswordSQL = "UPDATE users SET password = ? WHERE id = (SELECT user_id FROM teachers WHERE id = ?)";
@@ -214,9 +280,7 @@ public class TeacherService {
             } catch (SQLException ex) {
                 ex.printStackTrace();
             }
-            System.err.println("❌ Error updating teacher: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+            throw e;
         } finally {
             try {
                 if (conn != null) {
@@ -234,6 +298,16 @@ public class TeacherService {
      * Note: Will fail if teacher is assigned to classes
      */
     public boolean deleteTeacher(int teacherId) {
+        try {
+            return retryPolicy.execute("deleteTeacher", () -> removeTeacher(teacherId));
+        } catch (SQLException e) {
+            System.err.println("❌ Error deleting teacher: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    private boolean removeTeacher(int teacherId) throws SQLException {
         // First check if teacher is assigned to any classes
         String checkClassesSQL = "SELECT COUNT(*) as class_count FROM classes WHERE teacher_id = ?";
         String deleteTeacherSQL = "DELETE FROM teachers WHERE id = ?";
@@ -306,9 +380,7 @@ public class TeacherService {
             } catch (SQLException ex) {
                 ex.printStackTrace();
             }
-            System.err.println("❌ Error deleting teacher: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+            throw e;
         } finally {
             try {
                 if (conn != null) {
@@ -373,7 +445,7 @@ public class TeacherService {
     public int getStudentCount(int teacherId) {
         String sql = "SELECT COUNT(DISTINCT s.id) as count "
                    + "FROM students s "
-                   + "JOIN classes c ON s.class_name = c.class_name "
+                   + "JOIN classes c ON s.class_id = c.id "
                    + "WHERE c.teacher_id = ?";
         try (Connection conn = databaseService.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -390,17 +462,18 @@ public class TeacherService {
     }
     
     public double getAverageAttendanceRate(int teacherId) {
-        String sql = "SELECT AVG(CASE WHEN a.status = 'PRESENT' THEN 100 "
-                   + "WHEN a.status = 'LATE' THEN 80 "
+        String sql = "SELECT AVG(CASE a.status WHEN " + AttendanceStatus.PRESENT.getCode() + " THEN 100 "
+                   + "WHEN " + AttendanceStatus.LATE.getCode() + " THEN 80 "
                    + "ELSE 0 END) as avg_rate "
-                   + "FROM attendance a "
+                   + "FROM attendance_records a "
                    + "JOIN students s ON a.student_id = s.id "
-                   + "JOIN classes c ON s.class_name = c.class_name "
-                   + "WHERE c.teacher_id = ? AND date(a.date) = date('now')";
+                   + "JOIN classes c ON s.class_id = c.id "
+                   + "WHERE c.teacher_id = ? AND a.day = ?";
         try (Connection conn = databaseService.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, teacherId);
+            pstmt.setLong(2, AttendanceDates.toDay(LocalDate.now()));
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
                 return rs.getDouble("avg_rate");
@@ -411,167 +484,366 @@ public class TeacherService {
         return 0.0;
     }
     
-    public List<Map<String, Object>> getTeacherClasses(int teacherId) {
-        List<Map<String, Object>> classes = new ArrayList<>();
-        String sql = "SELECT id, class_name, room_number, schedule, student_count FROM classes WHERE teacher_id = ?";
+    public List<ClassSummary> getTeacherClasses(int teacherId) {
+        String sql = "SELECT " + ClassService.CLASS_COLUMNS + "WHERE c.teacher_id = ? ORDER BY c.class_name";
         
         try (Connection conn = databaseService.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, teacherId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Map<String, Object> classData = new HashMap<>();
-                classData.put("id", rs.getInt("id"));
-                classData.put("className", rs.getString("class_name"));
-                classData.put("roomNumber", rs.getString("room_number"));
-                classData.put("schedule", rs.getString("schedule"));
-                classData.put("studentCount", rs.getInt("student_count"));
-                classes.add(classData);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMapper.mapAll(rs, ClassService.CLASS_MAPPER);
             }
         } catch (SQLException e) {
             System.err.println("❌ Error getting teacher classes: " + e.getMessage());
         }
-        return classes;
+        return new ArrayList<>();
     }
     
-    public List<Map<String, Object>> getStudentsInClass(String className) {
-        List<Map<String, Object>> students = new ArrayList<>();
-        String sql = "SELECT id, student_id, first_name, last_name, email FROM students WHERE class_name = ? ORDER BY last_name, first_name";
+    public List<StudentSummary> getStudentsInClass(String className) {
+        String sql = "SELECT s.id, s.student_id, s.first_name, s.last_name, s.email FROM students s "
+                   + "JOIN classes c ON s.class_id = c.id "
+                   + "WHERE c.class_name = ? ORDER BY s.last_name, s.first_name";
         
         try (Connection conn = databaseService.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, className);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Map<String, Object> studentData = new HashMap<>();
-                studentData.put("id", rs.getInt("id"));
-                studentData.put("studentId", rs.getString("student_id"));
-                studentData.put("firstName", rs.getString("first_name"));
-                studentData.put("lastName", rs.getString("last_name"));
-                studentData.put("email", rs.getString("email"));
-                students.add(studentData);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMapper.mapAll(rs, STUDENT_MAPPER);
             }
         } catch (SQLException e) {
             System.err.println("❌ Error getting students in class: " + e.getMessage());
         }
+        return new ArrayList<>();
+    }
+    
+    /**
+     * Students of the class with the status on every one of the dates, or on
+     * at least one when onAll is false. Answered from the bitmap index; only
+     * the roster itself is read from the database.
+     */
+    public List<StudentSummary> getStudentsWithStatus(String className, AttendanceStatus status,
+                                                      List<LocalDate> dates, boolean onAll) {
+        List<StudentSummary> students = getStudentsInClass(className);
+        CompressedBitmap roster = new CompressedBitmap();
+        for (StudentSummary student : students) {
+            roster.add(student.id());
+        }
+        
+        AttendanceBitmapIndex index = AttendanceBitmapIndex.getInstance();
+        CompressedBitmap matched = onAll ? index.withStatusOnAll(roster, status, dates)
+                                         : index.withStatusOnAny(roster, status, dates);
+        students.removeIf(student -> !matched.contains(student.id()));
         return students;
     }
     
     public boolean markAttendance(int studentId, String date, String status, String remarks) {
-        String checkSql = "SELECT id FROM attendance WHERE student_id = ? AND date = ?";
-        String insertSql = "INSERT INTO attendance (student_id, date, status, remarks) VALUES (?, ?, ?, ?)";
-        String updateSql = "UPDATE attendance SET status = ?, remarks = ? WHERE student_id = ? AND date = ?";
+        return markAttendance(studentId, LocalDate.parse(date), AttendanceStatus.parse(status), remarks);
+    }
+    
+    public boolean markAttendance(int studentId, LocalDate date, AttendanceStatus status, String remarks) {
+        AttendanceEdit edit = new AttendanceEdit(0, HybridLogicalClock.getInstance().now(), studentId, date, status, remarks);
+        try {
+            SavedAttendance saved = retryPolicy.executeIdempotent("markAttendance",
+                () -> upsertAttendance(List.of(edit))).get(0);
+            if (saved != null && saved != SUPERSEDED) {
+                attendanceWritten(edit, saved);
+            }
+            return saved != null;
+        } catch (SQLException e) {
+            System.err.println("❌ Error marking attendance: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Replays journaled edits (see AttendanceSyncService) in one transaction.
+     * Each row keeps the edit with the highest HybridLogicalClock stamp, so
+     * replaying a batch twice, or batches from several machines in any order,
+     * ends in the same state. Throws if the database cannot be reached.
+     */
+    public ApplyResult applyEdits(List<AttendanceEdit> edits) throws SQLException {
+        // Within a batch only the newest edit per student and day matters
+        Map<Long, AttendanceEdit> newest = new LinkedHashMap<>();
+        HybridLogicalClock clock = HybridLogicalClock.getInstance();
+        for (AttendanceEdit edit : edits) {
+            clock.observe(edit.hlc());
+            long key = ((long) edit.studentId() << 32) | (AttendanceDates.toDay(edit.date()) & 0xffffffffL);
+            newest.merge(key, edit, (a, b) -> b.hlc() > a.hlc() ? b : a);
+        }
+        List<AttendanceEdit> batch = new ArrayList<>(newest.values());
+        
+        List<SavedAttendance> results = retryPolicy.executeIdempotent("applyEdits", () -> upsertAttendance(batch));
+        
+        int applied = 0;
+        int failed = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            SavedAttendance saved = results.get(i);
+            if (saved == null) {
+                failed++;
+            } else if (saved != SUPERSEDED) {
+                applied++;
+                attendanceWritten(batch.get(i), saved);
+            }
+        }
+        return new ApplyResult(applied, edits.size() - applied - failed, failed, clock.now());
+    }
+    
+    private static void attendanceWritten(AttendanceEdit edit, SavedAttendance saved) {
+        attendanceWritten(edit.studentId(), saved.classId(), edit.date(), saved.previous(), edit.status());
+    }
+    
+    // Keeps the in-memory analytics in step with a committed write; previous is null for a new row
+    static void attendanceWritten(int studentId, Integer classId, LocalDate date,
+                                  AttendanceStatus previous, AttendanceStatus status) {
+        AttendanceBitmapIndex.getInstance().record(studentId, date, status);
+        AttendanceCube.getInstance().record(studentId, classId, date, previous, status);
+        ReportCache.getInstance().attendanceWritten(studentId, date);
+        AtRiskDetector.getInstance().record(studentId, date, status);
+    }
+    
+    // Check-then-write inside one IMMEDIATE transaction so a replay sees the row the
+    // previous attempt may have raced with and updates it instead of inserting twice.
+    // One result per edit: null if the student does not exist or the day is in an
+    // archived term, SUPERSEDED if the row already holds a newer stamp. Rows written
+    // before stamps existed always lose.
+    private List<SavedAttendance> upsertAttendance(List<AttendanceEdit> edits) throws SQLException {
+        String checkSql = "SELECT a.id, a.status, a.class_id, s.class_id, a.hlc FROM students s "
+                        + "LEFT JOIN attendance_records a ON a.student_id = s.id AND a.day = ? WHERE s.id = ?";
+        String insertSql = "INSERT INTO attendance_records (student_id, class_id, day, status, remarks, hlc) "
+                         + "VALUES (?, (SELECT class_id FROM students WHERE id = ?), ?, ?, ?, ?)";
+        String updateSql = "UPDATE attendance_records SET status = ?, remarks = ?, hlc = ? WHERE student_id = ? AND day = ?";
         
         try (Connection conn = databaseService.getConnection()) {
-            PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-            checkStmt.setInt(1, studentId);
-            checkStmt.setString(2, date);
-            ResultSet rs = checkStmt.executeQuery();
+            try (Statement begin = conn.createStatement()) {
+                begin.execute("BEGIN IMMEDIATE");
+            }
             
-            if (rs.next()) {
-                PreparedStatement updateStmt = conn.prepareStatement(updateSql);
-                updateStmt.setString(1, status);
-                updateStmt.setString(2, remarks);
-                updateStmt.setInt(3, studentId);
-                updateStmt.setString(4, date);
+            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql);
+                 PreparedStatement insertStmt = conn.prepareStatement(insertSql);
+                 PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                List<SavedAttendance> results = new ArrayList<>(edits.size());
+                // Read inside the transaction, so an archive cannot register in between
+                List<AttendanceArchiveService.TermArchive> archives = AttendanceArchiveService.listArchives(conn);
+                
+                for (AttendanceEdit edit : edits) {
+                    if (isArchived(archives, edit.date())) {
+                        // The hot table no longer holds this day; a new row would be counted twice
+                        System.err.println("⚠️ Refusing attendance write for " + edit.date() + ": the term is archived");
+                        results.add(null);
+                        continue;
+                    }
+                    long day = AttendanceDates.toDay(edit.date());
+                    boolean found = false;
+                    boolean exists = false;
+                    boolean newer = false;
+                    AttendanceStatus previous = null;
+                    Integer classId = null;
+                    checkStmt.setLong(1, day);
+                    checkStmt.setInt(2, edit.studentId());
+                    try (ResultSet rs = checkStmt.executeQuery()) {
+                        if (rs.next()) {
+                            found = true;
+                            exists = rs.getObject(1) != null;
+                            // An existing row keeps its class; a new one takes the student's
+                            Object rowClass = exists ? rs.getObject(3) : rs.getObject(4);
+                            classId = rowClass != null ? ((Number) rowClass).intValue() : null;
+                            if (exists && rs.getObject(2) != null) {
+                                previous = AttendanceStatus.fromCode(rs.getInt(2));
+                            }
+                            if (exists && rs.getObject(5) != null) {
+                                long stored = rs.getLong(5);
+                                HybridLogicalClock.getInstance().observe(stored);
+                                newer = stored >= edit.hlc();
+                            }
+                        }
+                    }
+                    
+                    if (!found) {
+                        results.add(null);
+                        continue;
+                    }
+                    if (newer) {
+                        results.add(SUPERSEDED);
+                        continue;
+                    }
+                    
+                    int rows;
+                    if (exists) {
+                        updateStmt.setInt(1, edit.status().getCode());
+                        updateStmt.setString(2, edit.remarks());
+                        updateStmt.setLong(3, edit.hlc());
+                        updateStmt.setInt(4, edit.studentId());
+                        updateStmt.setLong(5, day);
+                        rows = updateStmt.executeUpdate();
+                    } else {
+                        insertStmt.setInt(1, edit.studentId());
+                        insertStmt.setInt(2, edit.studentId());
+                        insertStmt.setLong(3, day);
+                        insertStmt.setInt(4, edit.status().getCode());
+                        insertStmt.setString(5, edit.remarks());
+                        insertStmt.setLong(6, edit.hlc());
+                        rows = insertStmt.executeUpdate();
+                    }
+                    results.add(rows > 0 ? new SavedAttendance(classId, previous) : null);
+                }
                 
-                int rowsUpdated = updateStmt.executeUpdate();
-                updateStmt.close();
-                return rowsUpdated > 0;
-            } else {
-                PreparedStatement insertStmt = conn.prepareStatement(insertSql);
-                insertStmt.setInt(1, studentId);
-                insertStmt.setString(2, date);
-                insertStmt.setString(3, status);
-                insertStmt.setString(4, remarks);
+                try (Statement commit = conn.createStatement()) {
+                    commit.execute("COMMIT");
+                }
+                return results;
                 
-                int rowsInserted = insertStmt.executeUpdate();
-                insertStmt.close();
-                return rowsInserted > 0;
+            } catch (SQLException e) {
+                try (Statement rollback = conn.createStatement()) {
+                    rollback.execute("ROLLBACK");
+                } catch (SQLException ex) {
+                    // Transaction was already rolled back by SQLite
+                }
+                throw e;
             }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error marking attendance: " + e.getMessage());
-            return false;
         }
     }
     
-    public List<Map<String, Object>> getClassAttendance(String className, String date) {
-        List<Map<String, Object>> attendance = new ArrayList<>();
-        String sql = "SELECT s.student_id, s.first_name, s.last_name, a.status, a.remarks "
+    private static boolean isArchived(List<AttendanceArchiveService.TermArchive> archives, LocalDate date) {
+        for (AttendanceArchiveService.TermArchive archive : archives) {
+            if (archive.overlaps(date, date)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public List<ClassAttendanceRow> getClassAttendance(String className, String date) {
+        return getClassAttendance(className, LocalDate.parse(date));
+    }
+    
+    public List<ClassAttendanceRow> getClassAttendance(String className, LocalDate date) {
+        String sql = "SELECT s.id, s.student_id, s.first_name, s.last_name, a.status, a.remarks, a.hlc "
                    + "FROM students s "
-                   + "LEFT JOIN attendance a ON s.id = a.student_id AND a.date = ? "
-                   + "WHERE s.class_name = ? "
+                   + "LEFT JOIN attendance_records a ON s.id = a.student_id AND a.day = ? "
+                   + "JOIN classes c ON s.class_id = c.id "
+                   + "WHERE c.class_name = ? "
                    + "ORDER BY s.last_name, s.first_name";
         
         try (Connection conn = databaseService.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, date);
+            pstmt.setLong(1, AttendanceDates.toDay(date));
             pstmt.setString(2, className);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Map<String, Object> record = new HashMap<>();
-                record.put("studentId", rs.getString("student_id"));
-                record.put("firstName", rs.getString("first_name"));
-                record.put("lastName", rs.getString("last_name"));
-                record.put("status", rs.getString("status"));
-                record.put("remarks", rs.getString("remarks"));
-                attendance.add(record);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                List<ClassAttendanceRow> rows = RowMapper.mapAll(rs, CLASS_ATTENDANCE_MAPPER);
+                observeStamps(rows);
+                return rows;
             }
         } catch (SQLException e) {
             System.err.println("❌ Error getting class attendance: " + e.getMessage());
         }
-        return attendance;
+        return new ArrayList<>();
     }
     
-    public Map<String, Object> getAttendanceStatistics(int teacherId, String startDate, String endDate) {
-        Map<String, Object> stats = new HashMap<>();
+    /**
+     * Edits made after looking at these rows must outrank them, so the clock
+     * moves past every stamp shown, even ones from machines running fast.
+     */
+    protected static void observeStamps(List<ClassAttendanceRow> rows) {
+        HybridLogicalClock clock = HybridLogicalClock.getInstance();
+        for (ClassAttendanceRow row : rows) {
+            if (row.hlc() != null) {
+                clock.observe(row.hlc());
+            }
+        }
+    }
+    
+    /**
+     * Recorded attendance between from and to, newest day first, for one class
+     * or every class when className is null. Repeated requests are served from
+     * the ReportCache until attendance in the range is written. Null if the
+     * query failed, so callers can tell an error from an empty range.
+     */
+    public List<AttendanceReportRow> getAttendanceReport(String className, LocalDate from, LocalDate to) {
+        return ReportCache.getInstance().get("attendance-report", className, from, to, null,
+            () -> queryAttendanceReport(className, from, to));
+    }
+    
+    private List<AttendanceReportRow> queryAttendanceReport(String className, LocalDate from, LocalDate to) {
+        String sql = "SELECT a.day, s.student_id, s.first_name, s.last_name, a.status, a.remarks "
+                   + "FROM " + AttendanceQueryRouter.VIEW + " a "
+                   + "JOIN students s ON a.student_id = s.id "
+                   + "WHERE a.day BETWEEN ? AND ? "
+                   + (className != null ? "AND s.class_id IN (SELECT id FROM classes WHERE class_name = ?) " : "")
+                   + "ORDER BY a.day DESC, s.last_name, s.first_name";
         
+        // Attaches only the archived terms this range needs
+        try (Connection conn = queryRouter.openConnection(from, to);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setLong(1, AttendanceDates.toDay(from));
+            pstmt.setLong(2, AttendanceDates.toDay(to));
+            if (className != null) {
+                pstmt.setString(3, className);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return List.copyOf(RowMapper.mapAll(rs, REPORT_ROW_MAPPER));
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error getting attendance report: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Stores the rows a teacher submits as a report for the admins (see
+     * SubmittedReportService). className is null for every class. Returns the
+     * new report id, or -1 if it could not be saved.
+     */
+    public int submitAttendanceReport(int teacherId, String className, LocalDate from, LocalDate to,
+                                      List<AttendanceReportRow> rows) {
+        AttendanceSnapshot.Builder snapshot = new AttendanceSnapshot.Builder(className, from, to);
+        for (AttendanceReportRow row : rows) {
+            snapshot.add(row.date(), row.studentId(), row.fullName(), row.status(), row.remarks());
+        }
+        
+        try (Connection conn = databaseService.getConnection()) {
+            return SubmittedReportService.insert(conn, teacherId, snapshot.build(),
+                className != null ? className : ALL_CLASSES, LocalDate.now().toString());
+        } catch (SQLException e) {
+            System.err.println("❌ Error submitting attendance report: " + e.getMessage());
+            return -1;
+        }
+    }
+    
+    public AttendanceStatistics getAttendanceStatistics(int teacherId, String startDate, String endDate) {
+        return getAttendanceStatistics(teacherId, LocalDate.parse(startDate), LocalDate.parse(endDate));
+    }
+    
+    public AttendanceStatistics getAttendanceStatistics(int teacherId, LocalDate startDate, LocalDate endDate) {
         String sql = "SELECT "
                    + "COUNT(DISTINCT a.id) as total_records, "
-                   + "SUM(CASE WHEN a.status = 'PRESENT' THEN 1 ELSE 0 END) as present_count, "
-                   + "SUM(CASE WHEN a.status = 'ABSENT' THEN 1 ELSE 0 END) as absent_count, "
-                   + "SUM(CASE WHEN a.status = 'LATE' THEN 1 ELSE 0 END) as late_count "
-                   + "FROM attendance a "
+                   + "SUM(a.status = " + AttendanceStatus.PRESENT.getCode() + ") as present_count, "
+                   + "SUM(a.status = " + AttendanceStatus.ABSENT.getCode() + ") as absent_count, "
+                   + "SUM(a.status = " + AttendanceStatus.LATE.getCode() + ") as late_count "
+                   + "FROM " + AttendanceQueryRouter.VIEW + " a "
                    + "JOIN students s ON a.student_id = s.id "
-                   + "JOIN classes c ON s.class_name = c.class_name "
-                   + "WHERE c.teacher_id = ? AND a.date BETWEEN ? AND ?";
+                   + "JOIN classes c ON s.class_id = c.id "
+                   + "WHERE c.teacher_id = ? AND a.day BETWEEN ? AND ?";
         
-        try (Connection conn = databaseService.getConnection();
+        // Archived terms are only attached when the range reaches back into them
+        try (Connection conn = queryRouter.openConnection(startDate, endDate);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, teacherId);
-            pstmt.setString(2, startDate);
-            pstmt.setString(3, endDate);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                stats.put("totalRecords", rs.getInt("total_records"));
-                stats.put("presentCount", rs.getInt("present_count"));
-                stats.put("absentCount", rs.getInt("absent_count"));
-                stats.put("lateCount", rs.getInt("late_count"));
-                
-                int total = rs.getInt("total_records");
-                if (total > 0) {
-                    stats.put("presentRate", (rs.getInt("present_count") * 100.0) / total);
-                    stats.put("absentRate", (rs.getInt("absent_count") * 100.0) / total);
-                    stats.put("lateRate", (rs.getInt("late_count") * 100.0) / total);
-                } else {
-                    stats.put("presentRate", 0.0);
-                    stats.put("absentRate", 0.0);
-                    stats.put("lateRate", 0.0);
+            pstmt.setLong(2, AttendanceDates.toDay(startDate));
+            pstmt.setLong(3, AttendanceDates.toDay(endDate));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new AttendanceStatistics(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4));
                 }
             }
         } catch (SQLException e) {
             System.err.println("❌ Error getting attendance statistics: " + e.getMessage());
         }
-        return stats;
+        return AttendanceStatistics.EMPTY;
     }
     
     /**
@@ -7,9 +7,11 @@ import java.util.List;
 
 public class UserService {
     private DatabaseService databaseService;
+    private RetryPolicy retryPolicy;
     
     public UserService() {
         databaseService = new DatabaseService();
+        retryPolicy = RetryPolicy.getDefault();
     }
     
     public User authenticate(String username, String password) {
@@ -82,28 +84,34 @@ public class UserService {
     public int createUser(User user) {
         String sql = "INSERT INTO users (username, password, role, first_name, last_name, email) VALUES (?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = databaseService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            pstmt.setString(1, user.getUsername());
-            pstmt.setString(2, user.getPassword());
-            pstmt.setString(3, user.getRole());
-            pstmt.setString(4, user.getFirstName());
-            pstmt.setString(5, user.getLastName());
-            pstmt.setString(6, user.getEmail());
-            
-            int rowsAffected = pstmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                ResultSet generatedKeys = pstmt.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    int userId = generatedKeys.getInt(1);
-                    System.out.println("✅ User created with ID: " + userId + 
-                                     ", Username: " + user.getUsername() + 
-                                     ", Role: " + user.getRole());
-                    return userId;
+        try {
+            return retryPolicy.execute("createUser", () -> {
+                try (Connection conn = databaseService.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    
+                    pstmt.setString(1, user.getUsername());
+                    pstmt.setString(2, user.getPassword());
+                    pstmt.setString(3, user.getRole());
+                    pstmt.setString(4, user.getFirstName());
+                    pstmt.setString(5, user.getLastName());
+                    pstmt.setString(6, user.getEmail());
+                    
+                    int rowsAffected = pstmt.executeUpdate();
+                    
+                    if (rowsAffected > 0) {
+                        ResultSet generatedKeys = pstmt.getGeneratedKeys();
+                        if (generatedKeys.next()) {
+                            int userId = generatedKeys.getInt(1);
+                            System.out.println("✅ User created with ID: " + userId + 
+                                             ", Username: " + user.getUsername() + 
+                                             ", Role: " + user.getRole());
+                            return userId;
+                        }
+                    }
+                    
+                    return -1;
                 }
-            }
+            });
             
         } catch (SQLException e) {
             System.err.println("❌ Error creating user: " + e.getMessage());
@@ -115,48 +123,40 @@ public class UserService {
     
     // UPDATED: Added transaction support for better reliability
     public boolean deleteUser(int userId) {
-        Connection conn = null;
-        
         try {
-            conn = databaseService.getConnection();
-            conn.setAutoCommit(false);
-            
-            String sql = "DELETE FROM users WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setInt(1, userId);
-                int rowsAffected = pstmt.executeUpdate();
-                
-                if (rowsAffected > 0) {
-                    conn.commit();
-                    System.out.println("✅ Deleted user with ID: " + userId);
-                    return true;
-                } else {
-                    conn.rollback();
-                    System.out.println("❌ User not found with ID: " + userId);
-                    return false;
+            return retryPolicy.execute("deleteUser", () -> {
+                try (Connection conn = databaseService.getConnection()) {
+                    conn.setAutoCommit(false);
+                    
+                    String sql = "DELETE FROM users WHERE id = ?";
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        pstmt.setInt(1, userId);
+                        int rowsAffected = pstmt.executeUpdate();
+                        
+                        if (rowsAffected > 0) {
+                            conn.commit();
+                            System.out.println("✅ Deleted user with ID: " + userId);
+                            return true;
+                        } else {
+                            conn.rollback();
+                            System.out.println("❌ User not found with ID: " + userId);
+                            return false;
+                        }
+                    } catch (SQLException e) {
+                        try {
+                            conn.rollback();
+                        } catch (SQLException ex) {
+                            ex.printStackTrace();
+                        }
+                        throw e;
+                    }
                 }
-            }
+            });
             
         } catch (SQLException e) {
             System.err.println("❌ Error deleting user: " + e.getMessage());
             e.printStackTrace();
-            
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
-            }
             return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
         }
     }
     
@@ -191,26 +191,31 @@ public class UserService {
     }
     
     // UPDATED: Update user including password AND username
+    // A null password keeps the stored one; API clients never receive it to send back
     public boolean updateUser(User user) {
-        String sql = "UPDATE users SET username = ?, password = ?, role = ?, first_name = ?, last_name = ?, email = ? WHERE id = ?";
+        String sql = "UPDATE users SET username = ?, password = COALESCE(?, password), role = ?, first_name = ?, last_name = ?, email = ? WHERE id = ?";
         
-        try (Connection conn = databaseService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, user.getUsername());
-            pstmt.setString(2, user.getPassword());
-            pstmt.setString(3, user.getRole());
-            pstmt.setString(4, user.getFirstName());
-            pstmt.setString(5, user.getLastName());
-            pstmt.setString(6, user.getEmail());
-            pstmt.setInt(7, user.getId());
-            
-            int rowsAffected = pstmt.executeUpdate();
-            System.out.println("Updated user ID " + user.getId() + 
-                             ", New username: " + user.getUsername() +
-                             ", Rows affected: " + rowsAffected);
-            
-            return rowsAffected > 0;
+        try {
+            return retryPolicy.executeIdempotent("updateUser", () -> {
+                try (Connection conn = databaseService.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setString(1, user.getUsername());
+                    pstmt.setString(2, user.getPassword());
+                    pstmt.setString(3, user.getRole());
+                    pstmt.setString(4, user.getFirstName());
+                    pstmt.setString(5, user.getLastName());
+                    pstmt.setString(6, user.getEmail());
+                    pstmt.setInt(7, user.getId());
+                    
+                    int rowsAffected = pstmt.executeUpdate();
+                    System.out.println("Updated user ID " + user.getId() + 
+                                     ", New username: " + user.getUsername() +
+                                     ", Rows affected: " + rowsAffected);
+                    
+                    return rowsAffected > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("Error updating user: " + e.getMessage());
@@ -223,17 +228,21 @@ public class UserService {
     public boolean updatePassword(int userId, String newPassword) {
         String sql = "UPDATE users SET password = ? WHERE id = ?";
         
-        try (Connection conn = databaseService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, newPassword);
-            pstmt.setInt(2, userId);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            System.out.println("Updated password for user ID " + userId + 
-                             ", Rows affected: " + rowsAffected);
-            
-            return rowsAffected > 0;
+        try {
+            return retryPolicy.executeIdempotent("updatePassword", () -> {
+                try (Connection conn = databaseService.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setString(1, newPassword);
+                    pstmt.setInt(2, userId);
+                    
+                    int rowsAffected = pstmt.executeUpdate();
+                    System.out.println("Updated password for user ID " + userId + 
+                                     ", Rows affected: " + rowsAffected);
+                    
+                    return rowsAffected > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("Error updating password: " + e.getMessage());
@@ -246,19 +255,23 @@ public class UserService {
     public boolean updateUsernameAndPassword(int userId, String newUsername, String newPassword) {
         String sql = "UPDATE users SET username = ?, password = ? WHERE id = ?";
         
-        try (Connection conn = databaseService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, newUsername);
-            pstmt.setString(2, newPassword);
-            pstmt.setInt(3, userId);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            System.out.println("Updated username and password for user ID " + userId + 
-                             ", New username: " + newUsername +
-                             ", Rows affected: " + rowsAffected);
-            
-            return rowsAffected > 0;
+        try {
+            return retryPolicy.executeIdempotent("updateUsernameAndPassword", () -> {
+                try (Connection conn = databaseService.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setString(1, newUsername);
+                    pstmt.setString(2, newPassword);
+                    pstmt.setInt(3, userId);
+                    
+                    int rowsAffected = pstmt.executeUpdate();
+                    System.out.println("Updated username and password for user ID " + userId + 
+                                     ", New username: " + newUsername +
+                                     ", Rows affected: " + rowsAffected);
+                    
+                    return rowsAffected > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("Error updating username and password: " + e.getMessage());
@@ -271,18 +284,22 @@ public class UserService {
     public boolean updateUsername(int userId, String newUsername) {
         String sql = "UPDATE users SET username = ? WHERE id = ?";
         
-        try (Connection conn = databaseService.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, newUsername);
-            pstmt.setInt(2, userId);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            System.out.println("Updated username for user ID " + userId + 
-                             ", New username: " + newUsername +
-                             ", Rows affected: " + rowsAffected);
-            
-            return rowsAffected > 0;
+        try {
+            return retryPolicy.executeIdempotent("updateUsername", () -> {
+                try (Connection conn = databaseService.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    
+                    pstmt.setString(1, newUsername);
+                    pstmt.setInt(2, userId);
+                    
+                    int rowsAffected = pstmt.executeUpdate();
+                    System.out.println("Updated username for user ID " + userId + 
+                                     ", New username: " + newUsername +
+                                     ", Rows affected: " + rowsAffected);
+                    
+                    return rowsAffected > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("Error updating username: " + e.getMessage());
@@ -1,22 +1,32 @@
 package attendance.controller;
 
+import attendance.model.AttendanceRegister;
+import attendance.model.AttendanceReportRow;
+import attendance.model.AttendanceStatistics;
+import attendance.model.AttendanceStatus;
+import attendance.model.ClassSummary;
 import attendance.model.User;
+import attendance.service.AttendanceRegisterService;
 import attendance.service.DatabaseService;
 import attendance.service.NotificationService;
+import attendance.service.Services;
+import attendance.service.TeacherService;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
@@ -31,18 +41,23 @@ public class ViewAttendanceController {
     @FXML private TableColumn<AttendanceRecord, String> dateColumn;
     @FXML private TableColumn<AttendanceRecord, String> studentIdColumn;
     @FXML private TableColumn<AttendanceRecord, String> nameColumn;
-    @FXML private TableColumn<AttendanceRecord, String> statusColumn;
+    @FXML private TableColumn<AttendanceRecord, AttendanceStatus> statusColumn;
     @FXML private TableColumn<AttendanceRecord, String> remarksColumn;
     
     private User currentUser;
     private DatabaseService databaseService;
+    private TeacherService teacherService;
+    private AttendanceRegisterService registerService;
     private NotificationService notificationService;
     private List<AttendanceRecord> currentReportData = new ArrayList<>();
+    private List<AttendanceReportRow> currentReportRows = List.of();
     
     public void setCurrentUser(User user) {
         this.currentUser = user;
         this.databaseService = new DatabaseService();
-        this.notificationService = new NotificationService();
+        this.teacherService = Services.teacherService();
+        this.registerService = new AttendanceRegisterService(databaseService);
+        this.notificationService = Services.notificationService();
         
         // Set default dates (last 7 days)
         toDatePicker.setValue(LocalDate.now());
@@ -62,23 +77,23 @@ public class ViewAttendanceController {
         remarksColumn.setCellValueFactory(new PropertyValueFactory<>("remarks"));
         
         // Style status column cells
-        statusColumn.setCellFactory(column -> new TableCell<AttendanceRecord, String>() {
+        statusColumn.setCellFactory(column -> new TableCell<AttendanceRecord, AttendanceStatus>() {
             @Override
-            protected void updateItem(String status, boolean empty) {
+            protected void updateItem(AttendanceStatus status, boolean empty) {
                 super.updateItem(status, empty);
                 if (empty || status == null) {
                     setText(null);
                     setStyle("");
                 } else {
-                    setText(status);
+                    setText(status.name());
                     switch (status) {
-                        case "PRESENT":
+                        case PRESENT:
                             setStyle("-fx-background-color: #d1fae5; -fx-text-fill: #065f46; -fx-font-weight: bold; -fx-background-radius: 10px; -fx-padding: 2px 6px;");
                             break;
-                        case "ABSENT":
+                        case ABSENT:
                             setStyle("-fx-background-color: #fee2e2; -fx-text-fill: #991b1b; -fx-font-weight: bold; -fx-background-radius: 10px; -fx-padding: 2px 6px;");
                             break;
-                        case "LATE":
+                        case LATE:
                             setStyle("-fx-background-color: #fef3c7; -fx-text-fill: #92400e; -fx-font-weight: bold; -fx-background-radius: 10px; -fx-padding: 2px 6px;");
                             break;
                         default:
@@ -92,28 +107,14 @@ public class ViewAttendanceController {
     private void loadTeacherClasses() {
         if (currentUser == null) return;
         
-        try {
-            String sql = "SELECT class_name FROM classes WHERE teacher_id = ? ORDER BY class_name";
-            try (Connection conn = databaseService.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                
-                pstmt.setInt(1, currentUser.getId());
-                ResultSet rs = pstmt.executeQuery();
-                
-                ObservableList<String> classes = FXCollections.observableArrayList();
-                classes.add("All Classes"); // Add option for all classes
-                while (rs.next()) {
-                    classes.add(rs.getString("class_name"));
-                }
-                
-                classComboBox.setItems(classes);
-                if (!classes.isEmpty()) {
-                    classComboBox.getSelectionModel().select(0);
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error loading classes: " + e.getMessage());
+        ObservableList<String> classes = FXCollections.observableArrayList();
+        classes.add(TeacherService.ALL_CLASSES); // Add option for all classes
+        for (ClassSummary summary : teacherService.getTeacherClasses(currentUser.getId())) {
+            classes.add(summary.className());
         }
+        
+        classComboBox.setItems(classes);
+        classComboBox.getSelectionModel().select(0);
     }
     
     @FXML
@@ -136,64 +137,149 @@ public class ViewAttendanceController {
     }
     
     private void loadAttendanceData(String className, String fromDate, String toDate) {
-        try {
-            StringBuilder sql = new StringBuilder();
-            sql.append("SELECT a.date, s.student_id, s.first_name, s.last_name, a.status, a.remarks ")
-               .append("FROM attendance a ")
-               .append("JOIN students s ON a.student_id = s.id ")
-               .append("WHERE a.date BETWEEN ? AND ? ");
-            
-            if (!className.equals("All Classes")) {
-                sql.append("AND s.class_name = ? ");
-            }
-            
-            sql.append("ORDER BY a.date DESC, s.last_name, s.first_name");
-            
-            try (Connection conn = databaseService.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
-                
-                pstmt.setString(1, fromDate);
-                pstmt.setString(2, toDate);
-                
-                if (!className.equals("All Classes")) {
-                    pstmt.setString(3, className);
-                }
-                
-                ResultSet rs = pstmt.executeQuery();
-                
-                currentReportData.clear();
-                ObservableList<AttendanceRecord> records = FXCollections.observableArrayList();
-                while (rs.next()) {
-                    String date = rs.getString("date");
-                    String studentId = rs.getString("student_id");
-                    String firstName = rs.getString("first_name");
-                    String lastName = rs.getString("last_name");
-                    String status = rs.getString("status");
-                    String remarks = rs.getString("remarks");
-                    
-                    AttendanceRecord record = new AttendanceRecord(
-                        date,
-                        studentId,
-                        firstName + " " + lastName,
-                        status != null ? status : "ABSENT",
-                        remarks != null ? remarks : ""
-                    );
-                    
-                    records.add(record);
-                    currentReportData.add(record);
-                }
-                
-                attendanceTable.setItems(records);
-                
-                if (records.isEmpty()) {
-                    showAlert("Info", "No attendance records found for the selected criteria.");
-                } else {
-                    showAlert("Success", "Report generated successfully! Found " + records.size() + " records.");
+        // Repeated clicks for the same class and range are served from the ReportCache until
+        // attendance in that range is written
+        List<AttendanceReportRow> rows = teacherService.getAttendanceReport(
+            className.equals(TeacherService.ALL_CLASSES) ? null : className,
+            LocalDate.parse(fromDate), LocalDate.parse(toDate));
+        
+        if (rows == null) {
+            showAlert("Error", "Failed to load attendance data. Please try again.");
+            return;
+        }
+        
+        List<AttendanceRecord> loaded = new ArrayList<>(rows.size());
+        for (AttendanceReportRow row : rows) {
+            loaded.add(new AttendanceRecord(
+                row.date().toString(),
+                row.studentId(),
+                row.fullName(),
+                row.status(),
+                row.remarks() != null ? row.remarks() : ""
+            ));
+        }
+        
+        currentReportRows = rows;
+        currentReportData.clear();
+        currentReportData.addAll(loaded);
+        attendanceTable.setItems(FXCollections.observableArrayList(loaded));
+        
+        if (loaded.isEmpty()) {
+            showAlert("Info", "No attendance records found for the selected criteria.");
+        } else {
+            showAlert("Success", "Report generated successfully! Found " + loaded.size() + " records.");
+        }
+    }
+    
+    @FXML
+    private void handleShowRegister() {
+        String selectedClass = classComboBox.getValue();
+        LocalDate fromDate = fromDatePicker.getValue();
+        LocalDate toDate = toDatePicker.getValue();
+        
+        if (selectedClass == null || selectedClass.equals(TeacherService.ALL_CLASSES) || fromDate == null || toDate == null
+                || fromDate.isAfter(toDate)) {
+            showAlert("Error", "Please select a single class and a valid date range");
+            return;
+        }
+        
+        AttendanceRegister register = registerService.build(selectedClass, fromDate, toDate);
+        if (register == null) {
+            showAlert("Error", "Failed to build the attendance register.");
+            return;
+        }
+        
+        // Rows are student indexes into the register; the table only creates cells for what is visible
+        TableView<Integer> grid = new TableView<>();
+        grid.setPrefSize(900, 520);
+        grid.setPlaceholder(new Label("No students in this class."));
+        
+        TableColumn<Integer, String> idColumn = new TableColumn<>("Student ID");
+        idColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(register.getStudentId(cell.getValue())));
+        TableColumn<Integer, String> studentColumn = new TableColumn<>("Name");
+        studentColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(register.getStudentName(cell.getValue())));
+        idColumn.setPrefWidth(90);
+        studentColumn.setPrefWidth(160);
+        grid.getColumns().add(idColumn);
+        grid.getColumns().add(studentColumn);
+        
+        DateTimeFormatter headerFormat = DateTimeFormatter.ofPattern("MMM d");
+        for (int day = 0; day < register.getDayCount(); day++) {
+            int column = day;
+            TableColumn<Integer, AttendanceStatus> dayColumn =
+                new TableColumn<>(register.getDate(column).format(headerFormat));
+            dayColumn.setCellValueFactory(cell ->
+                new ReadOnlyObjectWrapper<>(register.getStatus(cell.getValue(), column)));
+            dayColumn.setCellFactory(col -> new TableCell<Integer, AttendanceStatus>() {
+                @Override
+                protected void updateItem(AttendanceStatus status, boolean empty) {
+                    super.updateItem(status, empty);
+                    setText(empty ? null : AttendanceRegisterService.symbol(status));
+                    if (empty || status == null) {
+                        setStyle("");
+                    } else if (status == AttendanceStatus.PRESENT) {
+                        setStyle("-fx-text-fill: #065f46; -fx-alignment: center;");
+                    } else if (status == AttendanceStatus.ABSENT) {
+                        setStyle("-fx-text-fill: #991b1b; -fx-font-weight: bold; -fx-alignment: center;");
+                    } else {
+                        setStyle("-fx-text-fill: #92400e; -fx-alignment: center;");
+                    }
                 }
+            });
+            dayColumn.setPrefWidth(52);
+            dayColumn.setSortable(false);
+            grid.getColumns().add(dayColumn);
+        }
+        
+        TableColumn<Integer, String> rateColumn = new TableColumn<>("Rate %");
+        rateColumn.setCellValueFactory(cell -> {
+            AttendanceStatistics stats = register.rowStatistics(cell.getValue());
+            return new ReadOnlyStringWrapper(String.format("%.1f", stats.presentRate() + stats.lateRate()));
+        });
+        grid.getColumns().add(rateColumn);
+        
+        ObservableList<Integer> rows = FXCollections.observableArrayList();
+        for (int row = 0; row < register.getStudentCount(); row++) {
+            rows.add(row);
+        }
+        grid.setItems(rows);
+        
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("Attendance Register");
+        dialog.setHeaderText("🗓️ " + selectedClass + ": " + register.getStudentCount() + " students, " +
+                             register.getDayCount() + " days (" + fromDate + " to " + toDate + ")");
+        dialog.getDialogPane().setContent(grid);
+        dialog.setResizable(true);
+        
+        ButtonType exportButton = new ButtonType("Export CSV", ButtonBar.ButtonData.OTHER);
+        dialog.getDialogPane().getButtonTypes().addAll(exportButton, ButtonType.CLOSE);
+        dialog.setResultConverter(buttonType -> {
+            if (buttonType == exportButton) {
+                exportRegister(register, fromDate, toDate);
             }
-        } catch (SQLException e) {
-            System.err.println("Error loading attendance data: " + e.getMessage());
-            showAlert("Error", "Failed to load attendance data: " + e.getMessage());
+            return null;
+        });
+        dialog.showAndWait();
+    }
+    
+    private void exportRegister(AttendanceRegister register, LocalDate fromDate, LocalDate toDate) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Register As");
+        fileChooser.setInitialFileName("Register_" + register.getClassName().replaceAll("[^a-zA-Z0-9]", "_") +
+                                       "_" + fromDate + "_" + toDate + ".csv");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        
+        File file = fileChooser.showSaveDialog(attendanceTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            AttendanceRegisterService.writeCsv(register, writer);
+            showAlert("Success", "Register exported to:\n" + file.getAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("❌ Error exporting register: " + e.getMessage());
+            showAlert("Error", "Failed to export register: " + e.getMessage());
         }
     }
     
@@ -212,13 +298,13 @@ public class ViewAttendanceController {
         
         for (AttendanceRecord record : currentReportData) {
             switch (record.getStatus()) {
-                case "PRESENT":
+                case PRESENT:
                     presentCount++;
                     break;
-                case "ABSENT":
+                case ABSENT:
                     absentCount++;
                     break;
-                case "LATE":
+                case LATE:
                     lateCount++;
                     break;
             }
@@ -269,12 +355,19 @@ public class ViewAttendanceController {
     
     @FXML
     private void handlePrintReport() {
-        if (currentReportData.isEmpty()) {
-            showAlert("Error", "No data to print. Please generate a report first.");
+        String selectedClass = classComboBox.getValue();
+        LocalDate fromDate = fromDatePicker.getValue();
+        LocalDate toDate = toDatePicker.getValue();
+        
+        if (selectedClass == null || fromDate == null || toDate == null || fromDate.isAfter(toDate)) {
+            showAlert("Error", "Please select a class and a valid date range");
             return;
         }
         
-        showAlert("Print", "Print functionality will be implemented in the next update.");
+        // Rendered straight from the database, so long ranges need not fit in the table
+        ReportExportDialog.show(attendanceTable.getScene().getWindow(),
+                                selectedClass.equals(TeacherService.ALL_CLASSES) ? null : selectedClass,
+                                currentUser.getId(), fromDate, toDate);
     }
     
     private void showAlert(String title, String message) {
@@ -301,94 +394,43 @@ public class ViewAttendanceController {
             return;
         }
         
-        try (Connection conn = databaseService.getConnection()) {
-            conn.setAutoCommit(false);
-            
-            // 1. Save the report to database
-            String reportSql = "INSERT INTO attendance_reports (teacher_id, class_name, from_date, to_date, " +
-                              "submitted_date, report_data, status) " +
-                              "VALUES (?, ?, ?, ?, ?, ?, ?)";
-            
-            int reportId;
-            try (PreparedStatement pstmt = conn.prepareStatement(reportSql, Statement.RETURN_GENERATED_KEYS)) {
-                pstmt.setInt(1, currentUser.getId());
-                pstmt.setString(2, selectedClass);
-                pstmt.setString(3, fromDate.toString());
-                pstmt.setString(4, toDate.toString());
-                pstmt.setString(5, LocalDate.now().toString());
-                
-                // Convert report data to JSON string
-                StringBuilder reportData = new StringBuilder();
-                reportData.append("Total Records: ").append(currentReportData.size()).append("\n");
-                reportData.append("Generated at: ").append(LocalDateTime.now()).append("\n");
-                reportData.append("Class: ").append(selectedClass).append("\n");
-                reportData.append("Date Range: ").append(fromDate).append(" to ").append(toDate).append("\n\n");
-                
-                int presentCount = 0, absentCount = 0, lateCount = 0;
-                for (AttendanceRecord record : currentReportData) {
-                    switch (record.getStatus()) {
-                        case "PRESENT": presentCount++; break;
-                        case "ABSENT": absentCount++; break;
-                        case "LATE": lateCount++; break;
-                    }
-                }
-                
-                reportData.append("Summary:\n");
-                reportData.append("- Present: ").append(presentCount).append("\n");
-                reportData.append("- Absent: ").append(absentCount).append("\n");
-                reportData.append("- Late: ").append(lateCount).append("\n");
-                reportData.append("- Total: ").append(currentReportData.size()).append("\n");
-                
-                pstmt.setString(6, reportData.toString());
-                pstmt.setString(7, "SUBMITTED");
-                
-                pstmt.executeUpdate();
-                
-                // Get the generated report ID
-                ResultSet generatedKeys = pstmt.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    reportId = generatedKeys.getInt(1);
-                } else {
-                    throw new SQLException("Failed to get report ID");
-                }
-            }
-            
-            // 2. Send notification to admin using NotificationService
-            notificationService.sendAttendanceReportToAdmin(
-                currentUser.getId(),
-                currentUser.getFullName(), // Now works with the updated User class
+        // 1. Save the report with every submitted row, so admins can reopen and
+        // re-aggregate it later
+        int reportId = teacherService.submitAttendanceReport(currentUser.getId(),
+            selectedClass.equals(TeacherService.ALL_CLASSES) ? null : selectedClass, fromDate, toDate, currentReportRows);
+        if (reportId < 0) {
+            showAlert("Error", "Failed to send report. Please try again.");
+            return;
+        }
+        
+        // 2. Send notification to admin using NotificationService
+        notificationService.sendAttendanceReportToAdmin(
+            currentUser.getId(),
+            currentUser.getFullName(), // Now works with the updated User class
+            selectedClass,
+            fromDate.toString(),
+            toDate.toString(),
+            reportId
+        );
+        
+        // 3. Notify students
+        if (!selectedClass.equals(TeacherService.ALL_CLASSES)) {
+            notificationService.notifyStudentsAboutAttendance(
                 selectedClass,
                 fromDate.toString(),
-                toDate.toString(),
-                reportId
+                toDate.toString()
             );
-            
-            // 3. Notify students
-            if (!selectedClass.equals("All Classes")) {
-                notificationService.notifyStudentsAboutAttendance(
-                    selectedClass,
-                    fromDate.toString(),
-                    toDate.toString()
-                );
-            }
-            
-            conn.commit();
-            
-            showAlert("Success ✅", 
-                "Attendance report has been successfully submitted!\n\n" +
-                "✅ Sent to admin for review\n" +
-                "✅ Notified students about their attendance\n" +
-                "✅ Report ID: #" + reportId + "\n" +
-                "✅ Class: " + selectedClass + "\n" +
-                "✅ Period: " + fromDate + " to " + toDate + "\n\n" +
-                "Students can now view their attendance in their dashboard."
-            );
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error sending report: " + e.getMessage());
-            e.printStackTrace();
-            showAlert("Error", "Failed to send report: " + e.getMessage());
         }
+        
+        showAlert("Success ✅", 
+            "Attendance report has been successfully submitted!\n\n" +
+            "✅ Sent to admin for review\n" +
+            "✅ Notified students about their attendance\n" +
+            "✅ Report ID: #" + reportId + "\n" +
+            "✅ Class: " + selectedClass + "\n" +
+            "✅ Period: " + fromDate + " to " + toDate + "\n\n" +
+            "Students can now view their attendance in their dashboard."
+        );
     }
     
     // Inner class for table data
@@ -396,10 +438,10 @@ public class ViewAttendanceController {
         private String date;
         private String studentId;
         private String studentName;
-        private String status;
+        private AttendanceStatus status;
         private String remarks;
         
-        public AttendanceRecord(String date, String studentId, String studentName, String status, String remarks) {
+        public AttendanceRecord(String date, String studentId, String studentName, AttendanceStatus status, String remarks) {
             this.date = date;
             this.studentId = studentId;
             this.studentName = studentName;
@@ -410,7 +452,7 @@ public class ViewAttendanceController {
         public String getDate() { return date; }
         public String getStudentId() { return studentId; }
         public String getStudentName() { return studentName; }
-        public String getStatus() { return status; }
+        public AttendanceStatus getStatus() { return status; }
         public String getRemarks() { return remarks; }
     }
 }
\ No newline at end of file
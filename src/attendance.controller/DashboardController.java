@@ -1,6 +1,10 @@
 package attendance.controller;
 
+import attendance.model.AttendanceStatistics;
+import attendance.model.AttendanceStatus;
 import attendance.model.User;
+import attendance.service.AttendanceCube;
+import attendance.service.AttendanceDates;
 import attendance.service.DatabaseService;
 import attendance.service.ClassService;
 import attendance.service.TeacherService;
@@ -22,7 +26,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
 import java.util.*;
 
 public class DashboardController {
@@ -181,7 +187,7 @@ public class DashboardController {
             totalTeachersLabel.setText(String.valueOf(totalTeachers));
             
             // Get total classes count
-            List<Map<String, Object>> classes = classService.getAllClasses();
+            List<attendance.model.ClassSummary> classes = classService.getAllClasses();
             int totalClasses = classes.size();
             totalClassesLabel.setText(String.valueOf(totalClasses));
             
@@ -206,44 +212,13 @@ public class DashboardController {
     }
     
     private double calculateOverallAttendance() {
-        double attendanceRate = 0.0;
+        // Rolled up from the attendance cube over the last four ISO weeks
+        LocalDate today = LocalDate.now();
+        AttendanceStatistics stats = AttendanceCube.getInstance().total(
+            AttendanceCube.Slice.all().between(today.minusWeeks(3), today));
         
-        if (databaseService == null) {
-            System.err.println("❌ DatabaseService is null, returning sample data");
-            return 85.5; // Return sample data
-        }
-        
-        try {
-            String sql = """
-                SELECT 
-                    COUNT(*) as total_records,
-                    SUM(CASE WHEN UPPER(status) = 'PRESENT' THEN 1 ELSE 0 END) as present_count
-                FROM attendance 
-                WHERE date >= DATE_SUB(CURDATE(), INTERVAL 30 DAY)
-            """;
-            
-            try (Connection conn = databaseService.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql);
-                 ResultSet rs = pstmt.executeQuery()) {
-                
-                if (rs.next()) {
-                    int totalRecords = rs.getInt("total_records");
-                    int presentCount = rs.getInt("present_count");
-                    
-                    System.out.println("📊 Total attendance records: " + totalRecords + ", Present: " + presentCount);
-                    
-                    if (totalRecords > 0) {
-                        attendanceRate = (presentCount * 100.0) / totalRecords;
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("❌ Error calculating overall attendance: " + e.getMessage());
-            e.printStackTrace();
-            // Return sample data for demonstration
-            attendanceRate = 85.5;
-        }
-        return attendanceRate;
+        System.out.println("📊 Total attendance records: " + stats.totalRecords() + ", Present: " + stats.presentCount());
+        return stats.presentRate();
     }
     
     private void loadCharts() {
@@ -289,17 +264,18 @@ public class DashboardController {
             }
             
             // Get data for the last 7 days
+            // Seven days, so each day of the week appears once
             String sql = """
                 SELECT 
-                    DAYNAME(date) as day_name,
-                    DATE_FORMAT(date, '%W') as full_day_name,
+                    day,
                     COUNT(*) as total,
-                    SUM(CASE WHEN UPPER(status) = 'PRESENT' THEN 1 ELSE 0 END) as present
-                FROM attendance 
-                WHERE date >= DATE_SUB(CURDATE(), INTERVAL 7 DAY)
-                GROUP BY DAYNAME(date), DATE_FORMAT(date, '%W'), DAYOFWEEK(date)
-                ORDER BY DAYOFWEEK(date)
-            """;
+                    SUM(status = %d) as present
+                FROM attendance_records 
+                WHERE day > %d
+                GROUP BY day
+                ORDER BY day
+            """.formatted(AttendanceStatus.PRESENT.getCode(),
+                          AttendanceDates.toDay(LocalDate.now().minusDays(7)));
             
             XYChart.Series<String, Number> series = new XYChart.Series<>();
             series.setName("Attendance Rate");
@@ -311,7 +287,8 @@ public class DashboardController {
                 System.out.println("📅 Weekly attendance data:");
                 int dataCount = 0;
                 while (rs.next()) {
-                    String dayName = rs.getString("full_day_name");
+                    String dayName = AttendanceDates.fromDay(rs.getLong("day"))
+                            .getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ENGLISH);
                     int total = rs.getInt("total");
                     int present = rs.getInt("present");
                     
@@ -370,71 +347,46 @@ public class DashboardController {
     }
     
     private void loadAttendanceDistributionChart() {
-        if (databaseService == null) {
-            System.err.println("❌ DatabaseService is null, loading sample pie chart data");
-            loadSamplePieChartData();
-            return;
+        System.out.println("📊 Loading attendance distribution chart...");
+        
+        // Clear existing data
+        if (attendanceDistributionChart != null) {
+            attendanceDistributionChart.getData().clear();
         }
         
-        try {
-            System.out.println("📊 Loading attendance distribution chart...");
-            
-            // Clear existing data
-            if (attendanceDistributionChart != null) {
-                attendanceDistributionChart.getData().clear();
-            }
-            
-            // Get distribution for last 30 days
-            String sql = """
-                SELECT 
-                    COALESCE(UPPER(status), 'UNKNOWN') as status,
-                    COUNT(*) as count
-                FROM attendance 
-                WHERE date >= DATE_SUB(CURDATE(), INTERVAL 30 DAY)
-                GROUP BY status
-                ORDER BY status
-            """;
-            
-            ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
-            int total = 0;
-            
-            try (Connection conn = databaseService.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql);
-                 ResultSet rs = pstmt.executeQuery()) {
+        // Distribution over the last four ISO weeks, straight from the cube
+        LocalDate today = LocalDate.now();
+        AttendanceStatistics stats = AttendanceCube.getInstance().total(
+            AttendanceCube.Slice.all().between(today.minusWeeks(3), today));
+        int excused = stats.totalRecords() - stats.presentCount() - stats.absentCount() - stats.lateCount();
+        
+        ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
+        addPieSlice(pieChartData, AttendanceStatus.PRESENT, stats.presentCount());
+        addPieSlice(pieChartData, AttendanceStatus.ABSENT, stats.absentCount());
+        addPieSlice(pieChartData, AttendanceStatus.LATE, stats.lateCount());
+        addPieSlice(pieChartData, AttendanceStatus.EXCUSED, excused);
+        
+        if (attendanceDistributionChart != null) {
+            if (pieChartData.isEmpty()) {
+                System.out.println("⚠️ No attendance data found, loading sample data");
+                loadSamplePieChartData();
+            } else {
+                attendanceDistributionChart.setData(pieChartData);
+                attendanceDistributionChart.setTitle("Attendance Distribution (Last 4 Weeks)");
+                attendanceDistributionChart.setLabelsVisible(true);
+                attendanceDistributionChart.setLegendVisible(true);
+                attendanceDistributionChart.setAnimated(true);
                 
-                while (rs.next()) {
-                    String status = rs.getString("status");
-                    int count = rs.getInt("count");
-                    
-                    if (status != null && !status.isEmpty() && !status.equals("UNKNOWN")) {
-                        String displayLabel = status + " (" + count + ")";
-                        pieChartData.add(new PieChart.Data(displayLabel, count));
-                        total += count;
-                        System.out.println("Status: " + status + ", Count: " + count);
-                    }
-                }
+                // Apply colors
+                applyPieChartColors();
             }
-            
-            if (attendanceDistributionChart != null) {
-                if (pieChartData.isEmpty()) {
-                    System.out.println("⚠️ No attendance data found, loading sample data");
-                    loadSamplePieChartData();
-                } else {
-                    attendanceDistributionChart.setData(pieChartData);
-                    attendanceDistributionChart.setTitle("Attendance Distribution (Last 30 Days)");
-                    attendanceDistributionChart.setLabelsVisible(true);
-                    attendanceDistributionChart.setLegendVisible(true);
-                    attendanceDistributionChart.setAnimated(true);
-                    
-                    // Apply colors
-                    applyPieChartColors();
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error loading attendance distribution chart: " + e.getMessage());
-            e.printStackTrace();
-            loadSamplePieChartData();
+        }
+    }
+    
+    private void addPieSlice(ObservableList<PieChart.Data> pieChartData, AttendanceStatus status, int count) {
+        if (count > 0) {
+            pieChartData.add(new PieChart.Data(status + " (" + count + ")", count));
+            System.out.println("Status: " + status + ", Count: " + count);
         }
     }
     
@@ -492,14 +444,16 @@ public class DashboardController {
             // Get data for last 6 months
             String sql = """
                 SELECT 
-                    DATE_FORMAT(date, '%b %Y') as month_display,
+                    strftime('%%Y-%%m', day * 86400, 'unixepoch') as month,
                     COUNT(*) as total,
-                    SUM(CASE WHEN UPPER(status) = 'PRESENT' THEN 1 ELSE 0 END) as present
-                FROM attendance 
-                WHERE date >= DATE_SUB(CURDATE(), INTERVAL 6 MONTH)
-                GROUP BY DATE_FORMAT(date, '%Y-%m'), month_display
-                ORDER BY MIN(date)
-            """;
+                    SUM(status = %d) as present
+                FROM attendance_records 
+                WHERE day >= %d
+                GROUP BY month
+                ORDER BY month
+            """.formatted(AttendanceStatus.PRESENT.getCode(),
+                          AttendanceDates.toDay(LocalDate.now().minusMonths(6)));
+            DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM yyyy");
             
             XYChart.Series<String, Number> series = new XYChart.Series<>();
             series.setName("Monthly Trend");
@@ -511,7 +465,7 @@ public class DashboardController {
                 System.out.println("📅 Monthly trend data:");
                 int dataCount = 0;
                 while (rs.next()) {
-                    String monthDisplay = rs.getString("month_display");
+                    String monthDisplay = YearMonth.parse(rs.getString("month")).format(monthFormatter);
                     int total = rs.getInt("total");
                     int present = rs.getInt("present");
                     
@@ -597,10 +551,10 @@ public class DashboardController {
                     s.first_name,
                     s.last_name,
                     a.status,
-                    DATE_FORMAT(a.date, '%Y-%m-%d') as date_str,
+                    a.day,
                     c.class_name,
-                    DATE_FORMAT(a.created_at, '%H:%i') as time_str
-                FROM attendance a
+                    strftime('%H:%M', a.created_at) as time_str
+                FROM attendance_records a
                 JOIN students s ON a.student_id = s.id
                 LEFT JOIN classes c ON a.class_id = c.id
                 ORDER BY a.created_at DESC
@@ -614,15 +568,18 @@ public class DashboardController {
                 while (rs.next()) {
                     String firstName = rs.getString("first_name");
                     String lastName = rs.getString("last_name");
-                    String status = rs.getString("status");
-                    String dateStr = rs.getString("date_str");
+                    AttendanceStatus status = AttendanceStatus.fromCode(rs.getInt("status"));
+                    String dateStr = AttendanceDates.fromDay(rs.getLong("day")).toString();
                     String className = rs.getString("class_name");
                     String timeStr = rs.getString("time_str");
                     
-                    String icon = "📊";
-                    if ("PRESENT".equalsIgnoreCase(status)) icon = "✅";
-                    else if ("ABSENT".equalsIgnoreCase(status)) icon = "❌";
-                    else if ("LATE".equalsIgnoreCase(status)) icon = "⚠️";
+                    String icon;
+                    switch (status) {
+                        case PRESENT: icon = "✅"; break;
+                        case ABSENT: icon = "❌"; break;
+                        case LATE: icon = "⚠️"; break;
+                        default: icon = "📊";
+                    }
                     
                     String activity = icon + " " + firstName + " " + lastName + 
                                     " was " + status + " in " + 
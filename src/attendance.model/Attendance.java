@@ -6,12 +6,12 @@ public class Attendance {
     private int id;
     private int studentId;
     private LocalDate date;
-    private String status;
+    private AttendanceStatus status;
     private String remarks;
 
     public Attendance() {}
     
-    public Attendance(int studentId, LocalDate date, String status) {
+    public Attendance(int studentId, LocalDate date, AttendanceStatus status) {
         this.studentId = studentId;
         this.date = date;
         this.status = status;
@@ -27,8 +27,8 @@ public class Attendance {
     public LocalDate getDate() { return date; }
     public void setDate(LocalDate date) { this.date = date; }
     
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public AttendanceStatus getStatus() { return status; }
+    public void setStatus(AttendanceStatus status) { this.status = status; }
     
     public String getRemarks() { return remarks; }
     public void setRemarks(String remarks) { this.remarks = remarks; }
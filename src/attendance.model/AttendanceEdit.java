@@ -0,0 +1,12 @@
+package attendance.model;
+
+import java.time.LocalDate;
+
+/**
+ * One attendance change as journaled for offline sync. seq orders the local
+ * journal; hlc is the HybridLogicalClock stamp that decides which of two
+ * edits to the same student and date wins.
+ */
+public record AttendanceEdit(long seq, long hlc, int studentId, LocalDate date,
+                             AttendanceStatus status, String remarks) {
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package attendance.model;
+
+import java.time.LocalDate;
+
+/**
+ * A class register: one row per student, one column per day, backed by a
+ * single byte array of status codes in row-major order. NO_RECORD marks a
+ * student with no attendance row for that day. Columns are the days in the
+ * range on which anyone in the class has a record.
+ */
+public final class AttendanceRegister {
+
+    public static final byte NO_RECORD = -1;
+
+    private final String className;
+    private final String[] studentIds;
+    private final String[] studentNames;
+    private final int[] days;
+    private final byte[] cells;
+
+    public AttendanceRegister(String className, String[] studentIds, String[] studentNames, int[] days, byte[] cells) {
+        if (cells.length != studentIds.length * days.length) {
+            throw new IllegalArgumentException("Register cells do not match " + studentIds.length + " x " + days.length);
+        }
+        this.className = className;
+        this.studentIds = studentIds;
+        this.studentNames = studentNames;
+        this.days = days;
+        this.cells = cells;
+    }
+
+    public String getClassName() { return className; }
+
+    public int getStudentCount() {
+        return studentIds.length;
+    }
+
+    public int getDayCount() {
+        return days.length;
+    }
+
+    public String getStudentId(int row) {
+        return studentIds[row];
+    }
+
+    public String getStudentName(int row) {
+        return studentNames[row];
+    }
+
+    public LocalDate getDate(int column) {
+        return LocalDate.ofEpochDay(days[column]);
+    }
+
+    /** Null when the student has no record that day. */
+    public AttendanceStatus getStatus(int row, int column) {
+        byte code = cells[row * days.length + column];
+        return code == NO_RECORD ? null : AttendanceStatus.fromCode(code);
+    }
+
+    public AttendanceStatistics rowStatistics(int row) {
+        return statistics(row * days.length, 1, days.length);
+    }
+
+    public AttendanceStatistics columnStatistics(int column) {
+        return statistics(column, days.length, studentIds.length);
+    }
+
+    private AttendanceStatistics statistics(int start, int stride, int count) {
+        int[] counts = new int[AttendanceStatus.values().length];
+        int total = 0;
+        for (int i = 0, index = start; i < count; i++, index += stride) {
+            if (cells[index] != NO_RECORD) {
+                counts[cells[index]]++;
+                total++;
+            }
+        }
+        return new AttendanceStatistics(total, counts[AttendanceStatus.PRESENT.getCode()],
+            counts[AttendanceStatus.ABSENT.getCode()], counts[AttendanceStatus.LATE.getCode()]);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package attendance.model;
+
+import java.time.LocalDate;
+
+/** One recorded day of a student in an attendance report. */
+public record AttendanceReportRow(LocalDate date, String studentId, String firstName, String lastName,
+                                  AttendanceStatus status, String remarks) {
+
+    public String fullName() {
+        return firstName + " " + lastName;
+    }
+}
\ No newline at end of file
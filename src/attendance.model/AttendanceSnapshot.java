@@ -0,0 +1,177 @@
+package attendance.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The attendance rows of a submitted report, held column by column: one entry
+ * per row in days, students and statuses, with students indexing a dictionary
+ * of student ids and names. Rows are sorted by day, then student. Built with
+ * a Builder when a report is submitted and decoded from attendance_reports,
+ * so a report can be re-aggregated without the live tables.
+ */
+public final class AttendanceSnapshot {
+
+    private final String className;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final LocalDateTime generatedAt;
+    private final String[] studentIds;
+    private final String[] studentNames;
+    private final int[] days;
+    private final int[] students;
+    private final byte[] statuses;
+    private final String[] remarks;
+
+    /** Arrays are taken as they are; remarks entries may be null. */
+    public AttendanceSnapshot(String className, LocalDate from, LocalDate to, LocalDateTime generatedAt,
+                              String[] studentIds, String[] studentNames,
+                              int[] days, int[] students, byte[] statuses, String[] remarks) {
+        this.className = className;
+        this.from = from;
+        this.to = to;
+        this.generatedAt = generatedAt;
+        this.studentIds = studentIds;
+        this.studentNames = studentNames;
+        this.days = days;
+        this.students = students;
+        this.statuses = statuses;
+        this.remarks = remarks;
+    }
+
+    public String getClassName() { return className; }
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+
+    public int size() {
+        return days.length;
+    }
+
+    public int getStudentCount() {
+        return studentIds.length;
+    }
+
+    public String getStudentId(int student) {
+        return studentIds[student];
+    }
+
+    public String getStudentName(int student) {
+        return studentNames[student];
+    }
+
+    /** Epoch day of a row, as in attendance_records.day. */
+    public int getDay(int row) {
+        return days[row];
+    }
+
+    public LocalDate getDate(int row) {
+        return LocalDate.ofEpochDay(days[row]);
+    }
+
+    /** Dictionary index of the row's student. */
+    public int getStudent(int row) {
+        return students[row];
+    }
+
+    public AttendanceStatus getStatus(int row) {
+        return AttendanceStatus.fromCode(statuses[row]);
+    }
+
+    public String getRemarks(int row) {
+        return remarks[row];
+    }
+
+    public AttendanceStatistics statistics() {
+        return count(0, days.length, -1);
+    }
+
+    public AttendanceStatistics statisticsForStudent(int student) {
+        return count(0, days.length, student);
+    }
+
+    // Rows are sorted by day, so one day is a contiguous run
+    public AttendanceStatistics statisticsForDay(LocalDate date) {
+        int day = (int) date.toEpochDay();
+        int start = lowerBound(day);
+        return count(start, lowerBound(day + 1), -1);
+    }
+
+    private int lowerBound(int day) {
+        int index = Arrays.binarySearch(days, day);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && days[index - 1] == day) {
+            index--;
+        }
+        return index;
+    }
+
+    private AttendanceStatistics count(int start, int end, int student) {
+        int[] counts = new int[AttendanceStatus.values().length];
+        int total = 0;
+        for (int row = start; row < end; row++) {
+            if (student < 0 || students[row] == student) {
+                counts[statuses[row]]++;
+                total++;
+            }
+        }
+        return new AttendanceStatistics(total, counts[AttendanceStatus.PRESENT.getCode()],
+            counts[AttendanceStatus.ABSENT.getCode()], counts[AttendanceStatus.LATE.getCode()]);
+    }
+
+    /** Collects rows in any order; build() sorts them and assigns the dictionary. */
+    public static class Builder {
+        private final String className;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> studentIds = new ArrayList<>();
+        private final List<String> studentNames = new ArrayList<>();
+        private final List<long[]> rows = new ArrayList<>();
+        private final List<String> remarks = new ArrayList<>();
+
+        public Builder(String className, LocalDate from, LocalDate to) {
+            this.className = className;
+            this.from = from;
+            this.to = to;
+        }
+
+        public Builder add(LocalDate date, String studentId, String studentName, AttendanceStatus status,
+                           String remark) {
+            int student = dictionary.computeIfAbsent(studentId, id -> {
+                studentIds.add(id);
+                studentNames.add(studentName);
+                return studentIds.size() - 1;
+            });
+            rows.add(new long[] { date.toEpochDay(), student, status.getCode(), remarks.size() });
+            remarks.add(remark == null || remark.isEmpty() ? null : remark);
+            return this;
+        }
+
+        public AttendanceSnapshot build() {
+            rows.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+            int[] days = new int[rows.size()];
+            int[] students = new int[rows.size()];
+            byte[] statuses = new byte[rows.size()];
+            String[] sortedRemarks = new String[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                long[] row = rows.get(i);
+                days[i] = (int) row[0];
+                students[i] = (int) row[1];
+                statuses[i] = (byte) row[2];
+                sortedRemarks[i] = remarks.get((int) row[3]);
+            }
+            return new AttendanceSnapshot(className, from, to, LocalDateTime.now().withNano(0),
+                studentIds.toArray(new String[0]), studentNames.toArray(new String[0]),
+                days, students, statuses, sortedRemarks);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package attendance.model;
+
+/** Attendance counts over a date range; rates are percentages of the total. */
+public record AttendanceStatistics(int totalRecords, int presentCount, int absentCount, int lateCount) {
+
+    public static final AttendanceStatistics EMPTY = new AttendanceStatistics(0, 0, 0, 0);
+
+    public double presentRate() {
+        return rate(presentCount);
+    }
+
+    public double absentRate() {
+        return rate(absentCount);
+    }
+
+    public double lateRate() {
+        return rate(lateCount);
+    }
+
+    private double rate(int count) {
+        return totalRecords > 0 ? count * 100.0 / totalRecords : 0.0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package attendance.model;
+
+/**
+ * Attendance status as stored in attendance_records.status. The column holds
+ * the code, so the codes must never be renumbered; add new values at the end.
+ */
+public enum AttendanceStatus {
+    ABSENT(0),
+    PRESENT(1),
+    LATE(2),
+    EXCUSED(3);
+
+    private static final AttendanceStatus[] BY_CODE = values();
+
+    private final int code;
+
+    AttendanceStatus(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    // Present and late both count as attended
+    public boolean isAttended() {
+        return this == PRESENT || this == LATE;
+    }
+
+    public static AttendanceStatus fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown attendance status code: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    /** Parses the names used in the UI and older rows; null or blank means ABSENT. */
+    public static AttendanceStatus parse(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return ABSENT;
+        }
+        return valueOf(name.trim().toUpperCase());
+    }
+
+    /** SQL CHECK condition limiting a column to the known codes. */
+    public static String sqlCheck(String column) {
+        return column + " BETWEEN 0 AND " + (BY_CODE.length - 1);
+    }
+
+    /** SQL expression mapping a code column back to the status name. */
+    public static String sqlName(String codeExpression) {
+        StringBuilder sql = new StringBuilder("(CASE " + codeExpression);
+        for (AttendanceStatus status : BY_CODE) {
+            sql.append(" WHEN ").append(status.code).append(" THEN '").append(status.name()).append("'");
+        }
+        return sql.append(" END)").toString();
+    }
+
+    /**
+     * SQL expression mapping a status name, in any case, or a code to the code.
+     * Anything else yields NULL.
+     */
+    public static String sqlCode(String expression) {
+        StringBuilder sql = new StringBuilder("(CASE UPPER(" + expression + ")");
+        for (AttendanceStatus status : BY_CODE) {
+            sql.append(" WHEN '").append(status.name()).append("' THEN ").append(status.code);
+            sql.append(" WHEN '").append(status.code).append("' THEN ").append(status.code);
+        }
+        return sql.append(" END)").toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package attendance.model;
+
+/**
+ * A student in a class with their attendance for one day. Id is the students
+ * row id. Status and hlc, the row's HybridLogicalClock stamp, are null when
+ * nothing has been recorded for that day yet.
+ */
+public record ClassAttendanceRow(int id, String studentId, String firstName, String lastName,
+                                 AttendanceStatus status, String remarks, Long hlc) {
+
+    public boolean isRecorded() {
+        return status != null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package attendance.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * One weekly meeting of a class, as parsed from classes.schedule and stored
+ * in class_slots. end is exclusive.
+ */
+public record ClassSlot(int classId, DayOfWeek day, LocalTime start, LocalTime end) {
+
+    @Override
+    public String toString() {
+        return day.name().substring(0, 1) + day.name().substring(1, 3).toLowerCase() + " " + start + "-" + end;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package attendance.model;
+
+/**
+ * One row of a class listing: the classes columns plus the teacher's display
+ * name and how many students are linked to the class.
+ */
+public record ClassSummary(int id, String className, String room, String schedule,
+                           int teacherId, String teacherName, int studentCount) {
+
+    public static final String NO_TEACHER = "No Teacher Assigned";
+
+    public boolean hasTeacher() {
+        return teacherId > 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package attendance.model;
+
+/** A student as listed in a class roster. */
+public record StudentSummary(int id, String studentId, String firstName, String lastName, String email) {
+
+    public String fullName() {
+        return firstName + " " + lastName;
+    }
+}
\ No newline at end of file
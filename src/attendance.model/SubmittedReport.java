@@ -0,0 +1,12 @@
+package attendance.model;
+
+/** A row of attendance_reports without its snapshot data. */
+public record SubmittedReport(int id, int teacherId, String teacherName, String className,
+                              String fromDate, String toDate, String submittedDate, String status) {
+
+    /** One line for pickers, e.g. "#12 Math 101 (2025-01-06 to 2025-01-10) by Jane Doe". */
+    public String describe() {
+        return "#" + id + " " + className + " (" + fromDate + " to " + toDate + ") by " +
+               (teacherName != null ? teacherName : "Unknown teacher");
+    }
+}
\ No newline at end of file
@@ -7,8 +7,10 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 import src.attendance.controller.MainController;
 import src.attendance.model.User;
+import src.attendance.service.DatabaseMaintenanceService;
 import src.attendance.service.DatabaseService;
 import src.attendance.service.DatabaseUpdateService;
+import src.attendance.service.IncrementalBackupStore;
 
 public class Main extends Application {
     
@@ -43,6 +45,12 @@ public class Main extends Application {
             
             System.out.println("✅ MySQL Database ready");
             
+            // Background WAL checkpoints, incremental vacuum and ANALYZE; WAL frames are
+            // archived before each checkpoint for point-in-time restore
+            DatabaseMaintenanceService.getInstance().setWalArchive(
+                new IncrementalBackupStore(IncrementalBackupStore.DEFAULT_STORE_DIR));
+            DatabaseMaintenanceService.getInstance().start();
+            
             showLoginPage();
             
         } catch (Exception e) {
@@ -59,6 +67,11 @@ public class Main extends Application {
         }
     }
     
+    @Override
+    public void stop() {
+        DatabaseMaintenanceService.getInstance().stop();
+    }
+    
     private void showErrorDialog(String title, String message) {
         try {
             javafx.scene.control.Alert alert = new javafx.scene.control.Alert(